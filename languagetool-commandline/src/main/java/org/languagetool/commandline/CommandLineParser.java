@@ -24,7 +24,6 @@ import java.util.Collections;
 import java.util.List;
 
 import org.languagetool.Language;
-import org.languagetool.tools.LanguageIdentifierTools;
 
 /**
  * Parser for the command line arguments.
@@ -44,8 +43,6 @@ public class CommandLineParser {
       } else if (args[i].equals("-h") || args[i].equals("-help") || args[i].equals("--help") || args[i].equals("--?")) {
         options.setPrintUsage(true);
       } else if (args[i].equals("-adl") || args[i].equals("--autoDetect")) {    // set autoDetect flag
-        // also initialize the other language profiles for the LanguageIdentifier
-        LanguageIdentifierTools.addLtProfiles();
         options.setAutoDetect(true);
       } else if (args[i].equals("-v") || args[i].equals("--verbose")) {
         options.setVerbose(true);
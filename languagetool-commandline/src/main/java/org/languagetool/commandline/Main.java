@@ -18,12 +18,13 @@
  */
 package org.languagetool.commandline;
 
-import org.apache.tika.language.LanguageIdentifier;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.MultiThreadedJLanguageTool;
 import org.languagetool.bitext.TabBitextReader;
+import org.languagetool.language.DetectedLanguage;
 import org.languagetool.language.English;
+import org.languagetool.language.LanguageDetector;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.bitext.BitextRule;
 import org.languagetool.tools.JnaTools;
@@ -524,17 +525,26 @@ class Main {
     }
   }
 
-  // for language auto detect
-  // TODO: alter tika's language profiles so they are in line with LT's supported languages
+  // for language auto detect - only the start of the file is needed, as the detector uses just a prefix of the text:
   private static Language detectLanguageOfFile(final String filename, final String encoding) throws IOException {
-    final String text = StringTools.readFile(new FileInputStream(filename), encoding);
-    return detectLanguageOfString(text);
+    final char[] buffer = new char[LanguageDetector.DEFAULT_MAX_SAMPLE_LENGTH];
+    int length = 0;
+    try (Reader reader = encoding != null ? new InputStreamReader(new FileInputStream(filename), encoding)
+                                          : new InputStreamReader(new FileInputStream(filename))) {
+      int read;
+      while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+      }
+    }
+    return detectLanguageOfString(new String(buffer, 0, length));
   }
 
+  /**
+   * @return the detected language, or {@code null} if it could not be detected
+   */
   private static Language detectLanguageOfString(final String text) {
-    final LanguageIdentifier identifier = new LanguageIdentifier(text);
-    final Language lang = Language.getLanguageForShortName(identifier.getLanguage());
-    return lang;
+    final DetectedLanguage detectedLanguage = LanguageDetector.getDefaultInstance().detectLanguage(text);
+    return detectedLanguage != null ? detectedLanguage.getLanguage() : null;
   }
 
 }
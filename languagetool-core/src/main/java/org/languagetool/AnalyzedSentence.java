@@ -42,6 +42,8 @@ public class AnalyzedSentence {
    */
   private int[] whPositions;
 
+  private volatile AnalyzedSentenceColumns columns;
+
   /**
    * Sets {@link AnalyzedTokenReadings}. Whitespace is also a token.
    */
@@ -90,6 +92,24 @@ public class AnalyzedSentence {
     return nonBlankTokens.clone();
   }
 
+  /**
+   * Returns the tokens without whitespace (as in {@link #getTokensWithoutWhitespace()})
+   * in a column-oriented layout that allows to quickly rule out pattern matches.
+   * The columns are created on first use.
+   * @since 2.3
+   */
+  public final AnalyzedSentenceColumns getColumns() {
+    AnalyzedSentenceColumns result = columns;
+    if (result == null) {
+      if (nonBlankTokens == null) {
+        getTokensWithoutWhitespace();
+      }
+      result = new AnalyzedSentenceColumns(nonBlankTokens);
+      columns = result;
+    }
+    return result;
+  }
+
   /**
    * Get a position of a non-whitespace token in the original sentence with
    * whitespace.
@@ -201,6 +221,7 @@ public class AnalyzedSentence {
    */
   public void setNonBlankTokens(AnalyzedTokenReadings[] nonBlankTokens) {
     this.nonBlankTokens = nonBlankTokens;
+    this.columns = null;
   }
 
   @Override
@@ -0,0 +1,211 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import java.util.Arrays;
+
+/**
+ * A read-only, column-oriented copy of the data in an {@link AnalyzedSentence} that
+ * pattern matching looks at most often. Instead of walking {@link AnalyzedTokenReadings}
+ * and {@link AnalyzedToken} objects, the sentence is stored as a few parallel {@code int}
+ * arrays: one entry per token (flags, reading offsets) and one entry per reading (hashes
+ * of the token, the lemma and the POS tag). Token indexes are those of
+ * {@link AnalyzedSentence#getTokensWithoutWhitespace()}.
+ *
+ * <p>Hashes are not unique, so the {@code mayContain...} methods can only be used
+ * to rule out matches: {@code false} means the sentence definitely has no such
+ * token, {@code true} means it might have one.
+ *
+ * <p>The columns reflect the sentence at the time they were created. Get them
+ * via {@link AnalyzedSentence#getColumns()}, which builds them once per sentence.
+ *
+ * @since 2.3
+ */
+public final class AnalyzedSentenceColumns {
+
+  public static final int WHITESPACE_BEFORE = 1;
+  public static final int SENTENCE_START = 1 << 1;
+  public static final int SENTENCE_END = 1 << 2;
+  public static final int PARAGRAPH_END = 1 << 3;
+  public static final int IMMUNIZED = 1 << 4;
+  public static final int LINEBREAK = 1 << 5;
+
+  private final int[] flags;
+  private final int[] readingOffsets;
+  private final int[] tokenHashes;
+  private final int[] lemmaHashes;
+  private final int[] posTagHashes;
+
+  // sorted copies of the reading columns, for binary search:
+  private final int[] sortedTokenHashes;
+  private final int[] sortedLemmaHashes;
+  private final int[] sortedPosTagHashes;
+
+  AnalyzedSentenceColumns(AnalyzedTokenReadings[] tokens) {
+    flags = new int[tokens.length];
+    readingOffsets = new int[tokens.length + 1];
+    int readingCount = 0;
+    for (int i = 0; i < tokens.length; i++) {
+      readingOffsets[i] = readingCount;
+      readingCount += tokens[i].getReadingsLength();
+    }
+    readingOffsets[tokens.length] = readingCount;
+    tokenHashes = new int[readingCount];
+    lemmaHashes = new int[readingCount];
+    posTagHashes = new int[readingCount];
+    int r = 0;
+    for (int i = 0; i < tokens.length; i++) {
+      final AnalyzedTokenReadings token = tokens[i];
+      flags[i] = getFlags(token);
+      for (int j = 0; j < token.getReadingsLength(); j++) {
+        final AnalyzedToken reading = token.getAnalyzedToken(j);
+        tokenHashes[r] = caseInsensitiveHash(reading.getToken());
+        lemmaHashes[r] = caseInsensitiveHash(reading.getTokenInflected());
+        posTagHashes[r] = reading.getPOSTag() != null ? reading.getPOSTag().hashCode() : 0;
+        r++;
+      }
+    }
+    sortedTokenHashes = sortedCopy(tokenHashes);
+    sortedLemmaHashes = sortedCopy(lemmaHashes);
+    sortedPosTagHashes = sortedCopy(posTagHashes);
+  }
+
+  /**
+   * A hash code that is equal for strings that are equal according to
+   * {@link String#equalsIgnoreCase(String)}.
+   */
+  public static int caseInsensitiveHash(String s) {
+    if (s == null) {
+      return 0;
+    }
+    int h = 0;
+    for (int i = 0; i < s.length(); i++) {
+      h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+    }
+    return h;
+  }
+
+  /**
+   * Number of tokens, i.e. the length of {@link AnalyzedSentence#getTokensWithoutWhitespace()}.
+   */
+  public int getTokenCount() {
+    return flags.length;
+  }
+
+  /**
+   * Number of readings of all tokens.
+   */
+  public int getReadingCount() {
+    return tokenHashes.length;
+  }
+
+  /**
+   * Index of the first reading of the given token.
+   */
+  public int getReadingStart(int tokenIndex) {
+    return readingOffsets[tokenIndex];
+  }
+
+  /**
+   * Index after the last reading of the given token.
+   */
+  public int getReadingEnd(int tokenIndex) {
+    return readingOffsets[tokenIndex + 1];
+  }
+
+  /**
+   * @return true if the token has all the given flags, e.g. {@link #SENTENCE_END}
+   */
+  public boolean hasFlags(int tokenIndex, int flagMask) {
+    return (flags[tokenIndex] & flagMask) == flagMask;
+  }
+
+  /**
+   * The {@link #caseInsensitiveHash(String)} of the token of the given reading.
+   */
+  public int getTokenHash(int readingIndex) {
+    return tokenHashes[readingIndex];
+  }
+
+  /**
+   * The {@link #caseInsensitiveHash(String)} of {@link AnalyzedToken#getTokenInflected()} of the given reading.
+   */
+  public int getLemmaHash(int readingIndex) {
+    return lemmaHashes[readingIndex];
+  }
+
+  /**
+   * The {@link String#hashCode()} of the POS tag of the given reading, or {@code 0} if it has none.
+   */
+  public int getPosTagHash(int readingIndex) {
+    return posTagHashes[readingIndex];
+  }
+
+  /**
+   * @return false if no reading has the given token (ignoring case)
+   */
+  public boolean mayContainToken(String token) {
+    return Arrays.binarySearch(sortedTokenHashes, caseInsensitiveHash(token)) >= 0;
+  }
+
+  /**
+   * @return false if no reading has the given lemma (ignoring case) - readings without
+   *   a lemma are considered to have their token as lemma
+   */
+  public boolean mayContainLemma(String lemma) {
+    return Arrays.binarySearch(sortedLemmaHashes, caseInsensitiveHash(lemma)) >= 0;
+  }
+
+  /**
+   * @return false if no reading has exactly the given POS tag
+   */
+  public boolean mayContainPosTag(String posTag) {
+    return Arrays.binarySearch(sortedPosTagHashes, posTag.hashCode()) >= 0;
+  }
+
+  private static int getFlags(AnalyzedTokenReadings token) {
+    int result = 0;
+    if (token.isWhitespaceBefore()) {
+      result |= WHITESPACE_BEFORE;
+    }
+    if (token.isSentenceStart()) {
+      result |= SENTENCE_START;
+    }
+    if (token.isSentenceEnd()) {
+      result |= SENTENCE_END;
+    }
+    if (token.isParagraphEnd()) {
+      result |= PARAGRAPH_END;
+    }
+    if (token.isImmunized()) {
+      result |= IMMUNIZED;
+    }
+    if (token.isLinebreak()) {
+      result |= LINEBREAK;
+    }
+    return result;
+  }
+
+  private static int[] sortedCopy(int[] values) {
+    final int[] result = values.clone();
+    Arrays.sort(result);
+    return result;
+  }
+
+}
@@ -37,11 +37,6 @@ public class AnalyzedToken {
   private final String posTag;
   private final String lemma;
 
-  /**
-   * used only for matching with Elements
-   */
-  private final String tokenInflected;
-
   private boolean isWhitespaceBefore;
   
   private boolean hasNoPOSTag;
@@ -50,11 +45,6 @@ public class AnalyzedToken {
     this.token = Objects.requireNonNull(token, "token cannot be null");
     this.posTag = posTag;
     this.lemma = lemma;    
-    if (lemma == null) {
-      tokenInflected = token;
-    } else {
-      tokenInflected = lemma;
-    }
     hasNoPOSTag = (posTag == null 
         || JLanguageTool.SENTENCE_END_TAGNAME.equals(posTag)
         || JLanguageTool.PARAGRAPH_END_TAGNAME.equals(posTag));
@@ -79,7 +69,8 @@ public class AnalyzedToken {
    * Like {@link #getLemma()}, but returns the token if the lemma is {@code null}
    */
   public final String getTokenInflected() {
-    return tokenInflected;
+    // not stored, as it's only used for matching with Elements:
+    return lemma == null ? token : lemma;
   }
   
   public final void setWhitespaceBefore(final boolean isWhite) {
@@ -140,7 +131,7 @@ public class AnalyzedToken {
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder();
-    sb.append(tokenInflected);
+    sb.append(getTokenInflected());
     sb.append('/');
     sb.append(posTag);
     return sb.toString();
@@ -38,7 +38,8 @@ public class AnalyzedTokenReadings implements Iterable<AnalyzedToken> {
 
   private int startPos;
   private String token;
-  private List<ChunkTag> chunkTags = new ArrayList<>();
+  // shared empty list, as most tokens never get chunk tags:
+  private List<ChunkTag> chunkTags = Collections.emptyList();
 
   private boolean isWhitespace;
   private boolean isLinebreak;
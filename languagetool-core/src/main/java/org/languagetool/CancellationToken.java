@@ -0,0 +1,114 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allows stopping a running check, either from another thread via {@link #cancel()}
+ * or automatically once a time limit has passed. Set it with
+ * {@link JLanguageTool#setCancellationToken(CancellationToken)}. The check polls
+ * the token between sentences and between rules and throws a
+ * {@link CheckCancelledException} once it has been cancelled. The token can also limit
+ * the time spent on creating suggestions, see {@link #setSuggestionTimeBudget(long)}.
+ * @since 2.3
+ */
+public class CancellationToken {
+
+  private final long deadlineNanos;
+  private final boolean hasDeadline;
+  private final AtomicLong suggestionNanosLeft = new AtomicLong(Long.MAX_VALUE);
+  private volatile boolean cancelled;
+
+  /**
+   * A token without a time limit that is only cancelled by {@link #cancel()}.
+   */
+  public CancellationToken() {
+    this.deadlineNanos = 0;
+    this.hasDeadline = false;
+  }
+
+  /**
+   * @param timeoutMillis the time in milliseconds after which the token counts as cancelled
+   */
+  public CancellationToken(long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("timeoutMillis must be >= 0: " + timeoutMillis);
+    }
+    this.deadlineNanos = System.nanoTime() + timeoutMillis * 1000 * 1000;
+    this.hasDeadline = true;
+  }
+
+  /**
+   * Stop the check as soon as possible. May be called from any thread.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * @return true if {@link #cancel()} has been called or the time limit has passed
+   */
+  public boolean isCancelled() {
+    return cancelled || isTimedOut();
+  }
+
+  /**
+   * @return true if the time limit has passed
+   */
+  public boolean isTimedOut() {
+    return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+  }
+
+  /**
+   * Limit the time spent on creating the suggestions of spelling matches in total, for all checks
+   * that use this token. A limit per misspelled word is not enough, as a text may contain many
+   * of them. Once the budget is used up, further matches get no suggestions. By default, there's
+   * no limit.
+   * @param millis the time budget in milliseconds
+   */
+  public void setSuggestionTimeBudget(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("millis must be >= 0: " + millis);
+    }
+    suggestionNanosLeft.set(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  /**
+   * @return the time in nanoseconds that may still be spent on creating suggestions: {@code 0} if the
+   *         budget is used up or the token has been cancelled, {@link Long#MAX_VALUE} if there's no limit
+   */
+  public long getSuggestionNanosLeft() {
+    if (isCancelled()) {
+      return 0;
+    }
+    return Math.max(0, suggestionNanosLeft.get());
+  }
+
+  /**
+   * Count time spent on creating suggestions against the budget, see {@link #setSuggestionTimeBudget(long)}.
+   */
+  public void addSuggestionTime(long nanos) {
+    if (suggestionNanosLeft.get() != Long.MAX_VALUE) {
+      suggestionNanosLeft.addAndGet(-nanos);
+    }
+  }
+
+}
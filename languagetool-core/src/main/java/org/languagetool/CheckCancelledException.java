@@ -0,0 +1,59 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.RuleMatch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by the {@code check} methods of {@link JLanguageTool} if the check was stopped
+ * by its {@link CancellationToken}. The matches found so far are available via
+ * {@link #getPartialMatches()}, they are incomplete, as not all rules have been applied to all sentences.
+ * @since 2.3
+ */
+public class CheckCancelledException extends RuntimeException {
+
+  private static final long serialVersionUID = -2389561727823167324L;
+
+  private final List<RuleMatch> partialMatches;
+  private final boolean timedOut;
+
+  public CheckCancelledException(List<RuleMatch> partialMatches, boolean timedOut) {
+    super(timedOut ? "Check stopped because its time limit was exceeded" : "Check cancelled");
+    this.partialMatches = Collections.unmodifiableList(partialMatches);
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * The matches found before the check was stopped, sorted like the result of a complete check.
+   */
+  public List<RuleMatch> getPartialMatches() {
+    return partialMatches;
+  }
+
+  /**
+   * @return true if the check was stopped because of the token's time limit, false if it was cancelled explicitly
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+}
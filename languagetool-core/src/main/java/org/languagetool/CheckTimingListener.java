@@ -0,0 +1,73 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.Rule;
+
+/**
+ * Receives timing information about the checks of a {@link JLanguageTool} instance, e.g.
+ * to find slow rules in production. Set it with
+ * {@link JLanguageTool#setCheckTimingListener(CheckTimingListener)}. With
+ * {@link MultiThreadedJLanguageTool}, the methods are called from several threads,
+ * so implementations need to be thread-safe. They should also be fast, as they are
+ * called during the check.
+ * @since 2.3
+ */
+public interface CheckTimingListener {
+
+  /**
+   * The phases of a check, in the order they run.
+   */
+  enum Phase {
+    /** Splitting the text into sentences. */
+    SENTENCE_SPLITTING,
+    /** Tokenizing, tagging, chunking and disambiguating the sentences. */
+    ANALYSIS,
+    /** Running the rules on the analyzed sentences. */
+    RULE_MATCHING
+  }
+
+  /**
+   * Called when a phase of a check starts.
+   */
+  void phaseStarted(Phase phase);
+
+  /**
+   * Called when a phase of a check has finished, also if the check has been cancelled
+   * or failed in that phase.
+   * @param durationNanos the time the phase took
+   */
+  void phaseFinished(Phase phase, long durationNanos);
+
+  /**
+   * Called before the rules run on a sentence. As measuring every rule on every sentence
+   * adds overhead, the listener can select a sample of the sentences here. The sample
+   * can be kept across several {@link JLanguageTool} instances that share the listener.
+   * @return {@code true} to get {@link #ruleFinished(Rule, long, int)} calls for this sentence
+   */
+  boolean sampleRules();
+
+  /**
+   * Called after a rule has been run on a sentence selected with {@link #sampleRules()}.
+   * @param durationNanos the time the rule took for the sentence
+   * @param matchCount the number of matches the rule found in the sentence
+   */
+  void ruleFinished(Rule rule, long durationNanos, int matchCount);
+
+}
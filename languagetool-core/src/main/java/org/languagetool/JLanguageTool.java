@@ -58,6 +58,7 @@ import org.languagetool.rules.spelling.SpellingCheckRule;
 import org.languagetool.rules.spelling.SuggestionExtractor;
 import org.languagetool.tagging.Tagger;
 import org.languagetool.tagging.disambiguation.Disambiguator;
+import org.languagetool.tokenizers.TokenList;
 import org.languagetool.tokenizers.Tokenizer;
 import org.xml.sax.SAXException;
 
@@ -137,6 +138,9 @@ public class JLanguageTool {
   private int sentenceCount;
 
   private boolean listUnknownWords;
+  private int maxSuggestions = -1;
+  private volatile CancellationToken cancellationToken;
+  private volatile CheckTimingListener checkTimingListener;
   private Set<String> unknownWords;  
 
   /**
@@ -246,6 +250,65 @@ public class JLanguageTool {
     this.listUnknownWords = listUnknownWords;
   }
 
+  /**
+   * Limit the number of suggestions of each match returned by the {@link #check(String)} methods.
+   * Use {@code 0} if you only need the error positions: the suggestions of rules that
+   * compute them lazily, like the spell checkers, will then not be computed at all.
+   * @param maxSuggestions the maximum number of suggestions per match, or {@code -1} (default) for no limit
+   * @since 2.3
+   */
+  public void setMaxSuggestions(final int maxSuggestions) {
+    if (maxSuggestions < -1) {
+      throw new IllegalArgumentException("maxSuggestions must be >= -1: " + maxSuggestions);
+    }
+    this.maxSuggestions = maxSuggestions;
+  }
+
+  /**
+   * @see #setMaxSuggestions(int)
+   * @since 2.3
+   */
+  public int getMaxSuggestions() {
+    return maxSuggestions;
+  }
+
+  /**
+   * Use a token that allows stopping the {@link #check(String)} methods before they
+   * have finished, e.g. to limit the time spent on a check. A stopped check throws a
+   * {@link CheckCancelledException} that contains the matches found so far.
+   * @param cancellationToken the token used by all following checks, or {@code null} (default)
+   * @since 2.3
+   */
+  public void setCancellationToken(final CancellationToken cancellationToken) {
+    this.cancellationToken = cancellationToken;
+  }
+
+  /**
+   * @see #setCancellationToken(CancellationToken)
+   * @since 2.3
+   */
+  public CancellationToken getCancellationToken() {
+    return cancellationToken;
+  }
+
+  /**
+   * Get informed about the time the phases of each check take, and about the time each rule
+   * takes on the sentences the listener selects with {@link CheckTimingListener#sampleRules()}.
+   * @param checkTimingListener the listener for all following checks, or {@code null} (default)
+   * @since 2.3
+   */
+  public void setCheckTimingListener(final CheckTimingListener checkTimingListener) {
+    this.checkTimingListener = checkTimingListener;
+  }
+
+  /**
+   * @see #setCheckTimingListener(CheckTimingListener)
+   * @since 2.3
+   */
+  public CheckTimingListener getCheckTimingListener() {
+    return checkTimingListener;
+  }
+
   /**
    * Gets the ResourceBundle (i18n strings) for the default language of the user's system.
    */
@@ -540,48 +603,94 @@ public class JLanguageTool {
    *          Otherwise, it is assumed it's already tokenized.
    * @param paraMode Uses paragraph-level rules only if true.
    * @return a List of {@link RuleMatch} objects, describing potential errors in the text
+   * @throws CheckCancelledException if the check was stopped by the {@link #setCancellationToken(CancellationToken) cancellation token}
    * @since 2.3
    */
   public List<RuleMatch> check(final AnnotatedText annotatedText, boolean tokenizeText, final ParagraphHandling paraMode) throws IOException {
+    final CheckTimingListener listener = checkTimingListener;
     final List<String> sentences;
-    if (tokenizeText) { 
-      sentences = sentenceTokenize(annotatedText.getPlainText());
-    } else {
-      sentences = new ArrayList<>();
-      sentences.add(annotatedText.getPlainText());
+    long phaseStart = startPhase(listener, CheckTimingListener.Phase.SENTENCE_SPLITTING);
+    try {
+      if (tokenizeText) {
+        sentences = sentenceTokenize(annotatedText.getPlainText());
+      } else {
+        sentences = new ArrayList<>();
+        sentences.add(annotatedText.getPlainText());
+      }
+    } finally {
+      finishPhase(listener, CheckTimingListener.Phase.SENTENCE_SPLITTING, phaseStart);
     }
     final List<Rule> allRules = getAllRules();
     printIfVerbose(allRules.size() + " rules activated for language " + language);
+    for (final Rule rule : allRules) {
+      if (rule instanceof SpellingCheckRule) {
+        // the suggestions of the matches count against the token's suggestion time budget:
+        ((SpellingCheckRule) rule).setCancellationToken(cancellationToken);
+      }
+    }
 
     sentenceCount = sentences.size();
     unknownWords = new HashSet<>();
-    final List<AnalyzedSentence> analyzedSentences = analyzeSentences(sentences);    
-    
-    final List<RuleMatch> ruleMatches = performCheck(analyzedSentences, sentences, allRules, paraMode, annotatedText);
-    
-    if (!ruleMatches.isEmpty() && !paraMode.equals(ParagraphHandling.ONLYNONPARA)) {
-      // removing false positives in paragraph-level rules
-      for (final Rule rule : allRules) {
-        if (rule.isParagraphBackTrack() && (rule.getMatches() != null)) {
-          final List<RuleMatch> rm = rule.getMatches();
-          for (final RuleMatch r : rm) {
-            if (rule.isInRemoved(r)) {
-              ruleMatches.remove(r);
+    final List<AnalyzedSentence> analyzedSentences;
+    phaseStart = startPhase(listener, CheckTimingListener.Phase.ANALYSIS);
+    try {
+      analyzedSentences = analyzeSentences(sentences);
+    } finally {
+      finishPhase(listener, CheckTimingListener.Phase.ANALYSIS, phaseStart);
+    }
+
+    final List<RuleMatch> ruleMatches;
+    phaseStart = startPhase(listener, CheckTimingListener.Phase.RULE_MATCHING);
+    try {
+      ruleMatches = performCheck(analyzedSentences, sentences, allRules, paraMode, annotatedText);
+      if (!ruleMatches.isEmpty() && !paraMode.equals(ParagraphHandling.ONLYNONPARA)) {
+        // removing false positives in paragraph-level rules
+        for (final Rule rule : allRules) {
+          if (rule.isParagraphBackTrack() && (rule.getMatches() != null)) {
+            final List<RuleMatch> rm = rule.getMatches();
+            for (final RuleMatch r : rm) {
+              if (rule.isInRemoved(r)) {
+                ruleMatches.remove(r);
+              }
             }
           }
         }
       }
+    } finally {
+      finishPhase(listener, CheckTimingListener.Phase.RULE_MATCHING, phaseStart);
     }
 
     Collections.sort(ruleMatches);
+    final CancellationToken token = cancellationToken;
+    if (token != null && token.isCancelled()) {
+      throw new CheckCancelledException(ruleMatches, token.isTimedOut());
+    }
     return ruleMatches;
   }
+
+  private long startPhase(CheckTimingListener listener, CheckTimingListener.Phase phase) {
+    if (listener == null) {
+      return 0;
+    }
+    listener.phaseStarted(phase);
+    return System.nanoTime();
+  }
+
+  private void finishPhase(CheckTimingListener listener, CheckTimingListener.Phase phase, long phaseStart) {
+    if (listener != null) {
+      listener.phaseFinished(phase, System.nanoTime() - phaseStart);
+    }
+  }
   
   private List<AnalyzedSentence> analyzeSentences(final List<String> sentences) throws IOException {
     final List<AnalyzedSentence> analyzedSentences = new ArrayList<>();
     
     int j = 0;
     for (final String sentence : sentences) {
+      final CancellationToken token = cancellationToken;
+      if (token != null && token.isCancelled()) {
+        throw new CheckCancelledException(new ArrayList<RuleMatch>(), token.isTimedOut());
+      }
       AnalyzedSentence analyzedSentence = getAnalyzedSentence(sentence);
       rememberUnknownWords(analyzedSentence);
       if (++j == sentences.size()) {
@@ -623,7 +732,13 @@ public class JLanguageTool {
       int columnCount, final String sentence, final AnalyzedSentence analyzedSentence, final AnnotatedText annotatedText)
         throws IOException {
     final List<RuleMatch> sentenceMatches = new ArrayList<>();
+    final CancellationToken token = cancellationToken;
+    final CheckTimingListener listener = checkTimingListener;
+    final boolean timeRules = listener != null && listener.sampleRules();
     for (final Rule rule : allRules) {
+      if (token != null && token.isCancelled()) {
+        break;
+      }
       if (disabledRules.contains(rule.getId())
           || (rule.isDefaultOff() && !enabledRules.contains(rule.getId()))) {
         continue;
@@ -651,7 +766,11 @@ public class JLanguageTool {
         default:
       }
 
+      final long ruleStart = timeRules ? System.nanoTime() : 0;
       final RuleMatch[] thisMatches = rule.match(analyzedSentence);
+      if (timeRules) {
+        listener.ruleFinished(rule, System.nanoTime() - ruleStart, thisMatches.length);
+      }
       for (final RuleMatch element1 : thisMatches) {
         final RuleMatch thisMatch = adjustRuleMatchPos(element1,
             charCount, columnCount, lineCount, sentence, annotatedText);
@@ -684,7 +803,10 @@ public class JLanguageTool {
     }
     final RuleMatch thisMatch = new RuleMatch(match.getRule(),
         fromPos, toPos, match.getMessage(), match.getShortMessage());
-    thisMatch.setSuggestedReplacements(match.getSuggestedReplacements());
+    thisMatch.setSuggestedReplacements(match);
+    if (maxSuggestions != -1) {
+      thisMatch.setMaxSuggestedReplacements(maxSuggestions);
+    }
     final String sentencePartToError = sentence.substring(0, match.getFromPos());
     final String sentencePartToEndOfError = sentence.substring(0,match.getToPos());
     final int lastLineBreakPos = sentencePartToError.lastIndexOf('\n');
@@ -752,6 +874,17 @@ public class JLanguageTool {
     return count;
   }
 
+  private static String removeSoftHyphens(final String token) {
+    final StringBuilder sb = new StringBuilder(token.length());
+    for (int i = 0; i < token.length(); i++) {
+      final char c = token.charAt(i);
+      if (c != '\u00ad') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
   /**
    * Tokenizes the given {@code sentence} into words and analyzes it,
    * and then disambiguates POS tags.
@@ -772,13 +905,27 @@ public class JLanguageTool {
    */
   public AnalyzedSentence getRawAnalyzedSentence(final String sentence) throws IOException {
     final List<String> tokens = wordTokenizer.tokenize(sentence);
-    final Map<Integer, String> softHyphenTokens = new HashMap<>();
+    // a TokenList knows the token positions, other tokenizers only return strings:
+    final TokenList tokenList = tokens instanceof TokenList && ((TokenList) tokens).getText().equals(sentence)
+            ? (TokenList) tokens : null;
+    // the token positions in the sentence, before soft hyphens are removed:
+    final int[] tokenStarts = tokenList == null ? new int[tokens.size() + 1] : null;
+    Map<Integer, String> softHyphenTokens = null;
 
     //for soft hyphens inside words, happens especially in OOo:
-    for (int i = 0; i < tokens.size(); i++) {
-      if (tokens.get(i).indexOf('\u00ad') != -1) {
-        softHyphenTokens.put(i, tokens.get(i));
-        tokens.set(i, tokens.get(i).replaceAll("\u00ad", ""));
+    if (tokenList == null || sentence.indexOf('\u00ad') != -1) {
+      for (int i = 0; i < tokens.size(); i++) {
+        final String token = tokens.get(i);
+        if (tokenStarts != null) {
+          tokenStarts[i + 1] = tokenStarts[i] + token.length();
+        }
+        if (token.indexOf('\u00ad') != -1) {
+          if (softHyphenTokens == null) {
+            softHyphenTokens = new HashMap<>();
+          }
+          softHyphenTokens.put(i, token);
+          tokens.set(i, removeSoftHyphens(token));
+        }
       }
     }
     
@@ -786,27 +933,26 @@ public class JLanguageTool {
     if (chunker != null) {
       chunker.addChunkTags(aTokens);
     }
-    final int numTokens = aTokens.size();
-    int posFix = 0; 
-    for (int i = 1; i < numTokens; i++) {
-      aTokens.get(i).setWhitespaceBefore(aTokens.get(i - 1).isWhitespace());
-      aTokens.get(i).setStartPos(aTokens.get(i).getStartPos() + posFix);
-      if (!softHyphenTokens.isEmpty()) {
-        if (softHyphenTokens.get(i) != null) {
-          aTokens.get(i).addReading(tagger.createToken(softHyphenTokens.get(i), null));
-          posFix += softHyphenTokens.get(i).length() - aTokens.get(i).getToken().length();
-        }
-      }
-    }
-        
+
     final AnalyzedTokenReadings[] tokenArray = new AnalyzedTokenReadings[tokens.size() + 1];
     final AnalyzedToken[] startTokenArray = new AnalyzedToken[1];
     int toArrayCount = 0;
     final AnalyzedToken sentenceStartToken = new AnalyzedToken("", SENTENCE_START_TAGNAME, null);
     startTokenArray[0] = sentenceStartToken;
     tokenArray[toArrayCount++] = new AnalyzedTokenReadings(startTokenArray, 0);
+    // positions refer to the original sentence, so tokens after a soft hyphen aren't shifted:
     int startPos = 0;
-    for (final AnalyzedTokenReadings posTag : aTokens) {
+    for (int i = 0; i < aTokens.size(); i++) {
+      final AnalyzedTokenReadings posTag = aTokens.get(i);
+      if (i > 0) {
+        posTag.setWhitespaceBefore(aTokens.get(i - 1).isWhitespace());
+        if (softHyphenTokens != null && softHyphenTokens.get(i) != null) {
+          posTag.addReading(tagger.createToken(softHyphenTokens.get(i), null));
+        }
+      }
+      if (i < tokens.size()) {
+        startPos = tokenList != null ? tokenList.getStartPos(i) : tokenStarts[i];
+      }
       posTag.setStartPos(startPos);
       tokenArray[toArrayCount++] = posTag;
       startPos += posTag.getToken().length();
@@ -954,8 +1100,12 @@ public class JLanguageTool {
     @Override
     public List<RuleMatch> call() throws Exception {
       final List<RuleMatch> ruleMatches = new ArrayList<>();
+      final CancellationToken token = cancellationToken;
       int i = 0;
       for (final AnalyzedSentence analyzedSentence : analyzedSentences) {
+        if (token != null && token.isCancelled()) {
+          break;  // check() will report the cancellation
+        }
         final String sentence = sentences.get(i++);
         final List<RuleMatch> sentenceMatches =
                 checkAnalyzedSentence(paraMode, rules, charCount, lineCount,
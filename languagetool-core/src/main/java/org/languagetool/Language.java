@@ -134,6 +134,7 @@ public abstract class Language {
   private static final Tagger DEMO_TAGGER = new DemoTagger();
   private static final SentenceTokenizer SENTENCE_TOKENIZER = new SentenceTokenizer();
   private static final WordTokenizer WORD_TOKENIZER = new WordTokenizer();
+  private static final String WARM_UP_TEXT = "LanguageTool";
   
   private UnifierConfiguration unifierConfiguration = new UnifierConfiguration();
   private UnifierConfiguration disambiguationUnifierConfiguration = new UnifierConfiguration();
@@ -304,6 +305,24 @@ public abstract class Language {
     return disambiguationUnifierConfiguration;
   }
   
+  /**
+   * Load the resources used by this language's tokenizers, tagger, chunker, disambiguator
+   * and synthesizer. These are otherwise loaded lazily when a text is checked for the first
+   * time, so calling this makes sense e.g. in a server before it accepts requests.
+   * @since 2.3
+   */
+  public void warmUp() throws IOException {
+    final JLanguageTool langTool = new JLanguageTool(this);
+    langTool.sentenceTokenize(WARM_UP_TEXT);
+    // runs the word tokenizer, tagger, chunker and disambiguator:
+    langTool.getAnalyzedSentence(WARM_UP_TEXT);
+    final Synthesizer synthesizer = getSynthesizer();
+    if (synthesizer != null) {
+      // the empty regex matches no tag, but the dictionary and the tag list get loaded:
+      synthesizer.synthesize(new AnalyzedToken(WARM_UP_TEXT, null, WARM_UP_TEXT), "", true);
+    }
+  }
+
   /**
    * Get the name of the language translated to the current locale,
    * if available. Otherwise, get the untranslated name.
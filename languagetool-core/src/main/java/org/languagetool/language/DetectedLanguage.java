@@ -0,0 +1,59 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import org.languagetool.Language;
+
+/**
+ * The result of a {@link LanguageDetector}.
+ * @since 2.3
+ */
+public class DetectedLanguage {
+
+  private final Language language;
+  private final float confidence;
+
+  DetectedLanguage(Language language, float confidence) {
+    this.language = language;
+    this.confidence = confidence;
+  }
+
+  /**
+   * @return the language, without a variant (e.g. English, not American English)
+   */
+  public Language getLanguage() {
+    return language;
+  }
+
+  /**
+   * @return a value between {@code 0} and {@code 1} that says how much closer the text is to the
+   *         detected language than to the next closest language (one minus the ratio of their distances).
+   *         Even for clear results with sentence-length texts, this is often below {@code 0.1}.
+   *         It's {@code 1} if there is only one language to choose from.
+   */
+  public float getConfidence() {
+    return confidence;
+  }
+
+  @Override
+  public String toString() {
+    return language.getShortName() + " (confidence: " + confidence + ")";
+  }
+
+}
@@ -0,0 +1,365 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.tika.language.LanguageIdentifier;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.tools.LruCache;
+
+/**
+ * Detects the language of a text by comparing its character trigrams with the trigram
+ * profiles of the languages, like Tika's {@link LanguageIdentifier} and with the same
+ * profiles: LanguageTool's own {@code .ngp} files where a language has one, Tika's otherwise.
+ * Like with Tika, a text that is closest to a language LanguageTool doesn't support (e.g. Finnish)
+ * is not detected, so that callers can fall back to a default language. Unlike Tika, the profiles
+ * are kept in sorted primitive arrays, only a prefix of long texts is used, and the results for
+ * recent texts are cached. Thread-safe.
+ * @since 2.3
+ */
+public class LanguageDetector {
+
+  /** Only this many characters at the start of a text are used for detection. */
+  public static final int DEFAULT_MAX_SAMPLE_LENGTH = 2000;
+  public static final int DEFAULT_CACHE_SIZE = 1000;
+
+  private static final String PROFILE_SUFFIX = ".ngp";
+  private static final String TIKA_PROPERTIES = "tika.language.properties";
+  private static final String PROFILE_ENCODING = "UTF-8";
+  private static final int NGRAM_LENGTH = 3;
+  private static final char WORD_BOUNDARY = '_';
+
+  // cached for texts whose language cannot be detected, never returned:
+  private static final DetectedLanguage NOT_DETECTED = new DetectedLanguage(null, 0);
+
+  private static LanguageDetector defaultInstance;
+
+  private final List<Profile> profiles = new ArrayList<>();
+  private final int maxSampleLength;
+  private final Map<Long, DetectedLanguage> cache;
+
+  /**
+   * @return a detector for all languages known to LanguageTool, with the default sample and cache size
+   */
+  public static synchronized LanguageDetector getDefaultInstance() {
+    if (defaultInstance == null) {
+      defaultInstance = new LanguageDetector(Arrays.asList(Language.REAL_LANGUAGES), DEFAULT_MAX_SAMPLE_LENGTH, DEFAULT_CACHE_SIZE);
+    }
+    return defaultInstance;
+  }
+
+  /**
+   * @param languages the languages to detect - variants are ignored, as they cannot be told apart,
+   *                  and so are languages that have no profile
+   * @param maxSampleLength the number of characters at the start of a text that are used for detection
+   * @param cacheSize the number of recent results to keep, {@code 0} to disable the cache
+   */
+  public LanguageDetector(List<Language> languages, int maxSampleLength, int cacheSize) {
+    if (maxSampleLength <= 0) {
+      throw new IllegalArgumentException("maxSampleLength must be > 0: " + maxSampleLength);
+    }
+    final Set<String> languageCodes = new HashSet<>();
+    for (Language language : languages) {
+      final String languageCode = language.getShortName();
+      if (languageCodes.add(languageCode)) {
+        final Profile profile = loadProfile(languageCode, true);
+        if (profile != null) {
+          profiles.add(profile);
+        }
+      }
+    }
+    // Tika's languages that LanguageTool doesn't know, so that such texts aren't taken for the closest supported language:
+    final Set<String> knownLanguageCodes = new HashSet<>();
+    for (Language language : Language.REAL_LANGUAGES) {
+      knownLanguageCodes.add(language.getShortName());
+    }
+    for (String languageCode : getTikaLanguageCodes()) {
+      if (!knownLanguageCodes.contains(languageCode) && !languageCodes.contains(languageCode)) {
+        final Profile profile = loadProfile(languageCode, false);
+        if (profile != null) {
+          profiles.add(profile);
+        }
+      }
+    }
+    this.maxSampleLength = maxSampleLength;
+    this.cache = cacheSize > 0 ? Collections.synchronizedMap(new LruCache<Long, DetectedLanguage>(cacheSize)) : null;
+  }
+
+  /**
+   * @return the language whose profile is closest to the text, or {@code null} if the text contains no letters,
+   *         has no trigram in common with any profile, or is closest to a language LanguageTool doesn't support
+   */
+  public DetectedLanguage detectLanguage(String text) {
+    final String sample = getSample(text);
+    final Long hash = cache != null ? hash(sample) : null;
+    if (cache != null) {
+      final DetectedLanguage cachedResult = cache.get(hash);
+      if (cachedResult != null) {
+        return cachedResult;
+      }
+    }
+    final DetectedLanguage result = detect(sample);
+    if (cache != null && result != null) {
+      cache.put(hash, result);
+    }
+    return result != NOT_DETECTED ? result : null;
+  }
+
+  private String getSample(String text) {
+    if (text.length() <= maxSampleLength) {
+      return text;
+    }
+    // avoid a partial word at the end, as it would add misleading trigrams:
+    int end = maxSampleLength;
+    while (end > maxSampleLength / 2 && Character.isLetter(text.charAt(end))) {
+      end--;
+    }
+    return text.substring(0, end > maxSampleLength / 2 ? end : maxSampleLength);
+  }
+
+  private DetectedLanguage detect(String sample) {
+    final long[] ngrams = getSortedNgrams(sample);
+    if (ngrams.length == 0 || profiles.isEmpty()) {
+      return null;
+    }
+    // count the distinct n-grams, in place:
+    final int[] counts = new int[ngrams.length];
+    int distinct = 0;
+    for (int i = 0; i < ngrams.length; i++) {
+      if (distinct > 0 && ngrams[distinct - 1] == ngrams[i]) {
+        counts[distinct - 1]++;
+      } else {
+        ngrams[distinct] = ngrams[i];
+        counts[distinct] = 1;
+        distinct++;
+      }
+    }
+    double sumOfSquares = 0;
+    for (int i = 0; i < distinct; i++) {
+      sumOfSquares += (double) counts[i] * counts[i];
+    }
+    sumOfSquares /= (double) ngrams.length * ngrams.length;
+
+    // Euclidean distance of the relative frequencies, like Tika's LanguageProfile.distance(), computed
+    // as the square root of both sums of squares minus twice the products of the common n-grams:
+    Profile best = null;
+    double bestDistance = Double.MAX_VALUE;
+    double bestProducts = 0;
+    double secondBestDistance = Double.MAX_VALUE;
+    for (Profile profile : profiles) {
+      final double products = profile.getProducts(ngrams, counts, distinct, ngrams.length);
+      final double distance = Math.sqrt(Math.max(0, sumOfSquares + profile.sumOfSquares - 2 * products));
+      if (distance < bestDistance) {
+        secondBestDistance = bestDistance;
+        bestDistance = distance;
+        bestProducts = products;
+        best = profile;
+      } else if (distance < secondBestDistance) {
+        secondBestDistance = distance;
+      }
+    }
+    if (bestProducts == 0 || !best.supported) {
+      return NOT_DETECTED;  // no n-gram in common, i.e. the result is meaningless, or not a language we can check
+    }
+    final float confidence;
+    if (secondBestDistance == Double.MAX_VALUE) {
+      confidence = 1;  // only one language
+    } else {
+      confidence = (float) (1 - bestDistance / secondBestDistance);
+    }
+    return new DetectedLanguage(Language.getLanguageForShortName(best.languageCode), confidence);
+  }
+
+  /**
+   * The trigrams of the text, the same as Tika's: lowercase letters, with {@code _} at word
+   * boundaries (e.g. {@code _ab}, {@code abc}, {@code bc_}).
+   */
+  private static long[] getSortedNgrams(String text) {
+    final long[] ngrams = new long[text.length() + 1];
+    int ngramCount = 0;
+    long ngram = WORD_BOUNDARY;
+    int lettersSinceBoundary = 0;
+    for (int i = 0; i <= text.length(); i++) {
+      final char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : WORD_BOUNDARY;
+      final boolean isLetter = i < text.length() && Character.isLetter(c);
+      if (!isLetter && lettersSinceBoundary == 0) {
+        continue;  // no word between the boundaries
+      }
+      ngram = ((ngram << Character.SIZE) | (isLetter ? c : WORD_BOUNDARY)) & 0xFFFFFFFFFFFFL;
+      if (isLetter) {
+        lettersSinceBoundary++;
+        if (lettersSinceBoundary >= NGRAM_LENGTH - 1) {
+          ngrams[ngramCount++] = ngram;
+        }
+      } else {
+        if (lettersSinceBoundary >= 1) {
+          ngrams[ngramCount++] = ngram;
+        }
+        lettersSinceBoundary = 0;
+      }
+    }
+    final long[] result = Arrays.copyOf(ngrams, ngramCount);
+    Arrays.sort(result);
+    return result;
+  }
+
+  private static long encode(String ngram) {
+    long result = 0;
+    for (int i = 0; i < ngram.length(); i++) {
+      result = (result << Character.SIZE) | ngram.charAt(i);
+    }
+    return result;
+  }
+
+  // FNV-1a, 64 bit:
+  private static long hash(String text) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < text.length(); i++) {
+      hash ^= text.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static List<String> getTikaLanguageCodes() {
+    final Properties properties = new Properties();
+    try (InputStream stream = LanguageIdentifier.class.getResourceAsStream(TIKA_PROPERTIES)) {
+      if (stream == null) {
+        return Collections.emptyList();
+      }
+      properties.load(stream);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed trying to load " + TIKA_PROPERTIES, e);
+    }
+    final String languages = properties.getProperty("languages", "");
+    return languages.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(languages.split(","));
+  }
+
+  /**
+   * @param supported whether LanguageTool supports the language, otherwise only Tika's profile is used
+   */
+  private static Profile loadProfile(String languageCode, boolean supported) {
+    final String ltProfile = "/" + languageCode + "/" + languageCode + PROFILE_SUFFIX;
+    try {
+      if (supported && JLanguageTool.getDataBroker().resourceExists(ltProfile)) {
+        try (InputStream stream = JLanguageTool.getDataBroker().getFromResourceDirAsStream(ltProfile)) {
+          return readProfile(languageCode, supported, stream);
+        }
+      }
+      try (InputStream stream = LanguageIdentifier.class.getResourceAsStream(languageCode + PROFILE_SUFFIX)) {
+        return stream != null ? readProfile(languageCode, supported, stream) : null;
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed trying to load language profile for language \"" + languageCode + "\".", e);
+    }
+  }
+
+  private static Profile readProfile(String languageCode, boolean supported, InputStream stream) throws IOException {
+    final List<String> ngrams = new ArrayList<>();
+    final List<Long> counts = new ArrayList<>();
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, PROFILE_ENCODING));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.length() > 0 && !line.startsWith("#")) {
+        final int space = line.indexOf(' ');
+        final String ngram = line.substring(0, space);
+        if (ngram.length() == NGRAM_LENGTH) {
+          ngrams.add(ngram);
+          counts.add(Long.parseLong(line.substring(space + 1)));
+        }
+      }
+    }
+    return new Profile(languageCode, supported, ngrams, counts);
+  }
+
+  /**
+   * The relative frequencies of a language's trigrams.
+   */
+  private static class Profile {
+
+    private final String languageCode;
+    private final boolean supported;
+    private final long[] ngrams;  // sorted
+    private final double[] frequencies;
+    private final double sumOfSquares;
+
+    Profile(String languageCode, boolean supported, List<String> ngramList, List<Long> countList) {
+      this.languageCode = languageCode;
+      this.supported = supported;
+      final long[][] entries = new long[ngramList.size()][];
+      long total = 0;
+      for (int i = 0; i < entries.length; i++) {
+        entries[i] = new long[] {encode(ngramList.get(i)), countList.get(i)};
+        total += countList.get(i);
+      }
+      Arrays.sort(entries, new Comparator<long[]>() {
+        @Override
+        public int compare(long[] a, long[] b) {
+          return Long.compare(a[0], b[0]);
+        }
+      });
+      ngrams = new long[entries.length];
+      frequencies = new double[entries.length];
+      double squares = 0;
+      for (int i = 0; i < entries.length; i++) {
+        ngrams[i] = entries[i][0];
+        frequencies[i] = (double) entries[i][1] / Math.max(total, 1);
+        squares += frequencies[i] * frequencies[i];
+      }
+      sumOfSquares = squares;
+    }
+
+    /**
+     * @return the sum of the products of the relative frequencies of the n-grams that occur in both
+     *         the text and the profile, found by merging the sorted arrays
+     */
+    double getProducts(long[] textNgrams, int[] textCounts, int distinct, int total) {
+      double products = 0;
+      int i = 0;
+      int j = 0;
+      while (i < distinct && j < ngrams.length) {
+        if (textNgrams[i] < ngrams[j]) {
+          i++;
+        } else if (textNgrams[i] > ngrams[j]) {
+          j++;
+        } else {
+          products += (double) textCounts[i] / total * frequencies[j];
+          i++;
+          j++;
+        }
+      }
+      return products;
+    }
+  }
+
+}
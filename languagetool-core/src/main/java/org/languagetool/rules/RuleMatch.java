@@ -18,7 +18,9 @@
  */
 package org.languagetool.rules;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.regex.Matcher;
@@ -49,6 +51,8 @@ public class RuleMatch implements Comparable<RuleMatch> {
   private final String shortMessage;   // for OOo/LO context menu
 
   private List<String> suggestedReplacements = new ArrayList<>();
+  private SuggestionProvider suggestionProvider;  // not null as long as lazy suggestions haven't been computed
+  private int maxSuggestedReplacements = -1;
 
   /**
    * Creates a RuleMatch object, taking the rule that triggered
@@ -221,8 +225,76 @@ public class RuleMatch implements Comparable<RuleMatch> {
   /**
    * @see #getSuggestedReplacements()
    */
-  public void setSuggestedReplacements(final List<String> replacements) {
+  public synchronized void setSuggestedReplacements(final List<String> replacements) {
     this.suggestedReplacements = Objects.requireNonNull(replacements, "replacements may be empty but not null");
+    this.suggestionProvider = null;
+  }
+
+  /**
+   * Set suggestions that are computed only when {@link #getSuggestedReplacements()} is
+   * called for the first time. Use this for suggestions that are expensive to create,
+   * like those of spell checkers, so that clients that only need the error positions
+   * don't pay for them.
+   * @since 2.3
+   */
+  public synchronized void setLazySuggestedReplacements(final SuggestionProvider provider) {
+    this.suggestionProvider = Objects.requireNonNull(provider, "provider must not be null");
+  }
+
+  /**
+   * Forget suggestions set with {@link #setLazySuggestedReplacements(SuggestionProvider)} that
+   * have not been computed yet, e.g. because the check has run out of time. Suggestions that
+   * have already been computed are kept.
+   * @since 2.3
+   */
+  public synchronized void discardLazySuggestedReplacements() {
+    if (suggestionProvider != null) {
+      suggestionProvider = null;
+      suggestedReplacements = new ArrayList<>();
+    }
+  }
+
+  /**
+   * Take over the suggestions of the given match. Lazy suggestions are not computed by this.
+   * @since 2.3
+   */
+  public void setSuggestedReplacements(final RuleMatch match) {
+    final boolean isLazy;
+    synchronized (match) {
+      isLazy = match.suggestionProvider != null;
+    }
+    if (isLazy) {
+      setLazySuggestedReplacements(new SuggestionProvider() {
+        @Override
+        public List<String> getSuggestions() {
+          return match.getSuggestedReplacements();
+        }
+      });
+    } else {
+      setSuggestedReplacements(match.getSuggestedReplacements());
+    }
+    setMaxSuggestedReplacements(match.getMaxSuggestedReplacements());
+  }
+
+  /**
+   * Limit the number of suggestions returned by {@link #getSuggestedReplacements()}.
+   * With {@code 0}, no suggestions are returned and lazy suggestions are never computed.
+   * @param maxSuggestedReplacements the maximum number of suggestions or {@code -1} for no limit
+   * @since 2.3
+   */
+  public synchronized void setMaxSuggestedReplacements(final int maxSuggestedReplacements) {
+    if (maxSuggestedReplacements < -1) {
+      throw new IllegalArgumentException("maxSuggestedReplacements must be >= -1: " + maxSuggestedReplacements);
+    }
+    this.maxSuggestedReplacements = maxSuggestedReplacements;
+  }
+
+  /**
+   * @return the maximum number of suggestions or {@code -1} for no limit
+   * @since 2.3
+   */
+  public synchronized int getMaxSuggestedReplacements() {
+    return maxSuggestedReplacements;
   }
 
   /**
@@ -231,7 +303,22 @@ public class RuleMatch implements Comparable<RuleMatch> {
    * to {@link #getToPos()}.
    * @return List of String objects or an empty List
    */
-  public List<String> getSuggestedReplacements() {
+  public synchronized List<String> getSuggestedReplacements() {
+    if (maxSuggestedReplacements == 0) {
+      return Collections.emptyList();
+    }
+    if (suggestionProvider != null) {
+      try {
+        suggestedReplacements = Objects.requireNonNull(suggestionProvider.getSuggestions(),
+                "suggestions may be empty but not null");
+      } catch (IOException e) {
+        throw new RuntimeException("Could not create suggestions for " + this, e);
+      }
+      suggestionProvider = null;
+    }
+    if (maxSuggestedReplacements > 0 && suggestedReplacements.size() > maxSuggestedReplacements) {
+      return suggestedReplacements.subList(0, maxSuggestedReplacements);
+    }
     return suggestedReplacements;
   }
 
@@ -25,9 +25,11 @@ import java.util.List;
 import java.util.Objects;
 
 import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedSentenceColumns;
 import org.languagetool.Language;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.tools.StringTools;
 
 /**
  * An Abstract Pattern Rule that describes a pattern of words or part-of-speech tags 
@@ -54,6 +56,9 @@ public abstract class AbstractPatternRule extends Rule {
 
   private boolean groupsOrUnification;
 
+  /** Elements that must match some token for the rule to match, see {@link #canMatch(AnalyzedSentence)}. */
+  private volatile Element[] requiredElements;
+
   public AbstractPatternRule(final String id, 
       final String description,
       final Language language,
@@ -176,4 +181,63 @@ public abstract class AbstractPatternRule extends Rule {
   public List<Element> getPatternElements() {
     return patternElements;
   }
+
+  /**
+   * A quick test that uses {@link AnalyzedSentence#getColumns()} to find out whether the
+   * sentence lacks a token, lemma or POS tag that a non-optional element of this pattern
+   * requires. Only plain (non-regex, non-negated) strings and POS tags are considered.
+   * @return false if this rule cannot match the sentence, true if it might match
+   * @since 2.3
+   */
+  public boolean canMatch(final AnalyzedSentence sentence) {
+    Element[] elements = requiredElements;
+    if (elements == null) {
+      elements = getRequiredElements();
+      requiredElements = elements;
+    }
+    if (elements.length == 0) {
+      return true;
+    }
+    final AnalyzedSentenceColumns columns = sentence.getColumns();
+    for (final Element element : elements) {
+      if (hasStringRequirement(element)) {
+        final boolean found = element.isInflected()
+            ? columns.mayContainLemma(element.getString())
+            : columns.mayContainToken(element.getString());
+        if (!found) {
+          return false;
+        }
+      }
+      if (hasPosRequirement(element) && !columns.mayContainPosTag(element.getPOStag())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Element[] getRequiredElements() {
+    final List<Element> result = new ArrayList<>();
+    for (final Element element : patternElements) {
+      if (element.getMinOccurrence() == 0 || element.hasOrGroup() || element.isReferenceElement()) {
+        continue;
+      }
+      if (hasStringRequirement(element) || hasPosRequirement(element)) {
+        result.add(element);
+      }
+    }
+    return result.toArray(new Element[result.size()]);
+  }
+
+  private static boolean hasStringRequirement(final Element element) {
+    return !StringTools.isEmpty(element.getString())
+        && !element.isRegularExpression()
+        && !element.getNegation();
+  }
+
+  private static boolean hasPosRequirement(final Element element) {
+    return element.getPOStag() != null
+        && !element.isPOStagRegularExpression()
+        && !element.getPOSNegation()
+        && !Element.UNKNOWN_TAG.equals(element.getPOStag());
+  }
 }
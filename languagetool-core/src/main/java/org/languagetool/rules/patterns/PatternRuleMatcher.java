@@ -45,6 +45,9 @@ class PatternRuleMatcher extends AbstractPatternRulePerformer {
   }
 
   final RuleMatch[] match(final AnalyzedSentence text) throws IOException {
+    if (!rule.canMatch(text)) {
+      return new RuleMatch[0];
+    }
     final List<ElementMatcher> elementMatchers = createElementMatchers();
     final List<RuleMatch> ruleMatches = new ArrayList<>();
     final AnalyzedTokenReadings[] tokens = text.getTokensWithoutWhitespace();
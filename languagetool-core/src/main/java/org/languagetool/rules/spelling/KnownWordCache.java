@@ -0,0 +1,143 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling;
+
+import org.languagetool.tools.LruCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe set of words that a spell checker has already found to
+ * be correct, so frequent words don't need to be looked up in the dictionary again.
+ * Only correct words are stored, misspellings always go to the dictionary. The
+ * cache is split into segments, each with its own lock and LRU eviction, so that
+ * concurrent checks don't all wait for the same lock.
+ * @since 2.3
+ */
+public class KnownWordCache {
+
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments;
+  private final int maxSize;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param maxSize the approximate maximum number of words kept, must be positive
+   */
+  public KnownWordCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    final int segmentCount = Math.min(SEGMENTS, maxSize);
+    final int segmentSize = (maxSize + segmentCount - 1) / segmentCount;
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+  }
+
+  /**
+   * Whether the word is known to be correct. Every call counts as a hit or a miss.
+   */
+  public boolean isKnownCorrect(String word) {
+    final Segment segment = getSegment(word);
+    final boolean found;
+    synchronized (segment) {
+      found = segment.get(word) != null;
+    }
+    if (found) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+    return found;
+  }
+
+  /**
+   * Remember that the word is spelled correctly.
+   */
+  public void addKnownCorrect(String word) {
+    final Segment segment = getSegment(word);
+    synchronized (segment) {
+      segment.put(word, Boolean.TRUE);
+    }
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * The share of {@link #isKnownCorrect(String)} calls that found the word,
+   * between 0 and 1, or 0 if there have been no calls yet.
+   */
+  public double getHitRate() {
+    final long hitCount = hits.get();
+    final long total = hitCount + misses.get();
+    return total == 0 ? 0.0 : (double) hitCount / total;
+  }
+
+  /**
+   * Remove all words and reset the hit and miss counters.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+    hits.set(0);
+    misses.set(0);
+  }
+
+  private Segment getSegment(String word) {
+    final int hash = word.hashCode();
+    return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+  }
+
+  // a non-generic subclass so the segments can be kept in an array:
+  private static class Segment extends LruCache<String, Boolean> {
+    private static final long serialVersionUID = 1L;
+    Segment(int maxSize) {
+      super(maxSize);
+    }
+  }
+
+}
@@ -21,13 +21,17 @@ package org.languagetool.rules.spelling;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.CancellationToken;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestionProvider;
 import org.languagetool.tokenizers.WordTokenizer;
 
 /**
@@ -47,6 +51,16 @@ public abstract class SpellingCheckRule extends Rule {
    * @since 2.3
    */
   public static final String LANGUAGETOOL_FX = "LanguageToolFx";
+  /**
+   * The default number of words kept in the known-correct word cache of each
+   * spelling rule and language, see {@link #setKnownWordCacheSize(int)}.
+   * @since 2.3
+   */
+  public static final int DEFAULT_KNOWN_WORD_CACHE_SIZE = 10000;
+
+  // shared by all instances of a rule class with the same language and configuration:
+  private static final ConcurrentMap<String, KnownWordCache> knownWordCaches = new ConcurrentHashMap<>();
+  private static volatile int knownWordCacheSize = DEFAULT_KNOWN_WORD_CACHE_SIZE;
 
   protected final Language language;
 
@@ -56,6 +70,8 @@ public abstract class SpellingCheckRule extends Rule {
 
   private boolean wordsWithDotsPresent = false;
   private boolean considerIgnoreWords = true;
+  private String knownWordCacheKey;
+  private volatile CancellationToken cancellationToken;
 
   public SpellingCheckRule(final ResourceBundle messages, final Language language) {
     super(messages);
@@ -107,6 +123,154 @@ public abstract class SpellingCheckRule extends Rule {
     }
   }
 
+  /**
+   * Set the token of the current check, whose suggestion time budget limits the time spent on
+   * the suggestions of this rule's matches. Called by {@link JLanguageTool} before each check.
+   * @param cancellationToken the token or {@code null} for no limit
+   * @since 2.3
+   */
+  public void setCancellationToken(CancellationToken cancellationToken) {
+    this.cancellationToken = cancellationToken;
+  }
+
+  /**
+   * @see #setCancellationToken(CancellationToken)
+   * @since 2.3
+   */
+  protected CancellationToken getCancellationToken() {
+    return cancellationToken;
+  }
+
+  /**
+   * Make lazy suggestions respect the suggestion time budget of the current check's token
+   * (see {@link CancellationToken#setSuggestionTimeBudget(long)}): no suggestions are created
+   * once the budget is used up, and the time needed for them is counted against it.
+   * @since 2.3
+   */
+  protected SuggestionProvider limitToSuggestionTimeBudget(final SuggestionProvider provider) {
+    final CancellationToken token = cancellationToken;
+    if (token == null) {
+      return provider;
+    }
+    return new SuggestionProvider() {
+      @Override
+      public List<String> getSuggestions() throws IOException {
+        if (token.getSuggestionNanosLeft() == 0) {
+          return new ArrayList<>();
+        }
+        final long startTime = System.nanoTime();
+        try {
+          return provider.getSuggestions();
+        } finally {
+          token.addSuggestionTime(System.nanoTime() - startTime);
+        }
+      }
+    };
+  }
+
+  /**
+   * Set the number of correct words that each spelling rule remembers per language
+   * so they don't need to be looked up in the dictionary again. Use {@code 0} to
+   * disable the cache. Existing caches are dropped.
+   * @since 2.3
+   */
+  public static void setKnownWordCacheSize(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("size must be >= 0: " + size);
+    }
+    knownWordCacheSize = size;
+    knownWordCaches.clear();
+  }
+
+  /**
+   * @since 2.3
+   */
+  public static int getKnownWordCacheSize() {
+    return knownWordCacheSize;
+  }
+
+  /**
+   * The hit rate of all known-correct word caches together, between 0 and 1.
+   * @since 2.3
+   */
+  public static double getKnownWordCacheHitRate() {
+    long hits = 0;
+    long total = 0;
+    for (KnownWordCache cache : knownWordCaches.values()) {
+      hits += cache.getHitCount();
+      total += cache.getHitCount() + cache.getMissCount();
+    }
+    return total == 0 ? 0.0 : (double) hits / total;
+  }
+
+  /**
+   * The cache of words this rule has found to be correct for its language, shared
+   * with all other instances of the same rule class, language and
+   * {@link #getKnownWordCacheConfiguration() configuration}.
+   * @return the cache or {@code null} if caching is disabled
+   * @since 2.3
+   */
+  public KnownWordCache getKnownWordCache() {
+    final int size = knownWordCacheSize;
+    if (size == 0) {
+      return null;
+    }
+    if (knownWordCacheKey == null) {
+      knownWordCacheKey = getClass().getName() + "/" + language.getShortNameWithVariant()
+              + "/" + getKnownWordCacheConfiguration();
+    }
+    KnownWordCache cache = knownWordCaches.get(knownWordCacheKey);
+    if (cache == null) {
+      final KnownWordCache newCache = new KnownWordCache(size);
+      cache = knownWordCaches.putIfAbsent(knownWordCacheKey, newCache);
+      if (cache == null) {
+        cache = newCache;
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * The settings of this rule that affect whether a word is considered correct,
+   * e.g. the dictionary or the locale used for case conversion. Instances
+   * only share a known-correct word cache if their configuration is the same.
+   * Subclasses that override this must call {@link #resetKnownWordCacheKey()}
+   * when the configuration changes.
+   * @since 2.3
+   */
+  protected String getKnownWordCacheConfiguration() {
+    return "";
+  }
+
+  /**
+   * Make the next cache lookup use {@link #getKnownWordCacheConfiguration()} again.
+   * @since 2.3
+   */
+  protected void resetKnownWordCacheKey() {
+    knownWordCacheKey = null;
+  }
+
+  /**
+   * Whether the word has been found to be correct before, i.e. the dictionary
+   * lookup can be skipped.
+   * @since 2.3
+   */
+  protected boolean isKnownCorrect(String word) {
+    final KnownWordCache cache = getKnownWordCache();
+    return cache != null && cache.isKnownCorrect(word);
+  }
+
+  /**
+   * Remember that the dictionary considers the word to be correct.
+   * @since 2.3
+   */
+  protected void addKnownCorrect(String word) {
+    final KnownWordCache cache = getKnownWordCache();
+    if (cache != null) {
+      cache.addKnownCorrect(word);
+    }
+  }
+
   protected boolean ignoreToken(AnalyzedTokenReadings[] tokens, int idx) throws IOException {
     return ignoreWord(tokens[idx].getToken());
   }
@@ -19,12 +19,14 @@
 package org.languagetool.rules.spelling.hunspell;
 
 import de.abelssoft.wordtools.jwordsplitter.AbstractWordSplitter;
+import org.languagetool.CancellationToken;
 import org.languagetool.Language;
 import org.languagetool.rules.spelling.morfologik.MorfologikSpeller;
 import org.languagetool.tools.StringTools;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A spell checker that combines Hunspell und Morfologik spell checking
@@ -33,62 +35,135 @@ import java.util.*;
  */
 public abstract class CompoundAwareHunspellRule extends HunspellRule {
 
+  /**
+   * The default time in milliseconds that may be spent on creating the suggestions for one word.
+   * @since 2.3
+   */
+  public static final long DEFAULT_SUGGESTION_TIME_BUDGET_MILLIS = 1000;
+
   private static final int MAX_SUGGESTIONS = 20;
-  
+  private static final int SUGGESTION_THREADS = Runtime.getRuntime().availableProcessors();
+
+  // shared by all rules, the candidate sources for a misspelled word are evaluated here in parallel.
+  // The queue is bounded: when it's full, the caller evaluates the source itself, so a burst of
+  // misspellings slows down only the requests that cause it.
+  private static final ExecutorService suggestionExecutor = new ThreadPoolExecutor(
+          SUGGESTION_THREADS, SUGGESTION_THREADS, 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<Runnable>(SUGGESTION_THREADS * 4), new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable r) {
+      final Thread t = new Thread(r);
+      t.setDaemon(true);
+      t.setName(t.getName() + "-lt-suggestions");
+      return t;
+    }
+  }, new ThreadPoolExecutor.CallerRunsPolicy());
+
   private final AbstractWordSplitter wordSplitter;
   private final MorfologikSpeller morfoSpeller;
-  
+
+  private volatile long suggestionTimeBudgetMillis = DEFAULT_SUGGESTION_TIME_BUDGET_MILLIS;
+
   public CompoundAwareHunspellRule(ResourceBundle messages, Language language, AbstractWordSplitter wordSplitter, MorfologikSpeller morfoSpeller) {
     super(messages, language);
     this.wordSplitter = wordSplitter;
     this.morfoSpeller = morfoSpeller;
   }
 
+  /**
+   * Set the maximum time spent on creating the suggestions for one misspelled word. When the
+   * time is over, the suggestions found so far are returned, so the result may be incomplete.
+   * The time left of the check's suggestion time budget, see
+   * {@link CancellationToken#setSuggestionTimeBudget(long)}, limits this further.
+   * @param millis the time budget in milliseconds, or {@code 0} for no limit
+   * @since 2.3
+   */
+  public void setSuggestionTimeBudget(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("millis must be >= 0: " + millis);
+    }
+    suggestionTimeBudgetMillis = millis;
+  }
+
+  /**
+   * @see #setSuggestionTimeBudget(long)
+   * @since 2.3
+   */
+  public long getSuggestionTimeBudget() {
+    return suggestionTimeBudgetMillis;
+  }
+
   /**
    * As a hunspell-based approach is too slow, we use Morfologik to create suggestions. As this
    * won't work for compounds not in the dictionary, we split the word and also get suggestions
    * on the compound parts. In the end, all candidates are filtered against Hunspell again (which 
-   * supports compounds).
+   * supports compounds). The candidate sources are evaluated in parallel, those that don't finish
+   * within the {@link #setSuggestionTimeBudget(long) time budget} or the time left of the check's
+   * suggestion time budget are skipped. As a running
+   * Morfologik search cannot be interrupted, each source also checks the deadline itself and
+   * stops before starting another search once it's over.
    */
   @Override
-  public List<String> getSuggestions(String word) throws IOException {
+  public List<String> getSuggestions(final String word) throws IOException {
     if (needsInit) {
       init();
     }
-    final List<String> candidates = new ArrayList<>();
-    
-    final List<String> noSplitSuggestions = morfoSpeller.getSuggestions(word);
-    candidates.addAll(noSplitSuggestions);
+    final long budgetMillis = suggestionTimeBudgetMillis;
+    long budgetNanos = budgetMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(budgetMillis) : Long.MAX_VALUE;
+    final CancellationToken token = getCancellationToken();
+    if (token != null) {
+      budgetNanos = Math.min(budgetNanos, token.getSuggestionNanosLeft());
+    }
+    final long deadline = budgetNanos != Long.MAX_VALUE ? nanoTime() + budgetNanos : 0;
 
+    final Future<List<String>> noSplitFuture = suggestionExecutor.submit(new Callable<List<String>>() {
+      @Override
+      public List<String> call() {
+        if (isOver(deadline)) {
+          return Collections.emptyList();
+        }
+        return morfoSpeller.getSuggestions(word);
+      }
+    });
+    Future<List<String>> noSplitLowercaseFuture = null;
     if (StringTools.startsWithUppercase(word) && !StringTools.isAllUppercase(word)) {
       // almost all words can be uppercase because they can appear at the start of a sentence:
-      final List<String> noSplitLowercaseSuggestions = morfoSpeller.getSuggestions(word.toLowerCase());
+      noSplitLowercaseFuture = suggestionExecutor.submit(new Callable<List<String>>() {
+        @Override
+        public List<String> call() {
+          if (isOver(deadline)) {
+            return Collections.emptyList();
+          }
+          return morfoSpeller.getSuggestions(word.toLowerCase());
+        }
+      });
+    }
+    final List<String> parts = new ArrayList<>(wordSplitter.splitWord(word));
+    final List<Future<List<String>>> partFutures = new ArrayList<>(parts.size());
+    for (int i = 0; i < parts.size(); i++) {
+      final int partIndex = i;
+      partFutures.add(suggestionExecutor.submit(new Callable<List<String>>() {
+        @Override
+        public List<String> call() {
+          return getPartSuggestions(parts, partIndex, deadline);
+        }
+      }));
+    }
+
+    // collect the results in a fixed order so the result doesn't depend on which source was fastest:
+    final List<String> candidates = new ArrayList<>();
+    candidates.addAll(getResult(noSplitFuture, deadline));
+    if (noSplitLowercaseFuture != null) {
       int pos = candidates.size() == 0 ? 0 : 1;  // first item comes from getSuggestion() above, if any
-      for (String suggestion : noSplitLowercaseSuggestions) {
+      for (String suggestion : getResult(noSplitLowercaseFuture, deadline)) {
         candidates.add(pos, StringTools.uppercaseFirstChar(suggestion));
         // we don't know about the quality of the results here, so mix both lists together,
         // taking elements from both lists on a rotating basis: 
         pos = Math.min(pos + 2, candidates.size());
       }
     }
-
-    final Collection<String> parts = wordSplitter.splitWord(word);
-    int partCount = 0;
-    for (String part : parts) {
-      if (dictionary.misspelled(part)) {
-        List<String> suggestions = morfoSpeller.getSuggestions(part);
-        if (suggestions.size() == 0) {
-          suggestions = morfoSpeller.getSuggestions(StringTools.uppercaseFirstChar(part));
-        }
-        for (String suggestion : suggestions) {
-          final List<String> partsCopy = new ArrayList<>(parts);
-          partsCopy.set(partCount, suggestion);
-          candidates.add(StringTools.listToString(partsCopy, ""));
-        }
-      }
-      // TODO: what if there's no misspelled parts like for Arbeitamt = Arbeit+Amt ??
-      // -> morfologik must be extended to return similar words even for known words
-      partCount++;
+    for (Future<List<String>> partFuture : partFutures) {
+      candidates.addAll(getResult(partFuture, deadline));
     }
     filterDupes(candidates);
     final List<String> suggestions = getCorrectWords(candidates);
@@ -100,6 +175,63 @@ public abstract class CompoundAwareHunspellRule extends HunspellRule {
     return suggestions;
   }
 
+  /**
+   * The current time in nanoseconds, used for the suggestion time budget. Like
+   * {@link System#nanoTime()}, only the difference between two values is meaningful.
+   * @since 2.3
+   */
+  protected long nanoTime() {
+    return System.nanoTime();
+  }
+
+  private boolean isOver(long deadline) {
+    return deadline != 0 && nanoTime() - deadline >= 0;
+  }
+
+  private List<String> getPartSuggestions(List<String> parts, int partIndex, long deadline) {
+    final List<String> candidates = new ArrayList<>();
+    final String part = parts.get(partIndex);
+    if (!isOver(deadline) && dictionary.misspelled(part)) {
+      List<String> suggestions = morfoSpeller.getSuggestions(part);
+      if (suggestions.size() == 0 && !isOver(deadline)) {
+        suggestions = morfoSpeller.getSuggestions(StringTools.uppercaseFirstChar(part));
+      }
+      for (String suggestion : suggestions) {
+        final List<String> partsCopy = new ArrayList<>(parts);
+        partsCopy.set(partIndex, suggestion);
+        candidates.add(StringTools.listToString(partsCopy, ""));
+      }
+    }
+    // TODO: what if there's no misspelled parts like for Arbeitamt = Arbeit+Amt ??
+    // -> morfologik must be extended to return similar words even for known words
+    return candidates;
+  }
+
+  /**
+   * Wait for the result until the deadline ({@code 0} = no deadline). Returns an empty
+   * list if the result isn't available in time.
+   */
+  private List<String> getResult(Future<List<String>> future, long deadline) throws IOException {
+    try {
+      if (deadline == 0) {
+        return future.get();
+      }
+      return future.get(Math.max(0, deadline - nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      return Collections.emptyList();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      return Collections.emptyList();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException("Could not create suggestions", e.getCause());
+    }
+  }
+
   private void filterDupes(List<String> words) {
     final Set<String> seen = new HashSet<>();
     final Iterator<String> iterator = words.iterator();
@@ -113,19 +245,26 @@ public abstract class CompoundAwareHunspellRule extends HunspellRule {
   }
   
   private List<String> getCorrectWords(List<String> wordsOrPhrases) {
-    final List<String> result = new ArrayList<>();
+    // this might be a phrase like "aufgrund dessen", so it needs to be split:
+    final List<String[]> splitWordsOrPhrases = new ArrayList<>(wordsOrPhrases.size());
+    final List<String> allWords = new ArrayList<>();
     for (String wordOrPhrase : wordsOrPhrases) {
-      // this might be a phrase like "aufgrund dessen", so it needs to be split: 
       final String[] words = tokenizeText(wordOrPhrase);
+      splitWordsOrPhrases.add(words);
+      allWords.addAll(Arrays.asList(words));
+    }
+    final boolean[] misspelled = dictionary.misspelled(allWords);
+    final List<String> result = new ArrayList<>();
+    int wordIndex = 0;
+    for (int i = 0; i < wordsOrPhrases.size(); i++) {
       boolean wordIsOkay = true;
-      for (String word : words) {
-        if (dictionary.misspelled(word)) {
+      for (int j = 0; j < splitWordsOrPhrases.get(i).length; j++) {
+        if (misspelled[wordIndex++]) {
           wordIsOkay = false;
-          break;
         }
       }
       if (wordIsOkay) {
-        result.add(wordOrPhrase);
+        result.add(wordsOrPhrases.get(i));
       }
     }
     return result;
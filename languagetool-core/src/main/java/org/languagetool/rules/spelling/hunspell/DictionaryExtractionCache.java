@@ -0,0 +1,277 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.hunspell;
+
+import org.languagetool.JLanguageTool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+/**
+ * Extracts hunspell dictionaries from jar files so the native library can read them.
+ * The files are extracted to a cache directory that's kept across JVM restarts, and
+ * their names contain the checksum of the jar entries. So a dictionary is only copied
+ * once per version, several processes can share the cache directory, and an updated
+ * dictionary never gets mixed up with an old one.
+ *
+ * <p>As the native library loads whatever it finds there, the cache directory is only used if
+ * it belongs to the current user and (where the file system supports POSIX permissions) cannot
+ * be written by others, and the checksum of a cached file is verified before it's reused.
+ * Otherwise the dictionary is extracted to a new private temporary directory.
+ * @since 2.3
+ */
+public final class DictionaryExtractionCache {
+
+  private static volatile File cacheDirectory = new File(System.getProperty("java.io.tmpdir"),
+          "languagetool-hunspell-" + System.getProperty("user.name", "").replaceAll("[^A-Za-z0-9._-]", "_"));
+
+  // files whose checksum this JVM has verified, with their modification time at that point:
+  private static final ConcurrentMap<File, Long> verifiedFiles = new ConcurrentHashMap<>();
+  // dictionaries extracted to temporary directories, so they're copied only once per JVM:
+  private static final ConcurrentMap<String, String> temporaryExtractions = new ConcurrentHashMap<>();
+
+  private DictionaryExtractionCache() {
+  }
+
+  /**
+   * Set the directory that extracted dictionaries are stored in. It will be created with
+   * permissions for the current user only if it doesn't exist. An existing directory that
+   * belongs to another user or that others can write to is not used.
+   * Default: {@code languagetool-hunspell-<user name>} in {@code java.io.tmpdir}.
+   */
+  public static void setCacheDirectory(File directory) {
+    if (directory == null) {
+      throw new NullPointerException("directory cannot be null");
+    }
+    cacheDirectory = directory;
+  }
+
+  public static File getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /**
+   * Make sure the dictionary (the {@code .dic} and {@code .aff} file) is available as files.
+   * @param dicUrl the URL of the {@code .dic} file inside a jar, the {@code .aff} file is expected next to it
+   * @param dicName the base file name, like {@code de_DE}
+   * @return the absolute path of the extracted dictionary without the file extension,
+   *   as expected by {@link Hunspell#getDictionary(String)}
+   */
+  static String extract(URL dicUrl, String dicName) throws IOException {
+    final URL affUrl = new URL(dicUrl.toExternalForm().replaceFirst("\\.dic$", ".aff"));
+    final ResourceInfo dicInfo = getResourceInfo(dicUrl);
+    final ResourceInfo affInfo = getResourceInfo(affUrl);
+    final String fileName = dicName + "-" + dicInfo.getChecksum() + "-" + affInfo.getChecksum();
+    final File directory = cacheDirectory;
+    if (!isPrivateDirectory(directory)) {
+      return extractToTemporaryFiles(dicUrl, affUrl, dicName, fileName);
+    }
+    final String basePath = new File(directory, fileName).getAbsolutePath();
+    final File dicFile = new File(basePath + ".dic");
+    final File affFile = new File(basePath + ".aff");
+    if (isValid(dicFile, dicInfo) && isValid(affFile, affInfo)) {
+      return basePath;
+    }
+    try {
+      copyAtomically(dicUrl, dicFile, dicInfo);
+      copyAtomically(affUrl, affFile, affInfo);
+    } catch (IOException e) {
+      // e.g. the directory is not writable:
+      return extractToTemporaryFiles(dicUrl, affUrl, dicName, fileName);
+    }
+    return basePath;
+  }
+
+  /**
+   * Whether the directory exists or could be created, belongs to the current user
+   * and cannot be written by other users.
+   */
+  private static boolean isPrivateDirectory(File directory) {
+    final Path path = directory.toPath();
+    try {
+      final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+      if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+        if (posix) {
+          Files.createDirectories(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+          Files.createDirectories(path);
+        }
+      }
+      // also rejects a symbolic link, which might point anywhere:
+      if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+        return false;
+      }
+      final UserPrincipal currentUser = path.getFileSystem().getUserPrincipalLookupService()
+              .lookupPrincipalByName(System.getProperty("user.name"));
+      if (!currentUser.equals(Files.getOwner(path, LinkOption.NOFOLLOW_LINKS))) {
+        return false;
+      }
+      if (posix) {
+        final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS);
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+          return false;
+        }
+      }
+      return true;
+    } catch (IOException | UnsupportedOperationException | SecurityException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Whether the file exists and has the expected checksum.
+   */
+  private static boolean isValid(File file, ResourceInfo info) throws IOException {
+    if (!file.isFile() || (info.size >= 0 && file.length() != info.size)) {
+      return false;
+    }
+    final long lastModified = file.lastModified();
+    final Long verifiedLastModified = verifiedFiles.get(file);
+    if (verifiedLastModified != null && verifiedLastModified == lastModified) {
+      return true;
+    }
+    final CRC32 crc = new CRC32();
+    try (InputStream in = new FileInputStream(file)) {
+      final byte[] buf = new byte[8192];
+      int len;
+      while ((len = in.read(buf)) > 0) {
+        crc.update(buf, 0, len);
+      }
+    }
+    if (crc.getValue() != info.crc) {
+      return false;
+    }
+    verifiedFiles.put(file, lastModified);
+    return true;
+  }
+
+  /**
+   * Copy to a temporary file first and then rename it, so other processes never see
+   * a partially written file.
+   */
+  private static void copyAtomically(URL url, File targetFile, ResourceInfo info) throws IOException {
+    final File tempFile = File.createTempFile(targetFile.getName(), ".tmp", targetFile.getParentFile());
+    try {
+      copy(url, tempFile);
+      if (!tempFile.renameTo(targetFile)) {
+        // another process may have been faster, or renaming over an existing file is not supported:
+        if (!isValid(targetFile, info)) {
+          if (!targetFile.delete() || !tempFile.renameTo(targetFile)) {
+            throw new IOException("Could not rename " + tempFile + " to " + targetFile);
+          }
+        }
+      }
+    } finally {
+      if (tempFile.exists() && !tempFile.delete()) {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Copy to a new temporary directory and delete the files at shutdown. The directory
+   * is created with permissions for the current user only (if supported by the file system).
+   */
+  private static String extractToTemporaryFiles(URL dicUrl, URL affUrl, String dicName, String key) throws IOException {
+    final String existingPath = temporaryExtractions.get(key);
+    if (existingPath != null && new File(existingPath + ".dic").isFile() && new File(existingPath + ".aff").isFile()) {
+      return existingPath;
+    }
+    final File tempDir = Files.createTempDirectory("languagetool-hunspell").toFile();
+    // deleteOnExit() works in reverse order, so the files get deleted before the directory:
+    tempDir.deleteOnExit();
+    final File dicFile = new File(tempDir, dicName + ".dic");
+    JLanguageTool.addTemporaryFile(dicFile);
+    dicFile.deleteOnExit();
+    copy(dicUrl, dicFile);
+    final File affFile = new File(tempDir, dicName + ".aff");
+    JLanguageTool.addTemporaryFile(affFile);
+    affFile.deleteOnExit();
+    copy(affUrl, affFile);
+    final String path = tempDir.getAbsolutePath() + "/" + dicName;
+    temporaryExtractions.put(key, path);
+    return path;
+  }
+
+  private static void copy(URL url, File targetFile) throws IOException {
+    try (InputStream in = url.openStream(); OutputStream out = new FileOutputStream(targetFile)) {
+      final byte[] buf = new byte[8192];
+      int len;
+      while ((len = in.read(buf)) > 0) {
+        out.write(buf, 0, len);
+      }
+    }
+  }
+
+  /**
+   * Jar files store the CRC32 and size of each entry, so for those no need to read the content.
+   */
+  private static ResourceInfo getResourceInfo(URL url) throws IOException {
+    final URLConnection connection = url.openConnection();
+    if (connection instanceof JarURLConnection) {
+      final JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+      if (entry != null && entry.getCrc() != -1) {
+        return new ResourceInfo(entry.getCrc(), entry.getSize());
+      }
+    }
+    final CRC32 crc = new CRC32();
+    long size = 0;
+    try (InputStream in = connection.getInputStream()) {
+      final byte[] buf = new byte[8192];
+      int len;
+      while ((len = in.read(buf)) > 0) {
+        crc.update(buf, 0, len);
+        size += len;
+      }
+    }
+    return new ResourceInfo(crc.getValue(), size);
+  }
+
+  private static class ResourceInfo {
+    private final long crc;
+    private final long size;
+    private ResourceInfo(long crc, long size) {
+      this.crc = crc;
+      this.size = size;
+    }
+    private String getChecksum() {
+      return Long.toHexString(crc);
+    }
+  }
+
+}
@@ -6,14 +6,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
@@ -60,7 +63,7 @@ public class Hunspell {
      *
      * @param libDir Optional absolute directory where the native lib can be found. 
      */
-    public static Hunspell getInstance(String libDir) throws UnsatisfiedLinkError, UnsupportedOperationException { 
+    public static synchronized Hunspell getInstance(String libDir) throws UnsatisfiedLinkError, UnsupportedOperationException { 
         if (hunspell != null) {
             return hunspell;
         }
@@ -200,14 +203,14 @@ public class Hunspell {
      */
     private HashMap<String, Dictionary> map = new HashMap<>();
 
-    
-    private static CharBuffer ensureCapacity(CharBuffer buffer, int capacity) {
-        if (buffer == null || buffer.capacity() < capacity) {
-            buffer = CharBuffer.allocate(capacity);
-        }
-        return buffer;
-    }
-    
+    /**
+     * The maximum number of native handles per dictionary, i.e. the number
+     * of threads that can use a dictionary at the same time. Each handle is
+     * a complete native copy of the dictionary, but it's only created when
+     * that many threads use the dictionary at the same time.
+     */
+    private int maxHandlesPerDictionary = Runtime.getRuntime().availableProcessors();
+
     /**
      * Gets an instance of the dictionary. 
      *
@@ -216,7 +219,7 @@ public class Hunspell {
      * and /dict/da_DK.aff get loaded
      * @throws IOException 
      */
-    public Dictionary getDictionary(String baseFileName)
+    public synchronized Dictionary getDictionary(String baseFileName)
             throws IOException {
 
         // TODO: Detect if the dictionary files have changed and reload if they have.
@@ -224,7 +227,7 @@ public class Hunspell {
             return map.get(baseFileName);
 
         } else {
-            Dictionary d = new Dictionary(baseFileName);
+            Dictionary d = new Dictionary(baseFileName, maxHandlesPerDictionary);
             map.put(baseFileName, d);
             return d;
         }
@@ -236,21 +239,65 @@ public class Hunspell {
      * @param baseFileName the base name of the dictionary, as passed to
      * getDictionary()
      */
-    public void destroyDictionary(String baseFileName) {
+    public synchronized void destroyDictionary(String baseFileName) {
         if (map.containsKey(baseFileName)) {
             map.remove(baseFileName);
         }
     }
 
     /**
-     * Class representing a single dictionary.
+     * Set the maximum number of native handles that dictionaries loaded <em>after</em>
+     * this call may use. Each handle holds a complete copy of the dictionary in memory,
+     * handles are only created when several threads use a dictionary at the same time.
+     * The default is the number of processors. Applications should use the number of threads
+     * that check texts at the same time, or <code>1</code> to have all threads share a single handle.
+     * @since 2.3
+     */
+    public synchronized void setMaxHandlesPerDictionary(int maxHandles) {
+        if (maxHandles < 1) {
+            throw new IllegalArgumentException("maxHandles must be >= 1: " + maxHandles);
+        }
+        this.maxHandlesPerDictionary = maxHandles;
+    }
+
+    /**
+     * @since 2.3
      */
-    public class Dictionary {
+    public synchronized int getMaxHandlesPerDictionary() {
+        return maxHandlesPerDictionary;
+    }
+
+    /**
+     * Class representing a single dictionary. A native hunspell object must not be used by
+     * several threads at the same time, so the dictionary keeps a pool of native handles
+     * that are created on demand, up to a maximum number. Threads that find no idle handle
+     * wait for one to be returned. All methods of this class are thread-safe.
+     */
+    public class Dictionary implements HunspellDictionary {
+
+        private final File aff;
+        private final File dic;
+        private final int maxHandles;
+
+        /**
+         * Handles not in use at the moment, guarded by <code>this</code>.
+         */
+        private final Deque<NativeHandle> idleHandles = new ArrayDeque<>();
+
         /**
-         * The pointer to the hunspell object as returned by the hunspell
-         * constructor.
+         * All handles, guarded by <code>this</code>.
          */
-        private Pointer hunspellDict = null;
+        private final List<NativeHandle> allHandles = new ArrayList<>();
+
+        /**
+         * Handles that are currently being created, guarded by <code>this</code>.
+         */
+        private int handlesInCreation = 0;
+
+        /**
+         * Words added at runtime, they're added to each handle before it gets used.
+         */
+        private final List<byte[]> addedWords = new CopyOnWriteArrayList<>();
 
         /**
          * The encoding used by this dictionary
@@ -265,11 +312,13 @@ public class Hunspell {
         /**
          * Creates an instance of the dictionary.
          * @param baseFileName the base name of the dictionary, 
+         * @param maxHandles the maximum number of native handles to create
          * @throws IOException 
          */
-        Dictionary(String baseFileName) throws IOException {
-            File dic = new File(baseFileName + ".dic");
-            File aff = new File(baseFileName + ".aff");
+        Dictionary(String baseFileName, int maxHandles) throws IOException {
+            dic = new File(baseFileName + ".dic");
+            aff = new File(baseFileName + ".aff");
+            this.maxHandles = maxHandles;
 
             if (!dic.canRead() || !aff.canRead()) {
                 throw new FileNotFoundException("The dictionary files "+
@@ -277,8 +326,10 @@ public class Hunspell {
                         "(.aff|.dic) could not be read");
             }
 
-            hunspellDict = hsl.Hunspell_create(aff.toString(), dic.toString());
-            encoding = hsl.Hunspell_get_dic_encoding(hunspellDict);						               			
+            final NativeHandle firstHandle = new NativeHandle(hsl.Hunspell_create(aff.toString(), dic.toString()));
+            allHandles.add(firstHandle);
+            idleHandles.add(firstHandle);
+            encoding = hsl.Hunspell_get_dic_encoding(firstHandle.pointer);
 
             //hunspell uses non-standard names of charsets 
             if ("microsoft1251".equals(encoding)) {
@@ -291,13 +342,16 @@ public class Hunspell {
         }
 
         /**
-         * Deallocate the dictionary.
+         * Deallocate the dictionary. Must not be called while the dictionary is in use.
          */
-        public void destroy() {
-            if (hsl != null && hunspellDict != null) {
-                hsl.Hunspell_destroy(hunspellDict);
-                hunspellDict = null;
+        public synchronized void destroy() {
+            if (hsl != null) {
+                for (NativeHandle handle : allHandles) {
+                    hsl.Hunspell_destroy(handle.pointer);
+                }
             }
+            allHandles.clear();
+            idleHandles.clear();
         }
 
         /**
@@ -305,6 +359,7 @@ public class Hunspell {
          * @return A string composed of characters that are parts of words,
          * even if they are not alphabetic.
          */
+        @Override
         public String getWordChars() {
             return wordChars;
         }
@@ -314,16 +369,80 @@ public class Hunspell {
          *
          * @param word The word to check.
          */
+        @Override
         public boolean misspelled(String word) {
+            final byte[] wordAsBytes;
             try {
-                final byte[] wordAsBytes = stringToBytes(word);
-                if (wordAsBytes.length == 0 && word.length() > 0) {
-                    return true;
-                }
-                return (hsl.Hunspell_spell(hunspellDict, wordAsBytes) == 0);
+                wordAsBytes = stringToBytes(word);
             } catch (UnsupportedEncodingException e) {
                 return true;
             }
+            if (wordAsBytes.length == 0 && word.length() > 0) {
+                return true;
+            }
+            final NativeHandle handle = borrowHandle();
+            try {
+                return hsl.Hunspell_spell(handle.pointer, wordAsBytes) == 0;
+            } finally {
+                returnHandle(handle);
+            }
+        }
+
+        /**
+         * Check several words, e.g. all words of a sentence. This is faster than calling
+         * {@link #misspelled(String)} for each word, as all words are converted and copied
+         * to native memory at once and a native handle is only acquired once.
+         *
+         * @param words The words to check.
+         * @return for each word, whether it is misspelled
+         * @since 2.3
+         */
+        @Override
+        public boolean[] misspelled(List<String> words) {
+            final boolean[] result = new boolean[words.size()];
+            if (words.isEmpty()) {
+                return result;
+            }
+            final int[] offsets = new int[words.size()];
+            final byte[][] encodedWords = new byte[words.size()][];
+            int totalLength = 0;
+            for (int i = 0; i < words.size(); i++) {
+                final String word = words.get(i);
+                try {
+                    encodedWords[i] = word.getBytes(encoding);
+                } catch (UnsupportedEncodingException e) {
+                    encodedWords[i] = null;
+                }
+                if (encodedWords[i] == null || (encodedWords[i].length == 0 && word.length() > 0)) {
+                    result[i] = true;
+                    encodedWords[i] = null;
+                    continue;
+                }
+                offsets[i] = totalLength;
+                totalLength += encodedWords[i].length + 1;  // zero-terminated
+            }
+            if (totalLength == 0) {
+                return result;
+            }
+            // one native buffer for all words, cleared so each word is zero-terminated:
+            final Memory buffer = new Memory(totalLength);
+            buffer.clear();
+            for (int i = 0; i < encodedWords.length; i++) {
+                if (encodedWords[i] != null) {
+                    buffer.write(offsets[i], encodedWords[i], 0, encodedWords[i].length);
+                }
+            }
+            final NativeHandle handle = borrowHandle();
+            try {
+                for (int i = 0; i < encodedWords.length; i++) {
+                    if (encodedWords[i] != null) {
+                        result[i] = hsl.Hunspell_spell(handle.pointer, buffer.share(offsets[i])) == 0;
+                    }
+                }
+            } finally {
+                returnHandle(handle);
+            }
+            return result;
         }
 
         /**
@@ -343,6 +462,7 @@ public class Hunspell {
          * @param word The word to check and offer suggestions for
          * @throws CharacterCodingException 
          */
+        @Override
         public List<String> suggest(String word) throws CharacterCodingException {
             List<String> res = new ArrayList<>();
             try {		
@@ -352,8 +472,13 @@ public class Hunspell {
                 if (wordAsBytes.length == 0 && word.length() > 0) {
                     return res;
                 }
-                suggestionsCount = hsl.Hunspell_suggest(
-                        hunspellDict, suggestions, stringToBytes(word));
+                final NativeHandle handle = borrowHandle();
+                try {
+                    suggestionsCount = hsl.Hunspell_suggest(
+                            handle.pointer, suggestions, wordAsBytes);
+                } finally {
+                    returnHandle(handle);
+                }
                 if (suggestionsCount == 0) {
                     return res;
                 }
@@ -398,10 +523,72 @@ public class Hunspell {
          * @param word Word to be added.
          * @throws UnsupportedEncodingException
          */
+        @Override
         public void addWord(final String word) throws UnsupportedEncodingException {
-            hsl.Hunspell_add(hunspellDict, stringToBytes(word));
+            addedWords.add(stringToBytes(word));
+            // the word gets added to the native handle(s) when they are borrowed next time
+        }
+
+        /**
+         * Get a native handle for exclusive use, waiting if all handles are in use and
+         * no more handles can be created. Must be given back with {@link #returnHandle(NativeHandle)}.
+         */
+        private NativeHandle borrowHandle() {
+            NativeHandle handle = null;
+            synchronized (this) {
+                while (idleHandles.isEmpty() && allHandles.size() + handlesInCreation >= maxHandles) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting for hunspell dictionary " + dic, e);
+                    }
+                }
+                if (!idleHandles.isEmpty()) {
+                    handle = idleHandles.pop();
+                } else {
+                    handlesInCreation++;
+                }
+            }
+            if (handle == null) {
+                // loading a dictionary takes time, so don't block the other threads meanwhile:
+                try {
+                    handle = new NativeHandle(hsl.Hunspell_create(aff.toString(), dic.toString()));
+                } finally {
+                    synchronized (this) {
+                        handlesInCreation--;
+                        if (handle != null) {
+                            allHandles.add(handle);
+                        }
+                        notifyAll();
+                    }
+                }
+            }
+            for (int i = handle.addedWordCount; i < addedWords.size(); i++) {
+                hsl.Hunspell_add(handle.pointer, addedWords.get(i));
+                handle.addedWordCount++;
+            }
+            return handle;
+        }
+
+        private synchronized void returnHandle(NativeHandle handle) {
+            idleHandles.push(handle);
+            notifyAll();
+        }
+
+    }
+
+    /**
+     * A native hunspell object, plus the number of runtime words that have been added to it.
+     */
+    private static class NativeHandle {
+
+        private final Pointer pointer;
+        private int addedWordCount = 0;
+
+        NativeHandle(Pointer pointer) {
+            this.pointer = pointer;
         }
-                
     }
 
 }
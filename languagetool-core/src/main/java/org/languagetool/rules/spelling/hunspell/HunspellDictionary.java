@@ -0,0 +1,59 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.hunspell;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The operations of a hunspell dictionary that {@link HunspellRule} uses. Implemented by
+ * the native {@link Hunspell.Dictionary} and by the pure Java {@link JavaHunspellDictionary}.
+ * Implementations must be thread-safe.
+ * @since 2.3
+ */
+public interface HunspellDictionary {
+
+  /**
+   * Whether the word is not accepted by the dictionary.
+   */
+  boolean misspelled(String word);
+
+  /**
+   * Check several words at once, the result has the same order as {@code words}.
+   * @return {@code true} at the index of each word that's misspelled
+   */
+  boolean[] misspelled(List<String> words);
+
+  /**
+   * Suggestions for a misspelled word, best suggestion first.
+   */
+  List<String> suggest(String word) throws IOException;
+
+  /**
+   * Add a word that will be accepted from now on.
+   */
+  void addWord(String word) throws IOException;
+
+  /**
+   * The characters that are parts of words even though they are not alphabetic,
+   * as defined in the affix file's {@code WORDCHARS}.
+   */
+  String getWordChars();
+
+}
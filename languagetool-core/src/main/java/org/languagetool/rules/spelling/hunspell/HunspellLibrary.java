@@ -37,6 +37,14 @@ public interface HunspellLibrary extends Library {
      */
     public int Hunspell_spell(Pointer pHunspell, byte[] word);
 
+    /**
+     * spell(word) - spellcheck word
+     * @param pHunspell The Hunspell object returned by Hunspell_create
+     * @param word Pointer to the zero-terminated word to spellcheck, in the dictionary's encoding.
+     * @return 0 = bad word, not 0 = good word
+     */
+    public int Hunspell_spell(Pointer pHunspell, Pointer word);
+
     /**
      * Get the dictionary encoding
      * @param pHunspell : The Hunspell object returned by Hunspell_create
@@ -20,15 +20,14 @@
 package org.languagetool.rules.spelling.hunspell;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.regex.Pattern;
 
 import org.languagetool.AnalyzedSentence;
@@ -37,6 +36,7 @@ import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.rules.Category;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestionProvider;
 import org.languagetool.rules.spelling.SpellingCheckRule;
 import org.languagetool.tools.StringTools;
 
@@ -53,10 +53,13 @@ public class HunspellRule extends SpellingCheckRule {
   public static final String RULE_ID = "HUNSPELL_RULE";
 
   protected boolean needsInit = true;
-  protected Hunspell.Dictionary dictionary = null;
+  protected HunspellDictionary dictionary = null;
   
   private static final String NON_ALPHABETIC = "[^\\p{L}]";
 
+  // short language codes for which the pure Java engine is used instead of native hunspell:
+  private static final Set<String> javaEngineLanguages = new CopyOnWriteArraySet<>();
+
   private Pattern nonWordPattern;
 
   public HunspellRule(final ResourceBundle messages, final Language language) {
@@ -64,6 +67,28 @@ public class HunspellRule extends SpellingCheckRule {
     super.setCategory(new Category(messages.getString("category_typo")));
   }
 
+  /**
+   * Use the pure Java {@link JavaHunspellDictionary} instead of the native hunspell
+   * library for the given language. Only affects rules initialized after this call.
+   * @param languageShortName a language code like {@code de}
+   * @since 2.3
+   */
+  public static void setUseJavaEngine(String languageShortName, boolean useJavaEngine) {
+    if (useJavaEngine) {
+      javaEngineLanguages.add(languageShortName);
+    } else {
+      javaEngineLanguages.remove(languageShortName);
+    }
+  }
+
+  /**
+   * @see #setUseJavaEngine(String, boolean)
+   * @since 2.3
+   */
+  public static boolean isUsingJavaEngine(String languageShortName) {
+    return javaEngineLanguages.contains(languageShortName);
+  }
+
   @Override
   public String getId() {
     return RULE_ID;
@@ -86,29 +111,46 @@ public class HunspellRule extends SpellingCheckRule {
     }
     final String[] tokens = tokenizeText(getSentenceTextWithoutUrls(text));
 
+    // collect the words to check first so they can be checked with a single dictionary call,
+    // skipping words that are already known to be correct:
+    final List<String> words = new ArrayList<>(tokens.length);
+    final int[] wordStartPositions = new int[tokens.length];
     // starting with the first token to skip the zero-length START_SENT
     int len = text.getTokens()[1].getStartPos();
     for (final String word : tokens) {
-      if (ignoreWord(word)) {
-        len += word.length() + 1;
-        continue;
-      }
-      boolean isAlphabetic = true;
-      if (word.length() == 1) { // hunspell dictionaries usually do not contain punctuation
-        isAlphabetic = StringTools.isAlphabetic(word.charAt(0));
+      if (!ignoreWord(word)) {
+        boolean isAlphabetic = true;
+        if (word.length() == 1) { // hunspell dictionaries usually do not contain punctuation
+          isAlphabetic = StringTools.isAlphabetic(word.charAt(0));
+        }
+        if (isAlphabetic && !word.equals("--") && !isKnownCorrect(word)) {
+          wordStartPositions[words.size()] = len;
+          words.add(word);
+        }
       }
-      if (isAlphabetic && !word.equals("--") && dictionary.misspelled(word)) {
+      len += word.length() + 1;
+    }
+
+    final boolean[] misspelled = dictionary.misspelled(words);
+    for (int i = 0; i < misspelled.length; i++) {
+      final String word = words.get(i);
+      if (!misspelled[i]) {
+        addKnownCorrect(word);
+      } else {
         final RuleMatch ruleMatch = new RuleMatch(this,
-                len, len + word.length(),
+                wordStartPositions[i], wordStartPositions[i] + word.length(),
                 messages.getString("spelling"),
                 messages.getString("desc_spelling_short"));
-        final List<String> suggestions = getSuggestions(word);
-        if (suggestions != null) {
-          ruleMatch.setSuggestedReplacements(suggestions);
-        }
+        // suggestions are expensive, so only create them if they are actually used:
+        ruleMatch.setLazySuggestedReplacements(limitToSuggestionTimeBudget(new SuggestionProvider() {
+          @Override
+          public List<String> getSuggestions() throws IOException {
+            final List<String> suggestions = HunspellRule.this.getSuggestions(word);
+            return suggestions != null ? suggestions : new ArrayList<String>();
+          }
+        }));
         ruleMatches.add(ruleMatch);
       }
-      len += word.length() + 1;
     }
 
     return toRuleMatchArray(ruleMatches);
@@ -156,13 +198,19 @@ public class HunspellRule extends SpellingCheckRule {
     String wordChars = "";
     // set dictionary only if there are dictionary files:
     if (JLanguageTool.getDataBroker().resourceExists(shortDicPath)) {
-      final String path = getDictionaryPath(langCountry, shortDicPath);
-      if ("".equals(path)) {
-        dictionary = null;
+      if (isUsingJavaEngine(language.getShortName())) {
+        // reads the files directly from the classpath, no need to extract them:
+        dictionary = JavaHunspellDictionary.getInstance(shortDicPath.substring(0, shortDicPath.length() - ".dic".length()));
       } else {
-        dictionary = Hunspell.getInstance().
-                getDictionary(path);
-
+        final String path = getDictionaryPath(langCountry, shortDicPath);
+        if ("".equals(path)) {
+          dictionary = null;
+        } else {
+          dictionary = Hunspell.getInstance().
+                  getDictionary(path);
+        }
+      }
+      if (dictionary != null) {
         if (!"".equals(dictionary.getWordChars())) {
           wordChars = "(?![" + dictionary.getWordChars().replace("-", "\\-") + "])";
         }
@@ -172,29 +220,25 @@ public class HunspellRule extends SpellingCheckRule {
       }
     }
     nonWordPattern = Pattern.compile(wordChars + NON_ALPHABETIC);
+    resetKnownWordCacheKey();
     needsInit = false;
   }
 
+  @Override
+  protected String getKnownWordCacheConfiguration() {
+    // the engines don't agree on every word:
+    return dictionary instanceof JavaHunspellDictionary ? "java" : "native";
+  }
+
   private String getDictionaryPath(final String dicName,
                                    final String originalPath) throws IOException {
 
     final URL dictURL = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(originalPath);
     String dictionaryPath;
-    //in the webstart version, we need to copy the files outside the jar
-    //to the local temporary directory
+    //in the webstart version, we need to copy the files outside the jar,
+    //they are only copied once per dictionary version, see DictionaryExtractionCache
     if ("jar".equals(dictURL.getProtocol())) {
-      final File tempDir = new File(System.getProperty("java.io.tmpdir"));
-      File temporaryFile = new File(tempDir, dicName + ".dic");
-      JLanguageTool.addTemporaryFile(temporaryFile);
-      fileCopy(JLanguageTool.getDataBroker().
-              getFromResourceDirAsStream(originalPath), temporaryFile);
-      temporaryFile = new File(tempDir, dicName + ".aff");
-      JLanguageTool.addTemporaryFile(temporaryFile);
-      fileCopy(JLanguageTool.getDataBroker().
-              getFromResourceDirAsStream(originalPath.
-                      replaceFirst(".dic$", ".aff")), temporaryFile);
-
-      dictionaryPath = tempDir.getAbsolutePath() + "/" + dicName;
+      dictionaryPath = DictionaryExtractionCache.extract(dictURL, dicName);
     } else {
       final int suffixLength = ".dic".length();
       try {
@@ -207,15 +251,4 @@ public class HunspellRule extends SpellingCheckRule {
     return dictionaryPath;
   }
 
-  private void fileCopy(final InputStream in, final File targetFile) throws IOException {
-    try (OutputStream out = new FileOutputStream(targetFile)) {
-      final byte[] buf = new byte[1024];
-      int len;
-      while ((len = in.read(buf)) > 0) {
-        out.write(buf, 0, len);
-      }
-      in.close();
-    }
-  }
-
 }
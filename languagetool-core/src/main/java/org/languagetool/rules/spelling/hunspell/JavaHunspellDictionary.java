@@ -0,0 +1,1219 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.hunspell;
+
+import org.languagetool.JLanguageTool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A hunspell-compatible dictionary written in Java, loaded from the same {@code .dic} and
+ * {@code .aff} files as native hunspell. Unlike {@link Hunspell.Dictionary}, it needs no native
+ * library and no temporary files, and any number of threads can use it at the same time
+ * without locking, as the dictionary is immutable after loading (words added with
+ * {@link #addWord(String)} are kept in a concurrent set). The words are kept in one character
+ * array with a hash table of offsets, instead of a string and a map entry per word.
+ *
+ * <p>Supported affix file options: {@code SET, FLAG, AF, TRY, REP, WORDCHARS, BREAK, PFX, SFX}
+ * (including cross products and two-level suffixes), {@code NEEDAFFIX, FORBIDDENWORD, KEEPCASE,
+ * NOSUGGEST, CIRCUMFIX, ONLYINCOMPOUND, FULLSTRIP, CHECKSHARPS, NOSPLITSUGS, COMPOUNDFLAG,
+ * COMPOUNDBEGIN, COMPOUNDMIDDLE, COMPOUNDEND, COMPOUNDPERMITFLAG, COMPOUNDMIN, COMPOUNDWORDMAX}.
+ * Other options, like {@code COMPOUNDRULE}, the {@code CHECKCOMPOUND*} restrictions and
+ * n-gram or phonetic suggestions, are ignored, so results can differ from native hunspell
+ * for dictionaries that rely on them.
+ * @since 2.3
+ */
+public class JavaHunspellDictionary implements HunspellDictionary {
+
+  private static final int MAX_SUGGESTIONS = 15;
+  // longer words are considered misspelled without analyzing them, as affix
+  // stripping and compound splitting get expensive for long input:
+  private static final int MAX_WORD_LENGTH = 100;
+
+  private static final int NOT_FOUND = 0;
+  private static final int FOUND = 1;
+  private static final int FORBIDDEN = 2;
+
+  // position of a word part in a compound:
+  private static final int NO_COMPOUND = 0;
+  private static final int COMPOUND_BEGIN = 1;
+  private static final int COMPOUND_MIDDLE = 2;
+  private static final int COMPOUND_END = 3;
+
+  private static final char NO_FLAG = 0;
+  private static final char[] NO_FLAGS = new char[0];
+  private static final Affix[] NO_AFFIXES = new Affix[0];
+
+  // loading takes a while, so each dictionary is loaded by the first thread that asks for it,
+  // without blocking threads that ask for other dictionaries:
+  private static final ConcurrentMap<String, FutureTask<JavaHunspellDictionary>> instances = new ConcurrentHashMap<>();
+
+  // the dictionary, immutable after loading:
+  private final WordTable words = new WordTable();  // the flags of each homonym
+  private final Map<String, Affix[]> prefixes = new HashMap<>();
+  private final Map<String, Affix[]> suffixes = new HashMap<>();
+  private final List<String[]> replacements = new ArrayList<>();
+  private final List<String> breaks = new ArrayList<>();
+  private final List<char[]> flagAliases = new ArrayList<>();
+  private final Set<String> addedWords = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  private Charset charset = Charset.forName("ISO-8859-1");
+  private FlagType flagType = FlagType.CHAR;
+  private String wordChars = "";
+  private String tryChars = "";
+  private boolean fullStrip;
+  private boolean checkSharps;
+  private boolean noSplitSuggestions;
+  private char needAffixFlag = NO_FLAG;
+  private char forbiddenWordFlag = NO_FLAG;
+  private char keepCaseFlag = NO_FLAG;
+  private char noSuggestFlag = NO_FLAG;
+  private char circumfixFlag = NO_FLAG;
+  private char onlyInCompoundFlag = NO_FLAG;
+  private char compoundFlag = NO_FLAG;
+  private char compoundBeginFlag = NO_FLAG;
+  private char compoundMiddleFlag = NO_FLAG;
+  private char compoundEndFlag = NO_FLAG;
+  private char compoundPermitFlag = NO_FLAG;
+  private int compoundMin = 3;
+  private int compoundWordMax = 0;
+  private String affixFileLanguage;
+  private final Locale locale;
+
+  /**
+   * Get the dictionary for a resource like {@code /de/hunspell/de_DE}, i.e. the files
+   * {@code /de/hunspell/de_DE.dic} and {@code /de/hunspell/de_DE.aff} in the resource
+   * directory of the {@link JLanguageTool#getDataBroker() data broker}. Each dictionary is
+   * only loaded once. The file name determines the locale used for case conversion.
+   */
+  public static JavaHunspellDictionary getInstance(final String baseResourcePath) throws IOException {
+    FutureTask<JavaHunspellDictionary> loader = instances.get(baseResourcePath);
+    if (loader == null) {
+      final FutureTask<JavaHunspellDictionary> newLoader = new FutureTask<>(new Callable<JavaHunspellDictionary>() {
+        @Override
+        public JavaHunspellDictionary call() throws IOException {
+          final Locale locale = toLocale(baseResourcePath.substring(baseResourcePath.lastIndexOf('/') + 1));
+          try (InputStream aff = JLanguageTool.getDataBroker().getFromResourceDirAsStream(baseResourcePath + ".aff");
+               InputStream dic = JLanguageTool.getDataBroker().getFromResourceDirAsStream(baseResourcePath + ".dic")) {
+            return new JavaHunspellDictionary(aff, dic, locale);
+          }
+        }
+      });
+      loader = instances.putIfAbsent(baseResourcePath, newLoader);
+      if (loader == null) {
+        loader = newLoader;
+        loader.run();
+      }
+    }
+    try {
+      return loader.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading " + baseResourcePath, e);
+    } catch (ExecutionException e) {
+      // let the next call try again:
+      instances.remove(baseResourcePath, loader);
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Could not load " + baseResourcePath, cause);
+    }
+  }
+
+  /**
+   * Load a dictionary, using the {@code LANG} option of the affix file (if any) as the
+   * locale for case conversion. The streams are not closed.
+   */
+  public JavaHunspellDictionary(InputStream affixStream, InputStream dictionaryStream) throws IOException {
+    this(affixStream, dictionaryStream, null);
+  }
+
+  /**
+   * Load a dictionary. The streams are not closed.
+   * @param locale the locale used for case conversion, or {@code null} to use the {@code LANG}
+   *               option of the affix file, or {@link Locale#ROOT} if there's none
+   */
+  public JavaHunspellDictionary(InputStream affixStream, InputStream dictionaryStream, Locale locale) throws IOException {
+    readAffixFile(readFully(affixStream));
+    readDictionaryFile(readFully(dictionaryStream));
+    if (locale != null) {
+      this.locale = locale;
+    } else {
+      this.locale = affixFileLanguage != null ? toLocale(affixFileLanguage) : Locale.ROOT;
+    }
+  }
+
+  @Override
+  public String getWordChars() {
+    return wordChars;
+  }
+
+  @Override
+  public boolean misspelled(String word) {
+    return !isCorrect(word);
+  }
+
+  @Override
+  public boolean[] misspelled(List<String> words) {
+    final boolean[] result = new boolean[words.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = !isCorrect(words.get(i));
+    }
+    return result;
+  }
+
+  @Override
+  public void addWord(String word) {
+    addedWords.add(word);
+  }
+
+  /**
+   * Suggestions are created by applying the replacements of the affix file, swapping
+   * neighbouring characters, removing a character, inserting or replacing a character
+   * with the characters from {@code TRY}, and splitting the word in two.
+   */
+  @Override
+  public List<String> suggest(String word) {
+    final Set<String> candidates = new LinkedHashSet<>();
+    if (word.isEmpty() || word.length() > MAX_WORD_LENGTH || isCorrect(word)) {
+      return new ArrayList<>();
+    }
+    final String lowercase = word.toLowerCase(locale);
+    candidates.add(lowercase);
+    candidates.add(capitalize(lowercase));
+    candidates.add(word.toUpperCase(locale));
+    for (String[] replacement : replacements) {
+      int pos = word.indexOf(replacement[0]);
+      while (pos != -1) {
+        candidates.add(word.substring(0, pos) + replacement[1] + word.substring(pos + replacement[0].length()));
+        pos = word.indexOf(replacement[0], pos + 1);
+      }
+    }
+    final StringBuilder sb = new StringBuilder(word.length() + 1);
+    for (int i = 0; i < word.length() - 1; i++) {
+      sb.setLength(0);
+      sb.append(word);
+      sb.setCharAt(i, word.charAt(i + 1));
+      sb.setCharAt(i + 1, word.charAt(i));
+      candidates.add(sb.toString());
+    }
+    for (int i = 0; i < word.length(); i++) {
+      candidates.add(word.substring(0, i) + word.substring(i + 1));
+    }
+    for (int i = 0; i < tryChars.length(); i++) {
+      final char c = tryChars.charAt(i);
+      if (!Character.isLetter(c)) {
+        // punctuation from TRY would only lead to splits, which are handled below
+        continue;
+      }
+      for (int j = 0; j <= word.length(); j++) {
+        candidates.add(word.substring(0, j) + c + word.substring(j));
+      }
+      for (int j = 0; j < word.length(); j++) {
+        if (word.charAt(j) != c) {
+          candidates.add(word.substring(0, j) + c + word.substring(j + 1));
+        }
+      }
+    }
+    if (!noSplitSuggestions) {
+      for (int i = 2; i < word.length() - 1; i++) {
+        candidates.add(word.substring(0, i) + " " + word.substring(i));
+        if (breaks.contains("-")) {
+          candidates.add(word.substring(0, i) + "-" + word.substring(i));
+        }
+      }
+    }
+    final List<String> result = new ArrayList<>();
+    for (String candidate : candidates) {
+      if (candidate.equals(word) || candidate.isEmpty() || isNoSuggest(candidate)) {
+        continue;
+      }
+      if (isCorrectPhrase(candidate)) {
+        result.add(candidate);
+        if (result.size() >= MAX_SUGGESTIONS) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  private boolean isCorrectPhrase(String phrase) {
+    // "_" in replacements stands for a space:
+    final String[] parts = phrase.replace('_', ' ').split(" ");
+    for (String part : parts) {
+      if (part.isEmpty() || !isCorrect(part)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isNoSuggest(String candidate) {
+    if (noSuggestFlag == NO_FLAG) {
+      return false;
+    }
+    return anyHomonymHasFlag(words.get(candidate), noSuggestFlag);
+  }
+
+  private boolean isCorrect(String word) {
+    if (word.isEmpty() || addedWords.contains(word) || isNumber(word) || isDotsOnly(word)) {
+      return true;
+    }
+    if (word.length() > MAX_WORD_LENGTH) {
+      return false;
+    }
+    final int result = checkWithCaseVariants(word);
+    if (result != NOT_FOUND) {
+      return result == FOUND;
+    }
+    if (word.endsWith(".")) {
+      // trailing dots are not part of the word, unless it's an abbreviation:
+      int end = word.length();
+      while (end > 0 && word.charAt(end - 1) == '.') {
+        end--;
+      }
+      if (end > 0 && end < word.length()) {
+        final String withoutDots = word.substring(0, end);
+        if (checkWithCaseVariants(withoutDots + ".") == FOUND || checkWithCaseVariants(withoutDots) == FOUND) {
+          return true;
+        }
+      }
+    }
+    for (String breakString : breaks) {
+      if (breakString.startsWith("^")) {
+        final String s = breakString.substring(1);
+        if (!s.isEmpty() && word.startsWith(s) && word.length() > s.length() && isCorrect(word.substring(s.length()))) {
+          return true;
+        }
+      } else if (breakString.endsWith("$")) {
+        final String s = breakString.substring(0, breakString.length() - 1);
+        if (!s.isEmpty() && word.endsWith(s) && word.length() > s.length() && isCorrect(word.substring(0, word.length() - s.length()))) {
+          return true;
+        }
+      } else {
+        final int pos = word.indexOf(breakString);
+        if (pos > 0 && pos + breakString.length() < word.length()
+                && isCorrect(word.substring(0, pos)) && isCorrect(word.substring(pos + breakString.length()))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private int checkWithCaseVariants(String word) {
+    final int result = check(word);
+    if (result != NOT_FOUND) {
+      return result;
+    }
+    final String lowercase = word.toLowerCase(locale);
+    if (lowercase.equals(word)) {
+      return NOT_FOUND;
+    }
+    final boolean allUppercase = word.equals(word.toUpperCase(locale));
+    final boolean capitalized = word.equals(capitalize(lowercase));
+    if (allUppercase) {
+      if (word.length() > 1 && checkCaseVariant(capitalize(lowercase)) == FOUND) {
+        return FOUND;
+      }
+      if (checkCaseVariant(lowercase) == FOUND) {
+        return FOUND;
+      }
+      if (checkSharps && lowercase.contains("ss")) {
+        // e.g. "STRASSE" for "Straße":
+        final String sharp = lowercase.replace("ss", "ß");
+        if (checkCaseVariant(sharp) == FOUND || checkCaseVariant(capitalize(sharp)) == FOUND) {
+          return FOUND;
+        }
+      }
+    } else if (capitalized) {
+      // e.g. the first word of a sentence:
+      return checkCaseVariant(lowercase);
+    }
+    return NOT_FOUND;
+  }
+
+  private int checkCaseVariant(String variant) {
+    if (anyHomonymHasFlag(words.get(variant), keepCaseFlag)) {
+      return NOT_FOUND;
+    }
+    if (addedWords.contains(variant)) {
+      return FOUND;
+    }
+    return check(variant);
+  }
+
+  private int check(String word) {
+    final char[][] homonyms = words.get(word);
+    if (homonyms != null) {
+      if (anyHomonymHasFlag(homonyms, forbiddenWordFlag)) {
+        return FORBIDDEN;
+      }
+      for (char[] flags : homonyms) {
+        if (!hasFlag(flags, needAffixFlag) && !hasFlag(flags, onlyInCompoundFlag)) {
+          return FOUND;
+        }
+      }
+    }
+    if (isAffixedWord(word, NO_COMPOUND)) {
+      return FOUND;
+    }
+    if (isCompoundingEnabled() && isCompound(word, 0, new HashMap<String, Boolean>(), new HashMap<String, Boolean>())) {
+      return FOUND;
+    }
+    return NOT_FOUND;
+  }
+
+  private boolean isCompoundingEnabled() {
+    return compoundFlag != NO_FLAG || compoundBeginFlag != NO_FLAG || compoundEndFlag != NO_FLAG;
+  }
+
+  /**
+   * Whether the word consists of parts that may be used in a compound.
+   * @param partsBefore the number of compound parts before {@code word}
+   * @param partCache results of {@link #isCompoundPart(String, int)} for this word
+   * @param compoundCache results of this method for the rest of this word, without the memoization
+   *                      the number of ways to split a long word would make this exponential
+   */
+  private boolean isCompound(String word, int partsBefore, Map<String, Boolean> partCache, Map<String, Boolean> compoundCache) {
+    // without a limit on the number of parts, all positions after the first part are the same:
+    final int position = compoundWordMax == 0 ? Math.min(partsBefore, 1) : partsBefore;
+    final String key = position + word;
+    Boolean result = compoundCache.get(key);
+    if (result == null) {
+      result = isUncachedCompound(word, partsBefore, partCache, compoundCache);
+      compoundCache.put(key, result);
+    }
+    return result;
+  }
+
+  private boolean isUncachedCompound(String word, int partsBefore, Map<String, Boolean> cache, Map<String, Boolean> compoundCache) {
+    final int partPos = partsBefore == 0 ? COMPOUND_BEGIN : COMPOUND_MIDDLE;
+    for (int i = compoundMin; i <= word.length() - compoundMin; i++) {
+      final String part = word.substring(0, i);
+      if (!isCompoundPartCached(part, partPos, cache)) {
+        continue;
+      }
+      final String rest = word.substring(i);
+      if (compoundWordMax == 0 || partsBefore + 2 <= compoundWordMax) {
+        if (isCompoundPartCached(rest, COMPOUND_END, cache)) {
+          return true;
+        }
+      }
+      if (compoundWordMax == 0 || partsBefore + 2 < compoundWordMax) {
+        if (isCompound(rest, partsBefore + 1, cache, compoundCache)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean isCompoundPartCached(String part, int partPos, Map<String, Boolean> cache) {
+    final String key = partPos + part;
+    Boolean result = cache.get(key);
+    if (result == null) {
+      result = isCompoundPart(part, partPos);
+      cache.put(key, result);
+    }
+    return result;
+  }
+
+  private boolean isCompoundPart(String part, int partPos) {
+    final char[][] homonyms = words.get(part);
+    if (homonyms != null) {
+      for (char[] flags : homonyms) {
+        if (!hasFlag(flags, forbiddenWordFlag) && !hasFlag(flags, needAffixFlag) && hasCompoundFlag(flags, partPos)) {
+          return true;
+        }
+      }
+    }
+    return isAffixedWord(part, partPos);
+  }
+
+  private boolean hasCompoundFlag(char[] flags, int partPos) {
+    if (hasFlag(flags, compoundFlag)) {
+      return true;
+    }
+    switch (partPos) {
+      case COMPOUND_BEGIN: return hasFlag(flags, compoundBeginFlag);
+      case COMPOUND_MIDDLE: return hasFlag(flags, compoundMiddleFlag);
+      case COMPOUND_END: return hasFlag(flags, compoundEndFlag);
+      default: return false;
+    }
+  }
+
+  /**
+   * Whether the word is a dictionary word plus a prefix and/or one or two suffixes.
+   */
+  private boolean isAffixedWord(String word, int partPos) {
+    final int minRemaining = fullStrip ? 0 : 1;
+    // suffixes, possibly two of them:
+    for (int i = minRemaining; i <= word.length(); i++) {
+      for (Affix suffix : getAffixes(suffixes, word.substring(i))) {
+        final String stem = word.substring(0, i) + suffix.strip;
+        if (stem.isEmpty() || !suffix.matches(stem)) {
+          continue;
+        }
+        if (isValidRoot(stem, partPos, null, suffix, null)) {
+          return true;
+        }
+        for (int j = minRemaining; j <= stem.length(); j++) {
+          for (Affix innerSuffix : getAffixes(suffixes, stem.substring(j))) {
+            if (!hasFlag(innerSuffix.continuationFlags, suffix.flag)) {
+              continue;
+            }
+            final String root = stem.substring(0, j) + innerSuffix.strip;
+            if (!root.isEmpty() && innerSuffix.matches(root) && isValidRoot(root, partPos, null, innerSuffix, suffix)) {
+              return true;
+            }
+          }
+        }
+      }
+    }
+    // prefixes, possibly combined with a suffix:
+    for (int i = 0; i <= word.length() - minRemaining; i++) {
+      for (Affix prefix : getAffixes(prefixes, word.substring(0, i))) {
+        final String stem = prefix.strip + word.substring(i);
+        if (stem.isEmpty() || !prefix.matches(stem)) {
+          continue;
+        }
+        if (isValidRoot(stem, partPos, prefix, null, null)) {
+          return true;
+        }
+        if (!prefix.crossProduct) {
+          continue;
+        }
+        for (int j = minRemaining; j <= stem.length(); j++) {
+          for (Affix suffix : getAffixes(suffixes, stem.substring(j))) {
+            if (!suffix.crossProduct) {
+              continue;
+            }
+            final String root = stem.substring(0, j) + suffix.strip;
+            if (!root.isEmpty() && suffix.matches(root) && isValidRoot(root, partPos, prefix, suffix, null)) {
+              return true;
+            }
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the root exists and allows the given affixes.
+   * @param suffix the suffix attached to the root
+   * @param outerSuffix a second suffix attached to {@code suffix}
+   */
+  private boolean isValidRoot(String root, int partPos, Affix prefix, Affix suffix, Affix outerSuffix) {
+    final char[][] homonyms = words.get(root);
+    if (homonyms == null) {
+      return false;
+    }
+    for (char[] rootFlags : homonyms) {
+      if (isValidRoot(rootFlags, partPos, prefix, suffix, outerSuffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isValidRoot(char[] rootFlags, int partPos, Affix prefix, Affix suffix, Affix outerSuffix) {
+    if (hasFlag(rootFlags, forbiddenWordFlag)) {
+      return false;
+    }
+    if (prefix != null && !hasFlag(rootFlags, prefix.flag)
+            && !(suffix != null && hasFlag(suffix.continuationFlags, prefix.flag))) {
+      return false;
+    }
+    if (suffix != null && !hasFlag(rootFlags, suffix.flag)
+            && !(prefix != null && hasFlag(prefix.continuationFlags, suffix.flag))) {
+      return false;
+    }
+    final Affix outermost = outerSuffix != null ? outerSuffix : suffix != null ? suffix : prefix;
+    if (prefix == null || suffix == null) {
+      // an affix that needs another affix can't be used alone:
+      if (outerSuffix == null && hasFlag(outermost.continuationFlags, needAffixFlag)) {
+        return false;
+      }
+    }
+    if (circumfixFlag != NO_FLAG) {
+      final boolean prefixIsCircumfix = prefix != null && hasFlag(prefix.continuationFlags, circumfixFlag);
+      final boolean suffixIsCircumfix = (suffix != null && hasFlag(suffix.continuationFlags, circumfixFlag))
+              || (outerSuffix != null && hasFlag(outerSuffix.continuationFlags, circumfixFlag));
+      if (prefixIsCircumfix != suffixIsCircumfix) {
+        return false;
+      }
+    }
+    if (partPos == NO_COMPOUND) {
+      return !hasFlag(rootFlags, onlyInCompoundFlag)
+              && !hasContinuationFlag(prefix, suffix, outerSuffix, onlyInCompoundFlag);
+    }
+    if (!hasCompoundFlag(rootFlags, partPos)
+            && !hasContinuationFlag(prefix, suffix, outerSuffix, compoundFlag)
+            && !hasContinuationFlag(prefix, suffix, outerSuffix, getCompoundPositionFlag(partPos))) {
+      return false;
+    }
+    // inside a compound, only affixes at the outer ends are allowed, unless they explicitly permit it:
+    if (prefix != null && partPos != COMPOUND_BEGIN && !hasFlag(prefix.continuationFlags, compoundPermitFlag)) {
+      return false;
+    }
+    if (partPos != COMPOUND_END) {
+      if (suffix != null && !hasFlag(suffix.continuationFlags, compoundPermitFlag)) {
+        return false;
+      }
+      if (outerSuffix != null && !hasFlag(outerSuffix.continuationFlags, compoundPermitFlag)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private char getCompoundPositionFlag(int partPos) {
+    switch (partPos) {
+      case COMPOUND_BEGIN: return compoundBeginFlag;
+      case COMPOUND_MIDDLE: return compoundMiddleFlag;
+      case COMPOUND_END: return compoundEndFlag;
+      default: return NO_FLAG;
+    }
+  }
+
+  private boolean hasContinuationFlag(Affix prefix, Affix suffix, Affix outerSuffix, char flag) {
+    return (prefix != null && hasFlag(prefix.continuationFlags, flag))
+            || (suffix != null && hasFlag(suffix.continuationFlags, flag))
+            || (outerSuffix != null && hasFlag(outerSuffix.continuationFlags, flag));
+  }
+
+  private static Affix[] getAffixes(Map<String, Affix[]> affixes, String affixText) {
+    final Affix[] result = affixes.get(affixText);
+    return result != null ? result : NO_AFFIXES;
+  }
+
+  private static boolean anyHomonymHasFlag(char[][] homonyms, char flag) {
+    if (homonyms != null && flag != NO_FLAG) {
+      for (char[] flags : homonyms) {
+        if (hasFlag(flags, flag)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasFlag(char[] flags, char flag) {
+    return flag != NO_FLAG && Arrays.binarySearch(flags, flag) >= 0;
+  }
+
+  private static boolean isDotsOnly(String word) {
+    for (int i = 0; i < word.length(); i++) {
+      if (word.charAt(i) != '.') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isNumber(String word) {
+    boolean digitBefore = false;
+    for (int i = 0; i < word.length(); i++) {
+      final char c = word.charAt(i);
+      if (Character.isDigit(c)) {
+        digitBefore = true;
+      } else if ((c == '.' || c == ',' || c == '-') && digitBefore && i < word.length() - 1) {
+        digitBefore = false;
+      } else {
+        return false;
+      }
+    }
+    return digitBefore;
+  }
+
+  private String capitalize(String s) {
+    if (s.isEmpty()) {
+      return s;
+    }
+    return s.substring(0, 1).toUpperCase(locale) + s.substring(1);
+  }
+
+  private static Locale toLocale(String languageCode) {
+    // e.g. "de_DE" or "pt-PT":
+    final String[] parts = languageCode.split("[_-]");
+    return parts.length > 1 ? new Locale(parts[0], parts[1]) : new Locale(parts[0]);
+  }
+
+  // --- loading ---
+
+  private void readAffixFile(byte[] bytes) throws IOException {
+    charset = getCharset(bytes);
+    final String[] lines = new String(bytes, charset).split("\r?\n");
+    final Map<String, List<Affix>> prefixMap = new HashMap<>();
+    final Map<String, List<Affix>> suffixMap = new HashMap<>();
+    // the first line of AF and BREAK tables only holds the number of entries:
+    boolean aliasCountRead = false;
+    boolean breakCountRead = false;
+    for (int i = 0; i < lines.length; i++) {
+      final String[] parts = splitLine(lines[i]);
+      if (parts.length < 2) {
+        continue;
+      }
+      switch (parts[0]) {
+        case "FLAG":
+          flagType = FlagType.forName(parts[1]);
+          break;
+        case "AF":
+          if (aliasCountRead) {
+            flagAliases.add(parseFlags(parts[1]));
+          }
+          aliasCountRead = true;
+          break;
+        case "TRY": tryChars = parts[1]; break;
+        case "LANG": affixFileLanguage = parts[1]; break;
+        case "WORDCHARS": wordChars = parts[1]; break;
+        case "REP":
+          if (parts.length >= 3) {
+            replacements.add(new String[] {parts[1], parts[2]});
+          }
+          break;
+        case "BREAK":
+          if (breakCountRead) {
+            breaks.add(parts[1]);
+          }
+          breakCountRead = true;
+          break;
+        case "NEEDAFFIX": needAffixFlag = parseFlag(parts[1]); break;
+        case "FORBIDDENWORD": forbiddenWordFlag = parseFlag(parts[1]); break;
+        case "KEEPCASE": keepCaseFlag = parseFlag(parts[1]); break;
+        case "NOSUGGEST": noSuggestFlag = parseFlag(parts[1]); break;
+        case "CIRCUMFIX": circumfixFlag = parseFlag(parts[1]); break;
+        case "ONLYINCOMPOUND": onlyInCompoundFlag = parseFlag(parts[1]); break;
+        case "COMPOUNDFLAG": compoundFlag = parseFlag(parts[1]); break;
+        case "COMPOUNDBEGIN": compoundBeginFlag = parseFlag(parts[1]); break;
+        case "COMPOUNDMIDDLE": compoundMiddleFlag = parseFlag(parts[1]); break;
+        case "COMPOUNDEND": compoundEndFlag = parseFlag(parts[1]); break;
+        case "COMPOUNDPERMITFLAG": compoundPermitFlag = parseFlag(parts[1]); break;
+        case "COMPOUNDMIN": compoundMin = Math.max(1, Integer.parseInt(parts[1])); break;
+        case "COMPOUNDWORDMAX": compoundWordMax = Integer.parseInt(parts[1]); break;
+        case "PFX":
+        case "SFX":
+          i = readAffixes(lines, i, parts, "PFX".equals(parts[0]) ? prefixMap : suffixMap);
+          break;
+        default:
+          // unsupported or not relevant for checking
+      }
+    }
+    for (String line : lines) {
+      final String trimmed = line.trim();
+      if (trimmed.equals("FULLSTRIP")) {
+        fullStrip = true;
+      } else if (trimmed.equals("CHECKSHARPS")) {
+        checkSharps = true;
+      } else if (trimmed.equals("NOSPLITSUGS")) {
+        noSplitSuggestions = true;
+      }
+    }
+    if (!breakCountRead) {
+      breaks.addAll(Arrays.asList("-", "^-", "-$"));  // hunspell's default
+    }
+    toArrays(prefixMap, prefixes);
+    toArrays(suffixMap, suffixes);
+  }
+
+  private int readAffixes(String[] lines, int headerLine, String[] header, Map<String, List<Affix>> affixMap) throws IOException {
+    if (header.length < 4) {
+      throw new IOException("Invalid affix header in line " + (headerLine + 1) + ": " + lines[headerLine]);
+    }
+    final boolean isPrefix = "PFX".equals(header[0]);
+    final char flag = parseFlag(header[1]);
+    final boolean crossProduct = "Y".equals(header[2]);
+    final int count = Integer.parseInt(header[3]);
+    int lineIndex = headerLine;
+    for (int found = 0; found < count && lineIndex + 1 < lines.length; ) {
+      lineIndex++;
+      final String[] parts = splitLine(lines[lineIndex]);
+      if (parts.length == 0) {
+        continue;
+      }
+      if (parts.length < 4 || !parts[0].equals(header[0])) {
+        throw new IOException("Invalid affix in line " + (lineIndex + 1) + ": " + lines[lineIndex]);
+      }
+      final String strip = "0".equals(parts[2]) ? "" : parts[2];
+      String append = parts[3];
+      char[] continuationFlags = NO_FLAGS;
+      final int slashPos = append.indexOf('/');
+      if (slashPos != -1) {
+        continuationFlags = parseFlagsOrAlias(append.substring(slashPos + 1));
+        append = append.substring(0, slashPos);
+      }
+      if ("0".equals(append)) {
+        append = "";
+      }
+      final String condition = parts.length > 4 ? parts[4] : ".";
+      final Affix affix = new Affix(flag, crossProduct, strip, append, continuationFlags, new Condition(condition, isPrefix));
+      List<Affix> list = affixMap.get(append);
+      if (list == null) {
+        list = new ArrayList<>();
+        affixMap.put(append, list);
+      }
+      list.add(affix);
+      found++;
+    }
+    return lineIndex;
+  }
+
+  private void readDictionaryFile(byte[] bytes) {
+    final String[] lines = new String(bytes, charset).split("\r?\n");
+    final Map<String, char[]> uniqueFlags = new HashMap<>();
+    words.ensureCapacity(lines.length);
+    for (int i = 1; i < lines.length; i++) {  // the first line is the number of words
+      String line = lines[i];
+      if (line.isEmpty() || line.charAt(0) == '\t' || line.charAt(0) == '#') {
+        continue;
+      }
+      final int tabPos = line.indexOf('\t');
+      if (tabPos != -1) {
+        line = line.substring(0, tabPos);  // morphological data
+      }
+      final int spacePos = line.indexOf(' ');
+      if (spacePos > 0) {
+        line = line.substring(0, spacePos);
+      }
+      final String word;
+      char[] flags = NO_FLAGS;
+      final int slashPos = getFlagSeparatorPos(line);
+      if (slashPos > 0) {
+        word = line.substring(0, slashPos).replace("\\/", "/");
+        final String flagString = line.substring(slashPos + 1);
+        char[] unique = uniqueFlags.get(flagString);
+        if (unique == null) {
+          unique = parseFlagsOrAlias(flagString);
+          uniqueFlags.put(flagString, unique);
+        }
+        flags = unique;
+      } else {
+        word = line.replace("\\/", "/");
+      }
+      if (word.isEmpty()) {
+        continue;
+      }
+      words.add(word, flags);
+    }
+    words.trimToSize();
+  }
+
+  private static int getFlagSeparatorPos(String line) {
+    int pos = line.indexOf('/');
+    while (pos > 0 && line.charAt(pos - 1) == '\\') {
+      pos = line.indexOf('/', pos + 1);
+    }
+    return pos;
+  }
+
+  private char[] parseFlagsOrAlias(String s) {
+    if (!flagAliases.isEmpty() && isNumeric(s)) {
+      final int index = Integer.parseInt(s);
+      if (index >= 1 && index <= flagAliases.size()) {
+        return flagAliases.get(index - 1);
+      }
+    }
+    return parseFlags(s);
+  }
+
+  private char[] parseFlags(String s) {
+    final char[] flags;
+    switch (flagType) {
+      case NUMBER:
+        final String[] numbers = s.split(",");
+        flags = new char[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+          flags[i] = (char) Integer.parseInt(numbers[i].trim());
+        }
+        break;
+      case LONG:
+        flags = new char[s.length() / 2];
+        for (int i = 0; i < flags.length; i++) {
+          flags[i] = (char) ((s.charAt(2 * i) << 8) | s.charAt(2 * i + 1));
+        }
+        break;
+      default:
+        flags = s.toCharArray();
+    }
+    Arrays.sort(flags);
+    return flags;
+  }
+
+  private char parseFlag(String s) {
+    final char[] flags = parseFlags(s);
+    return flags.length > 0 ? flags[0] : NO_FLAG;
+  }
+
+  private static void toArrays(Map<String, List<Affix>> from, Map<String, Affix[]> to) {
+    for (Map.Entry<String, List<Affix>> entry : from.entrySet()) {
+      to.put(entry.getKey(), entry.getValue().toArray(new Affix[entry.getValue().size()]));
+    }
+  }
+
+  private static String[] splitLine(String line) {
+    String s = line.trim();
+    if (s.isEmpty() || s.startsWith("#")) {
+      return new String[0];
+    }
+    return s.split("\\s+");
+  }
+
+  private static boolean isNumeric(String s) {
+    if (s.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      if (!Character.isDigit(s.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Charset getCharset(byte[] affixFile) {
+    // the encoding is declared in the file itself, all option names are ASCII:
+    for (String line : new String(affixFile, Charset.forName("ISO-8859-1")).split("\r?\n")) {
+      if (line.startsWith("SET ")) {
+        final String name = line.substring("SET ".length()).trim();
+        if (name.startsWith("ISO8859-")) {
+          return Charset.forName("ISO-8859-" + name.substring("ISO8859-".length()));
+        } else if (name.startsWith("microsoft-cp")) {
+          return Charset.forName("windows-" + name.substring("microsoft-cp".length()));
+        } else if ("microsoft1251".equals(name)) {
+          return Charset.forName("windows-1251");
+        }
+        return Charset.forName(name);
+      }
+    }
+    return Charset.forName("ISO-8859-1");
+  }
+
+  private static byte[] readFully(InputStream stream) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[64 * 1024];
+    int len;
+    while ((len = stream.read(buffer)) != -1) {
+      out.write(buffer, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * The words of the dictionary and the flags of their homonyms. The characters of all words are
+   * stored in one array, and an open-addressing hash table maps a word's hash to its index. The
+   * homonym flags are shared by all words with the same flags. Not thread-safe while adding words.
+   */
+  private static class WordTable {
+
+    private char[] chars = new char[1024];
+    private int charCount;
+    private int[] offsets = new int[1];  // word i is chars[offsets[i]] to chars[offsets[i + 1]]
+    private int[] groupIndexes = new int[0];  // the homonym flags of word i are groups[groupIndexes[i]]
+    private int size;
+    private int[] table = new int[16];  // word index + 1, 0 = empty slot
+    private char[][][] groups = new char[0][][];
+    // only needed while loading:
+    private Map<FlagGroup, Integer> groupsToIndex = new HashMap<>();
+    private List<char[][]> groupList = new ArrayList<>();
+
+    void ensureCapacity(int wordCount) {
+      if (wordCount <= 0) {
+        return;
+      }
+      if (offsets.length < wordCount + 1) {
+        offsets = Arrays.copyOf(offsets, wordCount + 1);
+        groupIndexes = Arrays.copyOf(groupIndexes, wordCount);
+      }
+      if (table.length < 2 * wordCount) {
+        rehash(Integer.highestOneBit(2 * wordCount - 1) << 1);
+      }
+    }
+
+    char[][] get(String word) {
+      final int index = indexOf(word);
+      return index == -1 ? null : groups[groupIndexes[index]];
+    }
+
+    void add(String word, char[] flags) {
+      final int existing = indexOf(word);
+      if (existing != -1) {
+        // a homonym:
+        final char[][] homonyms = groupList.get(groupIndexes[existing]);
+        final char[][] newHomonyms = Arrays.copyOf(homonyms, homonyms.length + 1);
+        newHomonyms[homonyms.length] = flags;
+        groupIndexes[existing] = getGroupIndex(newHomonyms);
+        return;
+      }
+      if (size + 1 >= offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        groupIndexes = Arrays.copyOf(groupIndexes, offsets.length - 1);
+      }
+      if (charCount + word.length() > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + word.length()));
+      }
+      word.getChars(0, word.length(), chars, charCount);
+      charCount += word.length();
+      groupIndexes[size] = getGroupIndex(new char[][] {flags});
+      offsets[size + 1] = charCount;
+      size++;
+      if (2 * size > table.length) {
+        rehash(table.length * 2);
+      } else {
+        insert(size - 1, word.hashCode());
+      }
+    }
+
+    /**
+     * Release the extra capacity and the data only needed while loading.
+     */
+    void trimToSize() {
+      chars = Arrays.copyOf(chars, charCount);
+      offsets = Arrays.copyOf(offsets, size + 1);
+      groupIndexes = Arrays.copyOf(groupIndexes, size);
+      groups = groupList.toArray(new char[groupList.size()][][]);
+      groupsToIndex = null;
+      groupList = null;
+    }
+
+    private int getGroupIndex(char[][] homonyms) {
+      final FlagGroup key = new FlagGroup(homonyms);
+      Integer index = groupsToIndex.get(key);
+      if (index == null) {
+        index = groupList.size();
+        groupList.add(homonyms);
+        groupsToIndex.put(key, index);
+      }
+      return index;
+    }
+
+    private int indexOf(String word) {
+      final int mask = table.length - 1;
+      for (int slot = mix(word.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+        final int entry = table[slot];
+        if (entry == 0) {
+          return -1;
+        }
+        if (equalsWord(entry - 1, word)) {
+          return entry - 1;
+        }
+      }
+    }
+
+    private boolean equalsWord(int index, String word) {
+      final int start = offsets[index];
+      if (offsets[index + 1] - start != word.length()) {
+        return false;
+      }
+      for (int i = 0; i < word.length(); i++) {
+        if (chars[start + i] != word.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void rehash(int newTableSize) {
+      table = new int[newTableSize];
+      for (int i = 0; i < size; i++) {
+        // the same as String.hashCode():
+        int hash = 0;
+        for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+          hash = 31 * hash + chars[j];
+        }
+        insert(i, hash);
+      }
+    }
+
+    private void insert(int index, int hash) {
+      final int mask = table.length - 1;
+      int slot = mix(hash) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = index + 1;
+    }
+
+    private static int mix(int hash) {
+      // spread the bits, as only the lower bits select the slot:
+      final int h = hash * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+
+  /**
+   * The flags of a word's homonyms as a map key. The flag arrays are shared by all
+   * words with the same flag string, so they are compared by identity.
+   */
+  private static class FlagGroup {
+
+    private final char[][] homonyms;
+
+    FlagGroup(char[][] homonyms) {
+      this.homonyms = homonyms;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof FlagGroup)) {
+        return false;
+      }
+      final char[][] other = ((FlagGroup) o).homonyms;
+      if (other.length != homonyms.length) {
+        return false;
+      }
+      for (int i = 0; i < homonyms.length; i++) {
+        if (other[i] != homonyms[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = 1;
+      for (char[] flags : homonyms) {
+        hash = 31 * hash + System.identityHashCode(flags);
+      }
+      return hash;
+    }
+  }
+
+  /**
+   * How flags are written, set with the affix file's {@code FLAG} option.
+   */
+  private enum FlagType {
+    CHAR, LONG, NUMBER;
+
+    static FlagType forName(String name) {
+      switch (name) {
+        case "long": return LONG;
+        case "num": return NUMBER;
+        default: return CHAR;  // includes "UTF-8"
+      }
+    }
+  }
+
+  /**
+   * A prefix or suffix rule.
+   */
+  private static class Affix {
+
+    private final char flag;
+    private final boolean crossProduct;
+    private final String strip;
+    private final String append;
+    private final char[] continuationFlags;
+    private final Condition condition;
+
+    Affix(char flag, boolean crossProduct, String strip, String append, char[] continuationFlags, Condition condition) {
+      this.flag = flag;
+      this.crossProduct = crossProduct;
+      this.strip = strip;
+      this.append = append;
+      this.continuationFlags = continuationFlags;
+      this.condition = condition;
+    }
+
+    boolean matches(String stem) {
+      return condition.matches(stem);
+    }
+  }
+
+  /**
+   * The condition of an affix rule, a simplified regular expression like {@code [^aeiou]y}
+   * that must match the start (prefixes) or end (suffixes) of the stem.
+   */
+  private static class Condition {
+
+    private final char[][] charSets;  // null = any character
+    private final boolean[] negated;
+    private final boolean atStart;
+
+    Condition(String condition, boolean atStart) {
+      this.atStart = atStart;
+      final List<char[]> sets = new ArrayList<>();
+      final List<Boolean> negations = new ArrayList<>();
+      if (!".".equals(condition)) {
+        int i = 0;
+        while (i < condition.length()) {
+          final char c = condition.charAt(i);
+          if (c == '[') {
+            final int end = condition.indexOf(']', i);
+            final int setEnd = end == -1 ? condition.length() : end;
+            final boolean negation = i + 1 < setEnd && condition.charAt(i + 1) == '^';
+            sets.add(condition.substring(negation ? i + 2 : i + 1, setEnd).toCharArray());
+            negations.add(negation);
+            i = setEnd + 1;
+          } else {
+            sets.add(c == '.' ? null : new char[] {c});
+            negations.add(false);
+            i++;
+          }
+        }
+      }
+      charSets = sets.toArray(new char[sets.size()][]);
+      negated = new boolean[negations.size()];
+      for (int i = 0; i < negated.length; i++) {
+        negated[i] = negations.get(i);
+      }
+    }
+
+    boolean matches(String stem) {
+      if (stem.length() < charSets.length) {
+        return false;
+      }
+      final int offset = atStart ? 0 : stem.length() - charSets.length;
+      for (int i = 0; i < charSets.length; i++) {
+        if (charSets[i] != null) {
+          final char c = stem.charAt(offset + i);
+          boolean found = false;
+          for (char setChar : charSets[i]) {
+            if (setChar == c) {
+              found = true;
+              break;
+            }
+          }
+          if (found == negated[i]) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  }
+
+}
@@ -30,13 +30,20 @@ import java.nio.charset.CharacterCodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
- * Morfologik-based spell checker.
+ * Morfologik-based spell checker. Can be used by several threads at the same time:
+ * a {@link Speller} keeps state while searching, so each call borrows one from a pool
+ * of spellers for the dictionary. The pool only grows to the number of concurrent calls
+ * and is released together with this object.
  */
 public class MorfologikSpeller {
 
-  private final Speller speller;
+  private final Dictionary dictionary;
+  private final int maxEditDistance;
+  private final Queue<Speller> idleSpellers = new ConcurrentLinkedQueue<>();
   private final Locale conversionLocale;
 
   /**
@@ -44,12 +51,13 @@ public class MorfologikSpeller {
    * @param filename path in classpath to morfologik dictionary
    * @param conversionLocale used when transforming the word to lowercase
    */
-  public MorfologikSpeller(String filename, Locale conversionLocale, int maxEditDistance) throws IOException {
+  public MorfologikSpeller(String filename, Locale conversionLocale, final int maxEditDistance) throws IOException {
     if (maxEditDistance <= 0) {
       throw new RuntimeException("maxEditDistance must be > 0: " + maxEditDistance);
     }
     final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(filename);
-    speller = new Speller(Dictionary.read(url), maxEditDistance);
+    dictionary = Dictionary.read(url);
+    this.maxEditDistance = maxEditDistance;
     this.conversionLocale = conversionLocale != null ? conversionLocale : Locale.getDefault();
   }
 
@@ -75,17 +83,25 @@ public class MorfologikSpeller {
     if (word.length() == 1) { // dictionaries usually do not contain punctuation
       isAlphabetic = StringTools.isAlphabetic(word.charAt(0));
     }
-    return word.length() > 0 && isAlphabetic
-            && !containsDigit(word)
-            && !SpellingCheckRule.LANGUAGETOOL.equals(word)
-            && !SpellingCheckRule.LANGUAGETOOL_FX.equals(word)
-            && !speller.isInDictionary(word)
-            && !(!StringTools.isMixedCase(word) 
-                && speller.isInDictionary(word.toLowerCase(conversionLocale)));
+    if (word.length() == 0 || !isAlphabetic
+            || containsDigit(word)
+            || SpellingCheckRule.LANGUAGETOOL.equals(word)
+            || SpellingCheckRule.LANGUAGETOOL_FX.equals(word)) {
+      return false;
+    }
+    final Speller speller = borrowSpeller();
+    try {
+      return !speller.isInDictionary(word)
+              && !(!StringTools.isMixedCase(word)
+                  && speller.isInDictionary(word.toLowerCase(conversionLocale)));
+    } finally {
+      idleSpellers.offer(speller);
+    }
   }
 
   public List<String> getSuggestions(String word) {
     final List<String> suggestions = new ArrayList<>();
+    final Speller speller = borrowSpeller();
     try {
       suggestions.addAll(speller.findReplacements(word));
       if (suggestions.isEmpty() && !word.toLowerCase(conversionLocale).equals(word)) {
@@ -94,10 +110,17 @@ public class MorfologikSpeller {
       suggestions.addAll(speller.replaceRunOnWords(word));
     } catch (CharacterCodingException e) {
       throw new RuntimeException(e);
+    } finally {
+      idleSpellers.offer(speller);
     }
     return suggestions;
   }
 
+  private Speller borrowSpeller() {
+    final Speller speller = idleSpellers.poll();
+    return speller != null ? speller : new Speller(dictionary, maxEditDistance);
+  }
+
   private boolean containsDigit(final String s) {
     for (int k = 0; k < s.length(); k++) {
       if (Character.isDigit(s.charAt(k))) {
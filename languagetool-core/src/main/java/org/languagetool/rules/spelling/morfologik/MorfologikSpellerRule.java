@@ -25,6 +25,7 @@ import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.rules.Category;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestionProvider;
 import org.languagetool.rules.spelling.SpellingCheckRule;
 import org.languagetool.AnalyzedToken;
 
@@ -66,6 +67,7 @@ public abstract class MorfologikSpellerRule extends SpellingCheckRule {
 
   public void setLocale(Locale locale) {
     conversionLocale = locale;
+    resetKnownWordCacheKey();
   }
 
   /**
@@ -125,33 +127,51 @@ public abstract class MorfologikSpellerRule extends SpellingCheckRule {
   }
 
 
+  @Override
+  protected String getKnownWordCacheConfiguration() {
+    return getFileName() + "/" + conversionLocale;
+  }
+
   protected boolean isMisspelled(MorfologikSpeller speller, String word) {
     return speller.isMisspelled(word);
   }
 
   private List<RuleMatch> getRuleMatch(final String word, final int startPos) {
     final List<RuleMatch> ruleMatches = new ArrayList<>();
+    if (isKnownCorrect(word)) {
+      return ruleMatches;
+    }
     if (isMisspelled(speller, word)) {
       final RuleMatch ruleMatch = new RuleMatch(this, startPos, startPos
           + word.length(), messages.getString("spelling"),
           messages.getString("desc_spelling_short")); 
-      //If lower case word is not a misspelled word, return it as the only suggestion 
-      if (!isMisspelled(speller, word.toLowerCase(conversionLocale))) {
-        List<String> suggestion = Arrays.asList(word.toLowerCase(conversionLocale));
-        ruleMatch.setSuggestedReplacements(suggestion);
-        ruleMatches.add(ruleMatch);
-        return ruleMatches;
-      }
-      List<String> suggestions = speller.getSuggestions(word);
-      suggestions = getAdditionalSuggestions(suggestions, word);
-      if (!suggestions.isEmpty()) {
-        ruleMatch.setSuggestedReplacements(orderSuggestions(suggestions,word));
-      }
+      // suggestions are expensive, so only create them if they are actually used:
+      ruleMatch.setLazySuggestedReplacements(limitToSuggestionTimeBudget(new SuggestionProvider() {
+        @Override
+        public List<String> getSuggestions() {
+          return getSuggestionsFor(word);
+        }
+      }));
       ruleMatches.add(ruleMatch);
+    } else {
+      addKnownCorrect(word);
     }
     return ruleMatches;
   }
 
+  private List<String> getSuggestionsFor(final String word) {
+    //If lower case word is not a misspelled word, return it as the only suggestion 
+    if (!isMisspelled(speller, word.toLowerCase(conversionLocale))) {
+      return Arrays.asList(word.toLowerCase(conversionLocale));
+    }
+    List<String> suggestions = speller.getSuggestions(word);
+    suggestions = getAdditionalSuggestions(suggestions, word);
+    if (!suggestions.isEmpty()) {
+      return orderSuggestions(suggestions, word);
+    }
+    return suggestions;
+  }
+
   /**
    * Get the regular expression pattern used to tokenize
    * the words as in the source dictionary. For example,
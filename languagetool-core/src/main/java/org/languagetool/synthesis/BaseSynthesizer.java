@@ -21,8 +21,10 @@ package org.languagetool.synthesis;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import morfologik.stemming.Dictionary;
@@ -32,18 +34,42 @@ import morfologik.stemming.WordData;
 
 import org.languagetool.AnalyzedToken;
 import org.languagetool.JLanguageTool;
+import org.languagetool.tools.LruCache;
 
 public class BaseSynthesizer implements Synthesizer {
- 
-  protected IStemmer synthesizer;
-  protected ArrayList<String> possibleTags;
+
+  /** The default number of (lemma, POS tag) combinations whose inflected forms are cached. */
+  public static final int DEFAULT_FORM_CACHE_SIZE = 5000;
+
+  // volatile as these are initialized lazily, but may be used by several threads:
+  protected volatile IStemmer synthesizer;
+  protected volatile ArrayList<String> possibleTags;
 
   private final String tagFileName;
   private final String resourceFileName;
-  
+
+  /** POS tag regular expression (as used in the rules) -> the tags from the tag file that match it */
+  private final Map<String, List<String>> matchingTagsCache = new ConcurrentHashMap<>();
+  /** lemma and POS tag -> inflected forms, <code>null</code> if the cache is disabled */
+  private final Map<String, String[]> formCache;
+
   public BaseSynthesizer(final String resourceFileName, final String tagFileName) {
+    this(resourceFileName, tagFileName, DEFAULT_FORM_CACHE_SIZE);
+  }
+
+  /**
+   * @param formCacheSize maximum number of (lemma, POS tag) combinations whose
+   *   inflected forms are kept in memory, use <code>0</code> to disable the cache
+   * @since 2.3
+   */
+  public BaseSynthesizer(final String resourceFileName, final String tagFileName, final int formCacheSize) {
     this.resourceFileName = resourceFileName;  
     this.tagFileName = tagFileName;
+    if (formCacheSize > 0) {
+      formCache = Collections.synchronizedMap(new LruCache<String, String[]>(formCacheSize));
+    } else {
+      formCache = null;
+    }
   }
 
   /**
@@ -58,6 +84,49 @@ public class BaseSynthesizer implements Synthesizer {
       results.add(wd.getStem().toString());
     }
   }
+
+  /**
+   * Like {@link #lookup(String, String, List)}, but answered from the form cache if possible.
+   */
+  private void cachedLookup(String lemma, String posTag, List<String> results) {
+    if (formCache == null) {
+      lookup(lemma, posTag, results);
+      return;
+    }
+    final String key = lemma + "|" + posTag;
+    String[] forms = formCache.get(key);
+    if (forms == null) {
+      final List<String> lookedUpForms = new ArrayList<>();
+      lookup(lemma, posTag, lookedUpForms);
+      forms = lookedUpForms.toArray(new String[lookedUpForms.size()]);
+      formCache.put(key, forms);
+    }
+    Collections.addAll(results, forms);
+  }
+
+  /**
+   * Get all tags from the tag file that match the given regular expression.
+   * The result only depends on the tag file, so it is computed once per expression.
+   * @param posTagRegExp a regular expression as used with <code>postag_regexp</code> in the rules
+   * @return an unmodifiable list of the matching tags
+   * @since 2.3
+   */
+  protected List<String> getMatchingTags(final String posTagRegExp) throws IOException {
+    List<String> tags = matchingTagsCache.get(posTagRegExp);
+    if (tags == null) {
+      initPossibleTags();
+      final Pattern p = Pattern.compile(posTagRegExp);
+      final List<String> matchingTags = new ArrayList<>();
+      for (final String tag : possibleTags) {
+        if (p.matcher(tag).matches()) {
+          matchingTags.add(tag);
+        }
+      }
+      tags = Collections.unmodifiableList(matchingTags);
+      matchingTagsCache.put(posTagRegExp, tags);
+    }
+    return tags;
+  }
   
   /**
    * Get a form of a given AnalyzedToken, where the form is defined by a
@@ -71,7 +140,7 @@ public class BaseSynthesizer implements Synthesizer {
   public String[] synthesize(final AnalyzedToken token, final String posTag) throws IOException {
     initSynthesizer();
     final List<String> wordForms = new ArrayList<>();
-    lookup(token.getLemma(), posTag, wordForms);
+    cachedLookup(token.getLemma(), posTag, wordForms);
     return wordForms.toArray(new String[wordForms.size()]);
   }
       
@@ -80,14 +149,9 @@ public class BaseSynthesizer implements Synthesizer {
       final boolean posTagRegExp) throws IOException {
     if (posTagRegExp) {
       initSynthesizer();
-      initPossibleTags();
-      final Pattern p = Pattern.compile(posTag);
       final ArrayList<String> results = new ArrayList<>();
-      for (final String tag : possibleTags) {
-        final Matcher m = p.matcher(tag);
-        if (m.matches()) {
-          lookup(token.getLemma(), tag, results);
-        }
+      for (final String tag : getMatchingTags(posTag)) {
+        cachedLookup(token.getLemma(), tag, results);
       }
       return results.toArray(new String[results.size()]);
     }
@@ -99,16 +163,39 @@ public class BaseSynthesizer implements Synthesizer {
     return posTag;
   }
 
+  /**
+   * Load the tag file, if that hasn't happened yet. Safe to be called by several threads.
+   */
   protected void initPossibleTags() throws IOException {
     if (possibleTags == null) {
-      possibleTags = SynthesizerTools.loadWords(JLanguageTool.getDataBroker().getFromResourceDirAsStream(tagFileName));
+      synchronized (this) {
+        if (possibleTags == null) {
+          possibleTags = loadPossibleTags();
+        }
+      }
     }
   }
 
+  /**
+   * Load all possible POS tags. Only called once per synthesizer, the result must not be
+   * modified afterwards.
+   * @since 2.3
+   */
+  protected ArrayList<String> loadPossibleTags() throws IOException {
+    return SynthesizerTools.loadWords(JLanguageTool.getDataBroker().getFromResourceDirAsStream(tagFileName));
+  }
+
+  /**
+   * Load the synthesizer dictionary, if that hasn't happened yet. Safe to be called by several threads.
+   */
   protected void initSynthesizer() throws IOException {
     if (synthesizer == null) {
-      final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(resourceFileName);
-      synthesizer = new DictionaryLookup(Dictionary.read(url));
+      synchronized (this) {
+        if (synthesizer == null) {
+          final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(resourceFileName);
+          synthesizer = new DictionaryLookup(Dictionary.read(url));
+        }
+      }
     }
   }
 
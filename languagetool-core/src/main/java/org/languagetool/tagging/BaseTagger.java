@@ -78,6 +78,12 @@ public abstract class BaseTagger implements Tagger {
     final IStemmer dictLookup = new DictionaryLookup(getDictionary());
 
     for (String word : sentenceTokens) {
+      if (StringTools.isWhitespace(word)) {
+        // whitespace is never in the dictionary, so don't look it up:
+        tokenReadings.add(new AnalyzedTokenReadings(new AnalyzedToken(word, null, null), pos));
+        pos += word.length();
+        continue;
+      }
       final List<AnalyzedToken> l = new ArrayList<>();
       final String lowerWord = word.toLowerCase(conversionLocale);
       taggerTokens = asAnalyzedTokenList(word, dictLookup.lookup(word));
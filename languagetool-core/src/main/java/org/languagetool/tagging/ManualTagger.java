@@ -18,13 +18,16 @@
  */
 package org.languagetool.tagging;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.TreeMap;
 
 import org.languagetool.synthesis.ManualSynthesizer;
 import org.languagetool.tools.StringTools;
@@ -35,16 +38,39 @@ import org.languagetool.tools.StringTools;
  * about new words or missing readings in the *.dict file.
  * 
  * <p>File Format: <tt>fullform baseform postags</tt> (tab separated)
+ *
+ * <p>The entries are kept in two parallel arrays sorted by full form, so a lookup
+ * is a binary search that doesn't allocate any objects. Equal baseforms and POS tags
+ * are shared between entries.
  * 
  * @author Daniel Naber
  * @see ManualSynthesizer
  */
 public class ManualTagger {
 
-  private final Map<String, List<LookedUpTerm>> mapping;
+  /** sorted full forms */
+  private final String[] words;
+  /** baseform and POS information for the full form at the same index in {@link #words} */
+  private final String[][] readings;
 
   public ManualTagger(final InputStream inputStream) throws IOException {
-    mapping = loadMapping(inputStream, "utf8");
+    this(inputStream, null);
+  }
+
+  /**
+   * @param fileName the name of the file that is read from {@code inputStream}, used in error messages
+   * @since 2.3
+   */
+  public ManualTagger(final InputStream inputStream, final String fileName) throws IOException {
+    final Map<String, List<String>> mapping = loadMapping(inputStream, "utf8", fileName);
+    words = new String[mapping.size()];
+    readings = new String[mapping.size()][];
+    int i = 0;
+    for (Map.Entry<String, List<String>> entry : mapping.entrySet()) {
+      words[i] = entry.getKey();
+      readings[i] = entry.getValue().toArray(new String[entry.getValue().size()]);
+      i++;
+    }
   }
 
   /**
@@ -52,58 +78,62 @@ public class ManualTagger {
    * 
    * @return an array with the baseform (at position 0, 2, ...) and the POS
    *         information (at position 1, 3, ...) or <code>null</code> if the
-   *         word is unknown
+   *         word is unknown. The array is shared between calls and must not be modified.
    */
   public String[] lookup(final String term) {
-    final List<LookedUpTerm> l = mapping.get(term);
-    if (l == null) {
+    final int idx = Arrays.binarySearch(words, term);
+    if (idx < 0) {
       return null;
     }
-    final List<String> plainResult = new ArrayList<>();
-    for (final Object element : l) {
-      final LookedUpTerm lookedUpTerm = (LookedUpTerm) element;
-      plainResult.add(lookedUpTerm.baseform);
-      plainResult.add(lookedUpTerm.postags);
-    }
-    if (plainResult.isEmpty()) {
-      return null;
-    }
-    return plainResult.toArray(new String[plainResult.size()]);
+    return readings[idx];
   }
 
-  private Map<String, List<LookedUpTerm>> loadMapping(final InputStream inputStream, final String encoding) throws IOException {
-    final Map<String, List<LookedUpTerm>> map = new HashMap<>();
-    try (Scanner scanner = new Scanner(inputStream, encoding)) {
-      while (scanner.hasNextLine()) {
-        final String line = scanner.nextLine();
+  private Map<String, List<String>> loadMapping(final InputStream inputStream, final String encoding,
+                                                final String fileName) throws IOException {
+    final Map<String, List<String>> map = new TreeMap<>();
+    final Map<String, String> internedStrings = new HashMap<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, encoding))) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
         if (StringTools.isEmpty(line) || line.charAt(0) == '#') {
           continue;
         }
-        final String[] parts = line.split("\t");
-        if (parts.length != 3) {
-          throw new IOException("Unknown line format when loading manual tagger dictionary: " + line);
+        final int firstTab = line.indexOf('\t');
+        final int secondTab = firstTab == -1 ? -1 : line.indexOf('\t', firstTab + 1);
+        if (secondTab == -1 || line.indexOf('\t', secondTab + 1) != -1) {
+          throw new IOException("Unknown line format when loading manual tagger dictionary, "
+                  + getPosition(fileName, lineNumber) + ": " + line);
+        }
+        if (secondTab == line.length() - 1) {
+          throw new IOException("Empty POS tag when loading manual tagger dictionary, "
+                  + getPosition(fileName, lineNumber) + ": " + line);
         }
-        List<LookedUpTerm> terms = map.get(parts[0]);
+        final String fullform = line.substring(0, firstTab);
+        List<String> terms = map.get(fullform);
         if (terms == null) {
-          terms = new ArrayList<>();
+          terms = new ArrayList<>(2);
+          map.put(fullform, terms);
         }
-        terms.add(new LookedUpTerm(parts[1], parts[2]));
-        map.put(parts[0], terms);
+        terms.add(intern(line.substring(firstTab + 1, secondTab), internedStrings));
+        terms.add(intern(line.substring(secondTab + 1), internedStrings));
       }
     }
     return map;
   }
 
-}
-
-class LookedUpTerm {
-
-  String baseform;
-  String postags;
+  private String getPosition(final String fileName, final int lineNumber) {
+    return fileName != null ? fileName + ", line " + lineNumber : "line " + lineNumber;
+  }
 
-  LookedUpTerm(final String baseform, final String postags) {
-    this.baseform = baseform;
-    this.postags = postags;
+  private String intern(final String s, final Map<String, String> internedStrings) {
+    final String existing = internedStrings.get(s);
+    if (existing != null) {
+      return existing;
+    }
+    internedStrings.put(s, s);
+    return s;
   }
 
 }
@@ -44,6 +44,9 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
 
   public final AnalyzedSentence replace(final AnalyzedSentence text)
           throws IOException {
+    if (!rule.canMatch(text)) {
+      return text;
+    }
     List<ElementMatcher> elementMatchers = createElementMatchers();
 
     final AnalyzedTokenReadings[] tokens = text
@@ -42,7 +42,8 @@ public class XmlRuleDisambiguator implements Disambiguator {
 
   private static final String DISAMBIGUATION_FILE = "disambiguation.xml";
   
-  private List<DisambiguationPatternRule> disambiguationRules;
+  // volatile as the rules are loaded lazily, but may be used by several threads:
+  private volatile List<DisambiguationPatternRule> disambiguationRules;
   private final Language language;
 
   public XmlRuleDisambiguator(final Language language) {
@@ -52,21 +53,32 @@ public class XmlRuleDisambiguator implements Disambiguator {
   @Override
   public AnalyzedSentence disambiguate(final AnalyzedSentence input) throws IOException {
     AnalyzedSentence sentence = input;
-    if (disambiguationRules == null) {
-      final String disambiguationFile =
-        JLanguageTool.getDataBroker().getResourceDir() + "/" + language.getShortName() + "/" + DISAMBIGUATION_FILE;
-      try {
-        disambiguationRules = loadPatternRules(disambiguationFile);
-      } catch (final Exception e) {
-        throw new RuntimeException("Problems with loading disambiguation file: " + disambiguationFile, e);
-      }
-    }
-    for (final DisambiguationPatternRule patternRule : disambiguationRules) {
+    for (final DisambiguationPatternRule patternRule : getDisambiguationRules()) {
       sentence = patternRule.replace(sentence);
     }
     return sentence;
   }
 
+  private List<DisambiguationPatternRule> getDisambiguationRules() {
+    List<DisambiguationPatternRule> rules = disambiguationRules;
+    if (rules == null) {
+      synchronized (this) {
+        rules = disambiguationRules;
+        if (rules == null) {
+          final String disambiguationFile =
+            JLanguageTool.getDataBroker().getResourceDir() + "/" + language.getShortName() + "/" + DISAMBIGUATION_FILE;
+          try {
+            rules = loadPatternRules(disambiguationFile);
+          } catch (final Exception e) {
+            throw new RuntimeException("Problems with loading disambiguation file: " + disambiguationFile, e);
+          }
+          disambiguationRules = rules;
+        }
+      }
+    }
+    return rules;
+  }
+
   /**
    * Load disambiguation rules from an XML file. Use {@link org.languagetool.JLanguageTool#addRule} to add
    * these rules to the checking process.
@@ -21,15 +21,14 @@ package org.languagetool.tokenizers;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import net.sourceforge.segment.TextIterator;
 import net.sourceforge.segment.srx.SrxDocument;
 import net.sourceforge.segment.srx.SrxParser;
-import net.sourceforge.segment.srx.SrxTextIterator;
 import net.sourceforge.segment.srx.io.Srx2SaxParser;
 
 import org.languagetool.JLanguageTool;
@@ -45,6 +44,8 @@ public class SRXSentenceTokenizer extends SentenceTokenizer {
 	
   private static final String RULES = "/segment.srx";
   private static final SrxDocument document = createSrxDocument();
+  // compiled rules per language code and paragraph mode, e.g. 'en_two':
+  private static final ConcurrentMap<String, SrxSegmenter> segmenters = new ConcurrentHashMap<>();
 
   private final String languageCode;
 
@@ -84,14 +85,25 @@ public class SRXSentenceTokenizer extends SentenceTokenizer {
     setSingleLineBreaksMarksParagraph(false);
   }
 
+  static SrxDocument getSrxDocument() {
+    return document;
+  }
+
+  private static SrxSegmenter getSegmenter(final String code) {
+    SrxSegmenter segmenter = segmenters.get(code);
+    if (segmenter == null) {
+      segmenter = new SrxSegmenter(document, code);
+      final SrxSegmenter existingSegmenter = segmenters.putIfAbsent(code, segmenter);
+      if (existingSegmenter != null) {
+        segmenter = existingSegmenter;
+      }
+    }
+    return segmenter;
+  }
+
   @Override
   public final List<String> tokenize(final String text) {
-    final List<String> segments = new ArrayList<>();
-    final TextIterator textIterator = new SrxTextIterator(document, languageCode + parCode, text);
-    while (textIterator.hasNext()) {
-      segments.add(textIterator.next());
-    }
-    return segments;
+    return getSegmenter(languageCode + parCode).segment(text);
   }
 
   @Override
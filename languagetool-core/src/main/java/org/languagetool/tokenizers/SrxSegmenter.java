@@ -0,0 +1,201 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tokenizers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.sourceforge.segment.srx.Rule;
+import net.sourceforge.segment.srx.RuleManager;
+import net.sourceforge.segment.srx.SrxDocument;
+import net.sourceforge.segment.srx.SrxTextIterator;
+import net.sourceforge.segment.util.Util;
+
+/**
+ * The SRX break rules of one language, compiled once. Segments text like
+ * {@link SrxTextIterator} does, but without looking up the language's rules and their
+ * regular expressions again for every text, which is a noticeable part of the run time
+ * for short texts. Immutable and thus thread-safe.
+ * @since 2.3
+ */
+public final class SrxSegmenter {
+
+  private static final int MAX_LOOKBEHIND_CONSTRUCT_LENGTH = SrxTextIterator.DEFAULT_MAX_LOOKBEHIND_CONSTRUCT_LENGTH;
+
+  private final List<CompiledRule> breakRules = new ArrayList<>();
+
+  /**
+   * @param languageCode the code that's matched against the language maps of the SRX document,
+   *  like {@code en_two}
+   */
+  public SrxSegmenter(SrxDocument document, String languageCode) {
+    final RuleManager ruleManager = new RuleManager(document, document.getLanguageRuleList(languageCode), MAX_LOOKBEHIND_CONSTRUCT_LENGTH);
+    for (Rule rule : ruleManager.getBreakRuleList()) {
+      breakRules.add(new CompiledRule(
+              Util.compile(document, rule.getBeforePattern()),
+              Util.compile(document, rule.getAfterPattern()),
+              ruleManager.getExceptionPattern(rule)));
+    }
+  }
+
+  /**
+   * Split the text into segments. The segments, joined together, are the original text.
+   */
+  public List<String> segment(String text) {
+    final List<String> segments = new ArrayList<>();
+    final List<RuleMatcher> matchers = new LinkedList<>();
+    for (CompiledRule rule : breakRules) {
+      final RuleMatcher matcher = new RuleMatcher(rule, text);
+      if (matcher.find()) {
+        matchers.add(matcher);
+      }
+    }
+    int start = 0;
+    while (start < text.length()) {
+      int end;
+      boolean found = false;
+      do {
+        final RuleMatcher minMatcher = getMinMatcher(matchers);
+        if (minMatcher == null) {
+          end = text.length();
+          found = true;
+        } else {
+          end = minMatcher.getBreakPosition();
+          if (end > start) {
+            found = !minMatcher.isException();
+            if (found) {
+              cutMatchers(matchers, end);
+            }
+          }
+          moveMatchers(matchers, end);
+        }
+      } while (!found);
+      segments.add(text.substring(start, end));
+      start = end;
+    }
+    return segments;
+  }
+
+  private static RuleMatcher getMinMatcher(List<RuleMatcher> matchers) {
+    RuleMatcher minMatcher = null;
+    int minPosition = Integer.MAX_VALUE;
+    for (RuleMatcher matcher : matchers) {
+      if (matcher.getBreakPosition() < minPosition) {
+        minPosition = matcher.getBreakPosition();
+        minMatcher = matcher;
+      }
+    }
+    return minMatcher;
+  }
+
+  /**
+   * Matches that started before the break may overlap with the next segment, so search again from the break.
+   */
+  private static void cutMatchers(List<RuleMatcher> matchers, int end) {
+    for (Iterator<RuleMatcher> iterator = matchers.iterator(); iterator.hasNext();) {
+      final RuleMatcher matcher = iterator.next();
+      if (matcher.getStartPosition() < end && !matcher.find(end)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static void moveMatchers(List<RuleMatcher> matchers, int end) {
+    for (Iterator<RuleMatcher> iterator = matchers.iterator(); iterator.hasNext();) {
+      final RuleMatcher matcher = iterator.next();
+      while (matcher.getBreakPosition() <= end) {
+        if (!matcher.find()) {
+          iterator.remove();
+          break;
+        }
+      }
+    }
+  }
+
+  private static class CompiledRule {
+    private final Pattern beforePattern;
+    private final Pattern afterPattern;
+    private final Pattern exceptionPattern;  // null = no exceptions
+    private CompiledRule(Pattern beforePattern, Pattern afterPattern, Pattern exceptionPattern) {
+      this.beforePattern = beforePattern;
+      this.afterPattern = afterPattern;
+      this.exceptionPattern = exceptionPattern;
+    }
+  }
+
+  /**
+   * The matching state of one break rule for one text.
+   */
+  private static class RuleMatcher {
+
+    private final CompiledRule rule;
+    private final CharSequence text;
+    private final Matcher beforeMatcher;
+    private final Matcher afterMatcher;
+    private Matcher exceptionMatcher;
+
+    private RuleMatcher(CompiledRule rule, CharSequence text) {
+      this.rule = rule;
+      this.text = text;
+      this.beforeMatcher = rule.beforePattern.matcher(text);
+      this.afterMatcher = rule.afterPattern.matcher(text);
+    }
+
+    private boolean find() {
+      while (beforeMatcher.find()) {
+        afterMatcher.region(beforeMatcher.end(), text.length());
+        if (afterMatcher.lookingAt()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean find(int start) {
+      beforeMatcher.region(start, text.length());
+      return find();
+    }
+
+    private int getStartPosition() {
+      return beforeMatcher.start();
+    }
+
+    private int getBreakPosition() {
+      return afterMatcher.start();
+    }
+
+    private boolean isException() {
+      if (rule.exceptionPattern == null) {
+        return false;
+      }
+      if (exceptionMatcher == null) {
+        exceptionMatcher = rule.exceptionPattern.matcher(text);
+        exceptionMatcher.useTransparentBounds(true);
+      }
+      exceptionMatcher.region(getBreakPosition(), text.length());
+      return exceptionMatcher.lookingAt();
+    }
+
+  }
+
+}
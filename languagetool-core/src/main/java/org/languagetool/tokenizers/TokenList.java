@@ -0,0 +1,104 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tokenizers;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The tokens of a text, stored as (start, end) offsets into that text. The string
+ * of a token is only created when it is requested with {@link #get(int)}, and
+ * one-character tokens like whitespace and punctuation share their strings.
+ * The list can be modified with {@link #set(int, String)}, which doesn't change
+ * the offsets, but not resized.
+ * @since 2.3
+ */
+public final class TokenList extends AbstractList<String> implements RandomAccess {
+
+  private static final String[] ONE_CHAR_TOKENS = new String[256];
+  static {
+    for (char c = 0; c < ONE_CHAR_TOKENS.length; c++) {
+      ONE_CHAR_TOKENS[c] = String.valueOf(c);
+    }
+  }
+
+  private final String text;
+  private final int[] boundaries;
+  private final String[] tokens;
+
+  /**
+   * @param boundaries the token offsets as returned by {@link WordTokenizer#getTokenBoundaries(String)}:
+   *   token {@code i} is {@code text.substring(boundaries[i], boundaries[i + 1])}
+   */
+  public TokenList(final String text, final int[] boundaries) {
+    this.text = text;
+    this.boundaries = boundaries;
+    this.tokens = new String[boundaries.length - 1];
+  }
+
+  /**
+   * The text that the tokens refer to.
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Position of the first character of token {@code index} in the text.
+   */
+  public int getStartPos(final int index) {
+    return boundaries[index];
+  }
+
+  /**
+   * Position after the last character of token {@code index} in the text.
+   */
+  public int getEndPos(final int index) {
+    return boundaries[index + 1];
+  }
+
+  @Override
+  public String get(final int index) {
+    String token = tokens[index];
+    if (token == null) {
+      final int start = boundaries[index];
+      final int end = boundaries[index + 1];
+      if (end - start == 1 && text.charAt(start) < ONE_CHAR_TOKENS.length) {
+        token = ONE_CHAR_TOKENS[text.charAt(start)];
+      } else {
+        token = text.substring(start, end);
+      }
+      tokens[index] = token;
+    }
+    return token;
+  }
+
+  @Override
+  public String set(final int index, final String token) {
+    final String oldToken = get(index);
+    tokens[index] = token;
+    return oldToken;
+  }
+
+  @Override
+  public int size() {
+    return tokens.length;
+  }
+
+}
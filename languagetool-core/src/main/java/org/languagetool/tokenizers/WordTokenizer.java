@@ -37,6 +37,21 @@ public class WordTokenizer implements Tokenizer {
   private static final List<String> PROTOCOLS = Collections.unmodifiableList(Arrays.asList("http", "https", "ftp"));
   private static final Pattern URL_CHARS = Pattern.compile("[a-zA-Z0-9/%$-_.+!*'(),\\?]+");
 
+  private static final String DELIMITERS = "\u0020\u00A0\u115f\u1160\u1680"
+        + "\u2000\u2001\u2002\u2003\u2004\u2005\u2006\u2007"
+        + "\u2008\u2009\u200A\u200B\u200c\u200d\u200e\u200f"
+        + "\u2028\u2029\u202a\u202b\u202c\u202d\u202e\u202f"
+        + "\u205F\u2060\u2061\u2062\u2063\u206A\u206b\u206c\u206d"
+        + "\u206E\u206F\u3000\u3164\ufeff\uffa0\ufff9\ufffa\ufffb"
+        + ",.;()[]{}<>!?:/|\\\"'«»„”“`´‘’‛′…¿¡\t\n\r";
+  // lookup table instead of searching DELIMITERS for every character:
+  private static final boolean[] IS_DELIMITER = new boolean[Character.MAX_VALUE + 1];
+  static {
+    for (int i = 0; i < DELIMITERS.length(); i++) {
+      IS_DELIMITER[DELIMITERS.charAt(i)] = true;
+    }
+  }
+
   /**
    * Get the protocols that the tokenizer knows about.
    * @return currently {@code http}, {@code https}, and {@code ftp}
@@ -51,19 +66,103 @@ public class WordTokenizer implements Tokenizer {
 
   @Override
   public List<String> tokenize(final String text) {
-    final List<String> l = new ArrayList<>();
-    final StringTokenizer st = new StringTokenizer(text, 
-        "\u0020\u00A0\u115f\u1160\u1680" 
-        + "\u2000\u2001\u2002\u2003\u2004\u2005\u2006\u2007" 
-        + "\u2008\u2009\u200A\u200B\u200c\u200d\u200e\u200f"
-        + "\u2028\u2029\u202a\u202b\u202c\u202d\u202e\u202f"
-        + "\u205F\u2060\u2061\u2062\u2063\u206A\u206b\u206c\u206d"
-        + "\u206E\u206F\u3000\u3164\ufeff\uffa0\ufff9\ufffa\ufffb" 
-        + ",.;()[]{}<>!?:/|\\\"'«»„”“`´‘’‛′…¿¡\t\n\r", true);
-    while (st.hasMoreElements()) {
-      l.add(st.nextToken());
+    return getTokens(text, getTokenBoundaries(text));
+  }
+
+  /**
+   * Tokenize without creating a string for each token. Token {@code i} is
+   * {@code text.substring(boundaries[i], boundaries[i + 1])}, so there are
+   * {@code boundaries.length - 1} tokens. The tokens are the same as those
+   * of {@link #tokenize(String)}, unless a subclass overrides that method
+   * instead of {@link #isDelimiter(String, int)}.
+   * @since 2.3
+   */
+  public int[] getTokenBoundaries(final String text) {
+    final int[] boundaries = new int[text.length() + 1];
+    int count = 1;
+    for (int i = 0; i < text.length(); i++) {
+      if (isDelimiter(text, i)) {
+        // each delimiter is a token of its own:
+        if (boundaries[count - 1] != i) {
+          boundaries[count++] = i;
+        }
+        boundaries[count++] = i + 1;
+      }
+    }
+    if (boundaries[count - 1] != text.length()) {
+      boundaries[count++] = text.length();
     }
-    return joinUrls(l);
+    return joinUrls(text, boundaries, count);
+  }
+
+  /**
+   * Create the tokens for boundaries as returned by {@link #getTokenBoundaries(String)}.
+   * The strings of the tokens are only built when they are accessed.
+   * @since 2.3
+   */
+  public static List<String> getTokens(final String text, final int[] boundaries) {
+    return new TokenList(text, boundaries);
+  }
+
+  /**
+   * Whether the character at {@code pos} is a token of its own, like whitespace and punctuation.
+   * Subclasses can override this to keep characters inside words depending on the context.
+   * @since 2.3
+   */
+  protected boolean isDelimiter(final String text, final int pos) {
+    return IS_DELIMITER[text.charAt(pos)];
+  }
+
+  // same as joinUrls(List), but on token boundaries:
+  private int[] joinUrls(String text, int[] boundaries, int count) {
+    final int tokenCount = count - 1;
+    final int[] newBoundaries = new int[count];
+    int newCount = 1;
+    boolean inUrl = false;
+    for (int i = 0; i < tokenCount; i++) {
+      if (urlStartsAt(text, boundaries, tokenCount, i)) {
+        inUrl = true;
+      } else if (inUrl && urlEndsAt(text, boundaries, tokenCount, i)) {
+        inUrl = false;
+        newBoundaries[newCount++] = boundaries[i];
+        newBoundaries[newCount++] = boundaries[i + 1];
+      } else if (!inUrl) {
+        newBoundaries[newCount++] = boundaries[i + 1];
+      }
+    }
+    if (inUrl) {
+      newBoundaries[newCount++] = boundaries[tokenCount];
+    }
+    return Arrays.copyOf(newBoundaries, newCount);
+  }
+
+  private boolean urlStartsAt(String text, int[] boundaries, int tokenCount, int i) {
+    if (isProtocol(text, boundaries[i], boundaries[i + 1]) && tokenCount > i + 3) {
+      return tokenEquals(text, boundaries, i + 1, ":") && tokenEquals(text, boundaries, i + 2, "/")
+              && tokenEquals(text, boundaries, i + 3, "/");
+    }
+    return false;
+  }
+
+  private boolean isProtocol(String text, int start, int end) {
+    for (String protocol : PROTOCOLS) {
+      if (protocol.length() == end - start && text.startsWith(protocol, start)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean urlEndsAt(String text, int[] boundaries, int tokenCount, int i) {
+    final String token = text.substring(boundaries[i], boundaries[i + 1]);
+    if (tokenCount > i + 1) {
+      return urlEndsAt(token, text.substring(boundaries[i + 1], boundaries[i + 2]));
+    }
+    return urlEndsAt(token, null);
+  }
+
+  private boolean tokenEquals(String text, int[] boundaries, int i, String s) {
+    return boundaries[i + 1] - boundaries[i] == s.length() && text.startsWith(s, boundaries[i]);
   }
 
   // see rfc1738 and http://stackoverflow.com/questions/1856785/characters-allowed-in-a-url
@@ -117,13 +216,18 @@ public class WordTokenizer implements Tokenizer {
   }
 
   private boolean urlEndsAt(int i, List<String> l) {
-    final String token = l.get(i);
+    return urlEndsAt(l.get(i), l.size() > i + 1 ? l.get(i + 1) : null);
+  }
+
+  /**
+   * @param nToken the token after {@code token}, or {@code null} if it's the last one
+   */
+  private boolean urlEndsAt(String token, String nToken) {
     if (StringTools.isWhitespace(token)) {
       return true;
     } else if (token.equals(")")) {
       return true;
-    } else if (l.size() > i + 1) {
-      final String nToken = l.get(i + 1);
+    } else if (nToken != null) {
       if (StringTools.isWhitespace(nToken)) {
         if (token.equals(".") || token.equals(",") || token.equals(";") || token.equals(":") || token.equals("!") || token.equals("?")) {
           return true;
@@ -0,0 +1,57 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map that keeps at most a given number of entries and evicts the least
+ * recently accessed entry when that limit is exceeded. Like {@link LinkedHashMap},
+ * this class is not synchronized - wrap it with {@link java.util.Collections#synchronizedMap(Map)}
+ * if it's used by more than one thread.
+ * @since 2.3
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+  private static final long serialVersionUID = 3498412498765263148L;
+
+  private final int maxSize;
+
+  /**
+   * @param maxSize the maximum number of entries, must be positive
+   */
+  public LruCache(int maxSize) {
+    super(16, 0.75f, true);
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+    return size() > maxSize;
+  }
+
+}
@@ -0,0 +1,252 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.rules.Category;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.PatternRule;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes rule matches as JSON. The output contains the same information as
+ * {@link StringTools#ruleMatchesToXML(List, String, int, StringTools.XmlPrintMode, Language, Language)},
+ * using the XML attribute names as keys, except that the replacements are a JSON array.
+ * The output is written to the {@link Writer} match by match, so a large result does not need
+ * to be built in memory first.
+ * @since 2.3
+ */
+public class RuleMatchesAsJsonSerializer {
+
+  private static final String SUGGESTION_START_TAG = "<suggestion>";
+  private static final String SUGGESTION_END_TAG = "</suggestion>";
+  private static final char LINE_SEPARATOR = 0x2028;
+  private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+  private final int contextSize;
+
+  /**
+   * @param contextSize the desired context size in characters
+   */
+  public RuleMatchesAsJsonSerializer(int contextSize) {
+    this.contextSize = contextSize;
+  }
+
+  /**
+   * Get a JSON representation of the given rule matches as a string.
+   * @see #ruleMatchesToJson(List, String, Language, Language, Writer)
+   */
+  public String ruleMatchesToJson(List<RuleMatch> ruleMatches, String text, Language lang, Language motherTongue) {
+    final StringWriter writer = new StringWriter();
+    try {
+      ruleMatchesToJson(ruleMatches, text, lang, motherTongue, writer);
+    } catch (IOException e) {
+      throw new RuntimeException(e);  // cannot happen with a StringWriter
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Write a JSON representation of the given rule matches. The writer is neither flushed nor closed.
+   * @param text the original text that was checked, used to get the context of the matches
+   * @param lang the language of the text (might be null)
+   * @param motherTongue the mother tongue of the user (might be null)
+   */
+  public void ruleMatchesToJson(List<RuleMatch> ruleMatches, String text, Language lang, Language motherTongue,
+                                Writer writer) throws IOException {
+    writer.write("{\"software\":{\"name\":\"LanguageTool\",\"version\":");
+    writeString(writer, JLanguageTool.VERSION);
+    writer.write(",\"buildDate\":");
+    writeString(writer, JLanguageTool.BUILD_DATE);
+    writer.write('}');
+    if (lang != null || motherTongue != null) {
+      writer.write(",\"language\":{");
+      boolean first = true;
+      if (lang != null) {
+        writer.write("\"shortname\":");
+        writeString(writer, lang.getShortNameWithVariant());
+        writer.write(",\"name\":");
+        writeString(writer, lang.getName());
+        first = false;
+      }
+      if (motherTongue != null && (lang == null || !motherTongue.getShortName().equals(lang.getShortNameWithVariant()))) {
+        writer.write(first ? "\"mothertongueshortname\":" : ",\"mothertongueshortname\":");
+        writeString(writer, motherTongue.getShortName());
+        writer.write(",\"mothertonguename\":");
+        writeString(writer, motherTongue.getName());
+      }
+      writer.write('}');
+    }
+    writer.write(",\"matches\":[");
+    boolean firstMatch = true;
+    for (RuleMatch match : ruleMatches) {
+      if (!firstMatch) {
+        writer.write(',');
+      }
+      firstMatch = false;
+      writeMatch(writer, match, text);
+    }
+    writer.write("]}");
+  }
+
+  private void writeMatch(Writer writer, RuleMatch match, String text) throws IOException {
+    writer.write("{\"fromy\":");
+    writer.write(Integer.toString(match.getLine()));
+    writer.write(",\"fromx\":");
+    writer.write(Integer.toString(match.getColumn() - 1));
+    writer.write(",\"toy\":");
+    writer.write(Integer.toString(match.getEndLine()));
+    writer.write(",\"tox\":");
+    writer.write(Integer.toString(match.getEndColumn() - 1));
+    writer.write(",\"ruleId\":");
+    writeString(writer, match.getRule().getId());
+    if (match.getRule() instanceof PatternRule) {
+      final String subId = ((PatternRule) match.getRule()).getSubId();
+      if (subId != null) {
+        writer.write(",\"subId\":");
+        writeString(writer, subId);
+      }
+    }
+    writer.write(",\"msg\":");
+    writeString(writer, replaceSuggestionTags(match.getMessage()));
+    writer.write(",\"replacements\":[");
+    boolean first = true;
+    for (String replacement : match.getSuggestedReplacements()) {
+      if (!first) {
+        writer.write(',');
+      }
+      first = false;
+      writeString(writer, replacement);
+    }
+    writer.write(']');
+    writeContext(writer, match.getFromPos(), match.getToPos(), text);
+    writer.write(",\"offset\":");
+    writer.write(Integer.toString(match.getFromPos()));
+    writer.write(",\"errorlength\":");
+    writer.write(Integer.toString(match.getToPos() - match.getFromPos()));
+    if (match.getRule().getUrl() != null) {
+      writer.write(",\"url\":");
+      writeString(writer, match.getRule().getUrl().toString());
+    }
+    final Category category = match.getRule().getCategory();
+    if (category != null) {
+      writer.write(",\"category\":");
+      writeString(writer, category.getName());
+    }
+    final String type = match.getRule().getLocQualityIssueType();
+    if (type != null) {
+      writer.write(",\"locqualityissuetype\":");
+      writeString(writer, type);
+    }
+    writer.write('}');
+  }
+
+  /**
+   * Writes the same context and context offset as {@link ContextTools#getContext(int, int, String)},
+   * but only looks at the part of the text that's needed.
+   */
+  private void writeContext(Writer writer, int fromPos, int toPos, String text) throws IOException {
+    int startContent = fromPos - contextSize;
+    String prefix = "...";
+    if (startContent < 0) {
+      prefix = "";
+      startContent = 0;
+    }
+    int endContent = toPos + contextSize;
+    String postfix = "...";
+    if (endContent > text.length()) {
+      postfix = "";
+      endContent = text.length();
+    }
+    writer.write(",\"context\":\"");
+    writer.write(prefix);
+    writeEscaped(writer, text, startContent, endContent, true);
+    writer.write(postfix);
+    writer.write("\",\"contextoffset\":");
+    writer.write(Integer.toString(prefix.length() + fromPos - startContent));
+  }
+
+  private static String replaceSuggestionTags(String message) {
+    if (message.indexOf('<') == -1) {
+      return message;
+    }
+    final StringBuilder sb = new StringBuilder(message.length());
+    int i = 0;
+    while (i < message.length()) {
+      if (message.startsWith(SUGGESTION_START_TAG, i)) {
+        sb.append('\'');
+        i += SUGGESTION_START_TAG.length();
+      } else if (message.startsWith(SUGGESTION_END_TAG, i)) {
+        sb.append('\'');
+        i += SUGGESTION_END_TAG.length();
+      } else {
+        sb.append(message.charAt(i++));
+      }
+    }
+    return sb.toString();
+  }
+
+  private static void writeString(Writer writer, String s) throws IOException {
+    if (s == null) {
+      writer.write("null");  // e.g. the build date when not running from a JAR
+      return;
+    }
+    writer.write('"');
+    writeEscaped(writer, s, 0, s.length(), false);
+    writer.write('"');
+  }
+
+  /**
+   * @param lineBreaksAsSpace whether to replace line breaks by spaces, like the context in the XML output
+   */
+  private static void writeEscaped(Writer writer, String s, int start, int end, boolean lineBreaksAsSpace) throws IOException {
+    int unescapedStart = start;
+    for (int i = start; i < end; i++) {
+      final char c = s.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\' && c != LINE_SEPARATOR && c != PARAGRAPH_SEPARATOR) {
+        continue;
+      }
+      writer.write(s, unescapedStart, i - unescapedStart);
+      unescapedStart = i + 1;
+      if (lineBreaksAsSpace && (c == '\n' || c == '\r')) {
+        writer.write(' ');
+        continue;
+      }
+      switch (c) {
+        case '"': writer.write("\\\""); break;
+        case '\\': writer.write("\\\\"); break;
+        case '\n': writer.write("\\n"); break;
+        case '\r': writer.write("\\r"); break;
+        case '\t': writer.write("\\t"); break;
+        case '\b': writer.write("\\b"); break;
+        case '\f': writer.write("\\f"); break;
+        default:
+          // other control characters, and line/paragraph separators that are not allowed in JavaScript strings:
+          writer.write(String.format("\\u%04x", (int) c));
+      }
+    }
+    writer.write(s, unescapedStart, end - unescapedStart);
+  }
+
+}
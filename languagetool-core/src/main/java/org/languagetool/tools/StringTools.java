@@ -544,6 +544,11 @@ public final class StringTools {
         || "\u0001".equals(str)) { // breakable field in OOo
       return false;
     }
+    if (str.length() == 1) {
+      // most tokens are checked here, so avoid trim() for them:
+      final char c = str.charAt(0);
+      return c <= ' ' || c == '\u200B' || java.lang.Character.isWhitespace(c);
+    }
     final String trimStr = str.trim();
     if (isEmpty(trimStr)) {
       return true;
@@ -0,0 +1,68 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import junit.framework.TestCase;
+
+public class AnalyzedSentenceColumnsTest extends TestCase {
+
+  public void testColumns() {
+    final AnalyzedTokenReadings sentStart = new AnalyzedTokenReadings(new AnalyzedToken("", JLanguageTool.SENTENCE_START_TAGNAME, null), 0);
+    final AnalyzedTokenReadings house = new AnalyzedTokenReadings(new AnalyzedToken("Houses", "NNS", "house"), 0);
+    house.addReading(new AnalyzedToken("Houses", "VBZ", "house"));
+    final AnalyzedTokenReadings space = new AnalyzedTokenReadings(new AnalyzedToken(" ", null, null), 6);
+    final AnalyzedTokenReadings fall = new AnalyzedTokenReadings(new AnalyzedToken("fall", null, null), 7);
+    fall.setWhitespaceBefore(true);
+    fall.setSentEnd();
+    final AnalyzedSentence sentence = new AnalyzedSentence(new AnalyzedTokenReadings[] {sentStart, house, space, fall});
+    final AnalyzedSentenceColumns columns = sentence.getColumns();
+    assertSame(columns, sentence.getColumns());
+
+    assertEquals(3, columns.getTokenCount());
+    assertEquals(0, columns.getReadingStart(1) - columns.getReadingEnd(0));
+    assertEquals(2, columns.getReadingEnd(1) - columns.getReadingStart(1));
+    assertTrue(columns.hasFlags(0, AnalyzedSentenceColumns.SENTENCE_START));
+    assertTrue(columns.hasFlags(2, AnalyzedSentenceColumns.WHITESPACE_BEFORE | AnalyzedSentenceColumns.SENTENCE_END));
+    assertFalse(columns.hasFlags(1, AnalyzedSentenceColumns.SENTENCE_END));
+
+    final int firstHouseReading = columns.getReadingStart(1);
+    assertEquals(AnalyzedSentenceColumns.caseInsensitiveHash("houses"), columns.getTokenHash(firstHouseReading));
+    assertEquals("NNS".hashCode(), columns.getPosTagHash(firstHouseReading));
+    assertEquals("VBZ".hashCode(), columns.getPosTagHash(firstHouseReading + 1));
+
+    assertTrue(columns.mayContainToken("HOUSES"));
+    assertTrue(columns.mayContainToken("fall"));
+    assertFalse(columns.mayContainToken("house"));
+    assertTrue(columns.mayContainLemma("House"));
+    assertTrue(columns.mayContainLemma("fall"));  // no lemma: the token is used
+    assertTrue(columns.mayContainPosTag("VBZ"));
+    assertFalse(columns.mayContainPosTag("vbz"));
+    assertFalse(columns.mayContainPosTag("NN"));
+  }
+
+  public void testCaseInsensitiveHash() {
+    final String[][] pairs = {{"Straße", "STRAßE"}, {"ǅ", "ǆ"}, {"Σίσυφος", "ΣΊΣΥΦΟΣ"}};
+    for (String[] pair : pairs) {
+      assertTrue(pair[0].equalsIgnoreCase(pair[1]));
+      assertEquals(AnalyzedSentenceColumns.caseInsensitiveHash(pair[0]), AnalyzedSentenceColumns.caseInsensitiveHash(pair[1]));
+    }
+    assertFalse(AnalyzedSentenceColumns.caseInsensitiveHash("foo") == AnalyzedSentenceColumns.caseInsensitiveHash("bar"));
+  }
+
+}
@@ -0,0 +1,166 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CancellationTokenTest {
+
+  private static final String TEXT = "A first sentence. A second sentence. A third sentence.";
+
+  @Test
+  public void testToken() throws InterruptedException {
+    CancellationToken token = new CancellationToken();
+    assertFalse(token.isCancelled());
+    assertFalse(token.isTimedOut());
+    token.cancel();
+    assertTrue(token.isCancelled());
+    assertFalse(token.isTimedOut());
+
+    CancellationToken timedToken = new CancellationToken(10);
+    assertFalse(timedToken.isCancelled());
+    Thread.sleep(20);
+    assertTrue(timedToken.isCancelled());
+    assertTrue(timedToken.isTimedOut());
+
+    assertTrue(new CancellationToken(0).isTimedOut());
+  }
+
+  @Test
+  public void testSuggestionTimeBudget() {
+    CancellationToken token = new CancellationToken();
+    assertEquals(Long.MAX_VALUE, token.getSuggestionNanosLeft());
+    token.addSuggestionTime(1000);
+    assertEquals(Long.MAX_VALUE, token.getSuggestionNanosLeft());
+    token.setSuggestionTimeBudget(1);
+    assertEquals(1000 * 1000, token.getSuggestionNanosLeft());
+    token.addSuggestionTime(400 * 1000);
+    assertEquals(600 * 1000, token.getSuggestionNanosLeft());
+    token.addSuggestionTime(1000 * 1000);
+    assertEquals(0, token.getSuggestionNanosLeft());
+
+    CancellationToken cancelledToken = new CancellationToken();
+    cancelledToken.cancel();
+    assertEquals(0, cancelledToken.getSuggestionNanosLeft());
+  }
+
+  @Test
+  public void testNoToken() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    assertNull(langTool.getCancellationToken());
+    langTool.check(TEXT);
+  }
+
+  @Test
+  public void testCancelledBeforeCheck() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    langTool.setCancellationToken(token);
+    try {
+      langTool.check(TEXT);
+      fail();
+    } catch (CheckCancelledException e) {
+      assertFalse(e.isTimedOut());
+      assertEquals(0, e.getPartialMatches().size());
+    }
+  }
+
+  @Test
+  public void testTimeout() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    langTool.setCancellationToken(new CancellationToken(0));
+    try {
+      langTool.check(TEXT);
+      fail();
+    } catch (CheckCancelledException e) {
+      assertTrue(e.isTimedOut());
+    }
+  }
+
+  @Test
+  public void testPartialMatches() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    CancellationToken token = new CancellationToken();
+    langTool.setCancellationToken(token);
+    langTool.addRule(new CancellingRule(token));
+    try {
+      langTool.check(TEXT);
+      fail();
+    } catch (CheckCancelledException e) {
+      // the rule cancels while checking the first sentence, so the other sentences are skipped:
+      List<RuleMatch> matches = e.getPartialMatches();
+      assertEquals(1, matches.size());
+      assertEquals("CANCELLING_RULE", matches.get(0).getRule().getId());
+      assertEquals(0, matches.get(0).getFromPos());
+    }
+  }
+
+  @Test
+  public void testPartialMatchesMultiThreaded() throws IOException {
+    MultiThreadedJLanguageTool langTool = new MultiThreadedJLanguageTool(new Demo());
+    CancellationToken token = new CancellationToken();
+    langTool.setCancellationToken(token);
+    langTool.addRule(new CancellingRule(token));
+    try {
+      langTool.check(TEXT);
+      fail();
+    } catch (CheckCancelledException e) {
+      boolean found = false;
+      for (RuleMatch match : e.getPartialMatches()) {
+        if (match.getRule().getId().equals("CANCELLING_RULE")) {
+          assertFalse("Sentences after cancellation must not be checked", found);
+          found = true;
+        }
+      }
+      assertTrue(found);
+    }
+  }
+
+  private static class CancellingRule extends Rule {
+    private final CancellationToken token;
+    CancellingRule(CancellationToken token) {
+      this.token = token;
+    }
+    @Override
+    public String getId() {
+      return "CANCELLING_RULE";
+    }
+    @Override
+    public String getDescription() {
+      return "Test rule that cancels the check";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) throws IOException {
+      token.cancel();
+      return new RuleMatch[] { new RuleMatch(this, 0, 1, "Cancelled here") };
+    }
+    @Override
+    public void reset() {
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CheckTimingListenerTest {
+
+  private static final String TEXT = "A first sentence. A second sentence. A third sentence.";
+
+  @Test
+  public void testPhases() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    RecordingListener listener = new RecordingListener();
+    langTool.setCheckTimingListener(listener);
+    assertSame(listener, langTool.getCheckTimingListener());
+    langTool.check(TEXT);
+    assertEquals("[start SENTENCE_SPLITTING, end SENTENCE_SPLITTING, start ANALYSIS, end ANALYSIS, " +
+            "start RULE_MATCHING, end RULE_MATCHING]", listener.phases.toString());
+  }
+
+  @Test
+  public void testRuleTimes() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    langTool.addRule(new MatchingRule());
+    RecordingListener listener = new RecordingListener();
+    langTool.setCheckTimingListener(listener);
+    langTool.check(TEXT);
+    assertEquals(3, listener.matchingRuleCalls);
+    assertEquals(3, listener.matchingRuleMatches);
+  }
+
+  @Test
+  public void testRuleSampling() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    langTool.addRule(new MatchingRule());
+    RecordingListener listener = new RecordingListener();
+    listener.sampleInterval = 2;
+    langTool.setCheckTimingListener(listener);
+    langTool.check(TEXT);
+    // only the first and the third sentence are sampled:
+    assertEquals(2, listener.matchingRuleCalls);
+    assertEquals(6, listener.phases.size());
+    // the sample continues with a new instance that uses the same listener:
+    JLanguageTool langTool2 = new JLanguageTool(new Demo());
+    langTool2.addRule(new MatchingRule());
+    langTool2.setCheckTimingListener(listener);
+    langTool2.check(TEXT);
+    assertEquals(3, listener.matchingRuleCalls);
+  }
+
+  @Test
+  public void testPhaseFinishedOnCancellation() throws IOException {
+    JLanguageTool langTool = new JLanguageTool(new Demo());
+    RecordingListener listener = new RecordingListener();
+    langTool.setCheckTimingListener(listener);
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    langTool.setCancellationToken(token);
+    try {
+      langTool.check(TEXT);
+      fail();
+    } catch (CheckCancelledException expected) {
+      assertEquals("[start SENTENCE_SPLITTING, end SENTENCE_SPLITTING, start ANALYSIS, end ANALYSIS]", listener.phases.toString());
+    }
+  }
+
+  private static class RecordingListener implements CheckTimingListener {
+    private final List<String> phases = new ArrayList<>();
+    private int matchingRuleCalls;
+    private int matchingRuleMatches;
+    private int sampleInterval = 1;
+    private int sentenceCount;
+    @Override
+    public void phaseStarted(Phase phase) {
+      phases.add("start " + phase);
+    }
+    @Override
+    public void phaseFinished(Phase phase, long durationNanos) {
+      assertTrue(durationNanos >= 0);
+      phases.add("end " + phase);
+    }
+    @Override
+    public boolean sampleRules() {
+      return sentenceCount++ % sampleInterval == 0;
+    }
+    @Override
+    public void ruleFinished(Rule rule, long durationNanos, int matchCount) {
+      assertTrue(durationNanos >= 0);
+      if (rule.getId().equals("MATCHING_RULE")) {
+        matchingRuleCalls++;
+        matchingRuleMatches += matchCount;
+      }
+    }
+  }
+
+  private static class MatchingRule extends Rule {
+    @Override
+    public String getId() {
+      return "MATCHING_RULE";
+    }
+    @Override
+    public String getDescription() {
+      return "Test rule that matches the start of every sentence";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) throws IOException {
+      return new RuleMatch[] { new RuleMatch(this, 0, 1, "Sentence start") };
+    }
+    @Override
+    public void reset() {
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import junit.framework.TestCase;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.patterns.Element;
+import org.languagetool.rules.patterns.PatternRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RuleMatchTest extends TestCase {
+
+  public void testLazySuggestions() {
+    final CountingProvider provider = new CountingProvider();
+    final RuleMatch match = new RuleMatch(getRule(), 0, 3, "msg");
+    match.setLazySuggestedReplacements(provider);
+    assertEquals(0, provider.calls);
+    assertEquals("[a, b, c]", match.getSuggestedReplacements().toString());
+    assertEquals("[a, b, c]", match.getSuggestedReplacements().toString());
+    assertEquals(1, provider.calls);
+  }
+
+  public void testDiscardLazySuggestions() {
+    final CountingProvider provider = new CountingProvider();
+    final RuleMatch match = new RuleMatch(getRule(), 0, 3, "msg");
+    match.setLazySuggestedReplacements(provider);
+    match.discardLazySuggestedReplacements();
+    assertEquals(0, match.getSuggestedReplacements().size());
+    assertEquals(0, provider.calls);
+    final RuleMatch computedMatch = new RuleMatch(getRule(), 0, 3, "msg");
+    computedMatch.setLazySuggestedReplacements(provider);
+    computedMatch.getSuggestedReplacements();
+    computedMatch.discardLazySuggestedReplacements();
+    assertEquals("[a, b, c]", computedMatch.getSuggestedReplacements().toString());
+  }
+
+  public void testMaxSuggestions() {
+    final CountingProvider provider = new CountingProvider();
+    final RuleMatch match = new RuleMatch(getRule(), 0, 3, "msg");
+    match.setLazySuggestedReplacements(provider);
+    match.setMaxSuggestedReplacements(0);
+    assertEquals(0, match.getSuggestedReplacements().size());
+    assertEquals(0, provider.calls);
+    match.setMaxSuggestedReplacements(2);
+    assertEquals("[a, b]", match.getSuggestedReplacements().toString());
+    match.setMaxSuggestedReplacements(-1);
+    assertEquals("[a, b, c]", match.getSuggestedReplacements().toString());
+    assertEquals(1, provider.calls);
+  }
+
+  public void testAdjustedMatchKeepsSuggestionsLazy() throws Exception {
+    final JLanguageTool lt = new JLanguageTool(new Demo());
+    lt.setMaxSuggestions(1);
+    final CountingProvider provider = new CountingProvider();
+    final RuleMatch match = new RuleMatch(getRule(), 0, 3, "msg");
+    match.setLazySuggestedReplacements(provider);
+    final RuleMatch adjustedMatch = lt.adjustRuleMatchPos(match, 10, 0, 0, "foo bar", null);
+    assertEquals(0, provider.calls);
+    assertEquals(Collections.singletonList("a"), adjustedMatch.getSuggestedReplacements());
+    assertEquals(1, provider.calls);
+  }
+
+  private PatternRule getRule() {
+    return new PatternRule("FAKE_ID", new Demo(), Collections.singletonList(new Element("foo", true, false, false)),
+            "My fake description", "Fake message", "Fake short message");
+  }
+
+  private static class CountingProvider implements SuggestionProvider {
+    private int calls;
+    @Override
+    public List<String> getSuggestions() {
+      calls++;
+      return Arrays.asList("a", "b", "c");
+    }
+  }
+}
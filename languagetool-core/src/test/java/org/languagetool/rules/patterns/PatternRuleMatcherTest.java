@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -406,6 +407,23 @@ public class PatternRuleMatcherTest {
     assertPosition(matches2[1], 5, 14);
   }
 
+  @Test
+  public void testCanMatch() throws Exception {
+    final PatternRule rule = getPatternRule("my test");
+    assertTrue(rule.canMatch(langTool.getAnalyzedSentence("This is MY Test.")));
+    assertFalse(rule.canMatch(langTool.getAnalyzedSentence("This is no test.")));
+    final Element optional = makeElement("foo");
+    optional.setMinOccurrence(0);
+    final Element negated = makeElement("bar");
+    negated.setNegation(true);
+    final Element regex = new Element("x+", false, true, false);
+    final PatternRule rule2 = getPatternRule(Arrays.asList(optional, negated, regex));
+    assertTrue(rule2.canMatch(langTool.getAnalyzedSentence("No foo here.")));
+    final PatternRuleMatcher matcher = new PatternRuleMatcher(getPatternRule("is no"), false);
+    assertNoMatch("This is my test.", matcher);
+    assertPartialMatch("This is no test.", matcher);
+  }
+
   private RuleMatch[] getMatches(String input, PatternRuleMatcher matcher) throws IOException {
     return matcher.match(langTool.getAnalyzedSentence(input));
   }
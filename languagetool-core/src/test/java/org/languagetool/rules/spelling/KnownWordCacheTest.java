@@ -0,0 +1,57 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling;
+
+import junit.framework.TestCase;
+
+public class KnownWordCacheTest extends TestCase {
+
+  public void testLookupAndHitRate() {
+    final KnownWordCache cache = new KnownWordCache(100);
+    assertEquals(0.0, cache.getHitRate());
+    assertFalse(cache.isKnownCorrect("house"));
+    cache.addKnownCorrect("house");
+    assertTrue(cache.isKnownCorrect("house"));
+    assertTrue(cache.isKnownCorrect("house"));
+    assertFalse(cache.isKnownCorrect("House"));
+    assertEquals(2, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRate());
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getHitCount());
+    assertFalse(cache.isKnownCorrect("house"));
+  }
+
+  public void testSizeLimit() {
+    final KnownWordCache cache = new KnownWordCache(50);
+    for (int i = 0; i < 1000; i++) {
+      cache.addKnownCorrect("word" + i);
+    }
+    assertTrue(cache.size() <= 64);  // each segment is limited separately, so allow for rounding
+    assertTrue(cache.isKnownCorrect("word999"));
+  }
+
+  public void testInvalidSize() {
+    try {
+      new KnownWordCache(0);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+}
@@ -0,0 +1,126 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.hunspell;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class DictionaryExtractionCacheTest extends TestCase {
+
+  private File tempDir;
+  private File oldCacheDirectory;
+
+  @Override
+  protected void setUp() throws Exception {
+    tempDir = Files.createTempDirectory("lt-dict-cache-test").toFile();
+    oldCacheDirectory = DictionaryExtractionCache.getCacheDirectory();
+    DictionaryExtractionCache.setCacheDirectory(new File(tempDir, "cache"));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    DictionaryExtractionCache.setCacheDirectory(oldCacheDirectory);
+    deleteRecursively(tempDir);
+  }
+
+  public void testExtractOnlyOnce() throws IOException {
+    final URL dicUrl = createJar("dict1.jar", "2\nfoo\nbar\n", "SET UTF-8\n");
+    final String path = DictionaryExtractionCache.extract(dicUrl, "xx_XX");
+    assertTrue(path.startsWith(new File(tempDir, "cache").getAbsolutePath()));
+    final File dicFile = new File(path + ".dic");
+    assertEquals("2\nfoo\nbar\n", new String(Files.readAllBytes(dicFile.toPath()), StandardCharsets.UTF_8));
+    assertEquals("SET UTF-8\n", new String(Files.readAllBytes(new File(path + ".aff").toPath()), StandardCharsets.UTF_8));
+
+    // a second extraction, e.g. after a restart, finds the existing files:
+    assertTrue(dicFile.setLastModified(1000000));
+    assertEquals(path, DictionaryExtractionCache.extract(dicUrl, "xx_XX"));
+    assertEquals(1000000, dicFile.lastModified());
+
+    // an incomplete file gets replaced:
+    Files.write(dicFile.toPath(), "2\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(path, DictionaryExtractionCache.extract(dicUrl, "xx_XX"));
+    assertEquals("2\nfoo\nbar\n", new String(Files.readAllBytes(dicFile.toPath()), StandardCharsets.UTF_8));
+
+    // so does a file of the same size but with a different content:
+    Files.write(dicFile.toPath(), "2\nfoo\nbaz\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(path, DictionaryExtractionCache.extract(dicUrl, "xx_XX"));
+    assertEquals("2\nfoo\nbar\n", new String(Files.readAllBytes(dicFile.toPath()), StandardCharsets.UTF_8));
+  }
+
+  public void testPrivateDirectory() throws IOException {
+    if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      return;
+    }
+    final URL dicUrl = createJar("dict1.jar", "1\nfoo\n", "SET UTF-8\n");
+    final File cacheDir = new File(tempDir, "cache");
+    final String path = DictionaryExtractionCache.extract(dicUrl, "xx_XX");
+    assertTrue(path.startsWith(cacheDir.getAbsolutePath()));
+    assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDir.toPath())));
+
+    // a directory that others can write to is not used:
+    Files.setPosixFilePermissions(cacheDir.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+    final String path2 = DictionaryExtractionCache.extract(dicUrl, "xx_XX");
+    assertFalse(path2.startsWith(cacheDir.getAbsolutePath()));
+    assertEquals("1\nfoo\n", new String(Files.readAllBytes(new File(path2 + ".dic").toPath()), StandardCharsets.UTF_8));
+    // the temporary copy is reused:
+    assertEquals(path2, DictionaryExtractionCache.extract(dicUrl, "xx_XX"));
+  }
+
+  public void testChangedDictionary() throws IOException {
+    final String path1 = DictionaryExtractionCache.extract(createJar("dict1.jar", "1\nfoo\n", "SET UTF-8\n"), "xx_XX");
+    final String path2 = DictionaryExtractionCache.extract(createJar("dict2.jar", "1\nbar\n", "SET UTF-8\n"), "xx_XX");
+    assertFalse(path1.equals(path2));
+    assertTrue(new File(path1 + ".dic").isFile());
+    assertTrue(new File(path2 + ".dic").isFile());
+  }
+
+  private URL createJar(String fileName, String dicContent, String affContent) throws IOException {
+    final File jarFile = new File(tempDir, fileName);
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+      out.putNextEntry(new ZipEntry("xx/hunspell/xx_XX.dic"));
+      out.write(dicContent.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("xx/hunspell/xx_XX.aff"));
+      out.write(affContent.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    return new URL("jar:" + jarFile.toURI().toURL() + "!/xx/hunspell/xx_XX.dic");
+  }
+
+  private void deleteRecursively(File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+}
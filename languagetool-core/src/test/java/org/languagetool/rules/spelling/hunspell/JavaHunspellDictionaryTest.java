@@ -0,0 +1,85 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.hunspell;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JavaHunspellDictionaryTest {
+
+  @Test
+  public void testHomonyms() throws IOException {
+    final JavaHunspellDictionary dictionary = load(
+            "SET UTF-8\nSFX S N 1\nSFX S 0 s .\nPFX P N 1\nPFX P 0 re .\n",
+            "3\ntest/S\ntest/P\nword\n", null);
+    assertFalse(dictionary.misspelled("test"));
+    assertFalse(dictionary.misspelled("tests"));
+    assertFalse(dictionary.misspelled("retest"));
+    assertTrue(dictionary.misspelled("retests"));  // no cross product
+    assertFalse(dictionary.misspelled("word"));
+    assertTrue(dictionary.misspelled("words"));
+    assertTrue(dictionary.misspelled("wor"));
+  }
+
+  @Test
+  public void testCaseConversionLocale() throws IOException {
+    final String aff = "SET UTF-8\n";
+    final String dic = "1\niyi\n";
+    assertFalse(load(aff, dic, new Locale("tr")).misspelled("İYİ"));
+    assertTrue(load(aff, dic, Locale.ROOT).misspelled("İYİ"));
+    // the affix file's LANG option is used if no locale is given:
+    assertFalse(load("SET UTF-8\nLANG tr_TR\n", dic, null).misspelled("İYİ"));
+  }
+
+  @Test(timeout = 60000)
+  public void testLongCompound() throws IOException {
+    final JavaHunspellDictionary dictionary = load(
+            "SET UTF-8\nCOMPOUNDFLAG X\nCOMPOUNDMIN 1\n", "3\na/X\naa/X\nb/X\n", null);
+    assertFalse(dictionary.misspelled("aaab"));
+    // there are exponentially many ways to split this, all of them fail at the end:
+    assertTrue(dictionary.misspelled(repeat("a", 90) + "c"));
+    assertFalse(dictionary.misspelled(repeat("a", 90) + "b"));
+    // too long to be analyzed:
+    assertTrue(dictionary.misspelled(repeat("a", 200) + "b"));
+  }
+
+  private JavaHunspellDictionary load(String aff, String dic, Locale locale) throws IOException {
+    try (InputStream affStream = new ByteArrayInputStream(aff.getBytes(StandardCharsets.UTF_8));
+         InputStream dicStream = new ByteArrayInputStream(dic.getBytes(StandardCharsets.UTF_8))) {
+      return new JavaHunspellDictionary(affStream, dicStream, locale);
+    }
+  }
+
+  private String repeat(String s, int count) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append(s);
+    }
+    return sb.toString();
+  }
+
+}
@@ -19,6 +19,7 @@
 
 package org.languagetool.tokenizers;
 
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
@@ -72,6 +73,40 @@ public class WordTokenizerTest extends TestCase {
     assertEquals("foo| |http://|?| |bar", tokenize("foo http://? bar"));
   }
 
+  public void testTokenBoundaries() {
+    final String text = "A test, see http://foo.org/x?a=b. Ok";
+    final int[] boundaries = wordTokenizer.getTokenBoundaries(text);
+    assertEquals("[0, 1, 2, 6, 7, 8, 11, 12, 32, 33, 34, 36]", Arrays.toString(boundaries));
+    assertEquals("A| |test|,| |see| |http://foo.org/x?a=b|.| |Ok", StringTools.listToString(WordTokenizer.getTokens(text, boundaries), "|"));
+    assertEquals(0, wordTokenizer.getTokenBoundaries("")[0]);
+    assertEquals(1, wordTokenizer.getTokenBoundaries("").length);
+    assertEquals("[0, 1]", Arrays.toString(wordTokenizer.getTokenBoundaries(" ")));
+    assertEquals("[0, 1, 2]", Arrays.toString(wordTokenizer.getTokenBoundaries("..")));
+  }
+
+  public void testTokenList() {
+    final TokenList tokens = (TokenList) wordTokenizer.tokenize("Ein  Test.");
+    assertEquals("[Ein,  ,  , Test, .]", tokens.toString());
+    assertEquals(3, tokens.getStartPos(1));
+    assertEquals(4, tokens.getEndPos(1));
+    assertEquals(5, tokens.getStartPos(3));
+    assertSame(tokens.get(1), tokens.get(2));
+    assertSame(tokens.get(0), tokens.get(0));
+    assertEquals("Test", tokens.set(3, "Tst"));
+    assertEquals("[Ein,  ,  , Tst, .]", tokens.toString());
+    assertEquals(9, tokens.getEndPos(3));
+  }
+
+  public void testCustomDelimiters() {
+    final WordTokenizer tokenizer = new WordTokenizer() {
+      @Override
+      protected boolean isDelimiter(String text, int pos) {
+        return text.charAt(pos) == '-' || super.isDelimiter(text, pos);
+      }
+    };
+    assertEquals("[foo, -, bar,  , x]", tokenizer.tokenize("foo-bar x").toString());
+  }
+
   private String tokenize(String text) {
     final List<String> tokens = wordTokenizer.tokenize(text);
     return StringTools.listToString(tokens, "|");
@@ -0,0 +1,104 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import junit.framework.TestCase;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.Element;
+import org.languagetool.rules.patterns.PatternRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class RuleMatchesAsJsonSerializerTest extends TestCase {
+
+  private final RuleMatchesAsJsonSerializer serializer = new RuleMatchesAsJsonSerializer(5);
+
+  public void testJson() {
+    final String text = "This is an test sentence. Here's another sentence with more text.";
+    final RuleMatch match = new RuleMatch(new FakeRule(), 8, 10, "Did you mean <suggestion>a</suggestion>?");
+    match.setColumn(99);
+    match.setEndColumn(100);
+    match.setLine(44);
+    match.setEndLine(45);
+    match.setSuggestedReplacements(Arrays.asList("a", "the"));
+    final String json = serializer.ruleMatchesToJson(Collections.singletonList(match), text, Language.DEMO, null);
+    final String buildDate = JLanguageTool.BUILD_DATE == null ? "null" : "\"" + JLanguageTool.BUILD_DATE + "\"";
+    assertEquals("{\"software\":{\"name\":\"LanguageTool\",\"version\":\"" + JLanguageTool.VERSION + "\"," +
+            "\"buildDate\":" + buildDate + "}," +
+            "\"language\":{\"shortname\":\"xx-XX\",\"name\":\"Testlanguage\"}," +
+            "\"matches\":[{\"fromy\":44,\"fromx\":98,\"toy\":45,\"tox\":99,\"ruleId\":\"FAKE_ID\"," +
+            "\"msg\":\"Did you mean 'a'?\",\"replacements\":[\"a\",\"the\"],\"context\":\"...s is an test...\"," +
+            "\"contextoffset\":8,\"offset\":8,\"errorlength\":2,\"locqualityissuetype\":\"misspelling\"}]}", json);
+  }
+
+  public void testNoMatches() {
+    final String json = serializer.ruleMatchesToJson(Collections.<RuleMatch>emptyList(), "", null, null);
+    assertTrue(json, json.endsWith("},\"matches\":[]}"));
+    assertFalse(json, json.contains("\"language\""));
+  }
+
+  public void testEscaping() {
+    final String text = "A \"quote\"\nand\\ a\tbreak.";
+    final RuleMatch match = new RuleMatch(new FakeRule(), 2, 9, "Message with \"quotes\",\nbreaks\tand \\ \u2028.");
+    final String json = serializer.ruleMatchesToJson(Collections.singletonList(match), text, null, null);
+    assertTrue(json, json.contains("\"msg\":\"Message with \\\"quotes\\\",\\nbreaks\\tand \\\\ \\u2028.\""));
+    // like in the XML output, line breaks in the context are replaced by spaces:
+    assertTrue(json, json.contains("\"context\":\"A \\\"quote\\\" and\\\\...\""));
+  }
+
+  public void testContextLikeXml() {
+    final String text = "Short text.\nWith a second line and some more words at its end.";
+    final ContextTools contextTools = new ContextTools();
+    contextTools.setEscapeHtml(false);
+    contextTools.setContextSize(5);
+    contextTools.setErrorMarkerStart("#");
+    contextTools.setErrorMarkerEnd("");
+    final Pattern contextPattern = Pattern.compile("\"context\":\"(.*?)\",\"contextoffset\":(\\d+)");
+    for (int from = 0; from < text.length() - 1; from++) {
+      for (int to = from + 1; to <= Math.min(from + 3, text.length()); to++) {
+        final RuleMatch match = new RuleMatch(new FakeRule(), from, to, "msg");
+        final String json = serializer.ruleMatchesToJson(Collections.singletonList(match), text, null, null);
+        final Matcher matcher = contextPattern.matcher(json);
+        assertTrue(json, matcher.find());
+        final String expectedContext = contextTools.getContext(from, to, text);
+        final int expectedOffset = expectedContext.indexOf('#');
+        assertEquals(expectedContext.replace("#", ""), matcher.group(1));
+        assertEquals(expectedOffset, Integer.parseInt(matcher.group(2)));
+      }
+    }
+  }
+
+  private static class FakeRule extends PatternRule {
+    FakeRule() {
+      super("FAKE_ID", Language.DEMO, Collections.singletonList(new Element("foo", true, false, false)),
+              "My fake description", "Fake message", "Fake short message");
+    }
+    @Override
+    public String getLocQualityIssueType() {
+      return "misspelling";
+    }
+  }
+
+}
@@ -56,6 +56,9 @@ public class CatalanSynthesizer extends BaseSynthesizer {
 	private static final Pattern pMP = Pattern.compile("(N|A.).[MC][PN].*|V.P.*PM.?");
 	private static final Pattern pFP = Pattern.compile("(N|A.).[FC][PN].*|V.P.*PF.?");
 
+	/** Tags that can follow a determiner **/
+	private static final String DT_POSTAG_REGEXP = "N.*|A.*|V.P.*|PX.";
+
 	/** Pattern for previous preposition passed in the postag **/
 	private static final Pattern pPrep = Pattern.compile("(DT)(.*)");
 
@@ -72,8 +75,6 @@ public class CatalanSynthesizer extends BaseSynthesizer {
 	@Override
 	public String[] synthesize(final AnalyzedToken token, final String posTag) throws IOException {
 		initSynthesizer();
-		initPossibleTags();
-		final Pattern p;
 		boolean addDt = false; 
 		String prep = ""; 
 		final Matcher mPrep = pPrep.matcher(posTag);
@@ -83,20 +84,18 @@ public class CatalanSynthesizer extends BaseSynthesizer {
 				prep=mPrep.group(2); // add preposition before article
 			}
 		}
+		final List<String> tags;
 		if (addDt) {
-			p = Pattern.compile("N.*|A.*|V.P.*|PX.");
+			tags = getMatchingTags(DT_POSTAG_REGEXP);
 		} else {
-			p = Pattern.compile(posTag);
+			tags = getMatchingTags(posTag);
 		}
 		final ArrayList<String> results = new ArrayList<>();
-		for (final String tag : possibleTags) {
-			final Matcher m = p.matcher(tag);
-			if (m.matches()) {
-				if (addDt) {
-					lookupWithEl(token.getLemma(), tag, prep, results);
-				} else {
-					lookup(token.getLemma(), tag, results);
-				}
+		for (final String tag : tags) {
+			if (addDt) {
+				lookupWithEl(token.getLemma(), tag, prep, results);
+			} else {
+				lookup(token.getLemma(), tag, results);
 			}
 		}
 		return results.toArray(new String[results.size()]);
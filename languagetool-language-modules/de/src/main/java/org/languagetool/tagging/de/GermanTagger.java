@@ -58,7 +58,7 @@ public class GermanTagger implements Tagger {
   protected void initialize() throws IOException {
     final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(DICT_FILENAME);
     dictionary = Dictionary.read(url);
-    manualTagger = new ManualTagger(JLanguageTool.getDataBroker().getFromResourceDirAsStream(USER_DICT_FILENAME));
+    manualTagger = new ManualTagger(JLanguageTool.getDataBroker().getFromResourceDirAsStream(USER_DICT_FILENAME), USER_DICT_FILENAME);
     compoundTokenizer = new GermanCompoundTokenizer();
   }
 
@@ -20,6 +20,7 @@ package org.languagetool.rules.spelling.hunspell;
 
 import org.junit.Ignore;
 import org.junit.Test;
+import org.languagetool.CancellationToken;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.TestTools;
@@ -27,14 +28,26 @@ import org.languagetool.language.AustrianGerman;
 import org.languagetool.language.German;
 import org.languagetool.language.GermanyGerman;
 import org.languagetool.language.SwissGerman;
+import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.de.GermanSpellerRule;
+import org.languagetool.rules.spelling.SpellingCheckRule;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class HunspellRuleTest {
 
@@ -84,6 +97,82 @@ public class HunspellRuleTest {
     assertEquals(2, rule.match(langTool.getAnalyzedSentence("Der asdegfue orkt")).length);
   }
 
+  @Test
+  public void testBatchAndConcurrentDictionaryUse() throws Exception {
+    final HunspellRule rule = new HunspellRule(TestTools.getMessages("German"), new GermanyGerman());
+    rule.init();
+    final HunspellDictionary dictionary = rule.dictionary;
+    final List<String> words = Arrays.asList("Der", "Arbeitsnehmer", "Waschmaschinentestversuch", "orkt", "LanguageTool");
+    final boolean[] expected = {false, true, false, true, false};
+    assertTrue(Arrays.equals(expected, dictionary.misspelled(words)));
+    for (int i = 0; i < words.size(); i++) {
+      assertEquals(words.get(i), expected[i], dictionary.misspelled(words.get(i)));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<boolean[]>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        futures.add(executor.submit(new Callable<boolean[]>() {
+          @Override
+          public boolean[] call() throws Exception {
+            assertFalse(dictionary.suggest("Arbeitnehmerr").isEmpty());
+            return dictionary.misspelled(words);
+          }
+        }));
+      }
+      for (Future<boolean[]> future : futures) {
+        assertTrue(Arrays.equals(expected, future.get()));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testJavaEngine() throws Exception {
+    HunspellRule.setUseJavaEngine("de", true);
+    try {
+      final HunspellRule rule = new HunspellRule(TestTools.getMessages("German"), new GermanyGerman());
+      final JLanguageTool langTool = new JLanguageTool(new German());
+      commonGermanAsserts(rule, langTool);
+      assertTrue(rule.dictionary instanceof JavaHunspellDictionary);
+      assertEquals(0, rule.match(langTool.getAnalyzedSentence("Der äußere Übeltäter.")).length);
+      assertEquals(1, rule.match(langTool.getAnalyzedSentence("Der äussere Übeltäter.")).length);
+      assertTrue(rule.dictionary.suggest("Rechtschreipreform").contains("Rechtschreibreform"));
+      assertTrue(rule.dictionary.suggest("Arbeitnehmerr").contains("Arbeitnehmer"));
+    } finally {
+      HunspellRule.setUseJavaEngine("de", false);
+    }
+  }
+
+  @Ignore("just for internal performance testing, thus ignored by default")
+  @Test
+  public void testJavaEnginePerformance() throws Exception {
+    final String[] words = {"Der", "Waschmaschinentestversuch", "Arbeitnehmer", "Verhaltensänderung", "Arbeitsnehmer",
+            "gewönlich", "Autoverkehrr", "Rechtschreibreform", "Zoobesuck", "Übeltäter"};
+    for (boolean useJavaEngine : new boolean[] {false, true}) {
+      HunspellRule.setUseJavaEngine("de", useJavaEngine);
+      try {
+        final HunspellRule rule = new HunspellRule(TestTools.getMessages("German"), new GermanyGerman());
+        long startTime = System.currentTimeMillis();
+        rule.init();
+        System.out.println((System.currentTimeMillis()-startTime) + "ms for init, java engine: " + useJavaEngine);
+        startTime = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++) {
+          rule.dictionary.misspelled(words[i % words.length]);
+        }
+        System.out.println((System.currentTimeMillis()-startTime) + "ms for 10000 lookups, java engine: " + useJavaEngine);
+        startTime = System.currentTimeMillis();
+        for (String word : words) {
+          rule.dictionary.suggest(word);
+        }
+        System.out.println((System.currentTimeMillis()-startTime) + "ms for suggestions, java engine: " + useJavaEngine);
+      } finally {
+        HunspellRule.setUseJavaEngine("de", false);
+      }
+    }
+  }
+
   @Ignore("just for internal performance testing, thus ignored by default")
   @Test
   public void testPerformance() throws Exception {
@@ -103,6 +192,59 @@ public class HunspellRuleTest {
     }
   }
 
+  @Test
+  public void testSuggestionTimeBudget() throws IOException {
+    final CompoundAwareHunspellRule rule = new GermanSpellerRule(TestTools.getMessages("German"), new GermanyGerman());
+    rule.setSuggestionTimeBudget(0);
+    final List<String> allSuggestions = rule.getSuggestions("Rechtschreipreform");
+    assertTrue(allSuggestions.contains("Rechtschreibreform"));
+    // a clock that doesn't advance, so the budget is never used up:
+    final CompoundAwareHunspellRule rule2 = new GermanSpellerRule(TestTools.getMessages("German"), new GermanyGerman()) {
+      @Override
+      protected long nanoTime() {
+        return 0;
+      }
+    };
+    rule2.setSuggestionTimeBudget(TimeUnit.HOURS.toMillis(1));
+    assertEquals(allSuggestions, rule2.getSuggestions("Rechtschreipreform"));
+    // a clock that is an hour further each time it's asked, so the budget is over right away:
+    final AtomicLong time = new AtomicLong();
+    final CompoundAwareHunspellRule rule3 = new GermanSpellerRule(TestTools.getMessages("German"), new GermanyGerman()) {
+      @Override
+      protected long nanoTime() {
+        return time.addAndGet(TimeUnit.HOURS.toNanos(1));
+      }
+    };
+    rule3.setSuggestionTimeBudget(1);
+    assertTrue(rule3.getSuggestions("Rechtschreipreform").isEmpty());
+  }
+
+  @Test
+  public void testSuggestionTimeBudgetPerCheck() throws IOException {
+    final JLanguageTool langTool = new JLanguageTool(new GermanyGerman());
+    final CancellationToken token = new CancellationToken();
+    token.setSuggestionTimeBudget(0);
+    langTool.setCancellationToken(token);
+    final List<RuleMatch> matches = getSpellingMatches(langTool.check("Die Rechtschreipreform und der Zoobesuck."));
+    assertEquals(2, matches.size());
+    for (RuleMatch match : matches) {
+      assertTrue(match.getSuggestedReplacements().isEmpty());
+    }
+    langTool.setCancellationToken(new CancellationToken());
+    final List<RuleMatch> matchesWithoutBudget = getSpellingMatches(langTool.check("Die Rechtschreipreform und der Zoobesuck."));
+    assertTrue(matchesWithoutBudget.get(0).getSuggestedReplacements().contains("Rechtschreibreform"));
+  }
+
+  private List<RuleMatch> getSpellingMatches(List<RuleMatch> matches) {
+    final List<RuleMatch> spellingMatches = new ArrayList<>();
+    for (RuleMatch match : matches) {
+      if (match.getRule() instanceof SpellingCheckRule) {
+        spellingMatches.add(match);
+      }
+    }
+    return spellingMatches;
+  }
+
   @Ignore("just for internal performance testing, thus ignored by default")
   @Test
   public void testCompoundAwareRulePerformance() throws IOException {
@@ -48,29 +48,34 @@ public class EnglishChunker implements Chunker {
    * that is once created there will never be released. As English has several variants,
    * we'd have as many posModels etc. as we have variants -> huge waste of memory:
    */
-  private static TokenizerModel tokenModel;
-  private static POSModel posModel;
-  private static ChunkerModel chunkerModel;
+  private static volatile TokenizerModel tokenModel;
+  private static volatile POSModel posModel;
+  private static volatile ChunkerModel chunkerModel;
 
   private final EnglishChunkFilter chunkFilter;
 
   public EnglishChunker() {
     try {
-      if (tokenModel == null) {
-        tokenModel = new TokenizerModel(Tools.getStream(TOKENIZER_MODEL));
-      }
-      if (posModel == null) {
-        posModel = new POSModel(Tools.getStream(POS_TAGGER_MODEL));
-      }
-      if (chunkerModel == null) {
-        chunkerModel = new ChunkerModel(Tools.getStream(CHUNKER_MODEL));
-      }
+      initModels();
       chunkFilter = new EnglishChunkFilter();
     } catch (IOException e) {
       throw new RuntimeException("Could not initialize English chunker", e);
     }
   }
 
+  // synchronized so that several threads creating a chunker at the same time load the models only once:
+  private static synchronized void initModels() throws IOException {
+    if (tokenModel == null) {
+      tokenModel = new TokenizerModel(Tools.getStream(TOKENIZER_MODEL));
+    }
+    if (posModel == null) {
+      posModel = new POSModel(Tools.getStream(POS_TAGGER_MODEL));
+    }
+    if (chunkerModel == null) {
+      chunkerModel = new ChunkerModel(Tools.getStream(CHUNKER_MODEL));
+    }
+  }
+
   @Override
   public void addChunkTags(List<AnalyzedTokenReadings> tokenReadings) {
     List<ChunkTaggedToken> origChunkTags = getChunkTagsForReadings(tokenReadings);
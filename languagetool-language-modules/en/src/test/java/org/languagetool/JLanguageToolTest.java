@@ -20,6 +20,8 @@ package org.languagetool;
 
 import junit.framework.TestCase;
 import org.languagetool.JLanguageTool.ParagraphHandling;
+import org.languagetool.databroker.DefaultResourceDataBroker;
+import org.languagetool.databroker.ResourceDataBroker;
 import org.languagetool.language.AmericanEnglish;
 import org.languagetool.language.BritishEnglish;
 import org.languagetool.language.English;
@@ -30,6 +32,7 @@ import org.languagetool.rules.patterns.Element;
 import org.languagetool.rules.patterns.PatternRule;
 
 import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -112,6 +115,12 @@ public class JLanguageToolTest extends TestCase {
             "test­ed[tested/JJ,test/VBD,test/VBN,test­ed/null,I-NP-singular] " +
             "sentence[sentence/NN,sentence/VB,sentence/VBP,E-NP-singular].[./.,</S>,O]",
             tool.getAnalyzedSentence("This is a test\u00aded sentence.").toString());
+    // positions refer to the original text, including the soft hyphen:
+    final AnalyzedTokenReadings[] tokens = tool.getAnalyzedSentence("This is a test\u00aded sentence.").getTokens();
+    assertEquals("test\u00aded", tokens[7].getToken());
+    assertEquals(10, tokens[7].getStartPos());
+    assertEquals("sentence", tokens[9].getToken());
+    assertEquals(18, tokens[9].getStartPos());
     //test paragraph ends adding
     assertEquals("<S> </S><P/> ", tool.getAnalyzedSentence("\n").toString());
   }  
@@ -186,4 +195,33 @@ public class JLanguageToolTest extends TestCase {
     assertEquals("one overlapping rule must be filtered out", 1, ruleMatches2.size());
     assertEquals("msg1", ruleMatches2.get(0).getMessage());
   }
+
+  public void testWarmUp() throws IOException {
+    final List<String> loadedResources = new ArrayList<>();
+    final ResourceDataBroker oldBroker = JLanguageTool.getDataBroker();
+    JLanguageTool.setDataBroker(new DefaultResourceDataBroker() {
+      @Override
+      public URL getFromResourceDirAsUrl(String path) {
+        loadedResources.add(path);
+        return super.getFromResourceDirAsUrl(path);
+      }
+    });
+    try {
+      final Language language = new AmericanEnglish();
+      language.warmUp();
+      assertTrue(loadedResources.toString(), loadedResources.contains("/en/english.dict"));
+      assertTrue(loadedResources.toString(), loadedResources.contains("/en/english_synth.dict"));
+      final JLanguageTool tool = new JLanguageTool(language);
+      tool.activateDefaultPatternRules();
+      loadedResources.clear();
+      // the dictionaries are not loaded again on first use:
+      assertEquals(1, tool.check("A sentence with a error.").size());
+      final String[] forms = language.getSynthesizer().synthesize(new AnalyzedToken("walk", "VB", "walk"), "VBD");
+      assertEquals("[walked]", Arrays.toString(forms));
+      assertFalse(loadedResources.toString(), loadedResources.contains("/en/english.dict"));
+      assertFalse(loadedResources.toString(), loadedResources.contains("/en/english_synth.dict"));
+    } finally {
+      JLanguageTool.setDataBroker(oldBroker);
+    }
+  }
 }
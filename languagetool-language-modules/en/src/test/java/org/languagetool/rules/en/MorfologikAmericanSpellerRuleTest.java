@@ -25,11 +25,26 @@ import org.languagetool.language.AmericanEnglish;
 import org.languagetool.rules.RuleMatch;
 
 import java.io.IOException;
+import java.util.Locale;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class MorfologikAmericanSpellerRuleTest {
 
+  @Test
+  public void testKnownWordCacheDependsOnLocale() throws IOException {
+    final AmericanEnglish language = new AmericanEnglish();
+    final MorfologikAmericanSpellerRule rule1 = new MorfologikAmericanSpellerRule(TestTools.getMessages("English"), language);
+    final MorfologikAmericanSpellerRule rule2 = new MorfologikAmericanSpellerRule(TestTools.getMessages("English"), language);
+    rule1.setLocale(Locale.ENGLISH);
+    rule2.setLocale(Locale.ENGLISH);
+    assertSame(rule1.getKnownWordCache(), rule2.getKnownWordCache());
+    rule2.setLocale(new Locale("tr"));
+    assertNotSame(rule1.getKnownWordCache(), rule2.getKnownWordCache());
+  }
+
   @Test
   public void testMorfologikSpeller() throws IOException {
     final AmericanEnglish language = new AmericanEnglish();
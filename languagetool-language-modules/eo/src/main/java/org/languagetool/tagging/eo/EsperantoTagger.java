@@ -41,6 +41,8 @@ import org.languagetool.tagging.Tagger;
  * @author Dominique Pellé
  */
 public class EsperantoTagger implements Tagger {
+  private static final String MANUAL_TAGGER_FILENAME = "/eo/manual-tagger.txt";
+
   // manual tagger is used to tag the list of closed Esperanto words
   // (small limited number of words which do not have regular ending).
   private ManualTagger manualTagger = null;
@@ -114,7 +116,7 @@ public class EsperantoTagger implements Tagger {
     // limited set of words in Esperanto which have no standard ending, as
     // opposed to open words which are unlimited in numbers and which follow
     // strict rules for their suffixes.
-    manualTagger = new ManualTagger(JLanguageTool.getDataBroker().getFromResourceDirAsStream("/eo/manual-tagger.txt"));
+    manualTagger = new ManualTagger(JLanguageTool.getDataBroker().getFromResourceDirAsStream(MANUAL_TAGGER_FILENAME), MANUAL_TAGGER_FILENAME);
 
     // Load set of transitive and intransitive verbs.  Files don't contain
     // verbs with suffix -iĝ or -ig since transitivity is obvious for those verbs.
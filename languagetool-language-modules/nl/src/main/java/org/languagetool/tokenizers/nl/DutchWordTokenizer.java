@@ -19,9 +19,6 @@
 
 package org.languagetool.tokenizers.nl;
 
-import java.util.Arrays;
-import java.util.List;
-
 import org.languagetool.tokenizers.WordTokenizer;
 
 public class DutchWordTokenizer extends WordTokenizer {
@@ -31,24 +28,24 @@ public class DutchWordTokenizer extends WordTokenizer {
 
   /**
    * Tokenizes just like WordTokenizer with the exception for words such as
-   * "oma's" that contains an apostrophe in their middle.
-   * 
-   * @param text
-   *          - Text to tokenize
-   * @return List of tokens.
-   * 
-   *         Note: a special string ##NL_APOS## is used to replace apostrophe
-   *         during tokenizing.
+   * "oma's" that contain an apostrophe in their middle. A letter is part of
+   * only one such apostrophe, so "a'b'c" is split into "a'b", "'" and "c".
    */
   @Override
-  public List<String> tokenize(final String text) {
-    // TODO: find a cleaner implementation, this is a hack
-    final List<String> tokenList = super.tokenize(text.replaceAll(
-        "([\\p{L}])'([\\p{L}])", "$1##NL_APOS##$2"));
-    final String[] tokens = tokenList.toArray(new String[tokenList.size()]);
-    for (int i = 0; i < tokens.length; i++) {
-      tokens[i] = tokens[i].replace("##NL_APOS##", "'");
+  protected boolean isDelimiter(final String text, final int pos) {
+    if (text.charAt(pos) == '\'' && pos > 0 && pos < text.length() - 1
+        && Character.isLetter(text.charAt(pos - 1)) && Character.isLetter(text.charAt(pos + 1))) {
+      // every other apostrophe of a sequence like "a'b'c'd" keeps its letters together:
+      boolean inWord = true;
+      int prev = pos - 2;
+      while (prev > 0 && text.charAt(prev) == '\'' && Character.isLetter(text.charAt(prev - 1))) {
+        inWord = !inWord;
+        prev -= 2;
+      }
+      if (inWord) {
+        return false;
+      }
     }
-    return Arrays.asList(tokens);
+    return super.isDelimiter(text, pos);
   }
 }
@@ -34,5 +34,9 @@ public class DutchWordTokenizerTest extends TestCase {
     assertEquals(testList.size(), 12);
     assertEquals("[Bla,  , bla,  , oma's,  , bla,  , bla,  , ', test]",
         testList.toString());
+    testList = wordTokenizer.tokenize("a'b'c d' 'e");
+    assertEquals("[a'b, ', c,  , d, ',  , ', e]", testList.toString());
+    testList = wordTokenizer.tokenize("a'b'c'd'e");
+    assertEquals("[a'b, ', c'd, ', e]", testList.toString());
   }
 }
@@ -23,7 +23,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import morfologik.stemming.Dictionary;
@@ -53,9 +54,13 @@ public class PolishSynthesizer implements Synthesizer {
   private static final String COMP_TAG = "com";
   private static final String SUP_TAG = "sup";
 
-  private IStemmer synthesizer;
+  // volatile as these are initialized lazily, but may be used by several threads:
+  private volatile IStemmer synthesizer;
 
-  private ArrayList<String> possibleTags;
+  private volatile ArrayList<String> possibleTags;
+
+  /** POS tag regular expression -> the tags from the tag file that match it */
+  private final Map<String, List<String>> matchingTagsCache = new ConcurrentHashMap<>();
   
   @Override
   public final String[] synthesize(final AnalyzedToken token,
@@ -63,10 +68,7 @@ public class PolishSynthesizer implements Synthesizer {
     if (posTag == null) {
       return null;
     }
-    if (synthesizer == null) {
-      final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(RESOURCE_FILENAME);
-      synthesizer = new DictionaryLookup(Dictionary.read(url));
-    }
+    initSynthesizer();
     boolean isNegated = false;
     if (token.getPOSTag() != null) {
       isNegated = posTag.indexOf(NEGATION_TAG) > 0
@@ -88,14 +90,8 @@ public class PolishSynthesizer implements Synthesizer {
     }
     String posTag = pos;
     if (posTagRegExp) {
-      if (possibleTags == null) {
-        possibleTags = SynthesizerTools.loadWords(JLanguageTool.getDataBroker().
-        		getFromResourceDirAsStream(TAGS_FILE_NAME));
-      }
-      if (synthesizer == null) {
-        final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(RESOURCE_FILENAME);
-        synthesizer = new DictionaryLookup(Dictionary.read(url));
-      }
+      initPossibleTags();
+      initSynthesizer();
       final ArrayList<String> results = new ArrayList<>();
 
       boolean isNegated = false;
@@ -111,14 +107,10 @@ public class PolishSynthesizer implements Synthesizer {
       }
 
   
-      final Pattern p = Pattern.compile(posTag.replace('+', '|'));
-      for (final String tag : possibleTags) {
-        final Matcher m = p.matcher(tag);
-        if (m.matches()) {
-          final List<String> wordForms = getWordForms(token, tag, isNegated);
-          if (wordForms != null) {
-            results.addAll(wordForms);
-          }
+      for (final String tag : getMatchingTags(posTag.replace('+', '|'))) {
+        final List<String> wordForms = getWordForms(token, tag, isNegated);
+        if (wordForms != null) {
+          results.addAll(wordForms);
         }
       }
       //remove duplicates
@@ -157,6 +149,42 @@ public class PolishSynthesizer implements Synthesizer {
     return posTag;
   }
 
+  private void initSynthesizer() throws IOException {
+    if (synthesizer == null) {
+      synchronized (this) {
+        if (synthesizer == null) {
+          final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(RESOURCE_FILENAME);
+          synthesizer = new DictionaryLookup(Dictionary.read(url));
+        }
+      }
+    }
+  }
+
+  private void initPossibleTags() throws IOException {
+    if (possibleTags == null) {
+      synchronized (this) {
+        if (possibleTags == null) {
+          possibleTags = SynthesizerTools.loadWords(JLanguageTool.getDataBroker().getFromResourceDirAsStream(TAGS_FILE_NAME));
+        }
+      }
+    }
+  }
+
+  private List<String> getMatchingTags(final String posTagRegExp) {
+    List<String> tags = matchingTagsCache.get(posTagRegExp);
+    if (tags == null) {
+      final Pattern p = Pattern.compile(posTagRegExp);
+      tags = new ArrayList<>();
+      for (final String tag : possibleTags) {
+        if (p.matcher(tag).matches()) {
+          tags.add(tag);
+        }
+      }
+      matchingTagsCache.put(posTagRegExp, tags);
+    }
+    return tags;
+  }
+
   private List<String> getWordForms(final AnalyzedToken token, final String posTag,
       final boolean isNegated) {
     final List<String> forms = new ArrayList<>();
@@ -19,6 +19,7 @@
 package org.languagetool.synthesis.ro;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.languagetool.JLanguageTool;
@@ -37,7 +38,7 @@ public class RomanianSynthesizer extends BaseSynthesizer {
 	private static final String TAGS_FILE_NAME = "/ro/romanian_tags.txt";
 	private static final String USER_DICT_FILENAME = "/ro/added.txt";
 	
-	private static ManualSynthesizer manualSynthesizer;
+	private static volatile ManualSynthesizer manualSynthesizer;
 
 	public RomanianSynthesizer() {
     super(RESOURCE_FILENAME, TAGS_FILE_NAME);
@@ -55,18 +56,29 @@ public class RomanianSynthesizer extends BaseSynthesizer {
 	
 	@Override
 	protected void initSynthesizer() throws IOException {
+		initManualSynthesizer();
 		super.initSynthesizer();
-		if (manualSynthesizer == null) {
-			manualSynthesizer = new ManualSynthesizer(JLanguageTool.getDataBroker().getFromResourceDirAsStream(USER_DICT_FILENAME));
-		}
 	}
+
 	@Override
-	protected void initPossibleTags() throws IOException {
-		super.initPossibleTags();
+	protected ArrayList<String> loadPossibleTags() throws IOException {
+		initManualSynthesizer();
+		final ArrayList<String> tags = super.loadPossibleTags();
 		// add any possible tag from manual synthesiser
 		for (String tag : manualSynthesizer.getPossibleTags()) {
-			if (!possibleTags.contains(tag)) {
-				possibleTags.add(tag);
+			if (!tags.contains(tag)) {
+				tags.add(tag);
+			}
+		}
+		return tags;
+	}
+
+	private static void initManualSynthesizer() throws IOException {
+		if (manualSynthesizer == null) {
+			synchronized (RomanianSynthesizer.class) {
+				if (manualSynthesizer == null) {
+					manualSynthesizer = new ManualSynthesizer(JLanguageTool.getDataBroker().getFromResourceDirAsStream(USER_DICT_FILENAME));
+				}
 			}
 		}
 	}
@@ -71,7 +71,7 @@ public class RomanianTagger extends BaseTagger {
     int pos = 0;
     final IStemmer morfologik = new DictionaryLookup(getDictionary());
     if (manualTagger == null && plaintextDictPath != null) {
-      manualTagger = new ManualTagger(JLanguageTool.getDataBroker().getFromResourceDirAsStream(plaintextDictPath));
+      manualTagger = new ManualTagger(JLanguageTool.getDataBroker().getFromResourceDirAsStream(plaintextDictPath), plaintextDictPath);
     }
 
     for (final String word : sentenceTokens) {
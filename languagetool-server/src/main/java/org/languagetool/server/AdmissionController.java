@@ -0,0 +1,467 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which requests get checked, so that a traffic spike leads to some requests
+ * being rejected quickly (HTTP status 503) instead of all requests getting slower:
+ * <ul>
+ *   <li>the queue of requests waiting for a worker thread of {@link #getExecutor()} is bounded,
+ *   requests that don't fit into the queue are run on the submitting thread, marked as
+ *   rejected (see {@link #isRejected()}), so they can be answered without reading their body</li>
+ *   <li>only a limited number of checks per language run at the same time, further requests
+ *   wait in a bounded queue of their language without occupying a worker thread</li>
+ *   <li>a request that could not start its check within the maximum queue time
+ *   (counted from when it was handed to the executor) gets rejected as soon as that time is over</li>
+ * </ul>
+ * Requests get admitted by {@link #acquire(String, Runnable)}, which must be called on a thread
+ * of {@link #getExecutor()}.
+ * @since 2.3
+ */
+class AdmissionController {
+
+  /** Seconds sent in the Retry-After header of a 503 response. */
+  static final int RETRY_AFTER_SECONDS = 5;
+
+  private static final ThreadLocal<QueuedTask> currentTask = new ThreadLocal<>();
+
+  private final ThreadPoolExecutor executor;
+  private final ScheduledThreadPoolExecutor expiryTimer;
+  private final int maxQueueSize;
+  private final int maxChecksPerLanguage;
+  private final long maxQueueTimeMillis;
+  private final ConcurrentMap<String, LanguageQueue> languageQueues = new ConcurrentHashMap<>();
+  private final AtomicInteger waitingForLanguage = new AtomicInteger();
+  private final AtomicLong rejectedQueueFull = new AtomicLong();
+  private final AtomicLong rejectedTimeout = new AtomicLong();
+
+  /**
+   * @param threads number of worker threads
+   * @param maxQueueSize maximum number of requests waiting for a worker thread,
+   *                     and maximum number of requests waiting for one language
+   * @param maxChecksPerLanguage maximum number of checks running at the same time for one language
+   * @param maxQueueTimeMillis maximum time a request may wait before its check starts
+   */
+  AdmissionController(int threads, int maxQueueSize, int maxChecksPerLanguage, long maxQueueTimeMillis) {
+    if (maxChecksPerLanguage < 1) {
+      throw new IllegalArgumentException("maxChecksPerLanguage must be > 0: " + maxChecksPerLanguage);
+    }
+    this.maxQueueSize = maxQueueSize;
+    this.maxChecksPerLanguage = maxChecksPerLanguage;
+    this.maxQueueTimeMillis = maxQueueTimeMillis;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(maxQueueSize), new RejectionHandler()) {
+      @Override
+      public void execute(Runnable command) {
+        super.execute(command instanceof QueuedTask ? command : new QueuedTask(command, System.currentTimeMillis()));
+      }
+    };
+    this.expiryTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        final Thread thread = new Thread(runnable, "lt-queue-expiry");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    expiryTimer.setRemoveOnCancelPolicy(true);
+  }
+
+  AdmissionController(HTTPServerConfig config) {
+    this(Server.THREAD_POOL_SIZE, config.getMaxQueueSize(), config.getMaxChecksPerLanguage(), config.getMaxQueueTimeMillis());
+  }
+
+  /**
+   * The executor to run requests on.
+   */
+  ExecutorService getExecutor() {
+    return executor;
+  }
+
+  void shutdownNow() {
+    expiryTimer.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Whether the current request didn't fit into the executor's queue. It runs on the thread that
+   * submitted it and must be answered with status 503 right away, without reading its body.
+   * Such a request is counted as rejected.
+   */
+  boolean isRejected() {
+    final QueuedTask task = currentTask.get();
+    if (task != null && task.rejected) {
+      rejectedQueueFull.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Get the permit to start a check for the given language. If the maximum number of checks for that
+   * language are running, the request is queued instead and {@code retry} is run on a worker thread
+   * once one of these checks is done. {@code retry} must handle the request again (without reading
+   * its body again), calling this method again, which then returns the permit handed over to it or
+   * rejects the request if it has waited too long. A request that is still queued when its maximum
+   * queue time is over is handled again right away, so it gets rejected without waiting for the
+   * running checks of its language.
+   * @param retry handles the current request again
+   * @return a permit that must be closed when the check is done
+   * @throws RequestQueuedException if the request has been queued and must not be answered now
+   * @throws ServerOverloadedException if the request cannot be checked
+   */
+  Permit acquire(String languageCode, Runnable retry) throws ServerOverloadedException, RequestQueuedException {
+    final QueuedTask task = currentTask.get();
+    final long now = System.currentTimeMillis();
+    final long queuedSince = task != null ? task.queuedSince : now;
+    if (task != null && task.grantedQueue != null) {
+      final LanguageQueue grantedQueue = task.grantedQueue;
+      task.grantedQueue = null;
+      if (grantedQueue.languageCode.equals(languageCode)) {
+        return new Permit(grantedQueue, now - queuedSince);
+      }
+      release(grantedQueue);
+    }
+    if ((task != null && task.expired) || now - queuedSince > maxQueueTimeMillis) {
+      rejectedTimeout.incrementAndGet();
+      throw new ServerOverloadedException("Check could not be started within " + maxQueueTimeMillis + "ms");
+    }
+    final LanguageQueue queue = getLanguageQueue(languageCode);
+    final List<QueuedTask> expiredTasks = new ArrayList<>();
+    final boolean admitted;
+    boolean queueFull = false;
+    synchronized (queue) {
+      pollExpired(queue, now, expiredTasks);
+      admitted = queue.running < maxChecksPerLanguage;
+      if (admitted) {
+        queue.running++;
+      } else if (queue.waiting.size() >= maxQueueSize) {
+        queueFull = true;
+      } else {
+        final QueuedTask queuedTask = new QueuedTask(retry, queuedSince);
+        queue.waiting.add(queuedTask);
+        waitingForLanguage.incrementAndGet();
+        queuedTask.expiry = expiryTimer.schedule(new Runnable() {
+          @Override
+          public void run() {
+            expire(queue, queuedTask);
+          }
+        }, queuedSince + maxQueueTimeMillis + 1 - now, TimeUnit.MILLISECONDS);
+      }
+    }
+    schedule(expiredTasks);
+    if (admitted) {
+      return new Permit(queue, now - queuedSince);
+    } else if (queueFull) {
+      rejectedQueueFull.incrementAndGet();
+      throw new ServerOverloadedException("Too many requests waiting for language " + languageCode + " (maximum: " + maxQueueSize + ")");
+    }
+    throw new RequestQueuedException();
+  }
+
+  /**
+   * Get a permit for another thread that helps with the current request's check, if the language's
+   * limit allows it and no other requests are waiting for the language.
+   * @return a permit that must be closed when the thread's check is done, or {@code null}
+   */
+  Permit tryAcquire(String languageCode) {
+    final LanguageQueue queue = getLanguageQueue(languageCode);
+    synchronized (queue) {
+      if (queue.running >= maxChecksPerLanguage || !queue.waiting.isEmpty()) {
+        return null;
+      }
+      queue.running++;
+    }
+    return new Permit(queue, 0);
+  }
+
+  /**
+   * Number of worker threads that could start a task right away, {@code 0} if requests are waiting for a worker thread.
+   */
+  int getIdleWorkerCount() {
+    if (!executor.getQueue().isEmpty()) {
+      return 0;
+    }
+    return Math.max(0, executor.getMaximumPoolSize() - executor.getActiveCount());
+  }
+
+  /**
+   * Count a request that has been rejected without calling {@link #acquire(String, Runnable)}.
+   */
+  void countQueueFullRejection() {
+    rejectedQueueFull.incrementAndGet();
+  }
+
+  /**
+   * @return true if no more requests fit into the executor's queue
+   */
+  boolean isQueueFull() {
+    return executor.getQueue().remainingCapacity() == 0;
+  }
+
+  /**
+   * Number of requests that wait for a worker thread or for their check to start.
+   */
+  int getQueueDepth() {
+    return executor.getQueue().size() + waitingForLanguage.get();
+  }
+
+  /**
+   * Number of requests rejected because the queue was full.
+   */
+  long getRejectedQueueFullCount() {
+    return rejectedQueueFull.get();
+  }
+
+  /**
+   * Number of requests rejected because their check could not start within the maximum queue time.
+   */
+  long getRejectedTimeoutCount() {
+    return rejectedTimeout.get();
+  }
+
+  private LanguageQueue getLanguageQueue(String languageCode) {
+    LanguageQueue queue = languageQueues.get(languageCode);
+    if (queue == null) {
+      final LanguageQueue newQueue = new LanguageQueue(languageCode);
+      queue = languageQueues.putIfAbsent(languageCode, newQueue);
+      if (queue == null) {
+        queue = newQueue;
+      }
+    }
+    return queue;
+  }
+
+  /**
+   * A check of the queue's language is done: hand its permit over to the next waiting request, if any.
+   */
+  private void release(LanguageQueue queue) {
+    final List<QueuedTask> tasks = new ArrayList<>();
+    synchronized (queue) {
+      pollExpired(queue, System.currentTimeMillis(), tasks);
+      final QueuedTask next = queue.waiting.poll();
+      if (next != null) {
+        waitingForLanguage.decrementAndGet();
+        next.expiry.cancel(false);
+        next.grantedQueue = queue;
+        tasks.add(next);
+      } else {
+        queue.running--;
+      }
+    }
+    schedule(tasks);
+  }
+
+  private void pollExpired(LanguageQueue queue, long now, List<QueuedTask> expiredTasks) {
+    QueuedTask task;
+    while ((task = queue.waiting.peek()) != null && now - task.queuedSince > maxQueueTimeMillis) {
+      queue.waiting.poll();
+      waitingForLanguage.decrementAndGet();
+      task.expiry.cancel(false);
+      task.expired = true;
+      expiredTasks.add(task);
+    }
+  }
+
+  /**
+   * The maximum queue time of a request is over: if it's still waiting, handle it again so it gets rejected.
+   */
+  private void expire(LanguageQueue queue, QueuedTask task) {
+    final List<QueuedTask> expiredTasks = new ArrayList<>();
+    synchronized (queue) {
+      if (queue.waiting.remove(task)) {
+        waitingForLanguage.decrementAndGet();
+        task.expired = true;
+        expiredTasks.add(task);
+      }
+      pollExpired(queue, System.currentTimeMillis(), expiredTasks);
+    }
+    schedule(expiredTasks);
+  }
+
+  /**
+   * A request could not be run after the one before it on the same thread failed: give its permit,
+   * if any, to the next request and handle it again on another thread, so it gets rejected.
+   */
+  private void reject(QueuedTask task) {
+    final LanguageQueue unusedQueue = task.grantedQueue;
+    if (unusedQueue != null) {
+      task.grantedQueue = null;
+      release(unusedQueue);
+    }
+    task.expired = true;
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      // the server is shutting down and closes all connections anyway
+    }
+  }
+
+  /**
+   * Run requests taken from a language queue. On a worker thread, they run after the current
+   * request, so they don't have to wait in the executor's queue again.
+   */
+  private void schedule(List<QueuedTask> tasks) {
+    final QueuedTask current = currentTask.get();
+    for (QueuedTask task : tasks) {
+      if (current != null) {
+        current.followUps.add(task);
+      } else {
+        executor.execute(task);
+      }
+    }
+  }
+
+  /**
+   * Allows a check to run, must be closed after the check.
+   */
+  class Permit implements AutoCloseable {
+
+    private final LanguageQueue queue;
+    private final long queueTimeMillis;
+    private boolean closed;
+
+    private Permit(LanguageQueue queue, long queueTimeMillis) {
+      this.queue = queue;
+      this.queueTimeMillis = queueTimeMillis;
+    }
+
+    /**
+     * @return how long the request waited for a worker thread and for this permit
+     */
+    long getQueueTimeMillis() {
+      return queueTimeMillis;
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        release(queue);
+      }
+    }
+  }
+
+  /**
+   * The number of running checks of a language and the requests waiting for a check
+   * of that language, guarded by the instance's lock.
+   */
+  private static class LanguageQueue {
+
+    private final String languageCode;
+    private final Deque<QueuedTask> waiting = new ArrayDeque<>();
+    private int running;
+
+    LanguageQueue(String languageCode) {
+      this.languageCode = languageCode;
+    }
+  }
+
+  private class QueuedTask implements Runnable {
+
+    private final Runnable runnable;
+    private final long queuedSince;
+    private final List<QueuedTask> followUps = new ArrayList<>();
+    // rejects the request when it's still in a language queue after the maximum queue time, guarded by the queue's lock:
+    private ScheduledFuture<?> expiry;
+    private volatile boolean rejected;
+    // set when the request is taken from a language queue:
+    private volatile LanguageQueue grantedQueue;
+    private volatile boolean expired;
+
+    QueuedTask(Runnable runnable, long queuedSince) {
+      this.runnable = runnable;
+      this.queuedSince = queuedSince;
+    }
+
+    @Override
+    public void run() {
+      final Deque<QueuedTask> tasks = new ArrayDeque<>();
+      tasks.add(this);
+      try {
+        QueuedTask task;
+        while ((task = tasks.poll()) != null) {
+          try {
+            task.runRequest();
+          } finally {
+            tasks.addAll(task.followUps);
+            task.followUps.clear();
+          }
+        }
+      } finally {
+        // only left if a request failed with an Error, the following requests must still be answered:
+        for (QueuedTask task : tasks) {
+          reject(task);
+        }
+      }
+    }
+
+    private void runRequest() {
+      currentTask.set(this);
+      try {
+        runnable.run();
+      } finally {
+        // the request didn't need the permit handed over to it, e.g. because it failed before:
+        final LanguageQueue unusedQueue = grantedQueue;
+        if (unusedQueue != null) {
+          grantedQueue = null;
+          release(unusedQueue);
+        }
+        currentTask.remove();
+      }
+    }
+  }
+
+  /**
+   * Runs tasks that don't fit into the queue on the submitting thread, without using
+   * another queue. New requests are marked as rejected, so they get answered quickly.
+   * Requests taken from a language queue are run anyway, as they have been admitted
+   * or only need to be answered.
+   */
+  private static class RejectionHandler implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        throw new RejectedExecutionException("Server is shutting down");
+      }
+      final QueuedTask task = (QueuedTask) runnable;
+      task.rejected = task.grantedQueue == null && !task.expired;
+      task.run();
+    }
+  }
+
+}
@@ -0,0 +1,211 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the responses of recent checks so that checking the same text with the same
+ * settings again doesn't need to run LanguageTool. Only the serialized response is kept,
+ * not the matches, which refer to the rules and their resources. Entries are evicted when they are
+ * older than the time to live, or, least recently used first, when the estimated
+ * memory use exceeds the limit. The key is a hash of everything that influences the
+ * result, see {@link #createKey(List)}. Thread-safe.
+ * @since 2.3
+ */
+class CheckResultCache {
+
+  // rough estimate of the memory used by the Java objects of an entry besides the response, in bytes:
+  private static final int ENTRY_OVERHEAD = 200;
+
+  private final long maxMemoryBytes;
+  private final long ttlMillis;
+  // access order, so that the least recently used entries come first:
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long memoryBytes;
+  private long hits;
+  private long misses;
+  private long savedChars;
+
+  /**
+   * @param maxMemoryBytes the maximum (estimated) memory used by the cache entries
+   * @param ttlMillis the time after which an entry is not used anymore
+   */
+  CheckResultCache(long maxMemoryBytes, long ttlMillis) {
+    if (maxMemoryBytes <= 0) {
+      throw new IllegalArgumentException("maxMemoryBytes must be > 0: " + maxMemoryBytes);
+    }
+    if (ttlMillis <= 0) {
+      throw new IllegalArgumentException("ttlMillis must be > 0: " + ttlMillis);
+    }
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * @param parts everything the check result depends on, e.g. the software version, the language,
+   *              the rule settings and the text - a {@code null} part is different from an empty one
+   */
+  static Key createKey(List<String> parts) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);  // every Java platform supports SHA-256
+    }
+    for (String part : parts) {
+      if (part == null) {
+        digest.update((byte) 0);
+      } else {
+        digest.update((byte) 1);
+        digest.update(Integer.toString(part.length()).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(part.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return new Key(digest.digest());
+  }
+
+  /**
+   * @return the cached response, which must not be modified, or {@code null}
+   */
+  synchronized byte[] get(Key key) {
+    final Entry entry = entries.get(key);
+    if (entry == null || System.currentTimeMillis() - entry.createdMillis > ttlMillis) {
+      if (entry != null) {
+        remove(key);
+      }
+      misses++;
+      return null;
+    }
+    hits++;
+    savedChars += entry.textLength;
+    return entry.response;
+  }
+
+  /**
+   * @param response the serialized response, which must not be modified afterwards
+   * @param textLength the length of the checked text, for {@link #getSavedChars()}
+   */
+  synchronized void put(Key key, byte[] response, int textLength) {
+    final Entry entry = new Entry(response, textLength, System.currentTimeMillis(), ENTRY_OVERHEAD + response.length);
+    if (entry.memoryBytes > maxMemoryBytes) {
+      return;
+    }
+    final Entry oldEntry = entries.put(key, entry);
+    if (oldEntry != null) {
+      memoryBytes -= oldEntry.memoryBytes;
+    }
+    memoryBytes += entry.memoryBytes;
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+      memoryBytes -= iterator.next().memoryBytes;
+      iterator.remove();
+    }
+  }
+
+  private void remove(Key key) {
+    final Entry entry = entries.remove(key);
+    if (entry != null) {
+      memoryBytes -= entry.memoryBytes;
+    }
+  }
+
+  synchronized int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * @return the estimated memory used by the cache entries, in bytes
+   */
+  synchronized long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  synchronized long getHitCount() {
+    return hits;
+  }
+
+  synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * @return the share of lookups that found a result, between 0 and 1
+   */
+  synchronized double getHitRate() {
+    final long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * @return the number of characters that didn't need to be checked thanks to the cache
+   */
+  synchronized long getSavedChars() {
+    return savedChars;
+  }
+
+  static final class Key {
+    private final byte[] hash;
+    private Key(byte[] hash) {
+      this.hash = hash;
+    }
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && Arrays.equals(hash, ((Key) o).hash);
+    }
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(hash);
+    }
+    /**
+     * @return the hash as a hex string
+     */
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return sb.toString();
+    }
+  }
+
+  private static final class Entry {
+    private final byte[] response;
+    private final int textLength;
+    private final long createdMillis;
+    private final long memoryBytes;
+    private Entry(byte[] response, int textLength, long createdMillis, long memoryBytes) {
+      this.response = response;
+      this.textLength = textLength;
+      this.createdMillis = createdMillis;
+      this.memoryBytes = memoryBytes;
+    }
+  }
+
+}
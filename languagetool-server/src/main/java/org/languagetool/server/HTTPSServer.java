@@ -35,8 +35,6 @@ import java.net.InetSocketAddress;
 import java.security.KeyStore;
 import java.util.ResourceBundle;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import static org.languagetool.server.HTTPServerConfig.DEFAULT_HOST;
 
@@ -48,7 +46,7 @@ import static org.languagetool.server.HTTPServerConfig.DEFAULT_HOST;
  */
 public class HTTPSServer extends Server {
 
-  private final ExecutorService executorService;
+  private final AdmissionController admissionController;
 
   /**
    * Prepare a server on the given host and port - use run() to start it.
@@ -72,10 +70,19 @@ public class HTTPSServer extends Server {
       final RequestLimiter limiter = getRequestLimiterOrNull(config);
       final LanguageToolHttpHandler httpHandler = new LanguageToolHttpHandler(config.isVerbose(), allowedIps, runInternally, limiter);
       httpHandler.setMaxTextLength(config.getMaxTextLength());
+      httpHandler.setMaxCheckTimeMillis(config.getMaxCheckTimeMillis());
+      httpHandler.setSuggestionTimeBudgetMillis(config.getSuggestionTimeBudgetMillis());
+      if (config.getCacheMaxMemoryBytes() > 0) {
+        httpHandler.setCheckResultCache(new CheckResultCache(config.getCacheMaxMemoryBytes(), config.getCacheTtlSeconds() * 1000));
+      }
       httpHandler.setAllowOriginUrl(config.getAllowOriginUrl());
+      admissionController = new AdmissionController(config);
+      httpHandler.setAdmissionController(admissionController);
       server.createContext("/", httpHandler);
-      executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-      server.setExecutor(executorService);
+      this.httpHandler = httpHandler;
+      warmUpLanguages = config.getWarmUpLanguages();
+      maxHunspellHandles = config.getMaxHunspellHandles();
+      server.setExecutor(admissionController.getExecutor());
     } catch (BindException e) {
       final ResourceBundle messages = JLanguageTool.getMessageBundle();
       final String message = Tools.makeTexti18n(messages, "https_server_start_failed", host, Integer.toString(port));
@@ -127,13 +134,13 @@ public class HTTPSServer extends Server {
   @Override
   public void stop() {
     super.stop();
-    if (executorService != null) {
-      executorService.shutdownNow();
+    if (admissionController != null) {
+      admissionController.shutdownNow();
     }
   }
 
   public static void main(String[] args) {
-    if (args.length > 7 || usageRequested(args)) {
+    if (args.length > 11 || usageRequested(args)) {
       System.out.println("Usage: " + HTTPSServer.class.getSimpleName()
               + " --config propertyFile [--port|-p port] [--public]");
       System.out.println("  --config file  a Java property file with values for:");
@@ -142,6 +149,15 @@ public class HTTPSServer extends Server {
       System.out.println("                 'maxTextLength' - maximum text length, longer texts will cause an error (optional)");
       System.out.println("                 'requestLimit' - maximum number of requests (optional)");
       System.out.println("                 'requestLimitPeriodInSeconds' - time period to which requestLimit applies (optional)");
+      System.out.println("                 'maxQueueSize' - maximum number of requests waiting to be checked (optional)");
+      System.out.println("                 'maxQueueTimeMillis' - maximum time a request may wait until its check starts (optional)");
+      System.out.println("                 'maxChecksPerLanguage' - maximum number of checks running at the same time per language (optional)");
+      System.out.println("                 'maxCheckTimeMillis' - maximum time a single check may take, 0 means no limit (optional)");
+      System.out.println("                 'suggestionTimeBudgetMillis' - maximum time a single check may spend on spelling suggestions, 0 means no limit (optional)");
+      System.out.println("                 'maxHunspellHandles' - maximum number of threads using a native hunspell dictionary at the same time (optional)");
+      System.out.println("                 'cacheMaxMemoryBytes' - memory used for caching check results, 0 disables the cache (optional)");
+      System.out.println("                 'cacheTtlSeconds' - time in seconds a cached check result is used (optional)");
+      System.out.println("                 'warmUpLanguages' - comma-separated codes of languages to prepare after start (optional)");
       printCommonOptions();
       System.exit(1);
     }
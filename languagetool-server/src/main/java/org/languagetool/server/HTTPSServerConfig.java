@@ -33,7 +33,6 @@ public class HTTPSServerConfig extends HTTPServerConfig {
   
   private int requestLimit;
   private int requestLimitPeriodInSeconds;
-  private int maxTextLength = Integer.MAX_VALUE;
 
   /**
    * @param keystore a Java keystore file as created with the <tt>keytool</tt> command
@@ -95,24 +94,27 @@ public class HTTPSServerConfig extends HTTPServerConfig {
         requestLimit = Integer.parseInt(getOptionalProperty(props, "requestLimit", "0"));
         requestLimitPeriodInSeconds = Integer.parseInt(getOptionalProperty(props, "requestLimitPeriodInSeconds", "0"));
         maxTextLength = Integer.parseInt(getOptionalProperty(props, "maxTextLength", Integer.toString(Integer.MAX_VALUE)));
+        setMaxQueueSize(Integer.parseInt(getOptionalProperty(props, "maxQueueSize", Integer.toString(DEFAULT_MAX_QUEUE_SIZE))));
+        maxQueueTimeMillis = Long.parseLong(getOptionalProperty(props, "maxQueueTimeMillis", Long.toString(DEFAULT_MAX_QUEUE_TIME_MILLIS)));
+        setMaxChecksPerLanguage(Integer.parseInt(getOptionalProperty(props, "maxChecksPerLanguage", Integer.toString(DEFAULT_MAX_CHECKS_PER_LANGUAGE))));
+        setMaxCheckTimeMillis(Long.parseLong(getOptionalProperty(props, "maxCheckTimeMillis", "0")));
+        setSuggestionTimeBudgetMillis(Long.parseLong(getOptionalProperty(props, "suggestionTimeBudgetMillis", "0")));
+        final String maxHunspellHandlesProperty = getOptionalProperty(props, "maxHunspellHandles", null);
+        if (maxHunspellHandlesProperty != null) {
+          setMaxHunspellHandles(Integer.parseInt(maxHunspellHandlesProperty));
+        }
+        setCacheMaxMemoryBytes(Long.parseLong(getOptionalProperty(props, "cacheMaxMemoryBytes", "0")));
+        setCacheTtlSeconds(Long.parseLong(getOptionalProperty(props, "cacheTtlSeconds", Long.toString(DEFAULT_CACHE_TTL_SECONDS))));
+        final String warmUpLanguagesProperty = getOptionalProperty(props, "warmUpLanguages", null);
+        if (warmUpLanguagesProperty != null) {
+          setWarmUpLanguages(parseLanguages(warmUpLanguagesProperty));
+        }
       }
     } catch (IOException e) {
       throw new RuntimeException("Could not load properties from '" + config + "'", e);
     }
   }
 
-  /**
-   * @param maxTextLength the maximum text length allowed (in number of characters), texts that are longer
-   *                      will cause an exception when being checked
-   */
-  public void setMaxTextLength(int maxTextLength) {
-    this.maxTextLength = maxTextLength;
-  }
-
-  int getMaxTextLength() {
-    return maxTextLength;
-  }
-
   File getKeystore() {
     return keystore;
   }
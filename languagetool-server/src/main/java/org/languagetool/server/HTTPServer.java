@@ -25,8 +25,6 @@ import org.languagetool.gui.Tools;
 import java.net.InetSocketAddress;
 import java.util.ResourceBundle;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import static org.languagetool.server.HTTPServerConfig.DEFAULT_HOST;
 
@@ -40,7 +38,7 @@ import static org.languagetool.server.HTTPServerConfig.DEFAULT_HOST;
  */
 public class HTTPServer extends Server {
 
-  private final ExecutorService executorService;
+  private final AdmissionController admissionController;
 
   /**
    * Prepare a server on the given port - use run() to start it. Accepts
@@ -99,10 +97,20 @@ public class HTTPServer extends Server {
         server = HttpServer.create(new InetSocketAddress(host, port), 0);
       }
       final LanguageToolHttpHandler httpHandler = new LanguageToolHttpHandler(config.isVerbose(), allowedIps, runInternally, null);
+      httpHandler.setMaxTextLength(config.getMaxTextLength());
+      httpHandler.setMaxCheckTimeMillis(config.getMaxCheckTimeMillis());
+      httpHandler.setSuggestionTimeBudgetMillis(config.getSuggestionTimeBudgetMillis());
+      if (config.getCacheMaxMemoryBytes() > 0) {
+        httpHandler.setCheckResultCache(new CheckResultCache(config.getCacheMaxMemoryBytes(), config.getCacheTtlSeconds() * 1000));
+      }
       httpHandler.setAllowOriginUrl(config.getAllowOriginUrl());
+      admissionController = new AdmissionController(config);
+      httpHandler.setAdmissionController(admissionController);
       server.createContext("/", httpHandler);
-      executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-      server.setExecutor(executorService);
+      this.httpHandler = httpHandler;
+      warmUpLanguages = config.getWarmUpLanguages();
+      maxHunspellHandles = config.getMaxHunspellHandles();
+      server.setExecutor(admissionController.getExecutor());
     } catch (Exception e) {
       final ResourceBundle messages = JLanguageTool.getMessageBundle();
       final String message = Tools.makeTexti18n(messages, "http_server_start_failed", host, Integer.toString(port));
@@ -113,13 +121,13 @@ public class HTTPServer extends Server {
   @Override
   public void stop() {
     super.stop();
-    if (executorService != null) {
-      executorService.shutdownNow();
+    if (admissionController != null) {
+      admissionController.shutdownNow();
     }    
   }
 
   public static void main(String[] args) {
-    if (args.length > 3 || usageRequested(args)) {
+    if (args.length > 9 || usageRequested(args)) {
       System.out.println("Usage: " + HTTPServer.class.getSimpleName() + " [--port|-p port] [--public]");
       printCommonOptions();
       System.exit(1);
@@ -18,6 +18,11 @@
  */
 package org.languagetool.server;
 
+import org.languagetool.Language;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @since 2.0
  */
@@ -28,10 +33,41 @@ public class HTTPServerConfig {
   /** The default port on which the server is running (8081). */
   public static final int DEFAULT_PORT = 8081;
 
+  /** The default number of requests that may wait for a free worker thread, see {@link #setMaxQueueSize(int)}. */
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 50;
+
+  /** The default time a request may wait until its check starts, see {@link #setMaxQueueTimeMillis(long)}. */
+  public static final long DEFAULT_MAX_QUEUE_TIME_MILLIS = 30 * 1000;
+
+  /**
+   * The default number of checks that run at the same time for one language, see {@link #setMaxChecksPerLanguage(int)}:
+   * all worker threads, i.e. no limit per language unless one is configured.
+   */
+  public static final int DEFAULT_MAX_CHECKS_PER_LANGUAGE = Server.THREAD_POOL_SIZE;
+
+  /**
+   * The default number of native hunspell handles per dictionary, see {@link #setMaxHunspellHandles(int)}:
+   * one per worker thread, so checks of the same language don't wait for each other.
+   */
+  public static final int DEFAULT_MAX_HUNSPELL_HANDLES = Server.THREAD_POOL_SIZE;
+
+  /** The default time a cached check result is used, see {@link #setCacheTtlSeconds(long)}. */
+  public static final long DEFAULT_CACHE_TTL_SECONDS = 5 * 60;
+
   protected boolean verbose = false;
   protected boolean publicAccess = false;
   protected int port = DEFAULT_PORT;
   protected String allowOriginUrl = null;
+  protected int maxTextLength = Integer.MAX_VALUE;
+  protected int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+  protected long maxQueueTimeMillis = DEFAULT_MAX_QUEUE_TIME_MILLIS;
+  protected int maxChecksPerLanguage = DEFAULT_MAX_CHECKS_PER_LANGUAGE;
+  protected long maxCheckTimeMillis = 0;
+  protected long suggestionTimeBudgetMillis = 0;
+  protected int maxHunspellHandles = DEFAULT_MAX_HUNSPELL_HANDLES;
+  protected long cacheMaxMemoryBytes = 0;
+  protected long cacheTtlSeconds = DEFAULT_CACHE_TTL_SECONDS;
+  protected List<Language> warmUpLanguages = new ArrayList<>();
 
   public HTTPServerConfig() {
     this.port = DEFAULT_PORT;
@@ -69,6 +105,12 @@ public class HTTPServerConfig {
         case "--allow-origin":
           allowOriginUrl = args[++i];
           break;
+        case "--warm-up":
+          setWarmUpLanguages(parseLanguages(args[++i]));
+          break;
+        case "--hunspell-handles":
+          setMaxHunspellHandles(Integer.parseInt(args[++i]));
+          break;
       }
     }
   }
@@ -95,4 +137,173 @@ public class HTTPServerConfig {
     return allowOriginUrl;
   }
 
+  /**
+   * @param maxTextLength the maximum text length allowed (in number of characters), texts that are longer
+   *                      will cause an exception when being checked
+   */
+  public void setMaxTextLength(int maxTextLength) {
+    this.maxTextLength = maxTextLength;
+  }
+
+  int getMaxTextLength() {
+    return maxTextLength;
+  }
+
+  /**
+   * @param maxQueueSize the maximum number of requests that may wait for a free worker thread,
+   *                     further requests are rejected with HTTP status 503
+   * @since 2.3
+   */
+  public void setMaxQueueSize(int maxQueueSize) {
+    if (maxQueueSize < 1) {
+      throw new IllegalArgumentException("maxQueueSize must be > 0: " + maxQueueSize);
+    }
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  /**
+   * @param maxQueueTimeMillis the maximum time a request may wait for a worker thread and a free
+   *                           slot for its language, after that it is rejected with HTTP status 503
+   * @since 2.3
+   */
+  public void setMaxQueueTimeMillis(long maxQueueTimeMillis) {
+    this.maxQueueTimeMillis = maxQueueTimeMillis;
+  }
+
+  long getMaxQueueTimeMillis() {
+    return maxQueueTimeMillis;
+  }
+
+  /**
+   * @param maxChecksPerLanguage the maximum number of checks that run at the same time for one language,
+   *                             so that a spike of requests for one language cannot use up all worker threads;
+   *                             further requests for that language wait without using a worker thread
+   *                             (default: {@link #DEFAULT_MAX_CHECKS_PER_LANGUAGE})
+   * @since 2.3
+   */
+  public void setMaxChecksPerLanguage(int maxChecksPerLanguage) {
+    if (maxChecksPerLanguage < 1) {
+      throw new IllegalArgumentException("maxChecksPerLanguage must be > 0: " + maxChecksPerLanguage);
+    }
+    this.maxChecksPerLanguage = maxChecksPerLanguage;
+  }
+
+  int getMaxChecksPerLanguage() {
+    return maxChecksPerLanguage;
+  }
+
+  /**
+   * @param maxCheckTimeMillis the maximum time a single check may take, longer checks are stopped
+   *                           and answered with HTTP status 503 or, if the client asks for it, with
+   *                           the matches found so far; {@code 0} means no limit (default)
+   * @since 2.3
+   */
+  public void setMaxCheckTimeMillis(long maxCheckTimeMillis) {
+    if (maxCheckTimeMillis < 0) {
+      throw new IllegalArgumentException("maxCheckTimeMillis must be >= 0: " + maxCheckTimeMillis);
+    }
+    this.maxCheckTimeMillis = maxCheckTimeMillis;
+  }
+
+  long getMaxCheckTimeMillis() {
+    return maxCheckTimeMillis;
+  }
+
+  /**
+   * @param suggestionTimeBudgetMillis the maximum time a single check may spend on creating the suggestions
+   *                                   of spelling errors, in total; errors found after that get no suggestions;
+   *                                   {@code 0} means no limit (default)
+   * @since 2.3
+   */
+  public void setSuggestionTimeBudgetMillis(long suggestionTimeBudgetMillis) {
+    if (suggestionTimeBudgetMillis < 0) {
+      throw new IllegalArgumentException("suggestionTimeBudgetMillis must be >= 0: " + suggestionTimeBudgetMillis);
+    }
+    this.suggestionTimeBudgetMillis = suggestionTimeBudgetMillis;
+  }
+
+  long getSuggestionTimeBudgetMillis() {
+    return suggestionTimeBudgetMillis;
+  }
+
+  /**
+   * @param maxHunspellHandles the maximum number of threads that use a native hunspell dictionary at the
+   *                           same time; each of them needs a copy of the dictionary in memory, created
+   *                           only when that many threads need it (default: {@link #DEFAULT_MAX_HUNSPELL_HANDLES})
+   * @since 2.3
+   */
+  public void setMaxHunspellHandles(int maxHunspellHandles) {
+    if (maxHunspellHandles < 1) {
+      throw new IllegalArgumentException("maxHunspellHandles must be > 0: " + maxHunspellHandles);
+    }
+    this.maxHunspellHandles = maxHunspellHandles;
+  }
+
+  int getMaxHunspellHandles() {
+    return maxHunspellHandles;
+  }
+
+  /**
+   * @param cacheMaxMemoryBytes the (estimated) memory the server may use to keep results of recent checks,
+   *                            so that checking the same text with the same settings again is fast;
+   *                            {@code 0} disables the cache (default)
+   * @since 2.3
+   */
+  public void setCacheMaxMemoryBytes(long cacheMaxMemoryBytes) {
+    if (cacheMaxMemoryBytes < 0) {
+      throw new IllegalArgumentException("cacheMaxMemoryBytes must be >= 0: " + cacheMaxMemoryBytes);
+    }
+    this.cacheMaxMemoryBytes = cacheMaxMemoryBytes;
+  }
+
+  long getCacheMaxMemoryBytes() {
+    return cacheMaxMemoryBytes;
+  }
+
+  /**
+   * @param cacheTtlSeconds the time a cached check result is used, see {@link #setCacheMaxMemoryBytes(long)}
+   * @since 2.3
+   */
+  public void setCacheTtlSeconds(long cacheTtlSeconds) {
+    if (cacheTtlSeconds < 1) {
+      throw new IllegalArgumentException("cacheTtlSeconds must be > 0: " + cacheTtlSeconds);
+    }
+    this.cacheTtlSeconds = cacheTtlSeconds;
+  }
+
+  long getCacheTtlSeconds() {
+    return cacheTtlSeconds;
+  }
+
+  /**
+   * @param warmUpLanguages languages to prepare after the server has started, by loading their resources and
+   *                        running a check, so that the first requests don't need to wait for that; the server
+   *                        only reports to be ready (e.g. at {@code /ready}) once this is done
+   * @since 2.3
+   */
+  public void setWarmUpLanguages(List<Language> warmUpLanguages) {
+    this.warmUpLanguages = new ArrayList<>(warmUpLanguages);
+  }
+
+  List<Language> getWarmUpLanguages() {
+    return warmUpLanguages;
+  }
+
+  /**
+   * @param languageCodes comma-separated language codes, e.g. {@code de,en-US}
+   */
+  static List<Language> parseLanguages(String languageCodes) {
+    final List<Language> languages = new ArrayList<>();
+    for (String languageCode : languageCodes.split(",")) {
+      if (!languageCode.trim().isEmpty()) {
+        languages.add(Language.getLanguageForShortName(languageCode.trim()));
+      }
+    }
+    return languages;
+  }
+
 }
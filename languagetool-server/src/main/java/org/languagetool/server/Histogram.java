@@ -0,0 +1,87 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts observed values (e.g. durations in nanoseconds) in buckets with fixed upper bounds,
+ * like a Prometheus histogram. Thread-safe and lock-free.
+ * @since 2.3
+ */
+class Histogram {
+
+  private final long[] upperBounds;
+  private final AtomicLongArray counts;  // one more than upperBounds, for values above the last bound
+  private final AtomicLong sum = new AtomicLong();
+
+  /**
+   * @param upperBounds the inclusive upper bounds of the buckets, in ascending order
+   */
+  Histogram(long... upperBounds) {
+    for (int i = 1; i < upperBounds.length; i++) {
+      if (upperBounds[i] <= upperBounds[i - 1]) {
+        throw new IllegalArgumentException("Upper bounds must be in ascending order: " + upperBounds[i - 1] + ", " + upperBounds[i]);
+      }
+    }
+    this.upperBounds = upperBounds.clone();
+    this.counts = new AtomicLongArray(upperBounds.length + 1);
+  }
+
+  void observe(long value) {
+    int bucket = 0;
+    while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+    sum.addAndGet(value);
+  }
+
+  long[] getUpperBounds() {
+    return upperBounds.clone();
+  }
+
+  /**
+   * @return for each upper bound, the number of values less than or equal to it; the last
+   *         element is the number of all values
+   */
+  long[] getCumulativeCounts() {
+    final long[] cumulative = new long[counts.length()];
+    long total = 0;
+    for (int i = 0; i < cumulative.length; i++) {
+      total += counts.get(i);
+      cumulative[i] = total;
+    }
+    return cumulative;
+  }
+
+  long getCount() {
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  long getSum() {
+    return sum.get();
+  }
+
+}
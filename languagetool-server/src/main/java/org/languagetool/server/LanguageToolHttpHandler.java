@@ -24,13 +24,18 @@ import java.net.URI;
 import java.net.URLDecoder;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.tika.language.LanguageIdentifier;
+import org.languagetool.CancellationToken;
+import org.languagetool.CheckCancelledException;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.gui.Configuration;
+import org.languagetool.language.DetectedLanguage;
+import org.languagetool.language.LanguageDetector;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.bitext.BitextRule;
+import org.languagetool.tools.RuleMatchesAsJsonSerializer;
 import org.languagetool.tools.StringTools;
 import org.languagetool.tools.Tools;
 
@@ -40,17 +45,32 @@ import com.sun.net.httpserver.HttpHandler;
 class LanguageToolHttpHandler implements HttpHandler {
 
   private static final String CONTENT_TYPE_VALUE = "text/xml; charset=UTF-8";
+  private static final String JSON_CONTENT_TYPE_VALUE = "application/json; charset=UTF-8";
   private static final String ENCODING = "utf-8";
   private static final int CONTEXT_SIZE = 40; // characters
   private static final int MIN_LENGTH_FOR_AUTO_DETECTION = 60;  // characters
+  private static final String WARM_UP_TEXT = "This is a sample text that is checked to load the resources of all rules.";
+
+  /** Exchange attribute that holds the {@link CancellationToken} of the running check. */
+  static final String CANCELLATION_TOKEN_ATTRIBUTE = CancellationToken.class.getName();
+  /** Response header set to {@code true} if the check was stopped and the result contains only the errors found until then. */
+  static final String INCOMPLETE_RESULT_HEADER = "X-LanguageTool-Incomplete-Result";
 
   private final Set<String> allowedIps;  
   private final boolean verbose;
   private final boolean internalServer;
   private final RequestLimiter requestLimiter;
+  private final ServerMetrics metrics = new ServerMetrics();
 
   private int maxTextLength = Integer.MAX_VALUE;
+  private long maxCheckTimeMillis = 0;
+  private long suggestionTimeBudgetMillis = 0;
   private String allowOriginUrl;
+  private AdmissionController admissionController;
+  private CheckResultCache checkResultCache;
+  private volatile boolean ready = true;
+  // handles the current request again if it has to wait for other checks of its language:
+  private final ThreadLocal<Runnable> currentRetry = new ThreadLocal<>();
 
   /**
    * @param verbose print the input text in case of exceptions
@@ -62,12 +82,74 @@ class LanguageToolHttpHandler implements HttpHandler {
     this.allowedIps = allowedIps;
     this.internalServer = internal;
     this.requestLimiter = requestLimiter;
+    metrics.setRequestLimiter(requestLimiter);
   }
 
   void setMaxTextLength(int maxTextLength) {
     this.maxTextLength = maxTextLength;
   }
 
+  /**
+   * @param maxCheckTimeMillis the time after which a check is stopped, or {@code 0} for no limit
+   */
+  void setMaxCheckTimeMillis(long maxCheckTimeMillis) {
+    this.maxCheckTimeMillis = maxCheckTimeMillis;
+  }
+
+  /**
+   * @param suggestionTimeBudgetMillis the time a check may spend on spelling suggestions in total, or {@code 0} for no limit
+   */
+  void setSuggestionTimeBudgetMillis(long suggestionTimeBudgetMillis) {
+    this.suggestionTimeBudgetMillis = suggestionTimeBudgetMillis;
+  }
+
+  /**
+   * @param admissionController decides whether a check may run, or {@code null} to run all checks
+   */
+  void setAdmissionController(AdmissionController admissionController) {
+    this.admissionController = admissionController;
+    metrics.setAdmissionController(admissionController);
+  }
+
+  /**
+   * @param checkResultCache cache for the results of recent checks, or {@code null} to check every text
+   */
+  void setCheckResultCache(CheckResultCache checkResultCache) {
+    this.checkResultCache = checkResultCache;
+    metrics.setCheckResultCache(checkResultCache);
+  }
+
+  /**
+   * @param ready whether {@code /ready} reports that checks can be answered without loading resources first
+   */
+  void setReady(boolean ready) {
+    this.ready = ready;
+  }
+
+  boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Load the resources of a language and run a check with the default rules, so that the
+   * first requests for that language don't have to wait for that. Not counted in the metrics.
+   */
+  void warmUp(Language lang) throws Exception {
+    final long timeStart = System.currentTimeMillis();
+    lang.warmUp();
+    final JLanguageTool lt = getLanguageToolInstance(lang, null, getQueryParams(Collections.<String, String>emptyMap()));
+    lt.setCheckTimingListener(null);
+    lt.check(WARM_UP_TEXT);
+    print("Warm-up done: " + lang.getShortNameWithVariant() + ", " + (System.currentTimeMillis() - timeStart) + "ms");
+  }
+
+  /**
+   * @return the metrics of the requests handled by this handler
+   */
+  ServerMetrics getMetrics() {
+    return metrics;
+  }
+
   /**
    * Value to set as the "Access-Control-Allow-Origin" http header. Use {@code null}
    * to not return that header at all. Use {@code *} to run a server that any other web site
@@ -79,39 +161,109 @@ class LanguageToolHttpHandler implements HttpHandler {
 
   @Override
   public void handle(HttpExchange httpExchange) throws IOException {
+    final long timeStart = System.nanoTime();
+    final String requestType = getRequestType(httpExchange.getRequestURI());
+    if (admissionController != null && admissionController.isRejected()) {
+      // answered without reading the request, so the connection cannot be used for further requests:
+      try {
+        httpExchange.getResponseHeaders().set("Connection", "close");
+        httpExchange.getResponseHeaders().set("Retry-After", Integer.toString(AdmissionController.RETRY_AFTER_SECONDS));
+        sendError(httpExchange, HttpURLConnection.HTTP_UNAVAILABLE, "Error: Server overloaded, please try again later");
+      } finally {
+        metrics.countRequest(requestType, httpExchange.getResponseCode());
+        httpExchange.close();
+      }
+      return;
+    }
+    handle(httpExchange, requestType, null, null, System.nanoTime() - timeStart);
+  }
+
+  /**
+   * Handle a request. The request gets read if {@code parameters} is {@code null}. If the check has to wait
+   * until other checks of its language are done, this is called again later with the query that
+   * has been read and a {@code parseNanos} of {@code -1}, as the parse time has already been observed.
+   */
+  private void handle(final HttpExchange httpExchange, final String requestType, String query,
+                      Map<String, String> parameters, long parseNanos) throws IOException {
+    final long timeStart = System.nanoTime();
     String text = null;
+    boolean queued = false;
     try {
-      final URI requestedUri = httpExchange.getRequestURI();
-      final String remoteAddress = httpExchange.getRemoteAddress().getAddress().getHostAddress();
-      // According to the Javadoc, "Closing an exchange without consuming all of the request body is
-      // not an error but may make the underlying TCP connection unusable for following exchanges.",
-      // so we consume the request now, even before checking for request limits:
-      final Map<String, String> parameters = getRequestQuery(httpExchange, requestedUri);
-      if (requestLimiter != null && !requestLimiter.isAccessOkay(remoteAddress)) {
-        final String errorMessage = "Error: Access from " + StringTools.escapeXML(remoteAddress) +
-                " denied - too many requests. Allowed maximum requests: " + requestLimiter.getRequestLimit() +
-                " requests per " + requestLimiter.getRequestLimitPeriodInSeconds() + " seconds";
-        sendError(httpExchange, HttpURLConnection.HTTP_FORBIDDEN, errorMessage);
-        print(errorMessage);
-        return;
+      if (parameters == null) {
+        final String remoteAddress = httpExchange.getRemoteAddress().getAddress().getHostAddress();
+        // According to the Javadoc, "Closing an exchange without consuming all of the request body is
+        // not an error but may make the underlying TCP connection unusable for following exchanges.",
+        // so we consume the request now, even before checking for request limits:
+        query = getRequestQuery(httpExchange, httpExchange.getRequestURI());
+        parameters = parseQuery(query);
+        parseNanos += System.nanoTime() - timeStart;
+        // load balancers may ask for readiness often, so these requests don't count for the request limit:
+        if (requestLimiter != null && !requestType.equals("ready") && !requestLimiter.isAccessOkay(remoteAddress)) {
+          final String errorMessage = "Error: Access from " + StringTools.escapeXML(remoteAddress) +
+                  " denied - too many requests. Allowed maximum requests: " + requestLimiter.getRequestLimit() +
+                  " requests per " + requestLimiter.getRequestLimitPeriodInSeconds() + " seconds";
+          sendError(httpExchange, HttpURLConnection.HTTP_FORBIDDEN, errorMessage);
+          print(errorMessage);
+          return;
+        }
+        if (allowedIps != null && !allowedIps.contains(remoteAddress)) {
+          final String errorMessage = "Error: Access from " + StringTools.escapeXML(remoteAddress) + " denied";
+          sendError(httpExchange, HttpURLConnection.HTTP_FORBIDDEN, errorMessage);
+          throw new RuntimeException(errorMessage);
+        }
       }
-      if (allowedIps == null || allowedIps.contains(remoteAddress)) {
-        if (requestedUri.getRawPath().endsWith("/Languages")) {
-          // request type: list known languages
-          printListOfLanguages(httpExchange);
-        } else {
-          // request type: text checking
-          text = parameters.get("text");
-          if (text == null) {
-            throw new IllegalArgumentException("Missing 'text' parameter");
+      final String finalQuery = query;
+      final Map<String, String> finalParameters = parameters;
+      currentRetry.set(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            handle(httpExchange, requestType, finalQuery, finalParameters, -1);
+          } catch (IOException e) {
+            e.printStackTrace();
           }
-          checkText(text, httpExchange, parameters);
         }
+      });
+      if (requestType.equals("languages")) {
+        // request type: list known languages
+        printListOfLanguages(httpExchange);
+      } else if (requestType.equals("ready")) {
+        // request type: readiness check, e.g. for load balancers
+        printReadiness(httpExchange);
+      } else if (requestType.equals("metrics")) {
+        // request type: metrics for monitoring
+        printMetrics(httpExchange);
+      } else if (requestType.equals("batch")) {
+        // request type: checking many texts with the same settings
+        checkBatch(getParameterValues(query, "text"), httpExchange, parameters, parseNanos);
+      } else if (requestType.equals("paragraphs")) {
+        // request type: checking the changed paragraphs of a document
+        checkParagraphs(getParameterValues(query, "paragraph"), httpExchange, parameters, parseNanos);
+      } else {
+        // request type: text checking
+        text = parameters.get("text");
+        if (text == null) {
+          throw new IllegalArgumentException("Missing 'text' parameter");
+        }
+        checkText(text, httpExchange, parameters, parseNanos);
+      }
+    } catch (RequestQueuedException e) {
+      queued = true;
+    } catch (ServerOverloadedException e) {
+      final String errorMessage = "Error: Server overloaded, please try again later. " + e.getMessage();
+      httpExchange.getResponseHeaders().set("Retry-After", Integer.toString(AdmissionController.RETRY_AFTER_SECONDS));
+      sendError(httpExchange, HttpURLConnection.HTTP_UNAVAILABLE, errorMessage);
+      print(errorMessage);
+    } catch (CheckCancelledException e) {
+      final String errorMessage;
+      if (e.isTimedOut()) {
+        errorMessage = "Error: Checking took longer than " + maxCheckTimeMillis + "ms, the check was stopped." +
+                " Use allowIncompleteResults=true to get the errors found until then.";
       } else {
-        final String errorMessage = "Error: Access from " + StringTools.escapeXML(remoteAddress) + " denied";
-        sendError(httpExchange, HttpURLConnection.HTTP_FORBIDDEN, errorMessage);
-        throw new RuntimeException(errorMessage);
+        errorMessage = "Error: Check was cancelled";
       }
+      sendError(httpExchange, HttpURLConnection.HTTP_UNAVAILABLE, errorMessage);
+      print(errorMessage + " (" + (text != null ? text.length() : 0) + " chars)");
     } catch (Exception e) {
       if (verbose) {
         print("Exception was caused by this text: " + text);
@@ -120,23 +272,42 @@ class LanguageToolHttpHandler implements HttpHandler {
       final String response = "Error: " + StringTools.escapeXML(Tools.getFullStackTrace(e));
       sendError(httpExchange, HttpURLConnection.HTTP_INTERNAL_ERROR, response);
     } finally {
-      httpExchange.close();
+      currentRetry.remove();
+      // a queued request is answered when it's handled again:
+      if (!queued) {
+        metrics.countRequest(requestType, httpExchange.getResponseCode());
+        httpExchange.close();
+      }
     }
   }
 
+  private String getRequestType(URI requestedUri) {
+    final String path = requestedUri.getRawPath();
+    if (path.endsWith("/Languages")) {
+      return "languages";
+    } else if (path.endsWith("/ready")) {
+      return "ready";
+    } else if (path.endsWith("/metrics")) {
+      return "metrics";
+    } else if (path.endsWith("/batch")) {
+      return "batch";
+    } else if (path.endsWith("/paragraphs")) {
+      return "paragraphs";
+    }
+    return "check";
+  }
+
   private void sendError(HttpExchange httpExchange, int returnCode, String response) throws IOException {
     httpExchange.sendResponseHeaders(returnCode, response.getBytes(ENCODING).length);
     httpExchange.getResponseBody().write(response.getBytes(ENCODING));
   }
 
-  private Map<String, String> getRequestQuery(HttpExchange httpExchange, URI requestedUri) throws IOException {
-    final String query;
+  private String getRequestQuery(HttpExchange httpExchange, URI requestedUri) throws IOException {
     if ("post".equalsIgnoreCase(httpExchange.getRequestMethod())) {
-      query = StringTools.streamToString(httpExchange.getRequestBody(), ENCODING);
+      return StringTools.streamToString(httpExchange.getRequestBody(), ENCODING);
     } else {
-      query = requestedUri.getRawQuery();
+      return requestedUri.getRawQuery();
     }
-    return parseQuery(query);
   }
 
   private void printListOfLanguages(HttpExchange httpExchange) throws IOException {
@@ -146,6 +317,20 @@ class LanguageToolHttpHandler implements HttpHandler {
     httpExchange.getResponseBody().write(response.getBytes(ENCODING));
   }
 
+  private void printReadiness(HttpExchange httpExchange) throws IOException {
+    httpExchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+    final byte[] responseBytes = (ready ? "ready" : "warming up").getBytes(ENCODING);
+    httpExchange.sendResponseHeaders(ready ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_UNAVAILABLE, responseBytes.length);
+    httpExchange.getResponseBody().write(responseBytes);
+  }
+
+  private void printMetrics(HttpExchange httpExchange) throws IOException {
+    httpExchange.getResponseHeaders().set("Content-Type", ServerMetrics.CONTENT_TYPE_VALUE);
+    final byte[] responseBytes = metrics.getMetricsAsText().getBytes(ENCODING);
+    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, responseBytes.length);
+    httpExchange.getResponseBody().write(responseBytes);
+  }
+
   private void setCommonHeaders(HttpExchange httpExchange) {
     httpExchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_VALUE);
     if (allowOriginUrl != null) {
@@ -154,18 +339,19 @@ class LanguageToolHttpHandler implements HttpHandler {
   }
 
   private static Language detectLanguageOfString(final String text, final String fallbackLanguage) {
-    // TODO: use identifier.isReasonablyCertain() - but make sure it works!
     if (text.length() < MIN_LENGTH_FOR_AUTO_DETECTION && fallbackLanguage != null) {
       print("Auto-detected language of text with length " + text.length() + " is not reasonably certain, using '" + fallbackLanguage + "' as fallback");
       return Language.getLanguageForShortName(fallbackLanguage);
     }
     
-    final LanguageIdentifier identifier = new LanguageIdentifier(text);
+    final DetectedLanguage detectedLanguage = LanguageDetector.getDefaultInstance().detectLanguage(text);
     Language lang;
-    try {
-      lang = Language.getLanguageForShortName(identifier.getLanguage());
-    } catch (IllegalArgumentException e) {
-      // fall back to English
+    if (detectedLanguage != null) {
+      lang = detectedLanguage.getLanguage();
+    } else if (fallbackLanguage != null) {
+      print("Language of text could not be detected, using '" + fallbackLanguage + "' as fallback");
+      return Language.getLanguageForShortName(fallbackLanguage);
+    } else {
       lang = Language.getLanguageForLocale(Locale.ENGLISH);
     }
     if (lang.getDefaultVariant() != null) {
@@ -174,7 +360,7 @@ class LanguageToolHttpHandler implements HttpHandler {
     return lang;
   }
 
-  private void checkText(String text, HttpExchange httpExchange, Map<String, String> parameters) throws Exception {
+  private void checkText(String text, HttpExchange httpExchange, Map<String, String> parameters, long parseNanos) throws Exception {
     final long timeStart = System.currentTimeMillis();
     if (text.length() > maxTextLength) {
       throw new IllegalArgumentException("Text is " + text.length() + " characters long, exceeding maximum length of " + maxTextLength);
@@ -199,6 +385,165 @@ class LanguageToolHttpHandler implements HttpHandler {
       motherTongue = Language.getLanguageForShortName(motherTongueParam);
     }
 
+    final QueryParams params = getQueryParams(parameters);
+    // e.g. allowIncompleteResults=true for clients that prefer some errors over none if the check takes too long:
+    final boolean allowIncompleteResults = "true".equals(parameters.get("allowIncompleteResults"));
+    final boolean jsonOutput = isJsonFormat(parameters);
+    
+    boolean incompleteResult = false;
+    final String sourceText = parameters.get("srctext");
+    final CheckResultCache.Key cacheKey = getCacheKey(text, sourceText, lang, motherTongue, params, jsonOutput);
+    byte[] response = cacheKey != null ? checkResultCache.get(cacheKey) : null;
+    final boolean cachedResult = response != null;
+    observeRequest(lang, parseNanos, text.length());
+    List<RuleMatch> matches = null;
+    if (!cachedResult) {
+      final long checkStart = System.nanoTime();
+      if (sourceText == null) {
+        try (AdmissionController.Permit ignored = acquirePermit(lang)) {
+          final JLanguageTool lt = getLanguageToolInstance(lang, motherTongue, params);
+          final CancellationToken cancellationToken = createCancellationToken(httpExchange);
+          lt.setCancellationToken(cancellationToken);
+          try {
+            matches = lt.check(text);
+            computeSuggestions(matches, cancellationToken);
+          } catch (CheckCancelledException e) {
+            if (!allowIncompleteResults || !e.isTimedOut()) {
+              throw e;
+            }
+            matches = e.getPartialMatches();
+            for (RuleMatch match : matches) {
+              match.discardLazySuggestedReplacements();
+            }
+            incompleteResult = true;
+          }
+        }
+      } else {
+        if (motherTongueParam == null) {
+          throw new IllegalArgumentException("Missing 'motherTongue' for bilingual checks");
+        }
+        print("Checking bilingual text, with source length " + sourceText.length() +
+            " and target length " + text.length() + " (characters), source language " +
+            motherTongue + " and target language " + langParam);
+        try (AdmissionController.Permit ignored = acquirePermit(lang)) {
+          final JLanguageTool sourceLt = getLanguageToolInstance(motherTongue, null, params);
+          final JLanguageTool targetLt = getLanguageToolInstance(lang, null, params);
+          final CancellationToken cancellationToken = createCancellationToken(httpExchange);
+          sourceLt.setCancellationToken(cancellationToken);
+          targetLt.setCancellationToken(cancellationToken);
+          final List<BitextRule> bRules = Tools.getBitextRules(motherTongue, lang);
+          matches = Tools.checkBitext(sourceText, text, sourceLt, targetLt, bRules);
+          computeSuggestions(matches, cancellationToken);
+        }
+      }
+      metrics.observePhase(lang, ServerMetrics.PHASE_CHECK, System.nanoTime() - checkStart);
+      metrics.countRuleMatches(matches);
+    }
+    final long serializationStart = System.nanoTime();
+    setCommonHeaders(httpExchange);
+    if (jsonOutput) {
+      httpExchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE_VALUE);
+    }
+    if (incompleteResult) {
+      httpExchange.getResponseHeaders().set(INCOMPLETE_RESULT_HEADER, "true");
+    }
+    final boolean cacheResult = cacheKey != null && !cachedResult && !incompleteResult;
+    if (jsonOutput && !cachedResult && !cacheResult) {
+      // written while it's being serialized, with chunked encoding, as the length isn't known in advance:
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+      final Writer writer = new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(), ENCODING));
+      new RuleMatchesAsJsonSerializer(CONTEXT_SIZE).ruleMatchesToJson(matches, text, lang, motherTongue, writer);
+      writer.flush();
+    } else {
+      if (!cachedResult) {
+        response = getResponse(matches, text, lang, motherTongue, jsonOutput);
+        if (cacheResult) {
+          checkResultCache.put(cacheKey, response, text.length());
+        }
+      }
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.length);
+      httpExchange.getResponseBody().write(response);
+    }
+    metrics.observePhase(lang, ServerMetrics.PHASE_SERIALIZATION, System.nanoTime() - serializationStart);
+    String languageMessage = lang.getShortNameWithVariant();
+    if (motherTongue != null) {
+      languageMessage += " (mother tongue: " + motherTongue.getShortNameWithVariant() + ")";
+    }
+    final String referrer = httpExchange.getRequestHeaders().getFirst("Referer");
+    print("Check done: " + text.length() + " chars, " + languageMessage + ", " + referrer + ", "
+            + (System.currentTimeMillis() - timeStart) + "ms" + (incompleteResult ? ", incomplete result" : "")
+            + (cachedResult ? ", cached result" : ""));
+  }
+
+  /**
+   * Compute the lazy suggestions of the matches as part of the check, so they are limited by the
+   * check's permit and cancellation token like the rest of the check, not computed while serializing.
+   * @throws CheckCancelledException with all matches if the token stops the check before all suggestions are known
+   */
+  private void computeSuggestions(List<RuleMatch> matches, CancellationToken cancellationToken) {
+    for (RuleMatch match : matches) {
+      if (cancellationToken.isCancelled()) {
+        throw new CheckCancelledException(matches, cancellationToken.isTimedOut());
+      }
+      match.getSuggestedReplacements();
+    }
+  }
+
+  /**
+   * @return the XML or JSON response for the matches of a check
+   */
+  private byte[] getResponse(List<RuleMatch> matches, String text, Language lang, Language motherTongue, boolean jsonOutput) throws IOException {
+    if (jsonOutput) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final Writer writer = new OutputStreamWriter(out, ENCODING);
+      new RuleMatchesAsJsonSerializer(CONTEXT_SIZE).ruleMatchesToJson(matches, text, lang, motherTongue, writer);
+      writer.flush();
+      return out.toByteArray();
+    }
+    return StringTools.ruleMatchesToXML(matches, text, CONTEXT_SIZE, StringTools.XmlPrintMode.NORMAL_XML, lang, motherTongue)
+            .getBytes(ENCODING);
+  }
+
+  /**
+   * @return the key for the check result cache, or {@code null} if results are not cached
+   */
+  private CheckResultCache.Key getCacheKey(String text, String sourceText, Language lang, Language motherTongue,
+                                           QueryParams params, boolean jsonOutput) {
+    if (checkResultCache == null || internalServer) {
+      return null;  // the internal server may use the GUI configuration, which can change at any time
+    }
+    final List<String> keyParts = getSettingsForKey(lang, motherTongue, params);
+    keyParts.add(jsonOutput ? "json" : "xml");
+    keyParts.add(sourceText);
+    keyParts.add(text);
+    return CheckResultCache.createKey(keyParts);
+  }
+
+  /**
+   * @return everything besides the text that influences the result of a check
+   */
+  private List<String> getSettingsForKey(Language lang, Language motherTongue, QueryParams params) {
+    return new ArrayList<>(Arrays.asList(
+            JLanguageTool.VERSION, JLanguageTool.BUILD_DATE,
+            lang.getShortNameWithVariant(), motherTongue != null ? motherTongue.getShortNameWithVariant() : null,
+            StringTools.listToString(params.enabledRules, ","), StringTools.listToString(params.disabledRules, ","),
+            Boolean.toString(params.useEnabledOnly), Integer.toString(params.maxSuggestions)));
+  }
+
+  /**
+   * Create the token that stops the check when it takes too long. It's also stored as an
+   * exchange attribute so a server that notices the client disconnecting can cancel the check.
+   */
+  private CancellationToken createCancellationToken(HttpExchange httpExchange) {
+    final CancellationToken token = maxCheckTimeMillis > 0 ? new CancellationToken(maxCheckTimeMillis) : new CancellationToken();
+    if (suggestionTimeBudgetMillis > 0) {
+      token.setSuggestionTimeBudget(suggestionTimeBudgetMillis);
+    }
+    httpExchange.setAttribute(CANCELLATION_TOKEN_ATTRIBUTE, token);
+    return token;
+  }
+
+  private QueryParams getQueryParams(Map<String, String> parameters) {
     final String enabledParam = parameters.get("enabled");
     final List<String> enabledRules = new ArrayList<>();
     if (enabledParam != null) {
@@ -221,38 +566,392 @@ class LanguageToolHttpHandler implements HttpHandler {
       throw new IllegalArgumentException("You cannot specify disabled rules using enabledOnly=yes");
     }
     
+    // e.g. maxSuggestions=0 for clients that only need the error positions, which is much faster:
+    int maxSuggestions = -1;
+    final String maxSuggestionsParam = parameters.get("maxSuggestions");
+    if (maxSuggestionsParam != null) {
+      try {
+        maxSuggestions = Integer.parseInt(maxSuggestionsParam);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid 'maxSuggestions' parameter, use a number >= -1: " + maxSuggestionsParam);
+      }
+      if (maxSuggestions < -1) {
+        throw new IllegalArgumentException("Invalid 'maxSuggestions' parameter, use a number >= -1: " + maxSuggestionsParam);
+      }
+    }
+
     final boolean useQuerySettings = enabledRules.size() > 0 || disabledRules.size() > 0;
-    final QueryParams params = new QueryParams(enabledRules, disabledRules, useEnabledOnly, useQuerySettings);
-    
-    final List<RuleMatch> matches;
-    final String sourceText = parameters.get("srctext");
-    if (sourceText == null) {
-      final JLanguageTool lt = getLanguageToolInstance(lang, motherTongue, params);
-      matches = lt.check(text);
-    } else {
-      if (motherTongueParam == null) {
-        throw new IllegalArgumentException("Missing 'motherTongue' for bilingual checks");
+    return new QueryParams(enabledRules, disabledRules, useEnabledOnly, useQuerySettings, maxSuggestions);
+  }
+
+  /**
+   * Check many texts with the same language and rule settings. The texts are distributed over
+   * several threads, each of which uses its own {@link JLanguageTool} instance, configured once
+   * for the whole batch. The sum of all text lengths must not exceed the maximum text length.
+   */
+  private void checkBatch(List<String> texts, HttpExchange httpExchange, Map<String, String> parameters, long parseNanos) throws Exception {
+    final long timeStart = System.currentTimeMillis();
+    if (texts.isEmpty()) {
+      throw new IllegalArgumentException("Missing 'text' parameter, use it once for every text of the batch");
+    }
+    final long totalLength = getTotalLength(texts);
+    final Language lang = getLanguageForMultipleTexts(parameters, "batch checks");
+    final String motherTongueParam = parameters.get("motherTongue");
+    final Language motherTongue = motherTongueParam != null ? Language.getLanguageForShortName(motherTongueParam) : null;
+    final QueryParams params = getQueryParams(parameters);
+    observeRequest(lang, parseNanos, totalLength);
+    final List<List<RuleMatch>> results = checkMultipleTexts(texts, lang, motherTongue, params, httpExchange, parameters);
+    final boolean incompleteResult = results.contains(null);
+    final long serializationStart = System.nanoTime();
+    setCommonHeaders(httpExchange);
+    if (incompleteResult) {
+      httpExchange.getResponseHeaders().set(INCOMPLETE_RESULT_HEADER, "true");
+    }
+    final String response = getBatchResultsAsXML(texts, results, lang, motherTongue);
+    final byte[] responseBytes = response.getBytes(ENCODING);
+    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, responseBytes.length);
+    httpExchange.getResponseBody().write(responseBytes);
+    metrics.observePhase(lang, ServerMetrics.PHASE_SERIALIZATION, System.nanoTime() - serializationStart);
+    print("Batch check done: " + texts.size() + " texts, " + totalLength + " chars, " + lang.getShortNameWithVariant() + ", "
+            + (System.currentTimeMillis() - timeStart) + "ms" + (incompleteResult ? ", incomplete result" : ""));
+  }
+
+  /**
+   * Check only the paragraphs that are new or have changed since the client's last request. The client
+   * sends all paragraphs of its document in order (parameter {@code paragraph}), plus the hashes that the
+   * server returned for the paragraphs it already has results for (parameter {@code knownHashes}, comma-separated).
+   * Each paragraph is checked on its own, so that paragraph-level rules only run again for changed paragraphs.
+   * Note that this is not the same as checking the whole document: rules that keep state across paragraphs
+   * (e.g. {@link org.languagetool.rules.WordRepeatBeginningRule}) don't find errors that span paragraphs.
+   * The response contains the hash of every paragraph, and the matches for those that have been checked,
+   * with positions relative to the start of the paragraph. The hash also depends on the language and rule
+   * settings, so that results for other settings are never considered known.
+   */
+  private void checkParagraphs(List<String> paragraphs, HttpExchange httpExchange, Map<String, String> parameters, long parseNanos) throws Exception {
+    final long timeStart = System.currentTimeMillis();
+    if (paragraphs.isEmpty()) {
+      throw new IllegalArgumentException("Missing 'paragraph' parameter, use it once for every paragraph of the document");
+    }
+    final long totalLength = getTotalLength(paragraphs);
+    final Language lang = getLanguageForMultipleTexts(parameters, "paragraph checks");
+    final String motherTongueParam = parameters.get("motherTongue");
+    final Language motherTongue = motherTongueParam != null ? Language.getLanguageForShortName(motherTongueParam) : null;
+    final QueryParams params = getQueryParams(parameters);
+    final Set<String> knownHashes = new HashSet<>();
+    final String knownHashesParam = parameters.get("knownHashes");
+    if (knownHashesParam != null && !knownHashesParam.isEmpty()) {
+      knownHashes.addAll(Arrays.asList(knownHashesParam.split(",")));
+    }
+
+    final List<String> settings = getSettingsForKey(lang, motherTongue, params);
+    final List<String> hashes = new ArrayList<>();
+    final List<String> changedParagraphs = new ArrayList<>();
+    final List<Integer> changedIndexes = new ArrayList<>();
+    for (int i = 0; i < paragraphs.size(); i++) {
+      final List<String> keyParts = new ArrayList<>(settings);
+      keyParts.add(paragraphs.get(i));
+      final String hash = CheckResultCache.createKey(keyParts).toString();
+      hashes.add(hash);
+      if (!knownHashes.contains(hash)) {
+        changedParagraphs.add(paragraphs.get(i));
+        changedIndexes.add(i);
       }
-      print("Checking bilingual text, with source length " + sourceText.length() +
-          " and target length " + text.length() + " (characters), source language " +
-          motherTongue + " and target language " + langParam);
-      final JLanguageTool sourceLt = getLanguageToolInstance(motherTongue, null, params);
-      final JLanguageTool targetLt = getLanguageToolInstance(lang, null, params);
-      final List<BitextRule> bRules = Tools.getBitextRules(motherTongue, lang);
-      matches = Tools.checkBitext(sourceText, text, sourceLt, targetLt, bRules);
     }
+    observeRequest(lang, parseNanos, getTotalLength(changedParagraphs));
+    final List<List<RuleMatch>> changedResults = checkMultipleTexts(changedParagraphs, lang, motherTongue, params, httpExchange, parameters);
+    final List<List<RuleMatch>> results = new ArrayList<>(Collections.<List<RuleMatch>>nCopies(paragraphs.size(), null));
+    for (int i = 0; i < changedIndexes.size(); i++) {
+      results.set(changedIndexes.get(i), changedResults.get(i));
+    }
+    final boolean incompleteResult = changedResults.contains(null);
+    final long serializationStart = System.nanoTime();
     setCommonHeaders(httpExchange);
-    final String response = StringTools.ruleMatchesToXML(matches, text,
-            CONTEXT_SIZE, StringTools.XmlPrintMode.NORMAL_XML, lang, motherTongue);
-    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.getBytes(ENCODING).length);
-    httpExchange.getResponseBody().write(response.getBytes(ENCODING));
-    String languageMessage = lang.getShortNameWithVariant();
-    if (motherTongue != null) {
-      languageMessage += " (mother tongue: " + motherTongue.getShortNameWithVariant() + ")";
+    if (incompleteResult) {
+      httpExchange.getResponseHeaders().set(INCOMPLETE_RESULT_HEADER, "true");
     }
-    final String referrer = httpExchange.getRequestHeaders().getFirst("Referer");
-    print("Check done: " + text.length() + " chars, " + languageMessage + ", " + referrer + ", "
-            + (System.currentTimeMillis() - timeStart) + "ms");
+    final String response = getParagraphResultsAsXML(paragraphs, hashes, knownHashes, results, lang, motherTongue);
+    final byte[] responseBytes = response.getBytes(ENCODING);
+    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, responseBytes.length);
+    httpExchange.getResponseBody().write(responseBytes);
+    metrics.observePhase(lang, ServerMetrics.PHASE_SERIALIZATION, System.nanoTime() - serializationStart);
+    print("Paragraph check done: " + changedParagraphs.size() + " of " + paragraphs.size() + " paragraphs checked, "
+            + totalLength + " chars, " + lang.getShortNameWithVariant() + ", "
+            + (System.currentTimeMillis() - timeStart) + "ms" + (incompleteResult ? ", incomplete result" : ""));
+  }
+
+  /**
+   * @return the sum of the lengths of the texts, which must not exceed the maximum text length
+   */
+  private long getTotalLength(List<String> texts) {
+    long totalLength = 0;
+    for (String text : texts) {
+      totalLength += text.length();
+    }
+    if (totalLength > maxTextLength) {
+      throw new IllegalArgumentException("Texts are " + totalLength + " characters long in total, exceeding maximum length of " + maxTextLength);
+    }
+    return totalLength;
+  }
+
+  private Language getLanguageForMultipleTexts(Map<String, String> parameters, String requestType) {
+    final String langParam = parameters.get("language");
+    if (langParam == null) {
+      throw new IllegalArgumentException("Missing 'language' parameter, auto-detection is not supported for " + requestType);
+    }
+    if (parameters.get("srctext") != null) {
+      throw new IllegalArgumentException("Bilingual checks are not supported for " + requestType);
+    }
+    return Language.getLanguageForShortName(langParam);
+  }
+
+  /**
+   * Check texts with the same settings in parallel, as one check as far as the maximum check time
+   * is concerned. Each thread that checks the texts needs a permit of the admission controller.
+   * @return the matches for each text, {@code null} for texts that have not been checked
+   *         completely because the check took too long and incomplete results are allowed
+   */
+  private List<List<RuleMatch>> checkMultipleTexts(List<String> texts, Language lang, Language motherTongue, QueryParams params,
+                                                   HttpExchange httpExchange, Map<String, String> parameters) throws Exception {
+    if (texts.isEmpty()) {
+      return new ArrayList<>();
+    }
+    final boolean allowIncompleteResults = "true".equals(parameters.get("allowIncompleteResults"));
+    try (AdmissionController.Permit ignored = acquirePermit(lang)) {
+      final CancellationToken cancellationToken = createCancellationToken(httpExchange);
+      final long checkStart = System.nanoTime();
+      final List<List<RuleMatch>> results = checkInParallel(texts, lang, motherTongue, params, cancellationToken);
+      metrics.observePhase(lang, ServerMetrics.PHASE_CHECK, System.nanoTime() - checkStart);
+      for (List<RuleMatch> matches : results) {
+        if (matches != null) {
+          metrics.countRuleMatches(matches);
+        }
+      }
+      if (results.contains(null) && !(allowIncompleteResults && cancellationToken.isTimedOut())) {
+        throw new CheckCancelledException(Collections.<RuleMatch>emptyList(), cancellationToken.isTimedOut());
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Check the texts on the current thread. Idle worker threads of the admission controller's executor
+   * help if they get a permit for the language, so the number of checks per language stays limited.
+   * @return the matches for each text, {@code null} for texts that have not been checked
+   *         completely because the cancellation token stopped the check
+   */
+  private List<List<RuleMatch>> checkInParallel(List<String> texts, Language lang, Language motherTongue,
+                                                QueryParams params, CancellationToken cancellationToken) throws Exception {
+    final MultipleTextsCheck check = new MultipleTextsCheck(texts, lang, motherTongue, params, cancellationToken);
+    if (admissionController != null) {
+      final int helpers = Math.min(Math.min(Runtime.getRuntime().availableProcessors(), texts.size()) - 1,
+              admissionController.getIdleWorkerCount());
+      for (int i = 0; i < helpers; i++) {
+        admissionController.getExecutor().execute(check.createHelper());
+      }
+    }
+    return check.run();
+  }
+
+  /**
+   * The texts of a batch or paragraph check, taken one after the other by the request's thread and
+   * its helpers. JLanguageTool is not thread-safe, so every thread uses its own instance.
+   */
+  private class MultipleTextsCheck {
+
+    private final List<String> texts;
+    private final Language lang;
+    private final Language motherTongue;
+    private final QueryParams params;
+    private final CancellationToken cancellationToken;
+    private final List<List<RuleMatch>> results;
+    private final AtomicInteger nextText = new AtomicInteger();
+    // guarded by this:
+    private int activeHelpers;
+    private boolean done;
+    private Exception exception;
+
+    MultipleTextsCheck(List<String> texts, Language lang, Language motherTongue, QueryParams params, CancellationToken cancellationToken) {
+      this.texts = texts;
+      this.lang = lang;
+      this.motherTongue = motherTongue;
+      this.params = params;
+      this.cancellationToken = cancellationToken;
+      this.results = new ArrayList<>(Collections.<List<RuleMatch>>nCopies(texts.size(), null));
+    }
+
+    /**
+     * Check texts on the current thread, then wait for the helpers that have started.
+     */
+    List<List<RuleMatch>> run() throws Exception {
+      try {
+        checkTexts();
+      } catch (Exception e) {
+        nextText.set(texts.size());
+        throw e;
+      } finally {
+        synchronized (this) {
+          done = true;
+          while (activeHelpers > 0) {
+            wait();
+          }
+        }
+      }
+      synchronized (this) {
+        if (exception != null) {
+          throw exception;
+        }
+        return results;
+      }
+    }
+
+    /**
+     * A helper that checks texts if it gets a permit for the language before all texts have been taken.
+     */
+    Runnable createHelper() {
+      return new Runnable() {
+        @Override
+        public void run() {
+          if (nextText.get() >= texts.size()) {
+            return;
+          }
+          final AdmissionController.Permit permit = admissionController.tryAcquire(lang.getShortName());
+          if (permit == null) {
+            return;
+          }
+          try {
+            synchronized (MultipleTextsCheck.this) {
+              if (done) {
+                return;
+              }
+              activeHelpers++;
+            }
+            try {
+              checkTexts();
+            } catch (Exception e) {
+              nextText.set(texts.size());
+              synchronized (MultipleTextsCheck.this) {
+                if (exception == null) {
+                  exception = e;
+                }
+              }
+            } finally {
+              synchronized (MultipleTextsCheck.this) {
+                activeHelpers--;
+                MultipleTextsCheck.this.notifyAll();
+              }
+            }
+          } finally {
+            permit.close();
+          }
+        }
+      };
+    }
+
+    private void checkTexts() throws Exception {
+      final JLanguageTool lt = getLanguageToolInstance(lang, motherTongue, params);
+      lt.setCancellationToken(cancellationToken);
+      int idx;
+      while ((idx = nextText.getAndIncrement()) < texts.size()) {
+        final List<RuleMatch> matches;
+        try {
+          matches = lt.check(texts.get(idx));
+          computeSuggestions(matches, cancellationToken);
+        } catch (CheckCancelledException e) {
+          break;
+        }
+        synchronized (this) {
+          results.set(idx, matches);
+        }
+      }
+    }
+  }
+
+  /**
+   * Construct an XML string with one {@code <matches>} element per checked text. The {@code <error>}
+   * elements are the same as for a single check, the {@code index} attribute refers to the position
+   * of the text in the request. Texts that have not been checked completely are left out.
+   */
+  private String getBatchResultsAsXML(List<String> texts, List<List<RuleMatch>> results, Language lang, Language motherTongue) {
+    final StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    xml.append("<batchMatches software=\"LanguageTool\" version=\"" + JLanguageTool.VERSION + "\"" + " buildDate=\"")
+       .append(JLanguageTool.BUILD_DATE).append("\">\n");
+    xml.append(StringTools.ruleMatchesToXML(Collections.<RuleMatch>emptyList(), "", CONTEXT_SIZE,
+            StringTools.XmlPrintMode.CONTINUE_XML, lang, motherTongue));
+    for (int i = 0; i < texts.size(); i++) {
+      final List<RuleMatch> matches = results.get(i);
+      if (matches != null) {
+        xml.append("<matches index=\"").append(i).append("\">\n");
+        xml.append(StringTools.ruleMatchesToXML(matches, texts.get(i), CONTEXT_SIZE, StringTools.XmlPrintMode.CONTINUE_XML));
+        xml.append("</matches>\n");
+      }
+    }
+    xml.append("</batchMatches>\n");
+    return xml.toString();
+  }
+
+  /**
+   * Construct an XML string with one {@code <paragraph>} element per paragraph, in the order of the request.
+   * Paragraphs with a known hash are marked as {@code unchanged="true"}, the others contain the same
+   * {@code <error>} elements as the result of a single check. Paragraphs that have not been checked
+   * completely are marked as {@code incomplete="true"}.
+   */
+  private String getParagraphResultsAsXML(List<String> paragraphs, List<String> hashes, Set<String> knownHashes,
+                                          List<List<RuleMatch>> results, Language lang, Language motherTongue) {
+    final StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    xml.append("<paragraphMatches software=\"LanguageTool\" version=\"" + JLanguageTool.VERSION + "\"" + " buildDate=\"")
+       .append(JLanguageTool.BUILD_DATE).append("\">\n");
+    xml.append(StringTools.ruleMatchesToXML(Collections.<RuleMatch>emptyList(), "", CONTEXT_SIZE,
+            StringTools.XmlPrintMode.CONTINUE_XML, lang, motherTongue));
+    for (int i = 0; i < paragraphs.size(); i++) {
+      xml.append("<paragraph index=\"").append(i).append("\" hash=\"").append(hashes.get(i)).append('"');
+      final List<RuleMatch> matches = results.get(i);
+      if (knownHashes.contains(hashes.get(i))) {
+        xml.append(" unchanged=\"true\"/>\n");
+      } else if (matches == null) {
+        xml.append(" incomplete=\"true\"/>\n");
+      } else {
+        xml.append(">\n");
+        xml.append(StringTools.ruleMatchesToXML(matches, paragraphs.get(i), CONTEXT_SIZE, StringTools.XmlPrintMode.CONTINUE_XML));
+        xml.append("</paragraph>\n");
+      }
+    }
+    xml.append("</paragraphMatches>\n");
+    return xml.toString();
+  }
+
+  /**
+   * @return true for {@code format=json}, false for {@code format=xml} or no format parameter
+   */
+  private boolean isJsonFormat(Map<String, String> parameters) {
+    final String format = parameters.get("format");
+    if (format == null || format.equals("xml")) {
+      return false;
+    } else if (format.equals("json")) {
+      return true;
+    }
+    throw new IllegalArgumentException("Invalid 'format' parameter, use 'xml' or 'json': " + format);
+  }
+
+  /**
+   * @param parseNanos the time it took to read the request, {@code -1} if the request is handled again
+   *                   after it has waited for its language, so it has been observed already
+   */
+  private void observeRequest(Language lang, long parseNanos, long textLength) {
+    if (parseNanos >= 0) {
+      metrics.observePhase(lang, ServerMetrics.PHASE_PARSE, parseNanos);
+      metrics.observeTextLength(lang, textLength);
+    }
+  }
+
+  private AdmissionController.Permit acquirePermit(Language lang) throws ServerOverloadedException, RequestQueuedException {
+    if (admissionController == null) {
+      return null;
+    }
+    final AdmissionController.Permit permit = admissionController.acquire(lang.getShortName(), currentRetry.get());
+    metrics.observeQueueTime(permit.getQueueTimeMillis());
+    return permit;
   }
 
   private Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
@@ -265,6 +964,22 @@ class LanguageToolHttpHandler implements HttpHandler {
     return parameters;
   }
 
+  /**
+   * @return all values of a parameter that may occur more than once, in the order of the query
+   */
+  private List<String> getParameterValues(String query, String name) throws UnsupportedEncodingException {
+    final List<String> values = new ArrayList<>();
+    if (query != null) {
+      for (String pair : query.split("[&]")) {
+        final int delimPos = pair.indexOf("=");
+        if (delimPos != -1 && URLDecoder.decode(pair.substring(0, delimPos), ENCODING).equals(name)) {
+          values.add(URLDecoder.decode(pair.substring(delimPos + 1), ENCODING));
+        }
+      }
+    }
+    return values;
+  }
+
   private Map<String, String> getParameterMap(String[] pairs) throws UnsupportedEncodingException {
     final Map<String, String> parameters = new HashMap<>();
     for (String pair : pairs) {
@@ -293,6 +1008,7 @@ class LanguageToolHttpHandler implements HttpHandler {
    */
   private JLanguageTool getLanguageToolInstance(Language lang, Language motherTongue, QueryParams params) throws Exception {
     final JLanguageTool newLanguageTool = new JLanguageTool(lang, motherTongue);
+    newLanguageTool.setCheckTimingListener(metrics.createTimingListener(lang));
     newLanguageTool.activateDefaultPatternRules();
     newLanguageTool.activateDefaultFalseFriendRules();
     final Configuration config = new Configuration(lang);
@@ -302,6 +1018,7 @@ class LanguageToolHttpHandler implements HttpHandler {
     if (params.useQuerySettings) {
       Tools.selectRules(newLanguageTool, params.disabledRules, params.enabledRules, params.useEnabledOnly);
     }
+    newLanguageTool.setMaxSuggestions(params.maxSuggestions);
     return newLanguageTool;
   }
 
@@ -362,12 +1079,14 @@ class LanguageToolHttpHandler implements HttpHandler {
     final List<String> disabledRules;
     final boolean useEnabledOnly;
     final boolean useQuerySettings;
+    final int maxSuggestions;
 
-    QueryParams(List<String> enabledRules, List<String> disabledRules, boolean useEnabledOnly, boolean useQuerySettings) {
+    QueryParams(List<String> enabledRules, List<String> disabledRules, boolean useEnabledOnly, boolean useQuerySettings, int maxSuggestions) {
       this.enabledRules = enabledRules;
       this.disabledRules = disabledRules;
       this.useEnabledOnly = useEnabledOnly;
       this.useQuerySettings = useQuerySettings;
+      this.maxSuggestions = maxSuggestions;
     }
   }
 
@@ -0,0 +1,647 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import com.sun.net.httpserver.Headers;
+import org.languagetool.CancellationToken;
+import org.languagetool.JLanguageTool;
+import org.languagetool.gui.Tools;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.languagetool.server.HTTPServerConfig.DEFAULT_HOST;
+
+/**
+ * An HTTP server that handles all connections on a single thread with non-blocking I/O
+ * and only hands complete requests over to a fixed pool of worker threads. Compared to
+ * {@link HTTPServer}, idle keep-alive connections don't occupy a thread, and requests are
+ * rejected based on their headers, i.e. before their body has been read: with status 503
+ * if the queue of waiting requests is full (see {@link HTTPServerConfig#setMaxQueueSize(int)})
+ * and with status 413 if the body is larger than allowed by {@link HTTPServerConfig#setMaxTextLength(int)}.
+ * @since 2.3
+ */
+public class NioHTTPServer extends Server {
+
+  private static final int MAX_HEADER_SIZE = 16 * 1024;
+  private static final int INITIAL_BODY_BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_BODY_SIZE = Integer.MAX_VALUE - 8;
+  private static final long KEEP_ALIVE_TIMEOUT_MILLIS = 30 * 1000;
+  private static final long SELECT_TIMEOUT_MILLIS = 1000;
+  // one character of URL-encoded UTF-8 text takes at most 9 bytes (e.g. "%E2%82%AC"),
+  // we also allow some bytes for the other parameters:
+  private static final int MAX_BYTES_PER_CHAR = 9;
+  private static final int MAX_PARAMETER_BYTES = 8 * 1024;
+  // a worker writing a response waits while more than this has not been sent to the client yet:
+  private static final int MAX_QUEUED_OUTPUT_BYTES = 256 * 1024;
+
+  private final ServerSocketChannel serverChannel;
+  private final Selector selector;
+  private final AdmissionController admissionController;
+  private final ExecutorService workers;
+  private final long maxBodySize;
+  private final Queue<Connection> pendingConnections = new ConcurrentLinkedQueue<>();
+
+  private volatile boolean stopped;
+  private Thread ioThread;
+
+  /**
+   * Prepare a server on the given host and port - use run() to start it.
+   * @param runInternally if true, then the server was started from the GUI.
+   * @param host the host to bind to, e.g. <code>"localhost"</code> or <code>null</code> to bind to any host
+   * @param allowedIps the IP addresses from which connections are allowed or <code>null</code> to allow any host
+   * @throws PortBindingException if we cannot bind to the given port, e.g. because something else is running there
+   */
+  public NioHTTPServer(HTTPServerConfig config, boolean runInternally, String host, Set<String> allowedIps) {
+    this.port = config.getPort();
+    this.host = host;
+    final LanguageToolHttpHandler httpHandler = new LanguageToolHttpHandler(config.isVerbose(), allowedIps, runInternally, null);
+    httpHandler.setMaxTextLength(config.getMaxTextLength());
+    httpHandler.setMaxCheckTimeMillis(config.getMaxCheckTimeMillis());
+    httpHandler.setSuggestionTimeBudgetMillis(config.getSuggestionTimeBudgetMillis());
+    if (config.getCacheMaxMemoryBytes() > 0) {
+      httpHandler.setCheckResultCache(new CheckResultCache(config.getCacheMaxMemoryBytes(), config.getCacheTtlSeconds() * 1000));
+    }
+    httpHandler.setAllowOriginUrl(config.getAllowOriginUrl());
+    admissionController = new AdmissionController(config);
+    httpHandler.setAdmissionController(admissionController);
+    this.httpHandler = httpHandler;
+    this.warmUpLanguages = config.getWarmUpLanguages();
+    this.maxHunspellHandles = config.getMaxHunspellHandles();
+    this.maxBodySize = Math.min(MAX_BODY_SIZE, (long) config.getMaxTextLength() * MAX_BYTES_PER_CHAR + MAX_PARAMETER_BYTES);
+    try {
+      serverChannel = ServerSocketChannel.open();
+      if (host == null) {
+        serverChannel.bind(new InetSocketAddress(port));
+      } else {
+        serverChannel.bind(new InetSocketAddress(host, port));
+      }
+      serverChannel.configureBlocking(false);
+      selector = Selector.open();
+      serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (Exception e) {
+      final ResourceBundle messages = JLanguageTool.getMessageBundle();
+      final String message = Tools.makeTexti18n(messages, "http_server_start_failed", host, Integer.toString(port));
+      throw new PortBindingException(message, e);
+    }
+    workers = admissionController.getExecutor();
+  }
+
+  @Override
+  protected void startServer() {
+    ioThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runSelectLoop();
+      }
+    }, "LanguageTool NIO server");
+    ioThread.start();
+  }
+
+  @Override
+  protected void stopServer() {
+    stopped = true;
+    selector.wakeup();
+    try {
+      if (ioThread != null) {
+        ioThread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    admissionController.shutdownNow();
+    closeQuietly(serverChannel);
+    if (ioThread == null) {
+      closeQuietly(selector);  // otherwise closed by the I/O thread
+    }
+  }
+
+  private void runSelectLoop() {
+    long lastIdleCheck = System.currentTimeMillis();
+    try {
+      while (!stopped) {
+        selector.select(SELECT_TIMEOUT_MILLIS);
+        Connection connection;
+        while ((connection = pendingConnections.poll()) != null) {
+          try {
+            if (connection.writerGaveUp) {
+              close(connection);
+            } else {
+              handleOutput(connection);
+            }
+          } catch (IOException e) {
+            close(connection);
+          }
+        }
+        for (SelectionKey key : selector.selectedKeys()) {
+          try {
+            if (!key.isValid()) {
+              continue;
+            }
+            if (key.isAcceptable()) {
+              accept();
+            } else {
+              final Connection conn = (Connection) key.attachment();
+              if (key.isWritable()) {
+                handleOutput(conn);
+              }
+              if (key.isValid() && key.isReadable()) {
+                handleInput(conn);
+              }
+            }
+          } catch (IOException e) {
+            if (key.attachment() != null) {
+              close((Connection) key.attachment());
+            }
+          }
+        }
+        selector.selectedKeys().clear();
+        final long now = System.currentTimeMillis();
+        if (now - lastIdleCheck >= SELECT_TIMEOUT_MILLIS) {
+          closeIdleConnections(now);
+          lastIdleCheck = now;
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      if (!stopped) {
+        throw new RuntimeException("Error in LanguageTool NIO server", e);
+      }
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key.channel());
+      }
+      closeQuietly(selector);
+    }
+  }
+
+  private void accept() throws IOException {
+    final SocketChannel channel = serverChannel.accept();
+    if (channel == null) {
+      return;
+    }
+    channel.configureBlocking(false);
+    final Connection connection = new Connection(channel);
+    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+  }
+
+  private void handleInput(Connection conn) throws IOException {
+    final int read = conn.channel.read(conn.in);
+    if (read == -1) {
+      if (conn.busy) {
+        cancelCheck(conn);
+      }
+      close(conn);
+      return;
+    }
+    conn.lastActivity = System.currentTimeMillis();
+    if (conn.busy) {
+      // a pipelined request, it's parsed once the current response has been sent
+      updateInterest(conn);
+      return;
+    }
+    processInput(conn);
+  }
+
+  /**
+   * The client has closed the connection while its request is being checked, so nobody
+   * is waiting for the result anymore.
+   */
+  private void cancelCheck(Connection conn) {
+    final NioHttpExchange exchange = conn.exchange;
+    if (exchange != null) {
+      final CancellationToken token = (CancellationToken) exchange.getAttribute(LanguageToolHttpHandler.CANCELLATION_TOKEN_ATTRIBUTE);
+      if (token != null) {
+        token.cancel();
+      }
+    }
+  }
+
+  /**
+   * Parse as much of the buffered input as possible. Once a request is complete it is handed over
+   * to the workers. While it is being handled, input is only buffered (so that a client closing
+   * the connection can be noticed) until the response has been sent.
+   */
+  private void processInput(Connection conn) throws IOException {
+    if (conn.request == null) {
+      final int headerEnd = findHeaderEnd(conn.in);
+      if (headerEnd == -1) {
+        if (!conn.in.hasRemaining()) {
+          reject(conn, 431, "Error: Request headers are longer than " + MAX_HEADER_SIZE + " bytes");
+        }
+        return;
+      }
+      final String head = new String(conn.in.array(), 0, headerEnd, StandardCharsets.ISO_8859_1);
+      consumeInput(conn, headerEnd + 4);
+      final Request request = parseRequest(head);
+      if (request == null) {
+        reject(conn, 400, "Error: Invalid request");
+        return;
+      }
+      if (request.headers.containsKey("Transfer-Encoding")) {
+        reject(conn, 411, "Error: Request body must be sent with a Content-Length header");
+        return;
+      }
+      if (request.contentLength < 0) {
+        reject(conn, 400, "Error: Invalid Content-Length");
+        return;
+      }
+      if (request.contentLength > maxBodySize) {
+        reject(conn, 413, "Error: Request body of " + request.contentLength + " bytes is too large");
+        return;
+      }
+      if (admissionController.isQueueFull()) {
+        admissionController.countQueueFullRejection();
+        reject(conn, 503, "Error: Server overloaded, please try again later");
+        return;
+      }
+      // don't trust the Content-Length header for allocating memory, the buffer grows with the body:
+      request.body = new byte[(int) Math.min(request.contentLength, INITIAL_BODY_BUFFER_SIZE)];
+      conn.request = request;
+      if (request.contentLength > 0 && "100-continue".equalsIgnoreCase(request.headers.getFirst("Expect"))) {
+        conn.queue("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+      }
+    }
+    final Request request = conn.request;
+    final int available = (int) Math.min(conn.in.position(), request.contentLength - request.bodyLength);
+    if (request.bodyLength + available > request.body.length) {
+      final long newLength = Math.max(request.bodyLength + available, 2L * request.body.length);
+      request.body = Arrays.copyOf(request.body, (int) Math.min(newLength, request.contentLength));
+    }
+    System.arraycopy(conn.in.array(), 0, request.body, request.bodyLength, available);
+    request.bodyLength += available;
+    consumeInput(conn, available);
+    if (request.bodyLength == request.contentLength) {
+      dispatch(conn);
+    }
+    updateInterest(conn);
+  }
+
+  private void dispatch(final Connection conn) {
+    final Request request = conn.request;
+    final NioHttpExchange exchange = new NioHttpExchange(conn, request.method, request.uri, request.protocol,
+            request.headers, request.body, request.keepAlive);
+    conn.busy = true;
+    conn.exchange = exchange;
+    try {
+      workers.execute(new Runnable() {
+        @Override
+        public void run() {
+          // the handler closes the exchange, possibly later if the request has to wait for its language:
+          try {
+            httpHandler.handle(exchange);
+          } catch (Throwable t) {
+            System.err.println("Error handling " + request.method + " request from " + conn.getRemoteAddress() + ": " + t);
+            exchange.closeAfterError();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      conn.busy = false;  // the server is being stopped
+      conn.exchange = null;
+      reject(conn, 503, "Error: Server is shutting down");
+    }
+  }
+
+  private void handleOutput(Connection conn) throws IOException {
+    if (!conn.key.isValid()) {
+      return;
+    }
+    ByteBuffer buffer;
+    long written = 0;
+    try {
+      while ((buffer = conn.output.peek()) != null) {
+        written += conn.channel.write(buffer);
+        if (buffer.hasRemaining()) {
+          break;  // socket buffer is full, wait for OP_WRITE
+        }
+        conn.output.poll();
+      }
+    } finally {
+      conn.outputWritten(written);
+    }
+    conn.lastActivity = System.currentTimeMillis();
+    if (conn.output.isEmpty() && conn.responseComplete) {
+      if (conn.closeAfterResponse) {
+        close(conn);
+        return;
+      }
+      // ready for the next request on this keep-alive connection:
+      conn.request = null;
+      conn.exchange = null;
+      conn.busy = false;
+      conn.responseComplete = false;
+      processInput(conn);
+    }
+    updateInterest(conn);
+  }
+
+  private void updateInterest(Connection conn) {
+    if (!conn.key.isValid()) {
+      return;
+    }
+    int ops = 0;
+    if (!conn.output.isEmpty()) {
+      ops |= SelectionKey.OP_WRITE;
+    }
+    if (!conn.closeAfterResponse && (!conn.busy || conn.in.hasRemaining())) {
+      ops |= SelectionKey.OP_READ;
+    }
+    conn.key.interestOps(ops);
+  }
+
+  /**
+   * Send an error response from the I/O thread and close the connection,
+   * as the rest of the request has not been read.
+   */
+  private void reject(Connection conn, int code, String message) {
+    final byte[] body = message.getBytes(StandardCharsets.UTF_8);
+    final StringBuilder sb = new StringBuilder();
+    sb.append("HTTP/1.1 ").append(code).append(' ').append(NioHttpExchange.getReasonPhrase(code)).append("\r\n");
+    sb.append("Content-Type: text/plain; charset=UTF-8\r\n");
+    sb.append("Content-Length: ").append(body.length).append("\r\n");
+    if (code == 503) {
+      sb.append("Retry-After: ").append(AdmissionController.RETRY_AFTER_SECONDS).append("\r\n");
+    }
+    sb.append("Connection: close\r\n\r\n");
+    conn.queue(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+    conn.queue(body);
+    conn.responseComplete = true;
+    conn.closeAfterResponse = true;
+    updateInterest(conn);
+  }
+
+  private void closeIdleConnections(long now) {
+    for (SelectionKey key : new ArrayList<>(selector.keys())) {
+      final Connection conn = (Connection) key.attachment();
+      if (conn != null && !conn.busy && now - conn.lastActivity > KEEP_ALIVE_TIMEOUT_MILLIS) {
+        close(conn);
+      }
+    }
+  }
+
+  private void close(Connection conn) {
+    conn.key.cancel();
+    closeQuietly(conn.channel);
+    conn.closed();
+  }
+
+  /**
+   * @return the position after the request line and headers, not including the final {@code \r\n\r\n}, or -1
+   */
+  private static int findHeaderEnd(ByteBuffer in) {
+    final byte[] bytes = in.array();
+    for (int i = 0; i + 3 < in.position(); i++) {
+      if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void consumeInput(Connection conn, int length) {
+    conn.in.flip();
+    conn.in.position(length);
+    conn.in.compact();
+  }
+
+  /**
+   * @return the parsed request line and headers, or {@code null} if they are invalid
+   */
+  static Request parseRequest(String head) {
+    final String[] lines = head.split("\r\n");
+    final String[] requestLine = lines[0].split(" ");
+    if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+      return null;
+    }
+    final Request request = new Request();
+    request.method = requestLine[0];
+    request.protocol = requestLine[2];
+    try {
+      request.uri = new URI(requestLine[1]);
+    } catch (URISyntaxException e) {
+      return null;
+    }
+    for (int i = 1; i < lines.length; i++) {
+      final int colon = lines[i].indexOf(':');
+      if (colon <= 0) {
+        return null;
+      }
+      request.headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+    }
+    final String contentLength = request.headers.getFirst("Content-Length");
+    if (contentLength != null) {
+      try {
+        request.contentLength = Long.parseLong(contentLength);
+      } catch (NumberFormatException e) {
+        request.contentLength = -1;
+      }
+    }
+    final String connection = request.headers.getFirst("Connection");
+    if ("HTTP/1.0".equals(request.protocol)) {
+      request.keepAlive = "keep-alive".equalsIgnoreCase(connection);
+    } else {
+      request.keepAlive = !"close".equalsIgnoreCase(connection);
+    }
+    return request;
+  }
+
+  private static void closeQuietly(java.io.Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException ignored) {
+      // nothing we can do
+    }
+  }
+
+  public static void main(String[] args) {
+    if (args.length > 9 || usageRequested(args)) {
+      System.out.println("Usage: " + NioHTTPServer.class.getSimpleName() + " [--port|-p port] [--public]");
+      printCommonOptions();
+      System.exit(1);
+    }
+    final boolean runInternal = false;
+    final HTTPServerConfig config = new HTTPServerConfig(args);
+    try {
+      final NioHTTPServer server;
+      System.out.println("WARNING: running in HTTP mode, consider using SSL by running " + HTTPSServer.class.getName() + " instead");
+      if (config.isPublicAccess()) {
+        System.out.println("WARNING: running in public mode, LanguageTool API can be accessed without restrictions!");
+        server = new NioHTTPServer(config, runInternal, null, null);
+      } else {
+        server = new NioHTTPServer(config, runInternal, DEFAULT_HOST, DEFAULT_ALLOWED_IPS);
+      }
+      server.run();
+    } catch (Exception e) {
+      throw new RuntimeException("Could not start LanguageTool HTTP server on " + DEFAULT_HOST + ", port " + config.getPort(), e);
+    }
+  }
+
+  @Override
+  protected String getProtocol() {
+    return "http";
+  }
+
+  /**
+   * The request line and headers, and the body as far as it has been read.
+   */
+  static class Request {
+    final Headers headers = new Headers();
+    String method;
+    URI uri;
+    String protocol;
+    long contentLength;
+    boolean keepAlive;
+    byte[] body;
+    int bodyLength;
+  }
+
+  /**
+   * The state of a client connection. Except for {@link #send(byte[], boolean, boolean)}
+   * and the accounting of queued output it's only used by the I/O thread.
+   */
+  final class Connection {
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_HEADER_SIZE);
+    private final Queue<ByteBuffer> output = new ConcurrentLinkedQueue<>();
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+
+    private SelectionKey key;
+    private Request request;
+    private NioHttpExchange exchange;
+    private boolean busy;
+    private long lastActivity = System.currentTimeMillis();
+    private volatile boolean responseComplete;
+    private volatile boolean closeAfterResponse;
+    private volatile boolean writerGaveUp;
+    // guarded by 'this':
+    private long queuedOutputBytes;
+    private boolean closed;
+
+    private Connection(SocketChannel channel) throws IOException {
+      this.channel = channel;
+      this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+      this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    InetSocketAddress getRemoteAddress() {
+      return remoteAddress;
+    }
+
+    InetSocketAddress getLocalAddress() {
+      return localAddress;
+    }
+
+    /**
+     * Queue response data, called by worker threads. Blocks while more than {@value #MAX_QUEUED_OUTPUT_BYTES}
+     * bytes are waiting to be sent, so a client that reads slowly can't make the server buffer a lot of data.
+     * @param last whether this is the end of the response
+     * @param close whether the connection should be closed after the response
+     * @throws IOException if the connection has been closed or the client hasn't read anything
+     *   for {@value #KEEP_ALIVE_TIMEOUT_MILLIS}ms
+     */
+    void send(byte[] data, boolean last, boolean close) throws IOException {
+      if (data.length > 0) {
+        awaitOutputSpace();
+        queue(data);
+      }
+      if (last) {
+        closeAfterResponse = close;
+        responseComplete = true;
+      }
+      pendingConnections.add(this);
+      selector.wakeup();
+    }
+
+    private synchronized void awaitOutputSpace() throws IOException {
+      long lastQueued = queuedOutputBytes;
+      long deadline = System.currentTimeMillis() + KEEP_ALIVE_TIMEOUT_MILLIS;
+      while (!closed && queuedOutputBytes > MAX_QUEUED_OUTPUT_BYTES) {
+        if (queuedOutputBytes < lastQueued) {
+          // the client is reading, so keep waiting:
+          lastQueued = queuedOutputBytes;
+          deadline = System.currentTimeMillis() + KEEP_ALIVE_TIMEOUT_MILLIS;
+        }
+        final long waitMillis = deadline - System.currentTimeMillis();
+        if (waitMillis <= 0) {
+          writerGaveUp = true;  // the I/O thread closes the connection
+          pendingConnections.add(this);
+          selector.wakeup();
+          throw new IOException("Client at " + remoteAddress + " has not read the response for " + KEEP_ALIVE_TIMEOUT_MILLIS + "ms");
+        }
+        try {
+          wait(waitMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the client at " + remoteAddress + " to read the response");
+        }
+      }
+      if (closed) {
+        throw new IOException("Connection to " + remoteAddress + " has been closed");
+      }
+    }
+
+    /**
+     * Queue data without waiting, used directly only by the I/O thread for short responses.
+     */
+    private void queue(byte[] data) {
+      synchronized (this) {
+        queuedOutputBytes += data.length;
+      }
+      output.add(ByteBuffer.wrap(data));
+    }
+
+    private synchronized void outputWritten(long bytes) {
+      if (bytes > 0) {
+        queuedOutputBytes -= bytes;
+        notifyAll();
+      }
+    }
+
+    private synchronized void closed() {
+      closed = true;
+      notifyAll();
+    }
+  }
+
+}
@@ -0,0 +1,389 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link HttpExchange} for a request that has been read completely by the {@link NioHTTPServer}.
+ * This way the same {@link com.sun.net.httpserver.HttpHandler} can be used with both servers.
+ * The response is buffered and handed over to the server's I/O thread whenever the response
+ * body gets flushed or closed, and every {@value #CHUNK_SIZE} bytes. Writing blocks while the
+ * connection has too much data that the client hasn't read yet. HTTP/1.0 clients don't support
+ * chunked encoding, so a response of unknown length is buffered completely to send its length.
+ * @since 2.3
+ */
+class NioHttpExchange extends HttpExchange {
+
+  /** The response body is passed on to the connection whenever this many bytes have been written. */
+  private static final int CHUNK_SIZE = 16 * 1024;
+
+  private final NioHTTPServer.Connection connection;
+  private final String method;
+  private final URI uri;
+  private final String protocol;
+  private final Headers requestHeaders;
+  private final Headers responseHeaders = new Headers();
+  // set by the worker thread, read by the I/O thread when the client disconnects:
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final boolean keepAliveRequested;
+
+  private InputStream requestBody;
+  private OutputStream responseBody;
+  private ResponseStream responseStream;
+  private int responseCode = -1;
+  private boolean closed;
+
+  NioHttpExchange(NioHTTPServer.Connection connection, String method, URI uri, String protocol,
+                  Headers requestHeaders, byte[] body, boolean keepAliveRequested) {
+    this.connection = connection;
+    this.method = method;
+    this.uri = uri;
+    this.protocol = protocol;
+    this.requestHeaders = requestHeaders;
+    this.keepAliveRequested = keepAliveRequested;
+    this.requestBody = new ByteArrayInputStream(body);
+    this.responseStream = new ResponseStream();
+    this.responseBody = responseStream;
+  }
+
+  @Override
+  public Headers getRequestHeaders() {
+    return requestHeaders;
+  }
+
+  @Override
+  public Headers getResponseHeaders() {
+    return responseHeaders;
+  }
+
+  @Override
+  public URI getRequestURI() {
+    return uri;
+  }
+
+  @Override
+  public String getRequestMethod() {
+    return method;
+  }
+
+  @Override
+  public HttpContext getHttpContext() {
+    return null;
+  }
+
+  /**
+   * Synchronized, as the handler and (after an error in the handler) the server may both close the exchange.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      requestBody.close();
+      if (responseCode == -1) {
+        // the handler didn't send a response, so there's nothing we can tell the client:
+        connection.send(new byte[0], true, true);
+      } else {
+        responseBody.close();
+      }
+    } catch (IOException e) {
+      try {
+        connection.send(new byte[0], true, true);
+      } catch (IOException ignored) {
+        // the connection is already closed
+      }
+    }
+  }
+
+  /**
+   * Called by the server if the handler failed: sends status 500 if possible, otherwise ends
+   * the response early. The connection gets closed in both cases.
+   */
+  synchronized void closeAfterError() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (responseCode == -1) {
+        responseHeaders.set("Connection", "close");
+        sendResponseHeaders(500, -1);
+        responseStream.close();
+      } else {
+        connection.send(new byte[0], true, true);
+      }
+    } catch (IOException ignored) {
+      // the connection is already closed
+    }
+  }
+
+  @Override
+  public InputStream getRequestBody() {
+    return requestBody;
+  }
+
+  @Override
+  public OutputStream getResponseBody() {
+    return responseBody;
+  }
+
+  /**
+   * @param responseLength the length of the response body, {@code 0} for a response body
+   *                       of arbitrary length (sent with chunked encoding), {@code -1} for no response body
+   */
+  @Override
+  public void sendResponseHeaders(int code, long responseLength) throws IOException {
+    if (responseCode != -1) {
+      throw new IOException("Response headers have already been sent");
+    }
+    responseCode = code;
+    final boolean hasBody = responseLength >= 0 && !"HEAD".equalsIgnoreCase(method);
+    final boolean unknownLength = hasBody && responseLength == 0;
+    final boolean keepAlive = keepAliveRequested && !"close".equalsIgnoreCase(responseHeaders.getFirst("Connection"));
+    if (unknownLength && "HTTP/1.0".equals(protocol)) {
+      // the headers are sent with the Content-Length once the complete body has been written:
+      responseStream.startBuffered(keepAlive);
+    } else {
+      responseStream.start(createHead(hasBody ? responseLength : 0, unknownLength, keepAlive), hasBody, unknownLength, !keepAlive);
+    }
+  }
+
+  private byte[] createHead(long contentLength, boolean chunked, boolean keepAlive) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("HTTP/1.1 ").append(responseCode).append(' ').append(getReasonPhrase(responseCode)).append("\r\n");
+    sb.append("Date: ").append(getDate()).append("\r\n");
+    if (chunked) {
+      responseHeaders.set("Transfer-Encoding", "chunked");
+    } else {
+      responseHeaders.set("Content-Length", Long.toString(contentLength));
+    }
+    if (!keepAlive) {
+      responseHeaders.set("Connection", "close");
+    } else if ("HTTP/1.0".equals(protocol)) {
+      responseHeaders.set("Connection", "keep-alive");
+    }
+    for (Map.Entry<String, List<String>> entry : responseHeaders.entrySet()) {
+      for (String value : entry.getValue()) {
+        sb.append(entry.getKey()).append(": ").append(value).append("\r\n");
+      }
+    }
+    sb.append("\r\n");
+    return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return connection.getRemoteAddress();
+  }
+
+  @Override
+  public int getResponseCode() {
+    return responseCode;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return connection.getLocalAddress();
+  }
+
+  @Override
+  public String getProtocol() {
+    return protocol;
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (value == null) {
+      attributes.remove(name);
+    } else {
+      attributes.put(name, value);
+    }
+  }
+
+  @Override
+  public void setStreams(InputStream in, OutputStream out) {
+    if (in != null) {
+      requestBody = in;
+    }
+    if (out != null) {
+      responseBody = out;
+    }
+  }
+
+  @Override
+  public HttpPrincipal getPrincipal() {
+    return null;
+  }
+
+  static String getReasonPhrase(int code) {
+    switch (code) {
+      case 100: return "Continue";
+      case 200: return "OK";
+      case 400: return "Bad Request";
+      case 403: return "Forbidden";
+      case 404: return "Not Found";
+      case 411: return "Length Required";
+      case 413: return "Request Entity Too Large";
+      case 431: return "Request Header Fields Too Large";
+      case 500: return "Internal Server Error";
+      case 503: return "Service Unavailable";
+      default: return "Status " + code;
+    }
+  }
+
+  private static String getDate() {
+    final SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return dateFormat.format(new Date());
+  }
+
+  /**
+   * Collects the response and passes it on to the connection on flush and close.
+   */
+  private class ResponseStream extends OutputStream {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private boolean hasBody;
+    private boolean chunked;
+    private boolean bufferedCompletely;
+    private boolean closeConnection;
+    private boolean closed;
+
+    void start(byte[] head, boolean hasBody, boolean chunked, boolean closeConnection) throws IOException {
+      this.hasBody = hasBody;
+      this.chunked = chunked;
+      this.closeConnection = closeConnection;
+      connection.send(head, false, false);
+    }
+
+    void startBuffered(boolean keepAlive) {
+      this.hasBody = true;
+      this.bufferedCompletely = true;
+      this.closeConnection = !keepAlive;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      ensureWritable();
+      buffer.write(b);
+      flushFullChunk();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      ensureWritable();
+      buffer.write(b, off, len);
+      flushFullChunk();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (!closed && !bufferedCompletely && buffer.size() > 0) {
+        connection.send(takeData(false), false, false);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (bufferedCompletely) {
+        final byte[] head = createHead(buffer.size(), false, !closeConnection);
+        final ByteArrayOutputStream response = new ByteArrayOutputStream(head.length + buffer.size());
+        response.write(head, 0, head.length);
+        buffer.writeTo(response);
+        buffer.reset();
+        connection.send(response.toByteArray(), true, closeConnection);
+      } else {
+        connection.send(takeData(true), true, closeConnection);
+      }
+    }
+
+    private void flushFullChunk() throws IOException {
+      if (buffer.size() >= CHUNK_SIZE) {
+        flush();
+      }
+    }
+
+    private void ensureWritable() throws IOException {
+      if (closed) {
+        throw new IOException("Response body has already been closed");
+      }
+      if (responseCode == -1) {
+        throw new IOException("sendResponseHeaders() must be called before writing the response body");
+      }
+      if (!hasBody) {
+        throw new IOException("Response has no body");
+      }
+    }
+
+    private byte[] takeData(boolean last) {
+      final byte[] data = buffer.toByteArray();
+      buffer.reset();
+      if (!chunked) {
+        return data;
+      }
+      final ByteArrayOutputStream chunk = new ByteArrayOutputStream(data.length + 16);
+      if (data.length > 0) {
+        writeAscii(chunk, Integer.toHexString(data.length) + "\r\n");
+        chunk.write(data, 0, data.length);
+        writeAscii(chunk, "\r\n");
+      }
+      if (last) {
+        writeAscii(chunk, "0\r\n\r\n");
+      }
+      return chunk.toByteArray();
+    }
+
+    private void writeAscii(ByteArrayOutputStream out, String s) {
+      final byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+      out.write(bytes, 0, bytes.length);
+    }
+  }
+
+}
@@ -18,20 +18,28 @@
  */
 package org.languagetool.server;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Limit the maximum number of request per IP address for a given time range.
+ * Works like a token bucket per IP address that holds up to <tt>requestLimit</tt> tokens
+ * and gets refilled continuously at a rate of <tt>requestLimit</tt> tokens per
+ * <tt>requestLimitPeriodInSeconds</tt>. The state of each bucket is a single timestamp
+ * that is updated without locking, so checking a request takes constant time.
  */
 class RequestLimiter {
 
-  private static final int API_REQUEST_QUEUE_SIZE = 1000;
-
-  private final List<RequestEvent> requestEvents = new ArrayList<>();
+  private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final AtomicLong nextCleanup;
   private final int requestLimit;
   private final int requestLimitPeriodInSeconds;
+  private final long periodNanos;
+  private final long emissionIntervalNanos;  // time it takes to get one token back
+  private final long burstToleranceNanos;
 
   /**
    * @param requestLimit the maximum number of request per <tt>requestLimitPeriodInSeconds</tt>
@@ -40,6 +48,10 @@ class RequestLimiter {
   RequestLimiter(int requestLimit, int requestLimitPeriodInSeconds) {
     this.requestLimit = requestLimit;
     this.requestLimitPeriodInSeconds = requestLimitPeriodInSeconds;
+    this.periodNanos = TimeUnit.SECONDS.toNanos(requestLimitPeriodInSeconds);
+    this.emissionIntervalNanos = requestLimit > 0 ? periodNanos / requestLimit : 0;
+    this.burstToleranceNanos = emissionIntervalNanos * (requestLimit - 1);
+    this.nextCleanup = new AtomicLong(System.nanoTime() + periodNanos);
   }
 
   /**
@@ -61,36 +73,62 @@ class RequestLimiter {
    * @return true if access is allowed because the request limit is not reached yet
    */
   boolean isAccessOkay(String ipAddress) {
-    while (requestEvents.size() > API_REQUEST_QUEUE_SIZE) {
-      requestEvents.remove(0);
+    if (requestLimit <= 0) {
+      return false;
     }
-    requestEvents.add(new RequestEvent(ipAddress, new Date()));
-    return !limitReached(ipAddress);
-  }
-  
-  private boolean limitReached(String ipAddress) {
-    int requestsByIp = 0;
-    // all requests before this date are considered old:
-    final Date thresholdDate = new Date(System.currentTimeMillis() - requestLimitPeriodInSeconds * 1000);
-    for (RequestEvent requestEvent : requestEvents) {
-      if (requestEvent.ip.equals(ipAddress) && requestEvent.date.after(thresholdDate)) {
-        requestsByIp++;
-        if (requestsByIp > requestLimit) {
-          return true;
-        }
+    if (periodNanos <= 0) {
+      return true;
+    }
+    final long now = System.nanoTime();
+    cleanUpIfDue(now);
+    final AtomicLong bucket = getBucket(ipAddress, now);
+    while (true) {
+      // the time at which the bucket will be full again:
+      final long fullAt = bucket.get();
+      final long start = fullAt - now > 0 ? fullAt : now;
+      if (start - now > burstToleranceNanos) {
+        return false;
+      }
+      if (bucket.compareAndSet(fullAt, start + emissionIntervalNanos)) {
+        return true;
       }
     }
-    return false;
   }
-  
-  class RequestEvent {
 
-    private final String ip;
-    private final Date date;
+  /**
+   * Number of IP addresses for which requests have been seen recently.
+   */
+  int getTrackedAddressCount() {
+    return buckets.size();
+  }
 
-    RequestEvent(String ip, Date date) {
-      this.ip = ip;
-      this.date = date;
+  private AtomicLong getBucket(String ipAddress, long now) {
+    AtomicLong bucket = buckets.get(ipAddress);
+    if (bucket == null) {
+      final AtomicLong newBucket = new AtomicLong(now);
+      bucket = buckets.putIfAbsent(ipAddress, newBucket);
+      if (bucket == null) {
+        bucket = newBucket;
+      }
+    }
+    return bucket;
+  }
+
+  /**
+   * Once per period, one thread removes the buckets that are full again, as they
+   * are equivalent to a new bucket. A request that uses a bucket just while it's being
+   * removed may not be counted, which is acceptable for this kind of limit.
+   */
+  private void cleanUpIfDue(long now) {
+    final long cleanupTime = nextCleanup.get();
+    if (now - cleanupTime < 0 || !nextCleanup.compareAndSet(cleanupTime, now + periodNanos)) {
+      return;
+    }
+    for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+      final AtomicLong bucket = entry.getValue();
+      if (bucket.get() - now <= 0) {
+        buckets.remove(entry.getKey(), bucket);
+      }
     }
   }
 
@@ -0,0 +1,35 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+/**
+ * Thrown if a check cannot start yet because too many checks for its language are running.
+ * The request has been queued and will be handled again later, so the exchange must not
+ * be closed.
+ * @since 2.3
+ */
+class RequestQueuedException extends Exception {
+
+  private static final long serialVersionUID = -3385409217736914613L;
+
+  RequestQueuedException() {
+    super("Request is waiting for its language");
+  }
+
+}
@@ -20,9 +20,18 @@ package org.languagetool.server;
 
 import com.sun.net.httpserver.HttpServer;
 import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.rules.spelling.hunspell.Hunspell;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.languagetool.server.HTTPServerConfig.DEFAULT_PORT;
@@ -46,8 +55,14 @@ abstract class Server {
   protected int port;
   protected String host;
   protected HttpServer server;
+  protected LanguageToolHttpHandler httpHandler;
+  /** Languages to prepare after the server has started, see {@link HTTPServerConfig#setWarmUpLanguages(List)}. */
+  protected List<Language> warmUpLanguages = new ArrayList<>();
+  /** Native hunspell handles per dictionary, see {@link HTTPServerConfig#setMaxHunspellHandles(int)}. */
+  protected int maxHunspellHandles = HTTPServerConfig.DEFAULT_MAX_HUNSPELL_HANDLES;
 
-  private boolean isRunning;
+  private volatile boolean isRunning;
+  private ObjectName metricsName;
 
   /**
    * Start the server.
@@ -56,23 +71,119 @@ abstract class Server {
     final String hostName = host != null ? host : "localhost";
     System.out.println("Starting LanguageTool " + JLanguageTool.VERSION +
             " (build date: " + JLanguageTool.BUILD_DATE + ") server on " + getProtocol() + "://" + hostName + ":" + port  + "...");
-    server.start();
+    if (!warmUpLanguages.isEmpty()) {
+      httpHandler.setReady(false);
+    }
+    setMaxHunspellHandles();
+    startServer();
+    registerMetrics();
     isRunning = true;
     System.out.println("Server started");
+    if (!warmUpLanguages.isEmpty()) {
+      startWarmUp();
+    }
   }
 
   /**
    * Stop the server. Once stopped, a server cannot be used again.
    */
   public void stop() {
-    if (server != null) {
+    if (server != null || isRunning) {
       System.out.println("Stopping server");
-      server.stop(0);
+      stopServer();
+      unregisterMetrics();
       isRunning = false;
       System.out.println("Server stopped");
     }
   }
 
+  /**
+   * Start accepting connections, called by {@link #run()}.
+   * @since 2.3
+   */
+  protected void startServer() {
+    server.start();
+  }
+
+  /**
+   * Stop accepting connections, called by {@link #stop()}.
+   * @since 2.3
+   */
+  protected void stopServer() {
+    server.stop(0);
+  }
+
+  /**
+   * Let as many threads use a native hunspell dictionary at the same time as configured,
+   * before the first dictionary gets loaded.
+   */
+  private void setMaxHunspellHandles() {
+    try {
+      Hunspell.getInstance().setMaxHandlesPerDictionary(maxHunspellHandles);
+    } catch (UnsatisfiedLinkError | UnsupportedOperationException e) {
+      // no native hunspell on this platform, languages that need it will report that when they're used
+    }
+  }
+
+  /**
+   * Prepare the warm-up languages in a background thread, so that the server can already
+   * answer requests, including those that ask whether it's ready.
+   */
+  private void startWarmUp() {
+    final Thread warmUpThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        final long startTime = System.currentTimeMillis();
+        for (Language language : warmUpLanguages) {
+          if (!isRunning) {
+            return;
+          }
+          try {
+            httpHandler.warmUp(language);
+          } catch (Exception e) {
+            // not fatal, the first check for this language will just be slow or fail:
+            System.err.println("Warm-up failed for " + language + ": " + e);
+          }
+        }
+        httpHandler.setReady(true);
+        System.out.println("Warm-up of " + warmUpLanguages.size() + " language(s) done in "
+                + (System.currentTimeMillis() - startTime) + "ms, server is ready");
+      }
+    }, "languagetool-server-warm-up");
+    warmUpThread.setDaemon(true);
+    warmUpThread.start();
+  }
+
+  private void registerMetrics() {
+    if (httpHandler == null) {
+      return;
+    }
+    try {
+      final ObjectName name = new ObjectName("org.languagetool.server:type=ServerMetrics,port=" + port);
+      final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      if (mBeanServer.isRegistered(name)) {
+        System.err.println("Not registering metrics via JMX, " + name + " is already registered");
+      } else {
+        mBeanServer.registerMBean(httpHandler.getMetrics(), name);
+        metricsName = name;
+      }
+    } catch (JMException e) {
+      System.err.println("Could not register metrics via JMX: " + e);
+    }
+  }
+
+  private void unregisterMetrics() {
+    if (metricsName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+    } catch (JMException e) {
+      System.err.println("Could not unregister metrics via JMX: " + e);
+    }
+    metricsName = null;
+  }
+
   /**
    * @return whether the server is running
    * @since 2.0
@@ -81,6 +192,15 @@ abstract class Server {
     return isRunning;
   }
 
+  /**
+   * @return whether the server is running and has finished its warm-up, i.e. it can answer checks
+   *         for the warm-up languages without loading their resources first
+   * @since 2.3
+   */
+  public boolean isReady() {
+    return isRunning && httpHandler != null && httpHandler.isReady();
+  }
+
   protected static boolean usageRequested(String[] args) {
     return args.length == 1 && (args[0].equals("-h") || args[0].equals("--help"));
   }
@@ -92,6 +212,12 @@ abstract class Server {
     System.out.println("  --allow-origin ORIGIN  set the Access-Control-Allow-Origin header in the HTTP response,");
     System.out.println("                         used for direct (non-proxy) JavaScript-based access from browsers;");
     System.out.println("                         example: --allow-origin \"*\"");
+    System.out.println("  --hunspell-handles N  maximum number of threads that use a native hunspell dictionary at the");
+    System.out.println("                        same time, each needs its own copy in memory; defaults to "
+            + HTTPServerConfig.DEFAULT_MAX_HUNSPELL_HANDLES);
+    System.out.println("  --warm-up LANGS  comma-separated codes of languages whose resources are loaded after start;");
+    System.out.println("                   the server's /ready path returns status 503 until that's done, then 200;");
+    System.out.println("                   example: --warm-up de,en-US");
   }
 
 }
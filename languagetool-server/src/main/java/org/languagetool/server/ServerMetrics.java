@@ -0,0 +1,434 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.languagetool.CheckTimingListener;
+import org.languagetool.Language;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+/**
+ * Collects metrics about the requests of a server: durations per language and phase of a
+ * check, text lengths, queue times, matches per rule, and the state of admission control,
+ * result cache and JVM. Written in the Prometheus text exposition format by
+ * {@link #writeMetrics(Writer)}, and also available via JMX. Thread-safe.
+ * @since 2.3
+ */
+class ServerMetrics implements ServerMetricsMXBean {
+
+  static final String CONTENT_TYPE_VALUE = "text/plain; version=0.0.4; charset=UTF-8";
+
+  /** Reading and parsing the request. */
+  static final String PHASE_PARSE = "parse";
+  /** Checking the text(s), including the set up of the {@link org.languagetool.JLanguageTool} instance. */
+  static final String PHASE_CHECK = "check";
+  /** Creating and sending the response. */
+  static final String PHASE_SERIALIZATION = "serialization";
+
+  /** Rules are timed on every n-th sentence checked by the server only, as timing them on all sentences would slow down the checks. */
+  static final int RULE_SAMPLE_INTERVAL = 10;
+
+  private static final long[] DURATION_BUCKETS_NANOS = toNanos(5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000);
+  private static final long[] TEXT_LENGTH_BUCKETS = {100, 1000, 10000, 100000, 1000000};
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  // language -> phase -> durations:
+  private final ConcurrentMap<String, ConcurrentMap<String, Histogram>> phaseDurations = new ConcurrentHashMap<>();
+  // language -> text lengths:
+  private final ConcurrentMap<String, Histogram> textLengths = new ConcurrentHashMap<>();
+  // request type -> status code -> count:
+  private final ConcurrentMap<String, ConcurrentMap<String, AtomicLong>> requests = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> ruleMatches = new ConcurrentHashMap<>();
+  // rule ID -> estimated time, sampled time multiplied by the sample interval:
+  private final ConcurrentMap<String, AtomicLong> ruleNanos = new ConcurrentHashMap<>();
+  // shared by all timing listeners, as every request uses its own JLanguageTool instance:
+  private final AtomicLong sentenceCount = new AtomicLong();
+  private final Histogram queueTimes = new Histogram(DURATION_BUCKETS_NANOS);
+
+  private volatile AdmissionController admissionController;
+  private volatile CheckResultCache checkResultCache;
+  private volatile RequestLimiter requestLimiter;
+
+  void setAdmissionController(AdmissionController admissionController) {
+    this.admissionController = admissionController;
+  }
+
+  void setCheckResultCache(CheckResultCache checkResultCache) {
+    this.checkResultCache = checkResultCache;
+  }
+
+  void setRequestLimiter(RequestLimiter requestLimiter) {
+    this.requestLimiter = requestLimiter;
+  }
+
+  /**
+   * @param phase one of the {@code PHASE_*} constants
+   */
+  void observePhase(Language lang, String phase, long durationNanos) {
+    ConcurrentMap<String, Histogram> languageDurations = phaseDurations.get(lang.getShortNameWithVariant());
+    if (languageDurations == null) {
+      final ConcurrentMap<String, Histogram> newDurations = new ConcurrentHashMap<>();
+      languageDurations = phaseDurations.putIfAbsent(lang.getShortNameWithVariant(), newDurations);
+      if (languageDurations == null) {
+        languageDurations = newDurations;
+      }
+    }
+    getHistogram(languageDurations, phase, DURATION_BUCKETS_NANOS).observe(durationNanos);
+  }
+
+  /**
+   * @param length the number of characters to check, the sum of all texts for requests with more than one text
+   */
+  void observeTextLength(Language lang, long length) {
+    getHistogram(textLengths, lang.getShortNameWithVariant(), TEXT_LENGTH_BUCKETS).observe(length);
+  }
+
+  void observeQueueTime(long queueTimeMillis) {
+    queueTimes.observe(TimeUnit.MILLISECONDS.toNanos(queueTimeMillis));
+  }
+
+  /**
+   * @param status the HTTP status code of the response
+   */
+  void countRequest(String type, int status) {
+    ConcurrentMap<String, AtomicLong> typeRequests = requests.get(type);
+    if (typeRequests == null) {
+      final ConcurrentMap<String, AtomicLong> newRequests = new ConcurrentHashMap<>();
+      typeRequests = requests.putIfAbsent(type, newRequests);
+      if (typeRequests == null) {
+        typeRequests = newRequests;
+      }
+    }
+    getCounter(typeRequests, Integer.toString(status)).incrementAndGet();
+  }
+
+  void countRuleMatches(List<RuleMatch> matches) {
+    for (RuleMatch match : matches) {
+      getCounter(ruleMatches, match.getRule().getId()).incrementAndGet();
+    }
+  }
+
+  /**
+   * @return a listener for {@link org.languagetool.JLanguageTool#setCheckTimingListener(CheckTimingListener)},
+   *         which records the phases of the checks as the phases of the given language, with the phase
+   *         names in lowercase (e.g. {@code rule_matching}), and times the rules on every
+   *         {@link #RULE_SAMPLE_INTERVAL}th sentence of all checks
+   */
+  CheckTimingListener createTimingListener(final Language lang) {
+    return new CheckTimingListener() {
+      @Override
+      public void phaseStarted(Phase phase) {
+      }
+      @Override
+      public void phaseFinished(Phase phase, long durationNanos) {
+        observePhase(lang, phase.name().toLowerCase(Locale.ENGLISH), durationNanos);
+      }
+      @Override
+      public boolean sampleRules() {
+        return sentenceCount.getAndIncrement() % RULE_SAMPLE_INTERVAL == 0;
+      }
+      @Override
+      public void ruleFinished(Rule rule, long durationNanos, int matchCount) {
+        getCounter(ruleNanos, rule.getId()).addAndGet(durationNanos * RULE_SAMPLE_INTERVAL);
+      }
+    };
+  }
+
+  /**
+   * Write all metrics in the Prometheus text exposition format, version 0.0.4.
+   */
+  void writeMetrics(Writer writer) throws IOException {
+    writeHelpAndType(writer, "languagetool_check_phase_duration_seconds", "histogram",
+            "Time needed per request and phase (" + PHASE_PARSE + ", " + PHASE_CHECK + ", " + PHASE_SERIALIZATION +
+            "), and per check for the phases within " + PHASE_CHECK + " (sentence_splitting, analysis, rule_matching).");
+    for (Map.Entry<String, ConcurrentMap<String, Histogram>> languageEntry : new TreeMap<>(phaseDurations).entrySet()) {
+      for (Map.Entry<String, Histogram> phaseEntry : new TreeMap<>(languageEntry.getValue()).entrySet()) {
+        final String labels = "language=\"" + escape(languageEntry.getKey()) + "\",phase=\"" + escape(phaseEntry.getKey()) + "\"";
+        writeHistogram(writer, "languagetool_check_phase_duration_seconds", labels, phaseEntry.getValue(), NANOS_PER_SECOND);
+      }
+    }
+    writeHelpAndType(writer, "languagetool_text_length_chars", "histogram", "Number of characters to check per request.");
+    for (Map.Entry<String, Histogram> entry : new TreeMap<>(textLengths).entrySet()) {
+      writeHistogram(writer, "languagetool_text_length_chars", "language=\"" + escape(entry.getKey()) + "\"", entry.getValue(), 1);
+    }
+    writeHelpAndType(writer, "languagetool_queue_time_seconds", "histogram", "Time requests waited before their check could start.");
+    writeHistogram(writer, "languagetool_queue_time_seconds", "", queueTimes, NANOS_PER_SECOND);
+    writeHelpAndType(writer, "languagetool_requests_total", "counter", "Number of requests by type and HTTP status code.");
+    for (Map.Entry<String, ConcurrentMap<String, AtomicLong>> typeEntry : new TreeMap<>(requests).entrySet()) {
+      for (Map.Entry<String, AtomicLong> statusEntry : new TreeMap<>(typeEntry.getValue()).entrySet()) {
+        writeSample(writer, "languagetool_requests_total",
+                "type=\"" + escape(typeEntry.getKey()) + "\",status=\"" + statusEntry.getKey() + "\"", statusEntry.getValue().get());
+      }
+    }
+    writeHelpAndType(writer, "languagetool_rule_matches_total", "counter", "Number of matches found by rule ID.");
+    for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(ruleMatches).entrySet()) {
+      writeSample(writer, "languagetool_rule_matches_total", "rule=\"" + escape(entry.getKey()) + "\"", entry.getValue().get());
+    }
+    writeHelpAndType(writer, "languagetool_rule_duration_seconds_total", "counter",
+            "Time spent in each rule, estimated from every " + RULE_SAMPLE_INTERVAL + "th sentence.");
+    for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(ruleNanos).entrySet()) {
+      writer.write("languagetool_rule_duration_seconds_total{rule=\"" + escape(entry.getKey()) + "\"} "
+              + entry.getValue().get() / NANOS_PER_SECOND + "\n");
+    }
+    final AdmissionController admission = admissionController;
+    if (admission != null) {
+      writeHelpAndType(writer, "languagetool_queue_depth", "gauge", "Number of requests waiting for their check to start.");
+      writeSample(writer, "languagetool_queue_depth", "", admission.getQueueDepth());
+      writeHelpAndType(writer, "languagetool_rejected_requests_total", "counter", "Number of requests rejected because the server was overloaded.");
+      writeSample(writer, "languagetool_rejected_requests_total", "reason=\"queue_full\"", admission.getRejectedQueueFullCount());
+      writeSample(writer, "languagetool_rejected_requests_total", "reason=\"timeout\"", admission.getRejectedTimeoutCount());
+    }
+    final CheckResultCache cache = checkResultCache;
+    if (cache != null) {
+      writeHelpAndType(writer, "languagetool_cache_entries", "gauge", "Number of results in the check result cache.");
+      writeSample(writer, "languagetool_cache_entries", "", cache.getSize());
+      writeHelpAndType(writer, "languagetool_cache_memory_bytes", "gauge", "Estimated memory used by the check result cache.");
+      writeSample(writer, "languagetool_cache_memory_bytes", "", cache.getMemoryBytes());
+      writeHelpAndType(writer, "languagetool_cache_hits_total", "counter", "Number of results found in the cache.");
+      writeSample(writer, "languagetool_cache_hits_total", "", cache.getHitCount());
+      writeHelpAndType(writer, "languagetool_cache_misses_total", "counter", "Number of results not found in the cache.");
+      writeSample(writer, "languagetool_cache_misses_total", "", cache.getMissCount());
+      writeHelpAndType(writer, "languagetool_cache_saved_chars_total", "counter", "Number of characters not checked thanks to the cache.");
+      writeSample(writer, "languagetool_cache_saved_chars_total", "", cache.getSavedChars());
+    }
+    final RequestLimiter limiter = requestLimiter;
+    if (limiter != null) {
+      writeHelpAndType(writer, "languagetool_request_limiter_tracked_addresses", "gauge", "Number of client addresses tracked by the request limiter.");
+      writeSample(writer, "languagetool_request_limiter_tracked_addresses", "", limiter.getTrackedAddressCount());
+    }
+    writeJvmMetrics(writer);
+  }
+
+  String getMetricsAsText() {
+    final StringWriter writer = new StringWriter();
+    try {
+      writeMetrics(writer);
+    } catch (IOException e) {
+      throw new RuntimeException(e);  // cannot happen with a StringWriter
+    }
+    return writer.toString();
+  }
+
+  private void writeJvmMetrics(Writer writer) throws IOException {
+    final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    final MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+    writeHelpAndType(writer, "jvm_memory_bytes_used", "gauge", "Used JVM memory.");
+    writeSample(writer, "jvm_memory_bytes_used", "area=\"heap\"", heap.getUsed());
+    writeSample(writer, "jvm_memory_bytes_used", "area=\"nonheap\"", nonHeap.getUsed());
+    writeHelpAndType(writer, "jvm_memory_bytes_committed", "gauge", "JVM memory guaranteed to be available.");
+    writeSample(writer, "jvm_memory_bytes_committed", "area=\"heap\"", heap.getCommitted());
+    writeSample(writer, "jvm_memory_bytes_committed", "area=\"nonheap\"", nonHeap.getCommitted());
+    writeHelpAndType(writer, "jvm_memory_bytes_max", "gauge", "Maximum JVM memory, -1 if undefined.");
+    writeSample(writer, "jvm_memory_bytes_max", "area=\"heap\"", heap.getMax());
+    writeSample(writer, "jvm_memory_bytes_max", "area=\"nonheap\"", nonHeap.getMax());
+    writeHelpAndType(writer, "jvm_gc_collections_total", "counter", "Number of garbage collections by collector.");
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      writeSample(writer, "jvm_gc_collections_total", "gc=\"" + escape(gcBean.getName()) + "\"", gcBean.getCollectionCount());
+    }
+    writeHelpAndType(writer, "jvm_threads_current", "gauge", "Number of live threads.");
+    writeSample(writer, "jvm_threads_current", "", ManagementFactory.getThreadMXBean().getThreadCount());
+  }
+
+  @Override
+  public long getRequestCount() {
+    long count = 0;
+    for (ConcurrentMap<String, AtomicLong> typeRequests : requests.values()) {
+      for (AtomicLong statusCount : typeRequests.values()) {
+        count += statusCount.get();
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public long getServerErrorCount() {
+    long count = 0;
+    for (ConcurrentMap<String, AtomicLong> typeRequests : requests.values()) {
+      for (Map.Entry<String, AtomicLong> entry : typeRequests.entrySet()) {
+        if (Integer.parseInt(entry.getKey()) >= 500) {
+          count += entry.getValue().get();
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public long getCheckCount() {
+    long count = 0;
+    for (Histogram histogram : getCheckDurations()) {
+      count += histogram.getCount();
+    }
+    return count;
+  }
+
+  @Override
+  public double getAverageCheckTimeMillis() {
+    long count = 0;
+    long sum = 0;
+    for (Histogram histogram : getCheckDurations()) {
+      count += histogram.getCount();
+      sum += histogram.getSum();
+    }
+    return count > 0 ? sum / NANOS_PER_MILLI / count : 0;
+  }
+
+  @Override
+  public double getAverageQueueTimeMillis() {
+    final long count = queueTimes.getCount();
+    return count > 0 ? queueTimes.getSum() / NANOS_PER_MILLI / count : 0;
+  }
+
+  @Override
+  public int getQueueDepth() {
+    final AdmissionController admission = admissionController;
+    return admission != null ? admission.getQueueDepth() : 0;
+  }
+
+  @Override
+  public long getRejectedRequestCount() {
+    final AdmissionController admission = admissionController;
+    return admission != null ? admission.getRejectedQueueFullCount() + admission.getRejectedTimeoutCount() : 0;
+  }
+
+  @Override
+  public double getCacheHitRate() {
+    final CheckResultCache cache = checkResultCache;
+    return cache != null ? cache.getHitRate() : 0;
+  }
+
+  @Override
+  public int getCacheSize() {
+    final CheckResultCache cache = checkResultCache;
+    return cache != null ? cache.getSize() : 0;
+  }
+
+  @Override
+  public long getCacheMemoryBytes() {
+    final CheckResultCache cache = checkResultCache;
+    return cache != null ? cache.getMemoryBytes() : 0;
+  }
+
+  @Override
+  public Map<String, Long> getRuleMatchCounts() {
+    final Map<String, Long> counts = new TreeMap<>();
+    for (Map.Entry<String, AtomicLong> entry : ruleMatches.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().get());
+    }
+    return counts;
+  }
+
+  @Override
+  public Map<String, Long> getRuleTimeMillis() {
+    final Map<String, Long> times = new TreeMap<>();
+    for (Map.Entry<String, AtomicLong> entry : ruleNanos.entrySet()) {
+      times.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().get()));
+    }
+    return times;
+  }
+
+  private List<Histogram> getCheckDurations() {
+    final List<Histogram> result = new ArrayList<>();
+    for (ConcurrentMap<String, Histogram> languageDurations : phaseDurations.values()) {
+      final Histogram histogram = languageDurations.get(PHASE_CHECK);
+      if (histogram != null) {
+        result.add(histogram);
+      }
+    }
+    return result;
+  }
+
+  private static Histogram getHistogram(ConcurrentMap<String, Histogram> histograms, String key, long[] upperBounds) {
+    Histogram histogram = histograms.get(key);
+    if (histogram == null) {
+      final Histogram newHistogram = new Histogram(upperBounds);
+      histogram = histograms.putIfAbsent(key, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+    return histogram;
+  }
+
+  private static AtomicLong getCounter(ConcurrentMap<String, AtomicLong> counters, String key) {
+    AtomicLong counter = counters.get(key);
+    if (counter == null) {
+      final AtomicLong newCounter = new AtomicLong();
+      counter = counters.putIfAbsent(key, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  private static void writeHelpAndType(Writer writer, String name, String type, String help) throws IOException {
+    writer.write("# HELP " + name + " " + help + "\n");
+    writer.write("# TYPE " + name + " " + type + "\n");
+  }
+
+  /**
+   * @param unit the number of observed units per exported unit, e.g. nanoseconds per second
+   */
+  private static void writeHistogram(Writer writer, String name, String labels, Histogram histogram, double unit) throws IOException {
+    final String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+    final long[] upperBounds = histogram.getUpperBounds();
+    final long[] cumulativeCounts = histogram.getCumulativeCounts();
+    for (int i = 0; i < upperBounds.length; i++) {
+      writeSample(writer, name + "_bucket", labelPrefix + "le=\"" + upperBounds[i] / unit + "\"", cumulativeCounts[i]);
+    }
+    writeSample(writer, name + "_bucket", labelPrefix + "le=\"+Inf\"", cumulativeCounts[upperBounds.length]);
+    writer.write(name + "_sum" + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + histogram.getSum() / unit + "\n");
+    writeSample(writer, name + "_count", labels, cumulativeCounts[upperBounds.length]);
+  }
+
+  private static void writeSample(Writer writer, String name, String labels, long value) throws IOException {
+    writer.write(name + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + value + "\n");
+  }
+
+  private static String escape(String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static long[] toNanos(long... millis) {
+    final long[] nanos = new long[millis.length];
+    for (int i = 0; i < millis.length; i++) {
+      nanos[i] = TimeUnit.MILLISECONDS.toNanos(millis[i]);
+    }
+    return nanos;
+  }
+
+}
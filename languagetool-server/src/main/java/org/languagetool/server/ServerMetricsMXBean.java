@@ -0,0 +1,68 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.util.Map;
+
+/**
+ * Management interface of the server metrics, registered as
+ * {@code org.languagetool.server:type=ServerMetrics,port=<port>} while the server is running.
+ * More detailed metrics are available in text format at the server's {@code /metrics} path.
+ * JVM memory and garbage collection are covered by the platform's own {@code java.lang} beans.
+ * @since 2.3
+ */
+public interface ServerMetricsMXBean {
+
+  /** Number of requests answered so far, including errors. */
+  long getRequestCount();
+
+  /** Number of requests answered with a status code of 500 or higher. */
+  long getServerErrorCount();
+
+  /** Number of texts checked so far, not counting results taken from the cache. */
+  long getCheckCount();
+
+  /** Average time needed to check a text, in milliseconds. */
+  double getAverageCheckTimeMillis();
+
+  /** Average time requests waited before their check could start, in milliseconds. */
+  double getAverageQueueTimeMillis();
+
+  /** Number of requests that wait for their check to start, or {@code 0} without admission control. */
+  int getQueueDepth();
+
+  /** Number of requests rejected because the server was overloaded. */
+  long getRejectedRequestCount();
+
+  /** Fraction of cache lookups that found a result, or {@code 0} without a cache. */
+  double getCacheHitRate();
+
+  /** Number of results in the cache. */
+  int getCacheSize();
+
+  /** Estimated memory used by the cache, in bytes. */
+  long getCacheMemoryBytes();
+
+  /** Number of matches found so far, by rule ID. */
+  Map<String, Long> getRuleMatchCounts();
+
+  /** Time spent in each rule so far, by rule ID, in milliseconds. Estimated from a sample of the sentences. */
+  Map<String, Long> getRuleTimeMillis();
+
+}
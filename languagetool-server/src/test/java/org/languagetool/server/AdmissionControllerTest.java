@@ -0,0 +1,205 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControllerTest {
+
+  @Test
+  public void testLanguageLimit() throws Exception {
+    final AdmissionController controller = new AdmissionController(2, 10, 1, 10000);
+    try {
+      final CountDownLatch release = new CountDownLatch(1);
+      final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, release));
+      assertEquals("de checking", poll(results));
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      // the request waits for its language without occupying the other worker thread:
+      assertEquals("de queued", poll(results));
+      assertEquals(1, controller.getQueueDepth());
+      controller.getExecutor().execute(new CheckTask(controller, "en", results, null));
+      assertEquals("en checking", poll(results));
+      assertEquals("en checked", poll(results));
+      release.countDown();
+      assertEquals("de checked", poll(results));
+      // the permit has been handed over to the queued request:
+      assertEquals("de checking", poll(results));
+      assertEquals("de checked", poll(results));
+      assertEquals(0, controller.getQueueDepth());
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      assertEquals("de checking", poll(results));
+      assertEquals("de checked", poll(results));
+      assertEquals(0, controller.getRejectedTimeoutCount());
+      assertEquals(0, controller.getRejectedQueueFullCount());
+    } finally {
+      controller.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testQueueTime() throws Exception {
+    final AdmissionController controller = new AdmissionController(2, 10, 1, 100);
+    try {
+      final CountDownLatch release = new CountDownLatch(1);
+      final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, release));
+      assertEquals("de checking", poll(results));
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      assertEquals("de queued", poll(results));
+      // rejected when its queue time is over, without waiting for the running check:
+      assertEquals("de overloaded", poll(results));
+      assertEquals(1, controller.getRejectedTimeoutCount());
+      assertEquals(0, controller.getQueueDepth());
+      release.countDown();
+      assertEquals("de checked", poll(results));
+    } finally {
+      controller.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testQueueFull() throws Exception {
+    final AdmissionController controller = new AdmissionController(1, 1, 1, 10000);
+    try {
+      final CountDownLatch release = new CountDownLatch(1);
+      final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, release));
+      assertEquals("de checking", poll(results));
+      assertFalse(controller.isQueueFull());
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      assertTrue(controller.isQueueFull());
+      assertEquals(1, controller.getQueueDepth());
+      // runs on this thread, without being queued:
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      assertEquals("de rejected", poll(results));
+      assertEquals(1, controller.getRejectedQueueFullCount());
+      release.countDown();
+      assertEquals("de checked", poll(results));
+      assertEquals("de checking", poll(results));
+      assertEquals("de checked", poll(results));
+      assertEquals(0, controller.getQueueDepth());
+    } finally {
+      controller.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testErrorInRequest() throws Exception {
+    final AdmissionController controller = new AdmissionController(2, 10, 1, 10000);
+    try {
+      final CountDownLatch release = new CountDownLatch(1);
+      final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, release) {
+        @Override
+        public void run() {
+          super.run();
+          throw new Error("test error after the check");
+        }
+      });
+      assertEquals("de checking", poll(results));
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      assertEquals("de queued", poll(results));
+      release.countDown();
+      assertEquals("de checked", poll(results));
+      // the request that got the permit is answered although the thread failed:
+      assertEquals("de overloaded", poll(results));
+      // ... and the permit isn't lost:
+      controller.getExecutor().execute(new CheckTask(controller, "de", results, null));
+      assertEquals("de checking", poll(results));
+      assertEquals("de checked", poll(results));
+    } finally {
+      controller.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTryAcquire() throws Exception {
+    final AdmissionController controller = new AdmissionController(1, 10, 2, 10000);
+    try {
+      final AdmissionController.Permit permit = controller.tryAcquire("de");
+      assertNotNull(permit);
+      final AdmissionController.Permit helperPermit = controller.tryAcquire("de");
+      assertNotNull(helperPermit);
+      assertNull(controller.tryAcquire("de"));
+      assertNotNull(controller.tryAcquire("en"));
+      helperPermit.close();
+      helperPermit.close();
+      assertNotNull(controller.tryAcquire("de"));
+      assertNull(controller.tryAcquire("de"));
+      assertEquals(1, controller.getIdleWorkerCount());
+    } finally {
+      controller.shutdownNow();
+    }
+  }
+
+  private String poll(BlockingQueue<String> results) throws InterruptedException {
+    return results.poll(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Acts like the request handler: answers rejected requests, stops if the request has been
+   * queued, and reports the state of the request. A check is reported as checked after its
+   * permit has been released.
+   */
+  private static class CheckTask implements Runnable {
+    private final AdmissionController controller;
+    private final String languageCode;
+    private final BlockingQueue<String> results;
+    private final CountDownLatch release;
+    CheckTask(AdmissionController controller, String languageCode, BlockingQueue<String> results, CountDownLatch release) {
+      this.controller = controller;
+      this.languageCode = languageCode;
+      this.results = results;
+      this.release = release;
+    }
+    @Override
+    public void run() {
+      if (controller.isRejected()) {
+        results.add(languageCode + " rejected");
+        return;
+      }
+      boolean checked = false;
+      try (AdmissionController.Permit ignored = controller.acquire(languageCode, this)) {
+        results.add(languageCode + " checking");
+        if (release != null) {
+          release.await();
+        }
+        checked = true;
+      } catch (RequestQueuedException e) {
+        results.add(languageCode + " queued");
+      } catch (ServerOverloadedException e) {
+        results.add(languageCode + " overloaded");
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (checked) {
+        results.add(languageCode + " checked");
+      }
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CheckResultCacheTest {
+
+  @Test
+  public void testGetAndPut() {
+    final CheckResultCache cache = new CheckResultCache(100000, 60000);
+    final CheckResultCache.Key key = CheckResultCache.createKey(Arrays.asList("de", "my text"));
+    assertNull(cache.get(key));
+    final byte[] response = "<matches/>".getBytes(StandardCharsets.UTF_8);
+    cache.put(key, response, 7);
+    assertArrayEquals(response, cache.get(CheckResultCache.createKey(Arrays.asList("de", "my text"))));
+    assertNull(cache.get(CheckResultCache.createKey(Arrays.asList("en", "my text"))));
+    assertEquals(1, cache.getSize());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+    assertEquals(7, cache.getSavedChars());
+    assertTrue(cache.getMemoryBytes() > response.length);
+  }
+
+  @Test
+  public void testKeyParts() {
+    // the parts must not simply be concatenated:
+    assertFalse(CheckResultCache.createKey(Arrays.asList("ab", "c")).equals(CheckResultCache.createKey(Arrays.asList("a", "bc"))));
+    assertFalse(CheckResultCache.createKey(Arrays.asList("a", null)).equals(CheckResultCache.createKey(Arrays.asList("a", ""))));
+    assertEquals(CheckResultCache.createKey(Arrays.asList("a", null)), CheckResultCache.createKey(Arrays.asList("a", null)));
+  }
+
+  @Test
+  public void testTimeToLive() throws InterruptedException {
+    final CheckResultCache cache = new CheckResultCache(100000, 10);
+    final CheckResultCache.Key key = CheckResultCache.createKey(Arrays.asList("de", "my text"));
+    cache.put(key, new byte[0], 7);
+    Thread.sleep(20);
+    assertNull(cache.get(key));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getMemoryBytes());
+  }
+
+  @Test
+  public void testMemoryLimit() {
+    final CheckResultCache cache = new CheckResultCache(1000, 60000);
+    for (int i = 0; i < 100; i++) {
+      cache.put(CheckResultCache.createKey(Arrays.asList("text " + i)), "<matches/>".getBytes(StandardCharsets.UTF_8), 6);
+      assertTrue(cache.getMemoryBytes() <= 1000);
+    }
+    assertTrue(cache.getSize() > 0);
+    assertTrue(cache.getSize() < 100);
+    // the most recently added entry is kept, the oldest ones are gone:
+    assertNotNull(cache.get(CheckResultCache.createKey(Arrays.asList("text 99"))));
+    assertNull(cache.get(CheckResultCache.createKey(Arrays.asList("text 0"))));
+    // entries larger than the whole cache are not added:
+    final CheckResultCache.Key key = CheckResultCache.createKey(Arrays.asList("long"));
+    cache.put(key, new byte[1000], 4);
+    assertNull(cache.get(key));
+    assertNotNull(cache.get(CheckResultCache.createKey(Arrays.asList("text 99"))));
+  }
+
+}
@@ -42,6 +42,12 @@ public class HTTPSServerConfigTest {
     assertThat(config1.getKeystore().toString().replace('\\', '/'), is("src/test/resources/org/languagetool/server/test-keystore.jks"));
     assertThat(config1.getKeyStorePassword(), is("mytest"));
     assertThat(config1.getMaxTextLength(), is(50000));
+    assertThat(config1.getMaxQueueSize(), is(20));
+    assertThat(config1.getMaxChecksPerLanguage(), is(4));
+    assertThat(config1.getMaxQueueTimeMillis(), is(HTTPServerConfig.DEFAULT_MAX_QUEUE_TIME_MILLIS));
+    assertThat(config1.getSuggestionTimeBudgetMillis(), is(2000L));
+    assertThat(config1.getWarmUpLanguages().size(), is(2));
+    assertThat(config1.getWarmUpLanguages().get(1).getShortNameWithVariant(), is("en-US"));
 
     final HTTPSServerConfig config2 = new HTTPSServerConfig(("-p 9999 --config " + propertyFile).split(" "));
     assertThat(config2.getPort(), is(9999));
@@ -62,6 +68,8 @@ public class HTTPSServerConfigTest {
     assertThat(config.getKeystore().toString().replace('\\', '/'), is("src/test/resources/org/languagetool/server/test-keystore.jks"));
     assertThat(config.getKeyStorePassword(), is("mytest"));
     assertThat(config.getMaxTextLength(), is(Integer.MAX_VALUE));
+    assertThat(config.getMaxQueueSize(), is(HTTPServerConfig.DEFAULT_MAX_QUEUE_SIZE));
+    assertThat(config.getSuggestionTimeBudgetMillis(), is(0L));
   }
 
   @Test
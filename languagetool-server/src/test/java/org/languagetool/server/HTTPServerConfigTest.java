@@ -46,6 +46,16 @@ public class HTTPServerConfigTest {
     assertThat(config4.getPort(), is(80));
     assertThat(config4.isPublicAccess(), is(true));
     assertThat(config4.isVerbose(), is(false));
+    assertThat(config4.getWarmUpLanguages().isEmpty(), is(true));
+    assertThat(config4.getMaxHunspellHandles(), is(HTTPServerConfig.DEFAULT_MAX_HUNSPELL_HANDLES));
+
+    final HTTPServerConfig config5 = new HTTPServerConfig("--warm-up de,en-US".split(" "));
+    assertThat(config5.getWarmUpLanguages().size(), is(2));
+    assertThat(config5.getWarmUpLanguages().get(0).getShortName(), is("de"));
+    assertThat(config5.getWarmUpLanguages().get(1).getShortNameWithVariant(), is("en-US"));
+
+    final HTTPServerConfig config6 = new HTTPServerConfig("--hunspell-handles 4".split(" "));
+    assertThat(config6.getMaxHunspellHandles(), is(4));
   }
 
 }
@@ -31,12 +31,24 @@ import org.languagetool.language.Romanian;
 import org.languagetool.tools.StringTools;
 import org.xml.sax.SAXException;
 
+import javax.management.ObjectName;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
 import static org.languagetool.server.HTTPServerConfig.DEFAULT_PORT;
@@ -93,6 +105,14 @@ public class HTTPServerTest {
     assertTrue("Expected special chars, got: '" + polishSpecialChars+ "'", polishSpecialChars.contains("mówić"));
     // test http POST
     assertTrue(checkByPOST(new Romanian(), "greșit greșit").contains("greșit"));
+    // test JSON output, long enough to be sent in several chunks:
+    final String jsonPostData = "language=de&disabled=HUNSPELL_RULE&format=json&text=" +
+            URLEncoder.encode(StringUtils.repeat("ein kleiner test. ", 500), "UTF-8");
+    final String json = HTTPTools.checkAtUrlByPost(new URL("http://localhost:" + DEFAULT_PORT), jsonPostData);
+    assertTrue(json, json.startsWith("{\"software\":{\"name\":\"LanguageTool\""));
+    assertTrue(json, json.contains("\"language\":{\"shortname\":\"de\",\"name\":\"German\"}"));
+    assertTrue(json, json.endsWith("}]}"));
+    assertEquals(500, StringUtils.countMatches(json, "\"ruleId\":\"UPPERCASE_SENTENCE_START\""));
     // test supported language listing
     final URL url = new URL("http://localhost:" + DEFAULT_PORT + "/Languages");
     final String languagesXML = StringTools.streamToString((InputStream) url.getContent(), "UTF-8");
@@ -196,6 +216,23 @@ public class HTTPServerTest {
     }
   }
 
+  @Test
+  public void testMaxSuggestionsParameter() throws Exception {
+    final HTTPServer server = new HTTPServer(new HTTPServerConfig(), false);
+    try {
+      server.run();
+      final String urlPrefix = "http://localhost:" + DEFAULT_PORT + "/?language=en-US&enabledOnly=yes&enabled=MORFOLOGIK_RULE_EN_US&text=";
+      final String text = URLEncoder.encode("This is a sentense.", "UTF-8");
+      final String resultWithSuggestions = HTTPTools.checkAtUrl(new URL(urlPrefix + text));
+      assertTrue(resultWithSuggestions, resultWithSuggestions.contains("replacements=\"sentence"));
+      final String resultWithoutSuggestions = HTTPTools.checkAtUrl(new URL(urlPrefix + text + "&maxSuggestions=0"));
+      assertTrue(resultWithoutSuggestions, resultWithoutSuggestions.contains("ruleId=\"MORFOLOGIK_RULE_EN_US\""));
+      assertTrue(resultWithoutSuggestions, resultWithoutSuggestions.contains("replacements=\"\""));
+    } finally {
+      server.stop();
+    }
+  }
+
   @Test
   public void testMissingLanguageParameter() throws Exception {
     final HTTPServer server = new HTTPServer(new HTTPServerConfig(), false);
@@ -212,6 +249,231 @@ public class HTTPServerTest {
     }
   }
 
+  @Test
+  public void testBatchCheck() throws Exception {
+    final HTTPServer server = new HTTPServer(new HTTPServerConfig(), false);
+    try {
+      server.run();
+      final String postData = "language=de&disabled=HUNSPELL_RULE" +
+              "&text=" + URLEncoder.encode("ein kleiner test.", "UTF-8") +
+              "&text=" + URLEncoder.encode("Ein kleiner Test.", "UTF-8") +
+              "&text=" + URLEncoder.encode("Und wieder Erwarten noch was: \u00f6\u00e4\u00fc\u00df.", "UTF-8");
+      final String result = HTTPTools.checkAtUrlByPost(new URL("http://localhost:" + DEFAULT_PORT + "/batch"), postData);
+      new XMLValidator().checkSimpleXMLString(result);
+      assertTrue(result, result.contains("<batchMatches software=\"LanguageTool\""));
+      assertTrue(result, result.contains("<language shortname=\"de\" name=\"German\"/>"));
+      final String[] items = result.split("<matches index=");
+      assertEquals(result, 4, items.length);
+      assertTrue(items[1], items[1].startsWith("\"0\"") && items[1].contains("UPPERCASE_SENTENCE_START"));
+      assertTrue(items[2], items[2].startsWith("\"1\"") && !items[2].contains("<error"));
+      assertTrue(items[3], items[3].startsWith("\"2\"") && items[3].contains("WIEDER_WILLEN"));
+      assertTrue(items[3], items[3].contains("\u00f6\u00e4\u00fc\u00df"));
+      try {
+        System.out.println("Testing 'batch without text' now, please ignore the exception");
+        HTTPTools.checkAtUrlByPost(new URL("http://localhost:" + DEFAULT_PORT + "/batch"), "language=de");
+        fail();
+      } catch (IOException expected) {}
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testParagraphCheck() throws Exception {
+    final HTTPServer server = new HTTPServer(new HTTPServerConfig(), false);
+    try {
+      server.run();
+      final URL url = new URL("http://localhost:" + DEFAULT_PORT + "/paragraphs");
+      final String params = "language=de&disabled=HUNSPELL_RULE";
+      final String result1 = HTTPTools.checkAtUrlByPost(url, params + paragraphParams("ein kleiner test.", "Ein kleiner Test.", "Und (noch was."));
+      new XMLValidator().checkSimpleXMLString(result1);
+      final List<String> hashes1 = getParagraphHashes(result1);
+      assertEquals(3, hashes1.size());
+      assertFalse(result1, result1.contains("unchanged="));
+      assertTrue(result1, result1.contains("UPPERCASE_SENTENCE_START"));
+      assertTrue(result1, result1.contains("UNPAIRED_BRACKETS"));
+
+      // only the second paragraph has changed:
+      final String known = "&knownHashes=" + StringUtils.join(hashes1, ",");
+      final String result2 = HTTPTools.checkAtUrlByPost(url, params + known + paragraphParams("ein kleiner test.", "und ein Fehler.", "Und (noch was."));
+      final List<String> hashes2 = getParagraphHashes(result2);
+      assertEquals(hashes1.get(0), hashes2.get(0));
+      assertFalse(hashes1.get(1).equals(hashes2.get(1)));
+      assertEquals(hashes1.get(2), hashes2.get(2));
+      final String[] paragraphs = result2.split("<paragraph ");
+      assertEquals(result2, 4, paragraphs.length);
+      assertTrue(paragraphs[1], paragraphs[1].contains("unchanged=\"true\""));
+      assertTrue(paragraphs[2], paragraphs[2].contains("UPPERCASE_SENTENCE_START") && paragraphs[2].contains("offset=\"0\""));
+      assertTrue(paragraphs[3], paragraphs[3].contains("unchanged=\"true\"") && !paragraphs[3].contains("UNPAIRED_BRACKETS"));
+
+      // other settings, so no paragraph is known:
+      final String result3 = HTTPTools.checkAtUrlByPost(url, "language=de&disabled=UNPAIRED_BRACKETS" + known +
+              paragraphParams("ein kleiner test.", "Ein kleiner Test.", "Und (noch was."));
+      assertFalse(result3, result3.contains("unchanged="));
+      assertFalse(result3, result3.contains("UNPAIRED_BRACKETS"));
+
+      // paragraphs are checked independently, so text-level rules don't see matches across paragraphs:
+      final String first = "Moreover, this is a test.";
+      final String second = "Moreover, this is another test.";
+      final String document = HTTPTools.checkAtUrlByPost(new URL("http://localhost:" + DEFAULT_PORT),
+              "language=en&text=" + URLEncoder.encode(first + "\n\n" + second, "UTF-8"));
+      assertTrue(document, document.contains("ENGLISH_WORD_REPEAT_BEGINNING_RULE"));
+      final String result4 = HTTPTools.checkAtUrlByPost(url, "language=en" + paragraphParams(first, second));
+      assertFalse(result4, result4.contains("ENGLISH_WORD_REPEAT_BEGINNING_RULE"));
+    } finally {
+      server.stop();
+    }
+  }
+
+  private String paragraphParams(String... paragraphs) throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    for (String paragraph : paragraphs) {
+      sb.append("&paragraph=").append(URLEncoder.encode(paragraph, "UTF-8"));
+    }
+    return sb.toString();
+  }
+
+  private List<String> getParagraphHashes(String xml) {
+    final List<String> hashes = new ArrayList<>();
+    final Matcher matcher = Pattern.compile("<paragraph index=\"\\d+\" hash=\"([0-9a-f]+)\"").matcher(xml);
+    while (matcher.find()) {
+      hashes.add(matcher.group(1));
+    }
+    return hashes;
+  }
+
+  @Test
+  public void testCheckResultCache() throws Exception {
+    final HTTPServerConfig config = new HTTPServerConfig();
+    config.setCacheMaxMemoryBytes(1000 * 1000);
+    final HTTPServer server = new HTTPServer(config, false);
+    try {
+      server.run();
+      final German german = new German();
+      final String result = check(german, "ein kleiner test. Und wieder Erwarten noch was.");
+      assertTrue(result.contains("UPPERCASE_SENTENCE_START"));
+      assertEquals(result, check(german, "ein kleiner test. Und wieder Erwarten noch was."));
+      // different settings must not get the cached result:
+      assertFalse(checkWithOptions(german, null, "ein kleiner test. Und wieder Erwarten noch was.",
+              new String[0], new String[]{"UPPERCASE_SENTENCE_START"}, false).contains("UPPERCASE_SENTENCE_START"));
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    final HTTPServer server = new HTTPServer(new HTTPServerConfig(), false);
+    try {
+      server.run();
+      final German german = new German();
+      check(german, "ein kleiner test");
+      final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + DEFAULT_PORT + "/metrics").openConnection();
+      assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+      assertTrue(connection.getContentType().startsWith("text/plain"));
+      final String metrics = StringTools.streamToString(connection.getInputStream(), "UTF-8");
+      assertTrue(metrics, metrics.contains("languagetool_check_phase_duration_seconds_count{language=\"de\",phase=\"check\"} 1\n"));
+      assertTrue(metrics, metrics.contains("languagetool_requests_total{type=\"check\",status=\"200\"} 1\n"));
+      assertTrue(metrics, metrics.contains("languagetool_check_phase_duration_seconds_count{language=\"de\",phase=\"rule_matching\"} 1\n"));
+      assertTrue(metrics, metrics.contains("languagetool_rule_duration_seconds_total{rule=\"UPPERCASE_SENTENCE_START\"} "));
+      assertTrue(metrics, metrics.contains("languagetool_rule_matches_total{rule=\"UPPERCASE_SENTENCE_START\"} 1\n"));
+      final ObjectName name = new ObjectName("org.languagetool.server:type=ServerMetrics,port=" + DEFAULT_PORT);
+      assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CheckCount"));
+    } finally {
+      server.stop();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+            new ObjectName("org.languagetool.server:type=ServerMetrics,port=" + DEFAULT_PORT)));
+  }
+
+  @Test
+  public void testReadiness() throws Exception {
+    final HTTPServer server = new HTTPServer(new HTTPServerConfig(), false);
+    try {
+      server.run();
+      assertTrue(server.isReady());
+      assertEquals(HttpURLConnection.HTTP_OK, getReadinessStatus());
+    } finally {
+      server.stop();
+    }
+    assertFalse(server.isReady());
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    final HTTPServerConfig config = new HTTPServerConfig();
+    config.setWarmUpLanguages(Arrays.<Language>asList(new German()));
+    final HTTPServer server = new HTTPServer(config, false);
+    try {
+      server.run();
+      final long maxWaitMillis = 60 * 1000;
+      final long startTime = System.currentTimeMillis();
+      while (getReadinessStatus() == HttpURLConnection.HTTP_UNAVAILABLE) {
+        assertTrue("Warm-up took too long", System.currentTimeMillis() - startTime < maxWaitMillis);
+        Thread.sleep(50);
+      }
+      assertTrue(server.isReady());
+      assertEquals(HttpURLConnection.HTTP_OK, getReadinessStatus());
+      // the warm-up check is not counted:
+      final String metrics = StringTools.streamToString(new URL("http://localhost:" + DEFAULT_PORT + "/metrics").openStream(), "UTF-8");
+      assertFalse(metrics, metrics.contains("phase=\"check\""));
+    } finally {
+      server.stop();
+    }
+  }
+
+  private int getReadinessStatus() throws IOException {
+    return ((HttpURLConnection) new URL("http://localhost:" + DEFAULT_PORT + "/ready").openConnection()).getResponseCode();
+  }
+
+  @Test
+  public void testMaxCheckTime() throws Exception {
+    final HTTPServerConfig config = new HTTPServerConfig();
+    config.setMaxCheckTimeMillis(1);
+    final HTTPServer server = new HTTPServer(config, false);
+    try {
+      server.run();
+      final String text = URLEncoder.encode(StringUtils.repeat("ein kleiner test. Und wieder Erwarten noch was. ", 200), "UTF-8");
+      final String urlPrefix = "http://localhost:" + DEFAULT_PORT + "/?language=de&text=" + text;
+      final HttpURLConnection timedOut = (HttpURLConnection) new URL(urlPrefix).openConnection();
+      assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, timedOut.getResponseCode());
+      final HttpURLConnection incomplete = (HttpURLConnection) new URL(urlPrefix + "&allowIncompleteResults=true").openConnection();
+      assertEquals(HttpURLConnection.HTTP_OK, incomplete.getResponseCode());
+      assertEquals("true", incomplete.getHeaderField(LanguageToolHttpHandler.INCOMPLETE_RESULT_HEADER));
+      final String result = StringTools.streamToString(incomplete.getInputStream(), "UTF-8");
+      assertTrue(result, result.contains("</matches>"));
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testMaxChecksPerLanguage() throws Exception {
+    final HTTPServerConfig config = new HTTPServerConfig();
+    config.setMaxChecksPerLanguage(1);
+    final HTTPServer server = new HTTPServer(config, false);
+    final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      server.run();
+      final List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executorService.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            return checkByPOST(new German(), "ein kleiner test. Und wieder Erwarten noch was.");
+          }
+        }));
+      }
+      // requests waiting for their language are answered once the running check is done:
+      for (Future<String> result : results) {
+        assertTrue(result.get().contains("UPPERCASE_SENTENCE_START"));
+      }
+    } finally {
+      executorService.shutdownNow();
+      server.stop();
+    }
+  }
+
   private String bitextCheck(Language lang, Language motherTongue, String sourceText, String text) throws IOException {
     String urlOptions = "/?language=" + lang.getShortName();
     urlOptions += "&srctext=" + URLEncoder.encode(sourceText, "UTF-8");
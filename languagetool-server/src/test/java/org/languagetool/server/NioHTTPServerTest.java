@@ -0,0 +1,167 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+import static org.languagetool.server.HTTPServerConfig.DEFAULT_HOST;
+import static org.languagetool.server.HTTPServerConfig.DEFAULT_PORT;
+
+public class NioHTTPServerTest {
+
+  @Test
+  public void testNioHTTPServer() throws Exception {
+    final NioHTTPServer server = new NioHTTPServer(new HTTPServerConfig(), false, DEFAULT_HOST, Server.DEFAULT_ALLOWED_IPS);
+    assertFalse(server.isRunning());
+    try {
+      server.run();
+      assertTrue(server.isRunning());
+      new HTTPServerTest().runTests();
+    } finally {
+      server.stop();
+      assertFalse(server.isRunning());
+    }
+  }
+
+  @Test
+  public void testKeepAlive() throws Exception {
+    final NioHTTPServer server = new NioHTTPServer(new HTTPServerConfig(), false, DEFAULT_HOST, Server.DEFAULT_ALLOWED_IPS);
+    try {
+      server.run();
+      try (Socket socket = new Socket("localhost", DEFAULT_PORT)) {
+        final OutputStream out = socket.getOutputStream();
+        final InputStream in = socket.getInputStream();
+        final String post = "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 29\r\n\r\nlanguage=en&text=A+test+test.";
+        // two pipelined requests on the same connection:
+        out.write(("GET /Languages HTTP/1.1\r\nHost: localhost\r\n\r\n" + post).getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        final String response1 = readResponse(in);
+        assertTrue(response1, response1.startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response1, response1.contains("abbrWithVariant=\"de-DE\""));
+        final String response2 = readResponse(in);
+        assertTrue(response2, response2.startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response2, response2.contains("ENGLISH_WORD_REPEAT_RULE"));
+        // the connection is still open:
+        out.write("GET /Languages HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        final String response3 = readResponse(in);
+        assertTrue(response3, response3.startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response3, response3.contains("Connection: close"));
+        assertEquals(-1, in.read());
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testHttp10() throws Exception {
+    final NioHTTPServer server = new NioHTTPServer(new HTTPServerConfig(), false, DEFAULT_HOST, Server.DEFAULT_ALLOWED_IPS);
+    try {
+      server.run();
+      try (Socket socket = new Socket("localhost", DEFAULT_PORT)) {
+        // the JSON result is streamed with chunked encoding to HTTP/1.1 clients, which HTTP/1.0 doesn't have:
+        socket.getOutputStream().write(("POST / HTTP/1.0\r\nContent-Length: 41\r\n\r\n" +
+                "language=en&format=json&text=A+test+test.").getBytes(StandardCharsets.UTF_8));
+        final String response = readResponse(socket.getInputStream());
+        assertTrue(response, response.startsWith("HTTP/1.1 200 OK"));
+        assertFalse(response, response.contains("Transfer-Encoding"));
+        assertTrue(response, response.contains("ENGLISH_WORD_REPEAT_RULE"));
+        assertTrue(response, response.endsWith("}"));
+        assertEquals(-1, socket.getInputStream().read());
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testEarlyRejection() throws Exception {
+    final HTTPServerConfig config = new HTTPServerConfig();
+    config.setMaxTextLength(100);
+    final NioHTTPServer server = new NioHTTPServer(config, false, DEFAULT_HOST, Server.DEFAULT_ALLOWED_IPS);
+    try {
+      server.run();
+      try (Socket socket = new Socket("localhost", DEFAULT_PORT)) {
+        // the body is never sent, the server needs to answer based on the headers:
+        socket.getOutputStream().write(("POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 10000000\r\n" +
+                "Expect: 100-continue\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        final String response = readResponse(socket.getInputStream());
+        assertTrue(response, response.startsWith("HTTP/1.1 413 "));
+        assertEquals(-1, socket.getInputStream().read());
+      }
+      try (Socket socket = new Socket("localhost", DEFAULT_PORT)) {
+        socket.getOutputStream().write(("POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        final String response = readResponse(socket.getInputStream());
+        assertTrue(response, response.startsWith("HTTP/1.1 411 "));
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testParseRequest() {
+    final NioHTTPServer.Request request = NioHTTPServer.parseRequest("GET /?text=foo HTTP/1.0\r\nConnection: Keep-Alive\r\nX-Foo: a: b");
+    assertNotNull(request);
+    assertEquals("GET", request.method);
+    assertEquals("text=foo", request.uri.getRawQuery());
+    assertEquals("a: b", request.headers.getFirst("x-foo"));
+    assertTrue(request.keepAlive);
+    assertFalse(NioHTTPServer.parseRequest("GET / HTTP/1.0").keepAlive);
+    assertTrue(NioHTTPServer.parseRequest("GET / HTTP/1.1").keepAlive);
+    assertFalse(NioHTTPServer.parseRequest("GET / HTTP/1.1\r\nConnection: close").keepAlive);
+    assertNull(NioHTTPServer.parseRequest("GET /"));
+    assertNull(NioHTTPServer.parseRequest("GET / HTTP/1.1\r\nno header"));
+    assertEquals(-1, NioHTTPServer.parseRequest("POST / HTTP/1.1\r\nContent-Length: x").contentLength);
+  }
+
+  private String readResponse(InputStream in) throws IOException {
+    final ByteArrayOutputStream head = new ByteArrayOutputStream();
+    while (!head.toString("ISO-8859-1").endsWith("\r\n\r\n")) {
+      final int b = in.read();
+      if (b == -1) {
+        throw new IOException("Incomplete response: " + head);
+      }
+      head.write(b);
+    }
+    final String headers = head.toString("ISO-8859-1");
+    final int lengthStart = headers.toLowerCase().indexOf("content-length: ") + "content-length: ".length();
+    final int length = Integer.parseInt(headers.substring(lengthStart, headers.indexOf("\r\n", lengthStart)));
+    final byte[] body = new byte[length];
+    int read = 0;
+    while (read < length) {
+      final int n = in.read(body, read, length - read);
+      if (n == -1) {
+        throw new IOException("Incomplete response body: " + headers);
+      }
+      read += n;
+    }
+    return headers + new String(body, StandardCharsets.UTF_8);
+  }
+
+}
@@ -20,6 +20,14 @@ package org.languagetool.server;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -43,4 +51,53 @@ public class RequestLimiterTest {
     assertFalse(limiter.isAccessOkay(secondIp));
   }
   
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(100, 3600);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            int allowed = 0;
+            for (int j = 0; j < 50; j++) {
+              if (limiter.isAccessOkay("192.168.10.1")) {
+                allowed++;
+              }
+            }
+            return allowed;
+          }
+        }));
+      }
+      int allowed = 0;
+      for (Future<Integer> future : futures) {
+        allowed += future.get();
+      }
+      assertEquals(100, allowed);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCleanup() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(2, 1);
+    assertTrue(limiter.isAccessOkay("192.168.10.1"));
+    assertTrue(limiter.isAccessOkay("192.168.10.2"));
+    assertEquals(2, limiter.getTrackedAddressCount());
+    Thread.sleep(1100);
+    assertTrue(limiter.isAccessOkay("192.168.10.3"));
+    assertEquals(1, limiter.getTrackedAddressCount());
+  }
+
+  @Test
+  public void testSpecialLimits() {
+    assertFalse(new RequestLimiter(0, 10).isAccessOkay("192.168.10.1"));
+    final RequestLimiter noPeriod = new RequestLimiter(1, 0);
+    assertTrue(noPeriod.isAccessOkay("192.168.10.1"));
+    assertTrue(noPeriod.isAccessOkay("192.168.10.1"));
+  }
+
 }
@@ -0,0 +1,126 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+import org.languagetool.CheckTimingListener;
+import org.languagetool.Language;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.Element;
+import org.languagetool.rules.patterns.PatternRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ServerMetricsTest {
+
+  @Test
+  public void testHistogram() {
+    final Histogram histogram = new Histogram(10, 100);
+    histogram.observe(5);
+    histogram.observe(10);
+    histogram.observe(50);
+    histogram.observe(1000);
+    assertArrayEquals(new long[]{2, 3, 4}, histogram.getCumulativeCounts());
+    assertEquals(4, histogram.getCount());
+    assertEquals(1065, histogram.getSum());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHistogramWithUnorderedBounds() {
+    new Histogram(100, 10);
+  }
+
+  @Test
+  public void testMetricsAsText() {
+    final ServerMetrics metrics = new ServerMetrics();
+    metrics.observePhase(Language.DEMO, ServerMetrics.PHASE_CHECK, TimeUnit.MILLISECONDS.toNanos(30));
+    metrics.observePhase(Language.DEMO, ServerMetrics.PHASE_CHECK, TimeUnit.MILLISECONDS.toNanos(3000));
+    metrics.observeTextLength(Language.DEMO, 500);
+    metrics.countRequest("check", 200);
+    metrics.countRequest("check", 500);
+    final PatternRule rule = new PatternRule("FAKE_ID", Language.DEMO,
+            Collections.singletonList(new Element("foo", true, false, false)), "description", "message", "short message");
+    metrics.countRuleMatches(Arrays.asList(new RuleMatch(rule, 0, 2, "msg"), new RuleMatch(rule, 3, 5, "msg")));
+
+    final String text = metrics.getMetricsAsText();
+    final String labels = "language=\"" + Language.DEMO.getShortNameWithVariant() + "\",phase=\"check\"";
+    assertTrue(text, text.contains("# TYPE languagetool_check_phase_duration_seconds histogram\n"));
+    assertTrue(text, text.contains("languagetool_check_phase_duration_seconds_bucket{" + labels + ",le=\"0.025\"} 0\n"));
+    assertTrue(text, text.contains("languagetool_check_phase_duration_seconds_bucket{" + labels + ",le=\"0.05\"} 1\n"));
+    assertTrue(text, text.contains("languagetool_check_phase_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 2\n"));
+    assertTrue(text, text.contains("languagetool_check_phase_duration_seconds_sum{" + labels + "} 3.03\n"));
+    assertTrue(text, text.contains("languagetool_check_phase_duration_seconds_count{" + labels + "} 2\n"));
+    assertTrue(text, text.contains("languagetool_text_length_chars_bucket{language=\"" + Language.DEMO.getShortNameWithVariant() + "\",le=\"1000.0\"} 1\n"));
+    assertTrue(text, text.contains("languagetool_requests_total{type=\"check\",status=\"500\"} 1\n"));
+    assertTrue(text, text.contains("languagetool_rule_matches_total{rule=\"FAKE_ID\"} 2\n"));
+    assertTrue(text, text.contains("jvm_memory_bytes_used{area=\"heap\"} "));
+    assertFalse(text, text.contains("languagetool_cache_entries"));
+
+    assertEquals(2, metrics.getRequestCount());
+    assertEquals(1, metrics.getServerErrorCount());
+    assertEquals(2, metrics.getCheckCount());
+    assertEquals(1515.0, metrics.getAverageCheckTimeMillis(), 0.01);
+    assertEquals(Long.valueOf(2), metrics.getRuleMatchCounts().get("FAKE_ID"));
+  }
+
+  @Test
+  public void testTimingListener() {
+    final ServerMetrics metrics = new ServerMetrics();
+    final CheckTimingListener listener = metrics.createTimingListener(Language.DEMO);
+    listener.phaseStarted(CheckTimingListener.Phase.RULE_MATCHING);
+    listener.phaseFinished(CheckTimingListener.Phase.RULE_MATCHING, TimeUnit.MILLISECONDS.toNanos(20));
+    final PatternRule rule = new PatternRule("FAKE_ID", Language.DEMO,
+            Collections.singletonList(new Element("foo", true, false, false)), "description", "message", "short message");
+    listener.ruleFinished(rule, TimeUnit.MILLISECONDS.toNanos(3), 0);
+    final String text = metrics.getMetricsAsText();
+    assertTrue(text, text.contains("languagetool_check_phase_duration_seconds_count{language=\"" + Language.DEMO.getShortNameWithVariant()
+            + "\",phase=\"rule_matching\"} 1\n"));
+    // the sampled time is extrapolated to all sentences:
+    assertEquals(Long.valueOf(3 * ServerMetrics.RULE_SAMPLE_INTERVAL), metrics.getRuleTimeMillis().get("FAKE_ID"));
+  }
+
+  @Test
+  public void testRuleSamplingAcrossListeners() {
+    final ServerMetrics metrics = new ServerMetrics();
+    int sampled = 0;
+    for (int i = 0; i < 2 * ServerMetrics.RULE_SAMPLE_INTERVAL; i++) {
+      // one listener per request, each checking a single sentence:
+      if (metrics.createTimingListener(Language.DEMO).sampleRules()) {
+        sampled++;
+      }
+    }
+    assertEquals(2, sampled);
+  }
+
+  @Test
+  public void testCacheMetrics() {
+    final ServerMetrics metrics = new ServerMetrics();
+    final CheckResultCache cache = new CheckResultCache(100000, 60000);
+    metrics.setCheckResultCache(cache);
+    cache.get(CheckResultCache.createKey(Arrays.asList("de", "my text")));
+    final String text = metrics.getMetricsAsText();
+    assertTrue(text, text.contains("languagetool_cache_misses_total 1\n"));
+    assertEquals(0.0, metrics.getCacheHitRate(), 0.001);
+  }
+
+}
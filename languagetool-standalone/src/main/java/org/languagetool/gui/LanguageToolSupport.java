@@ -74,13 +74,13 @@ import javax.swing.text.Highlighter;
 import javax.swing.text.JTextComponent;
 import javax.swing.text.Position;
 import javax.swing.text.View;
-import org.apache.tika.language.LanguageIdentifier;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.MultiThreadedJLanguageTool;
+import org.languagetool.language.DetectedLanguage;
+import org.languagetool.language.LanguageDetector;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
-import org.languagetool.tools.LanguageIdentifierTools;
 
 /**
  * Support for associating a LanguageTool instance and a JTextComponent
@@ -226,7 +226,7 @@ class LanguageToolSupport {
   }
 
   private void init() {
-    LanguageIdentifierTools.addLtProfiles();
+    LanguageDetector.getDefaultInstance();  // load the language profiles now, not when checking
     try {
       config = new Configuration(new File(System.getProperty("user.home")), CONFIG_FILE, null);
     } catch (IOException ex) {
@@ -543,11 +543,11 @@ class LanguageToolSupport {
   }
 
   Language autoDetectLanguage(String text) {
-    final LanguageIdentifier langIdentifier = new LanguageIdentifier(text);
+    final DetectedLanguage detectedLanguage = LanguageDetector.getDefaultInstance().detectLanguage(text);
     Language lang;
-    try {
-      lang = Language.getLanguageForShortName(langIdentifier.getLanguage());
-    } catch (IllegalArgumentException e) {
+    if (detectedLanguage != null) {
+      lang = detectedLanguage.getLanguage();
+    } else {
       lang = Language.getLanguageForLocale(Locale.getDefault());
     }
     if (lang.hasVariant()) {
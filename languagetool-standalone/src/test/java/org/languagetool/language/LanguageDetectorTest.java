@@ -0,0 +1,98 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2014 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import junit.framework.TestCase;
+import org.languagetool.Language;
+
+import java.util.Arrays;
+
+public class LanguageDetectorTest extends TestCase {
+
+  private final LanguageDetector detector = LanguageDetector.getDefaultInstance();
+
+  public void testDetectLanguage() {
+    assertDetected("en", "This is a longer English text that should be detected without any problems at all, I hope.");
+    assertDetected("de", "Das ist ein längerer deutscher Text, der ohne Probleme erkannt werden sollte, hoffe ich.");
+    assertDetected("fr", "Bonjour tout le monde");
+    assertDetected("pl", "To jest polski tekst, który powinien zostać rozpoznany bez żadnych problemów.");
+    assertDetected("uk", "Це український текст, який має бути розпізнаний без проблем.");
+    // these use LanguageTool's profiles, not Tika's:
+    assertDetected("ca", "Aquest és un text en català que hauria de ser detectat sense cap problema.");
+    assertDetected("tl", "Ang tekstong ito ay nasa wikang Tagalog at dapat makilala nang walang problema.");
+  }
+
+  public void testNoLetters() {
+    assertNull(detector.detectLanguage(""));
+    assertNull(detector.detectLanguage("12345 !!!"));
+  }
+
+  public void testUnsupportedLanguage() {
+    // Finnish and Hungarian are known to Tika, but not to LanguageTool, so callers fall back to their default:
+    assertNull(detector.detectLanguage("Tämä on suomenkielinen teksti, jonka pitäisi tunnistaa ilman mitään ongelmia."));
+    assertNull(detector.detectLanguage("Ez egy magyar nyelvű szöveg, amelyet gond nélkül fel kellene ismerni."));
+    // no trigram in common with any profile:
+    assertNull(detector.detectLanguage("ꦧꦱꦗꦮ ꦲꦏ꧀ꦱꦫ"));
+  }
+
+  public void testConfidence() {
+    final DetectedLanguage shortText = detector.detectLanguage("Das ist gut");
+    final DetectedLanguage longText = detector.detectLanguage("This is a longer English text that should be detected without any problems.");
+    assertTrue(shortText.getConfidence() >= 0);
+    assertTrue(longText.getConfidence() <= 1);
+    assertTrue(shortText.getConfidence() < longText.getConfidence());
+    final LanguageDetector singleLanguageDetector = new LanguageDetector(Arrays.asList(Language.getLanguageForShortName("en")), 100, 0);
+    assertEquals("en", singleLanguageDetector.detectLanguage("This is a text").getLanguage().getShortName());
+    // the profiles of languages that LanguageTool doesn't support are still used:
+    assertNull(singleLanguageDetector.detectLanguage("Tämä on suomenkielinen teksti."));
+  }
+
+  public void testOnlyPrefixIsUsed() {
+    final LanguageDetector prefixDetector = new LanguageDetector(Arrays.asList(Language.REAL_LANGUAGES), 100, 0);
+    final StringBuilder text = new StringBuilder("Das ist ein längerer deutscher Text, der ohne Probleme erkannt werden sollte. ");
+    for (int i = 0; i < 20; i++) {
+      text.append("This is a longer English text that should be detected without any problems. ");
+    }
+    assertEquals("de", prefixDetector.detectLanguage(text.toString()).getLanguage().getShortName());
+    assertEquals("en", detector.detectLanguage(text.toString()).getLanguage().getShortName());
+  }
+
+  public void testCache() {
+    final String text = "Das ist ein Text, dessen Ergebnis im Cache landen sollte.";
+    assertSame(detector.detectLanguage(text), detector.detectLanguage(text));
+    final LanguageDetector uncachedDetector = new LanguageDetector(Arrays.asList(Language.REAL_LANGUAGES), 100, 0);
+    assertNotSame(uncachedDetector.detectLanguage(text), uncachedDetector.detectLanguage(text));
+  }
+
+  public void testInvalidSampleLength() {
+    try {
+      new LanguageDetector(Arrays.asList(Language.REAL_LANGUAGES), 0, 10);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  private void assertDetected(String expectedLanguageCode, String text) {
+    final DetectedLanguage detected = detector.detectLanguage(text);
+    assertEquals(detected.toString(), expectedLanguageCode, detected.getLanguage().getShortName());
+    assertTrue(detected.toString(), detected.getConfidence() > 0);
+  }
+
+}
@@ -21,7 +21,9 @@ package org.languagetool.tagging;
 import junit.framework.TestCase;
 import org.languagetool.JLanguageTool;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 public class ManualTaggerTest extends TestCase {
@@ -38,5 +40,20 @@ public class ManualTaggerTest extends TestCase {
     // lookup is case sensitive:
     assertNull(tagger.lookup("ableitungen"));
   }
+
+  public void testInvalidLines() throws IOException {
+    assertInvalid("# comment\nfoo\tbar\n", "test.txt, line 2");
+    assertInvalid("foo\tbar\tPOS\tmore\n", "test.txt, line 1");
+    assertInvalid("foo\tbar\tPOS\n\nfoo\tbar\t\n", "Empty POS tag when loading manual tagger dictionary, test.txt, line 3");
+  }
+
+  private void assertInvalid(String dictionary, String expectedMessagePart) {
+    try {
+      new ManualTagger(new ByteArrayInputStream(dictionary.getBytes(StandardCharsets.UTF_8)), "test.txt");
+      fail("Invalid dictionary was accepted: " + dictionary);
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage(), expected.getMessage().contains(expectedMessagePart));
+    }
+  }
   
 }
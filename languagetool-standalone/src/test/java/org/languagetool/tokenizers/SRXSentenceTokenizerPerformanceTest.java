@@ -0,0 +1,88 @@
+/* LanguageTool, a natural language style checker 
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tokenizers;
+
+import net.sourceforge.segment.TextIterator;
+import net.sourceforge.segment.srx.SrxDocument;
+import net.sourceforge.segment.srx.SrxTextIterator;
+import org.languagetool.Language;
+import org.languagetool.tools.StringTools;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare the per-call overhead of sentence splitting with {@link SrxTextIterator}
+ * and with the pre-compiled {@link SrxSegmenter}. Not a unit test, for interactive use only.
+ */
+final class SRXSentenceTokenizerPerformanceTest {
+
+  private static final int RUNS = 20000;
+
+  private SRXSentenceTokenizerPerformanceTest() {
+  }
+
+  private void run(String code, String text, int runs) {
+    final SrxDocument document = SRXSentenceTokenizer.getSrxDocument();
+    final SrxSegmenter segmenter = new SrxSegmenter(document, code);
+    for (int warmup = 0; warmup < 2; warmup++) {
+      long startTime = System.nanoTime();
+      int segments = 0;
+      for (int i = 0; i < runs; i++) {
+        final List<String> result = new ArrayList<>();
+        final TextIterator iterator = new SrxTextIterator(document, code, text);
+        while (iterator.hasNext()) {
+          result.add(iterator.next());
+        }
+        segments += result.size();
+      }
+      final long iteratorTime = System.nanoTime() - startTime;
+      startTime = System.nanoTime();
+      for (int i = 0; i < runs; i++) {
+        segments -= segmenter.segment(text).size();
+      }
+      final long segmenterTime = System.nanoTime() - startTime;
+      if (segments != 0) {
+        throw new IllegalStateException("Different segmentation results");
+      }
+      System.out.printf("%s, %d chars: SrxTextIterator %.1fµs, SrxSegmenter %.1fµs per call%n", code, text.length(),
+              iteratorTime / 1000.0 / runs, segmenterTime / 1000.0 / runs);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    final SRXSentenceTokenizerPerformanceTest test = new SRXSentenceTokenizerPerformanceTest();
+    final String shortText = "This is a test. And another one.";
+    final StringBuilder longText = new StringBuilder();
+    if (args.length > 0) {
+      longText.append(StringTools.readStream(new FileInputStream(args[0]), "utf-8"));
+    } else {
+      for (int i = 0; i < 200; i++) {
+        longText.append("This is sentence number ").append(i).append(", e.g. with an abbreviation. ");
+      }
+    }
+    for (Language language : new Language[] {Language.getLanguageForShortName("en"), Language.getLanguageForShortName("de")}) {
+      final String code = language.getShortName() + "_two";
+      test.run(code, shortText, RUNS);
+      test.run(code, longText.toString(), RUNS / 100);
+    }
+  }
+
+}
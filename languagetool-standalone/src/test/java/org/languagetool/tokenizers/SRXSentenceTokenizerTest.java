@@ -19,8 +19,14 @@
 package org.languagetool.tokenizers;
 
 import junit.framework.TestCase;
+import net.sourceforge.segment.TextIterator;
+import net.sourceforge.segment.srx.SrxTextIterator;
 import org.languagetool.Language;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class SRXSentenceTokenizerTest extends TestCase {
 
   public void testOfficeFootnoteTokenize() {
@@ -39,4 +45,29 @@ public class SRXSentenceTokenizerTest extends TestCase {
     }
   }
 
+  public void testSameResultAsSrxTextIterator() {
+    final List<String> inputs = Arrays.asList("", " ", "A sentence", "A sentence. And another one.",
+            "This is e.g. Mr. Smith, who lives at 4 Main St. in the U.S.A. He's nice! Isn't he? Yes...",
+            "Der Bau z.B. war am 12. Januar fertig. Die Kosten: ca. 5 Mio. Euro. \"Wirklich?\" Ja.",
+            "Line one\nline two\n\nline three.  Another sentence.\r\n\r\nAnd (one) more.");
+    for (Language language : Language.REAL_LANGUAGES) {
+      if (language.getSentenceTokenizer().getClass() != SRXSentenceTokenizer.class) {
+        continue;
+      }
+      final SRXSentenceTokenizer tokenizer = new SRXSentenceTokenizer(language);
+      for (boolean singleLineBreaksMarksParagraph : new boolean[] {false, true}) {
+        tokenizer.setSingleLineBreaksMarksParagraph(singleLineBreaksMarksParagraph);
+        final String code = language.getShortName() + (singleLineBreaksMarksParagraph ? "_one" : "_two");
+        for (String input : inputs) {
+          final List<String> expected = new ArrayList<>();
+          final TextIterator iterator = new SrxTextIterator(SRXSentenceTokenizer.getSrxDocument(), code, input);
+          while (iterator.hasNext()) {
+            expected.add(iterator.next());
+          }
+          assertEquals("Different result for " + code + ": '" + input + "'", expected, tokenizer.tokenize(input));
+        }
+      }
+    }
+  }
+
 }